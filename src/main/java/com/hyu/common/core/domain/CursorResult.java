@@ -0,0 +1,74 @@
+package com.hyu.common.core.domain;
+
+import com.hyu.common.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 游标分页响应结果
+ * <p>
+ * 不返回总数，客户端以 nextCursor 请求下一页，hasMore 为 false 时表示已到末页。
+ *
+ * @author hyu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorResult<T> {
+
+    /** 列表数据 */
+    private List<T> rows;
+
+    /** 下一页游标，末页为null */
+    private String nextCursor;
+
+    /** 是否还有下一页 */
+    private Boolean hasMore;
+
+    public static <T> CursorResult<T> build(List<T> rows, String nextCursor) {
+        return new CursorResult<>(rows, nextCursor, nextCursor != null);
+    }
+
+    /**
+     * 编码游标，位置为最后一条记录的 (创建时间, ID)，创建时间可以为空
+     */
+    public static String encodeCursor(Date createTime, Long id) {
+        String position = (createTime == null ? "" : String.valueOf(createTime.getTime())) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @return 游标位置
+     */
+    public static Position decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            String time = position.substring(0, separator);
+            return new Position(time.isEmpty() ? null : new Date(Long.parseLong(time)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 游标位置：上一页最后一条记录的创建时间（可能为空）和ID
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Position {
+
+        private Date createTime;
+
+        private Long id;
+    }
+}
@@ -108,6 +108,11 @@ public class LoginUser implements UserDetails {
      */
     private String userKey;
 
+    /**
+     * token版本号
+     */
+    private long tokenVersion;
+
     public LoginUser(SysUser user, Set<String> permissions) {
         this.userId = user.getUserId();
         this.username = user.getUsername();
@@ -125,6 +130,10 @@ public class LoginUser implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        // 共享权限集合已预先构建授权对象
+        if (permissions instanceof PermissionSet) {
+            return ((PermissionSet) permissions).getAuthorities();
+        }
         // 将权限字符串转换为GrantedAuthority对象
         if (permissions != null && !permissions.isEmpty()) {
             return permissions.stream()
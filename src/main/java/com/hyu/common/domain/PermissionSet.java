@@ -0,0 +1,137 @@
+package com.hyu.common.domain;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 不可变权限集合
+ * <p>
+ * 以位图保存权限，位下标由权限目录统一分配，同一用户类型的所有登录用户共享同一实例。
+ *
+ * @author hyu
+ */
+public final class PermissionSet extends AbstractSet<String> {
+
+    /**
+     * 权限字符串到位下标的映射（由权限目录共享）
+     */
+    private final Map<String, Integer> index;
+
+    /**
+     * 位下标到权限字符串的映射（由权限目录共享）
+     */
+    private final String[] names;
+
+    private final BitSet bits;
+
+    private final int size;
+
+    private final List<GrantedAuthority> authorities;
+
+    public PermissionSet(Map<String, Integer> index, String[] names, BitSet bits) {
+        this.index = index;
+        this.names = names;
+        this.bits = (BitSet) bits.clone();
+        this.size = this.bits.cardinality();
+
+        List<GrantedAuthority> list = new ArrayList<>(size);
+        for (int i = this.bits.nextSetBit(0); i >= 0; i = this.bits.nextSetBit(i + 1)) {
+            list.add(new SimpleGrantedAuthority(names[i]));
+        }
+        this.authorities = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 按位下标判断是否具备权限
+     *
+     * @param bit 位下标，小于0表示目录中不存在的权限
+     * @return 是否具备
+     */
+    public boolean containsBit(int bit) {
+        return bit >= 0 && bits.get(bit);
+    }
+
+    /**
+     * 是否具备任意一个权限
+     *
+     * @param bitArray 位下标数组
+     * @return 结果
+     */
+    public boolean containsAnyBit(int[] bitArray) {
+        for (int bit : bitArray) {
+            if (containsBit(bit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否具备全部权限
+     *
+     * @param bitArray 位下标数组
+     * @return 结果
+     */
+    public boolean containsAllBits(int[] bitArray) {
+        for (int bit : bitArray) {
+            if (!containsBit(bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 预先构建的授权对象列表
+     *
+     * @return 不可变列表
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        Integer bit = index.get(o);
+        return bit != null && bits.get(bit);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = bits.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                String name = names[next];
+                next = bits.nextSetBit(next + 1);
+                return name;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
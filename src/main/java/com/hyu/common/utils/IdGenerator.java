@@ -0,0 +1,252 @@
+package com.hyu.common.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 分布式唯一编号生成器（Snowflake）
+ * <p>
+ * 64位编号结构：41位毫秒时间戳（相对 2024-01-01）+ 10位节点号 + 12位序列号。
+ * 节点内通过CAS推进“时间戳+序列号”状态，无锁；多节点通过不同节点号保证全局唯一，
+ * 因此账单、流水、收据、投诉、工单编号生成后无需再查库校验唯一性。
+ * <p>
+ * 时钟回拨时不等待也不报错，继续沿用已发出的最大时间戳分配序列号，
+ * 序列号用尽则逻辑时间戳前进1毫秒，保证编号单调递增。
+ * <p>
+ * 节点号取自配置 id-generator.node-id；未配置时从Redis租用一个空闲节点号。
+ * 无论哪种方式，启动时都在Redis中登记租约并定期续期，节点号已被其他实例占用则启动失败；
+ * 运行中租约被他人占用时停止发号，避免两个实例以相同节点号生成重复编号。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class IdGenerator {
+
+    /**
+     * 起始时间 2024-01-01 00:00:00 UTC
+     */
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String LEASE_KEY_PREFIX = "id-generator:node:";
+
+    private static final String LEASE_SEQ_KEY = "id-generator:node-seq";
+
+    /**
+     * 节点号未被占用或已由本实例持有时占用并续期，返回1；被其他实例占用时返回0
+     */
+    private static final DefaultRedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "if redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX') then\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "return 0", Long.class);
+
+    /**
+     * 仅当租约仍由本实例持有时释放
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "  return redis.call('DEL', KEYS[1])\n"
+                    + "end\n"
+                    + "return 0", Long.class);
+
+    /**
+     * 节点号，未配置（小于0）时从Redis租用
+     */
+    @Value("${id-generator.node-id:-1}")
+    private long nodeId;
+
+    /**
+     * 节点号租约时长（秒），每10秒续期一次
+     */
+    @Value("${id-generator.lease-seconds:60}")
+    private long leaseSeconds = 60;
+
+    /**
+     * 测试环境等无Redis时为空，此时必须配置节点号
+     */
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 本实例的租约标识
+     */
+    private final String leaseToken = UUID.randomUUID().toString();
+
+    /**
+     * 是否持有节点号租约
+     */
+    private volatile boolean leased;
+
+    /**
+     * 租约已被其他实例占用，停止发号
+     */
+    private volatile boolean leaseLost;
+
+    private final LongSupplier clock;
+
+    /**
+     * 上次分配的状态：(相对时间戳 << 序列号位数) | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public IdGenerator() {
+        this.clock = System::currentTimeMillis;
+    }
+
+    /**
+     * 指定节点号和时钟，供单元测试使用
+     */
+    IdGenerator(long nodeId, LongSupplier clock) {
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (leaseSeconds < 30) {
+            throw new IllegalStateException("id-generator.lease-seconds 不能小于30：" + leaseSeconds);
+        }
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("id-generator.node-id 超出范围 0~" + MAX_NODE_ID + "：" + nodeId);
+        }
+        if (nodeId >= 0) {
+            if (redisTemplate == null) {
+                log.info("编号生成器使用配置的节点号：{}（未启用Redis，不检查节点号冲突）", nodeId);
+            } else if (!tryLease(nodeId)) {
+                throw new IllegalStateException("id-generator.node-id=" + nodeId + " 已被其他实例占用，请为每个节点配置不同的节点号");
+            } else {
+                log.info("编号生成器使用配置的节点号：{}", nodeId);
+            }
+            return;
+        }
+        if (redisTemplate == null) {
+            throw new IllegalStateException("未配置 id-generator.node-id 且未启用Redis，无法分配节点号");
+        }
+        nodeId = leaseFreeNodeId();
+        log.info("编号生成器从Redis租用节点号：{}", nodeId);
+    }
+
+    /**
+     * 续期节点号租约
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void renewLease() {
+        if (!leased || leaseLost) {
+            return;
+        }
+        try {
+            if (!tryLease(nodeId)) {
+                leaseLost = true;
+                log.error("节点号 {} 的租约已被其他实例占用，停止生成编号", nodeId);
+            }
+        } catch (Exception e) {
+            // Redis暂时不可用时继续发号，租约在过期前还有多次续期机会
+            log.warn("续期节点号 {} 的租约失败", nodeId, e);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        if (!leased || leaseLost) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, new StringRedisSerializer(), new GenericToStringSerializer<>(Long.class),
+                    Collections.singletonList(LEASE_KEY_PREFIX + nodeId), leaseToken);
+        } catch (Exception e) {
+            // 租约在过期后自动释放
+            log.warn("释放节点号 {} 的租约失败", nodeId, e);
+        }
+    }
+
+    /**
+     * 生成下一个唯一编号
+     *
+     * @return 编号
+     */
+    public long nextId() {
+        if (leaseLost) {
+            throw new IllegalStateException("节点号 " + nodeId + " 已被其他实例占用，停止生成编号");
+        }
+        long now = clock.getAsLong() - EPOCH;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            long lastTime = prev >>> SEQUENCE_BITS;
+            if (now > lastTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 同一毫秒或时钟回拨：沿用最大时间戳递增序列号，溢出时自然进位到下一毫秒
+                next = prev + 1;
+                if (lastTime - now > 1000 && (prev & SEQUENCE_MASK) == 0) {
+                    log.warn("检测到时钟回拨 {} ms，继续使用逻辑时钟分配编号", lastTime - now);
+                }
+            }
+        } while (!state.compareAndSet(prev, next));
+
+        long time = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return (time << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * 生成带前缀的业务编号，如 BIL7160213456789012345
+     *
+     * @param prefix 业务前缀
+     * @return 业务编号
+     */
+    public String nextNo(String prefix) {
+        return prefix + nextId();
+    }
+
+    /**
+     * 从Redis计数器给出的位置开始依次尝试，租用第一个空闲的节点号
+     */
+    private long leaseFreeNodeId() {
+        Long seq = redisTemplate.opsForValue().increment(LEASE_SEQ_KEY);
+        long start = seq == null ? 0L : seq;
+        for (long i = 0; i <= MAX_NODE_ID; i++) {
+            long candidate = (start + i) & MAX_NODE_ID;
+            if (tryLease(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("节点号 0~" + MAX_NODE_ID + " 均已被占用，无法启动编号生成器");
+    }
+
+    private boolean tryLease(long candidate) {
+        Long result = redisTemplate.execute(LEASE_SCRIPT, new StringRedisSerializer(),
+                new GenericToStringSerializer<>(Long.class), Collections.singletonList(LEASE_KEY_PREFIX + candidate),
+                leaseToken, String.valueOf(leaseSeconds * 1000));
+        leased = result != null && result == 1L;
+        return leased;
+    }
+}
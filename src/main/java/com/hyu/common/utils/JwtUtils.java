@@ -1,11 +1,15 @@
 package com.hyu.common.utils;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.crypto.SecureUtil;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
@@ -39,6 +43,12 @@ public class JwtUtils {
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
 
+    /**
+     * 已验证Claims缓存的最大条目数
+     */
+    @Value("${jwt.claims-cache-size:10000}")
+    private int claimsCacheSize;
+
     /**
      * 用户标识
      */
@@ -47,12 +57,37 @@ public class JwtUtils {
     private static final String CLAIM_KEY_REAL_NAME = "realName";
     private static final String CLAIM_KEY_USER_TYPE = "userType";
     private static final String CLAIM_KEY_DEPT_ID = "deptId";
+    private static final String CLAIM_KEY_TOKEN_VERSION = "ver";
+
+    /**
+     * 签名密钥，启动时构建一次
+     */
+    private SecretKey secretKey;
+
+    /**
+     * 解析器（线程安全），启动时构建一次
+     */
+    private JwtParser jwtParser;
+
+    /**
+     * 已验证Claims缓存，key为token的SHA-256摘要，条目在token过期时失效
+     */
+    private LRUCache<String, Claims> claimsCache;
+
+    @PostConstruct
+    public void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        claimsCache = CacheUtil.newLRUCache(claimsCacheSize);
+    }
 
     /**
      * 获取密钥
      */
     private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return secretKey;
     }
 
     /**
@@ -66,7 +101,23 @@ public class JwtUtils {
      * @return token
      */
     public String generateToken(Long userId, String username, String realName, Integer userType, Long deptId) {
+        return generateToken(userId, username, realName, userType, deptId, 0L);
+    }
+
+    /**
+     * 生成token
+     *
+     * @param userId       用户ID
+     * @param username     用户名
+     * @param realName     真实姓名
+     * @param userType     用户类型
+     * @param deptId       部门ID
+     * @param tokenVersion 用户当前的token版本号
+     * @return token
+     */
+    public String generateToken(Long userId, String username, String realName, Integer userType, Long deptId, long tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_KEY_TOKEN_VERSION, tokenVersion);
         claims.put(CLAIM_KEY_USER_ID, userId);
         claims.put(CLAIM_KEY_USERNAME, username);
         claims.put(CLAIM_KEY_REAL_NAME, realName);
@@ -100,8 +151,20 @@ public class JwtUtils {
      * @return 刷新令牌
      */
     public String generateRefreshToken(Long userId) {
+        return generateRefreshToken(userId, 0L);
+    }
+
+    /**
+     * 生成刷新令牌
+     *
+     * @param userId       用户ID
+     * @param tokenVersion 用户当前的token版本号
+     * @return 刷新令牌
+     */
+    public String generateRefreshToken(Long userId, long tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put(CLAIM_KEY_USER_ID, userId);
+        claims.put(CLAIM_KEY_TOKEN_VERSION, tokenVersion);
         claims.put("type", "refresh");
 
         Date now = new Date();
@@ -123,9 +186,7 @@ public class JwtUtils {
      */
     public Claims getClaimsFromToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSecretKey())
-                    .build()
+            return jwtParser
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -146,6 +207,99 @@ public class JwtUtils {
         }
     }
 
+    /**
+     * 解析并验证token，同一token只验证一次签名
+     * <p>
+     * 验证通过的Claims按token摘要缓存至token过期，返回的Claims为共享实例，调用方不应修改。
+     *
+     * @param token token
+     * @return Claims
+     */
+    public Claims parseOnce(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new RuntimeException("Token参数错误");
+        }
+        String cacheKey = getTokenId(token);
+        Claims claims = claimsCache.get(cacheKey, false);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = getClaimsFromToken(token);
+        Date expirationDate = claims.getExpiration();
+        if (expirationDate != null) {
+            long ttl = expirationDate.getTime() - System.currentTimeMillis();
+            if (ttl > 0) {
+                claimsCache.put(cacheKey, claims, ttl);
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * 获取token标识（token的SHA-256摘要），用作claims缓存的键，避免以完整token作为键
+     *
+     * @param token token
+     * @return token标识
+     */
+    public String getTokenId(String token) {
+        return SecureUtil.sha256(token);
+    }
+
+    /**
+     * 从Claims中获取用户ID
+     *
+     * @param claims Claims
+     * @return 用户ID
+     */
+    public Long getUserId(Claims claims) {
+        return Long.valueOf(claims.get(CLAIM_KEY_USER_ID).toString());
+    }
+
+    /**
+     * 从Claims中获取用户名
+     *
+     * @param claims Claims
+     * @return 用户名
+     */
+    public String getUsername(Claims claims) {
+        return claims.get(CLAIM_KEY_USERNAME).toString();
+    }
+
+    /**
+     * 从Claims中获取token版本号，未携带版本号的token视为0
+     *
+     * @param claims Claims
+     * @return token版本号
+     */
+    public long getTokenVersion(Claims claims) {
+        Object version = claims.get(CLAIM_KEY_TOKEN_VERSION);
+        return version instanceof Number ? ((Number) version).longValue() : 0L;
+    }
+
+    /**
+     * 判断Claims是否已过期
+     * <p>
+     * 已验证Claims缓存至token过期，命中缓存时仍需按当前时间检查。
+     *
+     * @param claims Claims
+     * @return 是否过期
+     */
+    public boolean isExpired(Claims claims) {
+        Date expirationDate = claims.getExpiration();
+        return expirationDate != null && expirationDate.before(new Date());
+    }
+
+    /**
+     * 获取Claims剩余有效时间（秒）
+     *
+     * @param claims Claims
+     * @return 剩余有效时间
+     */
+    public Long getExpirationTime(Claims claims) {
+        return (claims.getExpiration().getTime() - System.currentTimeMillis()) / 1000;
+    }
+
     /**
      * 从token中获取用户ID
      *
@@ -153,8 +307,7 @@ public class JwtUtils {
      * @return 用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return Long.valueOf(claims.get(CLAIM_KEY_USER_ID).toString());
+        return getUserId(parseOnce(token));
     }
 
     /**
@@ -164,8 +317,7 @@ public class JwtUtils {
      * @return 用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.get(CLAIM_KEY_USERNAME).toString();
+        return getUsername(parseOnce(token));
     }
 
     /**
@@ -175,7 +327,7 @@ public class JwtUtils {
      * @return 真实姓名
      */
     public String getRealNameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseOnce(token);
         return claims.get(CLAIM_KEY_REAL_NAME).toString();
     }
 
@@ -186,7 +338,7 @@ public class JwtUtils {
      * @return 用户类型
      */
     public Integer getUserTypeFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseOnce(token);
         return Integer.valueOf(claims.get(CLAIM_KEY_USER_TYPE).toString());
     }
 
@@ -197,7 +349,7 @@ public class JwtUtils {
      * @return 部门ID
      */
     public Long getDeptIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseOnce(token);
         Object deptId = claims.get(CLAIM_KEY_DEPT_ID);
         return deptId != null ? Long.valueOf(deptId.toString()) : null;
     }
@@ -209,7 +361,7 @@ public class JwtUtils {
      * @return 过期时间
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseOnce(token);
         return claims.getExpiration();
     }
 
@@ -221,8 +373,7 @@ public class JwtUtils {
      */
     public Boolean isTokenExpired(String token) {
         try {
-            Date expiration = getExpirationDateFromToken(token);
-            return expiration.before(new Date());
+            return isExpired(parseOnce(token));
         } catch (Exception e) {
             return true;
         }
@@ -237,8 +388,8 @@ public class JwtUtils {
      */
     public Boolean validateToken(String token, String username) {
         try {
-            String tokenUsername = getUsernameFromToken(token);
-            return tokenUsername.equals(username) && !isTokenExpired(token);
+            Claims claims = parseOnce(token);
+            return getUsername(claims).equals(username) && !isExpired(claims);
         } catch (Exception e) {
             return false;
         }
@@ -252,7 +403,7 @@ public class JwtUtils {
      */
     public Boolean isRefreshToken(String token) {
         try {
-            Claims claims = getClaimsFromToken(token);
+            Claims claims = parseOnce(token);
             return "refresh".equals(claims.get("type"));
         } catch (Exception e) {
             return false;
@@ -282,8 +433,8 @@ public class JwtUtils {
      */
     public String refreshToken(String refreshToken) {
         try {
-            Claims claims = getClaimsFromToken(refreshToken);
-            if (!isRefreshToken(refreshToken)) {
+            Claims claims = parseOnce(refreshToken);
+            if (!"refresh".equals(claims.get("type"))) {
                 throw new RuntimeException("无效的刷新令牌");
             }
 
@@ -293,7 +444,7 @@ public class JwtUtils {
             Integer userType = Integer.valueOf(claims.get(CLAIM_KEY_USER_TYPE).toString());
             Long deptId = Long.valueOf(claims.get(CLAIM_KEY_DEPT_ID).toString());
 
-            return generateToken(userId, username, realName, userType, deptId);
+            return generateToken(userId, username, realName, userType, deptId, getTokenVersion(claims));
         } catch (Exception e) {
             log.error("刷新token失败", e);
             throw new RuntimeException("刷新token失败");
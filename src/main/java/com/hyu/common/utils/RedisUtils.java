@@ -6,7 +6,6 @@ import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
 import org.springframework.data.redis.core.SetOperations;
-import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
@@ -69,6 +68,23 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 键不存在时设置缓存（SET NX EX）
+     *
+     * @param key    键
+     * @param value  值
+     * @param expire 过期时间（秒）
+     * @return 是否设置成功
+     */
+    public boolean setIfAbsent(String key, Object value, long expire) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, expire, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            log.error("Redis设置缓存失败，key：{}，value：{}，expire：{}", key, value, expire, e);
+            throw new RuntimeException("Redis设置缓存失败");
+        }
+    }
+
     /**
      * 获取缓存
      *
@@ -226,6 +242,21 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * Hash操作 - 一次设置多个字段（HMSET，原子写入）
+     *
+     * @param key 键
+     * @param map 字段与值
+     */
+    public void hSetAll(String key, Map<String, ?> map) {
+        try {
+            redisTemplate.opsForHash().putAll(key, map);
+        } catch (Exception e) {
+            log.error("Redis Hash设置失败，key：{}，map：{}", key, map, e);
+            throw new RuntimeException("Redis Hash设置失败");
+        }
+    }
+
     /**
      * Hash操作 - 获取
      *
@@ -332,4 +363,19 @@ public class RedisUtils {
             throw new RuntimeException("Redis Set删除失败");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 发布消息
+     *
+     * @param channel 频道
+     * @param message 消息
+     */
+    public void publish(String channel, Object message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.error("Redis发布消息失败，channel：{}，message：{}", channel, message, e);
+            throw new RuntimeException("Redis发布消息失败");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.hyu.common.utils.excel;
+
+import com.hyu.property.domain.vo.OwnerVO;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 业主Excel导出工具类
+ *
+ * @author hyu
+ */
+public class OwnerExcelUtil {
+
+    private static final String[] HEADERS = {
+        "业主ID", "用户名", "真实姓名", "手机号", "邮箱", "性别", "住户类型",
+        "入住日期", "居住状态", "紧急联系人", "紧急联系电话", "房产", "状态", "创建时间", "备注"
+    };
+
+    private static final int[] COLUMN_WIDTHS = {10, 15, 12, 15, 20, 6, 10, 12, 10, 12, 15, 30, 8, 20, 20};
+
+    /**
+     * 创建流式导出写入器
+     * <p>
+     * 基于 {@link StreamingSheetWriter}，内存中只保留滑动窗口内的行。写入器实现 {@link Consumer}，
+     * 可直接传给 {@code IOwnerService#streamOwnerList} 逐条接收业主。使用完毕须关闭以删除临时文件。
+     *
+     * @param fileName 文件名（同时作为标题）
+     * @return 写入器
+     */
+    public static StreamingWriter streamingWriter(String fileName) {
+        return new StreamingWriter(fileName);
+    }
+
+    /**
+     * 业主流式写入器
+     */
+    public static final class StreamingWriter implements Consumer<OwnerVO>, Closeable {
+
+        private final StreamingSheetWriter writer;
+
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+        private final SimpleDateFormat dateTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        private StreamingWriter(String fileName) {
+            this.writer = new StreamingSheetWriter(fileName, "业主信息", HEADERS, COLUMN_WIDTHS);
+        }
+
+        @Override
+        public void accept(OwnerVO owner) {
+            writer.appendRow(new Object[] {
+                owner.getUserId(),
+                owner.getUsername(),
+                owner.getRealName(),
+                owner.getPhone(),
+                owner.getEmail(),
+                getGenderText(owner.getGender()),
+                getResidentTypeText(owner.getResidentType()),
+                owner.getCheckInDate() != null ? dateFormat.format(owner.getCheckInDate()) : null,
+                getResidentStatusText(owner.getResidentStatus()),
+                owner.getEmergencyContact(),
+                owner.getEmergencyPhone(),
+                getHouseText(owner.getHouseList()),
+                owner.getStatus() == null ? null : (owner.getStatus() == 1 ? "启用" : "禁用"),
+                owner.getCreateTime() != null ? dateTimeFormat.format(owner.getCreateTime()) : null,
+                owner.getRemark()
+            });
+        }
+
+        /**
+         * 已写入的数据行数
+         *
+         * @return 行数
+         */
+        public int getRowCount() {
+            return writer.getRowCount();
+        }
+
+        /**
+         * 输出到HTTP响应
+         *
+         * @param response HTTP响应
+         */
+        public void write(HttpServletResponse response) {
+            writer.write(response);
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+
+    /**
+     * 获取房产文本，多套房产以分号分隔
+     */
+    private static String getHouseText(List<OwnerVO.HouseInfo> houseList) {
+        if (houseList == null || houseList.isEmpty()) {
+            return "";
+        }
+        return houseList.stream()
+                .map(house -> String.join("", nullToEmpty(house.getBuildingName()),
+                        nullToEmpty(house.getUnitName()), nullToEmpty(house.getHouseNo())))
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 获取性别文本
+     */
+    private static String getGenderText(Integer gender) {
+        if (gender == null) return "";
+        switch (gender) {
+            case 0: return "女";
+            case 1: return "男";
+            default: return "未知";
+        }
+    }
+
+    /**
+     * 获取住户类型文本
+     */
+    private static String getResidentTypeText(Integer residentType) {
+        if (residentType == null) return "";
+        switch (residentType) {
+            case 1: return "业主";
+            case 2: return "租户";
+            default: return "未知";
+        }
+    }
+
+    /**
+     * 获取居住状态文本
+     */
+    private static String getResidentStatusText(Integer residentStatus) {
+        if (residentStatus == null) return "";
+        switch (residentStatus) {
+            case 1: return "在住";
+            case 2: return "已搬离";
+            default: return "未知";
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.hyu.common.utils.excel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * 单工作表流式Excel写入器
+ * <p>
+ * 基于 {@link SXSSFWorkbook}，内存中只保留滑动窗口内的行，超出的行写入临时文件。
+ * 创建时写入标题行、空行和表头，之后逐行追加数据。各业务导出工具在此基础上定义列和取值，
+ * 使用完毕须关闭以删除临时文件。
+ *
+ * @author hyu
+ */
+@Slf4j
+public final class StreamingSheetWriter implements Closeable {
+
+    /**
+     * SXSSF内存中保留的行数，超出的行写入临时文件
+     */
+    private static final int ROW_ACCESS_WINDOW = 200;
+
+    /**
+     * 数据起始行（标题、空行、表头之后）
+     */
+    private static final int DATA_START_ROW = 3;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SXSSFWorkbook workbook;
+
+    private final Sheet sheet;
+
+    private final String fileName;
+
+    private final CellStyle dataStyle;
+
+    private int nextRow = DATA_START_ROW;
+
+    /**
+     * @param fileName     文件名（同时作为标题）
+     * @param sheetName    工作表名称
+     * @param headers      表头
+     * @param columnWidths 列宽（字符数）
+     */
+    public StreamingSheetWriter(String fileName, String sheetName, String[] headers, int[] columnWidths) {
+        this.fileName = fileName;
+        this.workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+        this.dataStyle = createDataStyle(workbook);
+
+        // 设置列宽
+        for (int i = 0; i < columnWidths.length; i++) {
+            sheet.setColumnWidth(i, columnWidths[i] * 256);
+        }
+
+        // 创建标题行
+        createTitleRow(fileName, headers.length);
+
+        // 创建表头
+        createHeaderRow(headers);
+    }
+
+    /**
+     * 追加一行数据，全部单元格使用数据样式
+     *
+     * @param values 单元格值
+     */
+    public void appendRow(Object[] values) {
+        appendRow(values, null);
+    }
+
+    /**
+     * 追加一行数据
+     *
+     * @param values 单元格值
+     * @param styles 各列样式，为空或某列为空时使用数据样式
+     */
+    public void appendRow(Object[] values, CellStyle[] styles) {
+        Row row = sheet.createRow(nextRow++);
+        for (int j = 0; j < values.length; j++) {
+            Cell cell = row.createCell(j);
+            CellStyle style = styles == null ? null : styles[j];
+            cell.setCellStyle(style == null ? dataStyle : style);
+            setCellValue(cell, values[j]);
+        }
+    }
+
+    /**
+     * 在数据行之后空一行创建行，用于统计行等
+     *
+     * @return 新建的行
+     */
+    public Row createTrailingRow() {
+        return sheet.createRow(nextRow + 1);
+    }
+
+    /**
+     * 已写入的数据行数
+     *
+     * @return 行数
+     */
+    public int getRowCount() {
+        return nextRow - DATA_START_ROW;
+    }
+
+    public Workbook getWorkbook() {
+        return workbook;
+    }
+
+    public Sheet getSheet() {
+        return sheet;
+    }
+
+    public CellStyle getDataStyle() {
+        return dataStyle;
+    }
+
+    /**
+     * 输出到HTTP响应
+     *
+     * @param response HTTP响应
+     */
+    public void write(HttpServletResponse response) {
+        // 设置响应头
+        setResponseHeader(response, fileName);
+
+        try (OutputStream outputStream = response.getOutputStream()) {
+            workbook.write(outputStream);
+            outputStream.flush();
+        } catch (IOException e) {
+            log.error("导出Excel失败", e);
+            throw new RuntimeException("导出Excel失败", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            workbook.close();
+        } catch (IOException e) {
+            log.warn("关闭Excel工作簿失败", e);
+        }
+        // 删除SXSSF临时文件
+        workbook.dispose();
+    }
+
+    /**
+     * 创建标题行
+     */
+    private void createTitleRow(String title, int columnCount) {
+        Row titleRow = sheet.createRow(0);
+        Cell titleCell = titleRow.createCell(0);
+
+        // 设置标题样式
+        CellStyle titleStyle = workbook.createCellStyle();
+        Font titleFont = workbook.createFont();
+        titleFont.setFontHeightInPoints((short) 16);
+        titleFont.setBold(true);
+        titleStyle.setFont(titleFont);
+        titleStyle.setAlignment(HorizontalAlignment.CENTER);
+        titleStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+
+        titleCell.setCellValue(title);
+        titleCell.setCellStyle(titleStyle);
+
+        // 合并标题单元格
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, columnCount - 1));
+
+        // 创建空行作为间隔
+        sheet.createRow(1);
+    }
+
+    /**
+     * 创建表头行
+     */
+    private void createHeaderRow(String[] headers) {
+        Row headerRow = sheet.createRow(2);
+
+        // 设置表头样式
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+        headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        headerStyle.setBorderTop(BorderStyle.THIN);
+        headerStyle.setBorderBottom(BorderStyle.THIN);
+        headerStyle.setBorderLeft(BorderStyle.THIN);
+        headerStyle.setBorderRight(BorderStyle.THIN);
+
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+    }
+
+    /**
+     * 创建数据样式
+     */
+    private static CellStyle createDataStyle(Workbook workbook) {
+        CellStyle dataStyle = workbook.createCellStyle();
+        dataStyle.setBorderTop(BorderStyle.THIN);
+        dataStyle.setBorderBottom(BorderStyle.THIN);
+        dataStyle.setBorderLeft(BorderStyle.THIN);
+        dataStyle.setBorderRight(BorderStyle.THIN);
+        dataStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        return dataStyle;
+    }
+
+    /**
+     * 设置单元格值
+     */
+    private static void setCellValue(Cell cell, Object value) {
+        if (value == null) {
+            cell.setCellValue("");
+        } else if (value instanceof BigDecimal) {
+            cell.setCellValue(((BigDecimal) value).doubleValue());
+        } else if (value instanceof Date) {
+            LocalDateTime dateTime = LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault());
+            // 如果时间部分为0，只显示日期
+            if (dateTime.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+                cell.setCellValue(DATE_FORMAT.format(dateTime));
+            } else {
+                cell.setCellValue(DATE_TIME_FORMAT.format(dateTime));
+            }
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * 设置响应头
+     */
+    private static void setResponseHeader(HttpServletResponse response, String fileName) {
+        try {
+            String encodedFileName = URLEncoder.encode(fileName + ".xlsx", "UTF-8");
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader("Content-Disposition", "attachment; filename=" + encodedFileName);
+            response.setHeader("Cache-Control", "no-cache");
+            response.setHeader("Pragma", "no-cache");
+            response.setDateHeader("Expires", 0);
+        } catch (Exception e) {
+            log.error("设置响应头失败", e);
+        }
+    }
+}
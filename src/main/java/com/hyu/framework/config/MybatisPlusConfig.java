@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDateTime;
+import java.util.Date;
 
 /**
  * MyBatis Plus 配置
@@ -30,6 +31,9 @@ public class MybatisPlusConfig {
             public void insertFill(MetaObject metaObject) {
                 this.strictInsertFill(metaObject, "createTime", LocalDateTime.class, LocalDateTime.now());
                 this.strictInsertFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
+                // 部分实体的时间字段为Date类型
+                this.strictInsertFill(metaObject, "createTime", Date.class, new Date());
+                this.strictInsertFill(metaObject, "updateTime", Date.class, new Date());
                 this.strictInsertFill(metaObject, "createBy", String.class, "system");
                 this.strictInsertFill(metaObject, "updateBy", String.class, "system");
             }
@@ -37,6 +41,7 @@ public class MybatisPlusConfig {
             @Override
             public void updateFill(MetaObject metaObject) {
                 this.strictUpdateFill(metaObject, "updateTime", LocalDateTime.class, LocalDateTime.now());
+                this.strictUpdateFill(metaObject, "updateTime", Date.class, new Date());
                 this.strictUpdateFill(metaObject, "updateBy", String.class, "system");
             }
         };
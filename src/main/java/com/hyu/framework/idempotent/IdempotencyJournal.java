@@ -0,0 +1,268 @@
+package com.hyu.framework.idempotent;
+
+import com.hyu.common.core.domain.AjaxResult;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.common.utils.StringUtils;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 幂等请求日志
+ * <p>
+ * 缴费、充值等接口携带客户端生成的幂等键（请求头 {@value #HEADER}）时，按“接口 + 用户 + 幂等键”去重：
+ * 本节点正在处理的相同请求登记在进程内的在途表中，重复请求等待并共享首个请求的结果；
+ * 成功结果连同请求内容的指纹写入Redis并保留一段时间，之后的重复请求直接返回缓存结果，不再访问数据库。
+ * 同一幂等键携带不同的请求内容时返回422，不会把首次结果当作本次请求的结果。
+ * 失败结果不缓存，客户端可用同一幂等键重试。未携带幂等键的请求按原逻辑执行。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class IdempotencyJournal {
+
+    /**
+     * 幂等键请求头
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    /**
+     * Redis前缀
+     */
+    private static final String RESULT_KEY_PREFIX = "idempotent:";
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    /**
+     * 成功结果保留时间（秒）
+     */
+    @Value("${idempotency.ttl:86400}")
+    private long resultTtl;
+
+    /**
+     * 重复请求等待在途请求完成的最长时间（毫秒）
+     */
+    @Value("${idempotency.inflight-wait-millis:10000}")
+    private long inflightWaitMillis;
+
+    private final Map<String, Inflight> inflight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder resultHits = new LongAdder();
+    private final LongAdder inflightHits = new LongAdder();
+    private final LongAdder inflightTimeouts = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+
+    /**
+     * 以幂等方式执行请求
+     *
+     * @param scope  接口标识，如 bill:pay
+     * @param userId 当前用户ID
+     * @param key    客户端幂等键，为空时直接执行
+     * @param payload 决定请求结果的业务参数（不含密码等敏感信息），用于识别幂等键被用于不同请求
+     * @param action 实际处理逻辑
+     * @return 处理结果，重复请求返回首次结果
+     */
+    public AjaxResult execute(String scope, Long userId, String key, Object[] payload, Supplier<AjaxResult> action) {
+        if (StringUtils.isEmpty(key)) {
+            return action.get();
+        }
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            return AjaxResult.error("幂等键只能包含字母、数字、下划线和短横线，且不超过64位");
+        }
+        String journalKey = RESULT_KEY_PREFIX + scope + ":" + userId + ":" + key;
+
+        String fingerprint = fingerprint(payload);
+
+        Object completed = loadResult(journalKey);
+        if (completed instanceof Record) {
+            Record record = (Record) completed;
+            if (!fingerprint.equals(record.getFingerprint())) {
+                log.warn("幂等键已用于其他请求，{}", journalKey);
+                return keyReused();
+            }
+            resultHits.increment();
+            log.info("重复请求命中已完成结果，{}", journalKey);
+            return record.getResult();
+        }
+        if (completed instanceof AjaxResult) {
+            // 升级前写入的结果没有指纹
+            resultHits.increment();
+            return (AjaxResult) completed;
+        }
+
+        Inflight current = new Inflight(fingerprint);
+        Inflight running = inflight.putIfAbsent(journalKey, current);
+        if (running != null) {
+            if (!fingerprint.equals(running.fingerprint)) {
+                log.warn("幂等键已用于其他在途请求，{}", journalKey);
+                return keyReused();
+            }
+            inflightHits.increment();
+            log.info("重复请求等待在途请求完成，{}", journalKey);
+            return await(running.future, journalKey);
+        }
+
+        executions.increment();
+        try {
+            AjaxResult result = action.get();
+            if (result != null && Integer.valueOf(200).equals(result.getCode()) && succeeded(result.getData())) {
+                storeResult(journalKey, new Record(fingerprint, result));
+            }
+            current.future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            current.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(journalKey, current);
+        }
+    }
+
+    /**
+     * 获取去重统计信息
+     *
+     * @return 执行/命中计数
+     */
+    public Map<String, Object> getStats() {
+        long executed = executions.sum();
+        long stored = resultHits.sum();
+        long joined = inflightHits.sum();
+        long total = executed + stored + joined;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executions", executed);
+        stats.put("resultHits", stored);
+        stats.put("inflightHits", joined);
+        stats.put("inflightTimeouts", inflightTimeouts.sum());
+        stats.put("storeErrors", storeErrors.sum());
+        stats.put("dedupeRate", total == 0 ? 0D : (double) (stored + joined) / total);
+        stats.put("inflight", inflight.size());
+        return stats;
+    }
+
+    private AjaxResult await(CompletableFuture<AjaxResult> running, String journalKey) {
+        try {
+            return running.get(inflightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            inflightTimeouts.increment();
+            return AjaxResult.error("请求正在处理中，请稍后查询结果");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AjaxResult.error("请求正在处理中，请稍后查询结果");
+        } catch (ExecutionException e) {
+            log.warn("在途请求处理失败，{}", journalKey, e.getCause());
+            return AjaxResult.error("处理失败：" + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * 部分接口以 success 包装带状态码的业务结果，此时以内层状态码为准
+     */
+    private boolean succeeded(Object data) {
+        if (data instanceof Map) {
+            Object code = ((Map<?, ?>) data).get("code");
+            return code == null || "200".equals(String.valueOf(code));
+        }
+        return true;
+    }
+
+    private AjaxResult keyReused() {
+        return AjaxResult.error(422, "幂等键已用于内容不同的请求，请使用新的幂等键");
+    }
+
+    /**
+     * 请求内容指纹：业务参数的SHA-256，金额去掉末尾的0后参与计算
+     */
+    static String fingerprint(Object[] payload) {
+        Object[] normalized = payload == null ? new Object[0] : payload.clone();
+        for (int i = 0; i < normalized.length; i++) {
+            if (normalized[i] instanceof BigDecimal) {
+                normalized[i] = ((BigDecimal) normalized[i]).stripTrailingZeros().toPlainString();
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(Arrays.deepToString(normalized).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object loadResult(String journalKey) {
+        try {
+            return redisUtils.get(journalKey);
+        } catch (Exception e) {
+            storeErrors.increment();
+            log.warn("读取幂等结果失败，{}", journalKey, e);
+            return null;
+        }
+    }
+
+    private void storeResult(String journalKey, Record record) {
+        try {
+            redisUtils.set(journalKey, record, resultTtl);
+        } catch (Exception e) {
+            storeErrors.increment();
+            log.warn("保存幂等结果失败，{}", journalKey, e);
+        }
+    }
+
+    /**
+     * 在途请求
+     */
+    private static final class Inflight {
+
+        private final String fingerprint;
+
+        private final CompletableFuture<AjaxResult> future = new CompletableFuture<>();
+
+        private Inflight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * 已完成请求的记录
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Record {
+
+        /** 请求内容指纹 */
+        private String fingerprint;
+
+        /** 处理结果 */
+        private AjaxResult result;
+    }
+}
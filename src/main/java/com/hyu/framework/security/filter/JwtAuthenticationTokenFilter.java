@@ -2,9 +2,10 @@ package com.hyu.framework.security.filter;
 
 import com.hyu.common.domain.LoginUser;
 import com.hyu.common.utils.JwtUtils;
-import com.hyu.common.utils.RedisUtils;
+import com.hyu.framework.security.service.TokenVersionService;
 import com.hyu.framework.security.service.UserDetailsServiceImpl;
 import com.hyu.system.domain.SysUser;
+import io.jsonwebtoken.Claims;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -34,7 +35,7 @@ public class JwtAuthenticationTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private RedisUtils redisUtils;
+    private TokenVersionService tokenVersionService;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
@@ -47,21 +48,24 @@ public class JwtAuthenticationTokenFilter extends OncePerRequestFilter {
 
         if (StringUtils.hasText(token)) {
             try {
-                // 检查token是否在黑名单中
-                if (redisUtils.hasKey("token:blacklist:" + token)) {
-                    log.warn("Token已在黑名单中：{}", token);
-                    filterChain.doFilter(request, response);
-                    return;
-                }
+                // 解析并验证token，签名只在首次解析时验证，之后命中已验证Claims缓存
+                Claims claims = jwtUtils.parseOnce(token);
+                if (!jwtUtils.isExpired(claims)) {
+                    Long userId = jwtUtils.getUserId(claims);
+                    String username = jwtUtils.getUsername(claims);
+                    long tokenVersion = jwtUtils.getTokenVersion(claims);
 
-                // 验证token
-                if (!jwtUtils.isTokenExpired(token)) {
-                    String username = jwtUtils.getUsernameFromToken(token);
+                    // 检查token版本号，低于用户当前版本号说明已被注销
+                    if (!tokenVersionService.isCurrent(userId, tokenVersion)) {
+                        log.warn("Token已注销，userId：{}，tokenVersion：{}", userId, tokenVersion);
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
 
                     // 如果上下文中没有认证信息，则进行认证
                     if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                        // loadUserByUsername返回的是LoginUser，直接使用
-                        loginUser = (LoginUser) userDetailsService.loadUserByUsername(username);
+                        // 优先从登录用户缓存加载，未命中再查库
+                        loginUser = userDetailsService.loadUserByUserId(userId, tokenVersion, username);
 
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             loginUser, null, loginUser.getAuthorities()
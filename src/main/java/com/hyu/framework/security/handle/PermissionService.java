@@ -1,19 +1,28 @@
 package com.hyu.framework.security.handle;
 
+import com.hyu.common.domain.LoginUser;
+import com.hyu.common.domain.PermissionSet;
 import com.hyu.common.utils.SecurityUtils;
 import com.hyu.common.utils.StringUtils;
+import com.hyu.framework.security.service.PermissionCatalog;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Set;
 
 /**
  * 自定义权限实现，ss取自SpringSecurity首字母
+ * <p>
+ * 权限表达式由 {@link PermissionCatalog} 编译为位下标并缓存，校验时直接按位判断。
  *
  * @author hyu
  */
 @Service("ss")
 public class PermissionService {
 
+    @Autowired
+    private PermissionCatalog permissionCatalog;
+
     /**
      * 验证用户是否具备某权限
      *
@@ -30,10 +39,13 @@ public class PermissionService {
             return true;
         }
 
-        Set<String> permissions = SecurityUtils.getLoginUser().getPermissions();
+        Set<String> permissions = getPermissions();
         if (StringUtils.isEmpty(permissions)) {
             return false;
         }
+        if (permissions instanceof PermissionSet) {
+            return ((PermissionSet) permissions).containsAllBits(permissionCatalog.compile(permission));
+        }
         return permissions.contains(StringUtils.trim(permission));
     }
 
@@ -57,7 +69,13 @@ public class PermissionService {
         if (StringUtils.isEmpty(permissions)) {
             return false;
         }
-        Set<String> authorities = SecurityUtils.getLoginUser().getPermissions();
+        if (SecurityUtils.isAdmin()) {
+            return true;
+        }
+        Set<String> authorities = getPermissions();
+        if (authorities instanceof PermissionSet) {
+            return ((PermissionSet) authorities).containsAnyBit(permissionCatalog.compile(permissions));
+        }
         for (String permission : permissions.split(",")) {
             if (permission != null && hasPermi(permission)) {
                 return true;
@@ -76,7 +94,13 @@ public class PermissionService {
         if (StringUtils.isEmpty(permissions)) {
             return false;
         }
-        Set<String> authorities = SecurityUtils.getLoginUser().getPermissions();
+        if (SecurityUtils.isAdmin()) {
+            return true;
+        }
+        Set<String> authorities = getPermissions();
+        if (authorities instanceof PermissionSet) {
+            return ((PermissionSet) authorities).containsAllBits(permissionCatalog.compile(permissions));
+        }
         for (String permission : permissions.split(",")) {
             if (!hasPermi(permission)) {
                 return false;
@@ -93,4 +117,12 @@ public class PermissionService {
     public boolean isAdmin() {
         return SecurityUtils.isAdmin();
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取当前登录用户的权限集合
+     */
+    private Set<String> getPermissions() {
+        LoginUser loginUser = SecurityUtils.getLoginUser();
+        return loginUser != null ? loginUser.getPermissions() : null;
+    }
+}
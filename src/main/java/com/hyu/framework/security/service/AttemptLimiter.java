@@ -0,0 +1,259 @@
+package com.hyu.framework.security.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 失败尝试限制器
+ * <p>
+ * 登录、支付密码、验证码等校验失败时按“场景 + 对象”（用户名、用户ID、IP）计数：
+ * 失败记录保存在Redis的有序集合中（分数为失败时间），滑动窗口内达到上限后写入带过期时间的锁定键，
+ * 锁定期间直接拒绝，校验成功后清除失败记录。计数与锁定在一个Lua脚本中完成，多节点共享同一份状态，
+ * 不再写业务表。
+ * <p>
+ * Redis不可用时降级为本节点内存计数（按键分段加锁），只在本节点内生效，Redis恢复后自动回到Redis计数。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class AttemptLimiter {
+
+    /**
+     * Redis前缀
+     */
+    private static final String KEY_PREFIX = "attempt:";
+
+    /**
+     * 记录一次失败：清理窗口外的记录，追加本次失败，达到上限时写入锁定键并清空失败记录。
+     * 返回窗口内失败次数。
+     */
+    private static final DefaultRedisScript<Long> RECORD_FAILURE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', tonumber(ARGV[1]) - tonumber(ARGV[2]))\n"
+                    + "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[5])\n"
+                    + "local count = redis.call('ZCARD', KEYS[1])\n"
+                    + "if count >= tonumber(ARGV[3]) then\n"
+                    + "  redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[4])\n"
+                    + "  redis.call('DEL', KEYS[1])\n"
+                    + "else\n"
+                    + "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "end\n"
+                    + "return count", Long.class);
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * Redis不可用时本地计数的最大条目数
+     */
+    @Value("${security.attempt-limit.local-size:10000}")
+    private int localSize;
+
+    /**
+     * 本地降级计数（Redis键 -> 计数）
+     */
+    private final Map<String, LocalCounter> localCounters = new ConcurrentHashMap<>();
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    /**
+     * 查询剩余锁定时间
+     *
+     * @param rule    限制规则
+     * @param subject 计数对象，如用户名、用户ID、IP
+     * @return 剩余锁定秒数，未锁定时为0
+     */
+    public long getLockRemaining(Rule rule, String subject) {
+        if (subject == null) {
+            return 0L;
+        }
+        String lockKey = lockKey(rule, subject);
+        long remaining = 0L;
+        try {
+            Long ttl = redisTemplate.getExpire(lockKey, TimeUnit.MILLISECONDS);
+            if (ttl != null && ttl > 0) {
+                remaining = ttl;
+            }
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("读取锁定状态失败，使用本地计数：{}", lockKey, e);
+        }
+        LocalCounter counter = localCounters.get(failureKey(rule, subject));
+        if (counter != null) {
+            remaining = Math.max(remaining, counter.lockRemaining(System.currentTimeMillis()));
+        }
+        if (remaining > 0) {
+            rejections.increment();
+        }
+        return (remaining + 999) / 1000;
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @param rule    限制规则
+     * @param subject 计数对象
+     * @return 锁定前剩余的尝试次数，0表示本次失败后已锁定
+     */
+    public int recordFailure(Rule rule, String subject) {
+        if (subject == null) {
+            return rule.maxFailures;
+        }
+        failures.increment();
+        String failureKey = failureKey(rule, subject);
+        long now = System.currentTimeMillis();
+        long count;
+        try {
+            Long result = redisTemplate.execute(RECORD_FAILURE_SCRIPT, new StringRedisSerializer(),
+                    new GenericToStringSerializer<>(Long.class),
+                    Arrays.asList(failureKey, lockKey(rule, subject)),
+                    String.valueOf(now), String.valueOf(rule.windowMillis), String.valueOf(rule.maxFailures),
+                    String.valueOf(rule.lockMillis), now + ":" + UUID.randomUUID());
+            count = result == null ? 0L : result;
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("记录失败次数失败，使用本地计数：{}", failureKey, e);
+            count = localCounter(failureKey, now).recordFailure(rule, now);
+        }
+        if (count >= rule.maxFailures) {
+            lockouts.increment();
+            log.warn("失败次数达到上限，已锁定 {} 秒：{}", rule.lockMillis / 1000, failureKey);
+            return 0;
+        }
+        return (int) (rule.maxFailures - count);
+    }
+
+    /**
+     * 清除失败记录与锁定，用于校验成功或管理员解锁
+     *
+     * @param rule    限制规则
+     * @param subject 计数对象
+     */
+    public void reset(Rule rule, String subject) {
+        if (subject == null) {
+            return;
+        }
+        String failureKey = failureKey(rule, subject);
+        try {
+            redisTemplate.delete(Arrays.asList(failureKey, lockKey(rule, subject)));
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("清除失败记录失败：{}", failureKey, e);
+        }
+        localCounters.remove(failureKey);
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 失败/锁定/拒绝次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("failures", failures.sum());
+        stats.put("lockouts", lockouts.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("redisErrors", redisErrors.sum());
+        stats.put("localEntries", localCounters.size());
+        return stats;
+    }
+
+    private LocalCounter localCounter(String failureKey, long now) {
+        if (localCounters.size() >= localSize) {
+            localCounters.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+        }
+        return localCounters.computeIfAbsent(failureKey, k -> new LocalCounter());
+    }
+
+    private String failureKey(Rule rule, String subject) {
+        return KEY_PREFIX + rule.scope + ":fail:" + subject;
+    }
+
+    private String lockKey(Rule rule, String subject) {
+        return KEY_PREFIX + rule.scope + ":lock:" + subject;
+    }
+
+    /**
+     * 限制规则：窗口时间内失败达到上限后锁定一段时间
+     */
+    public static final class Rule {
+
+        private final String scope;
+
+        private final int maxFailures;
+
+        private final long windowMillis;
+
+        private final long lockMillis;
+
+        /**
+         * @param scope         场景标识，作为Redis键的一部分
+         * @param maxFailures   窗口内允许的失败次数
+         * @param windowSeconds 滑动窗口（秒）
+         * @param lockSeconds   锁定时长（秒）
+         */
+        public Rule(String scope, int maxFailures, long windowSeconds, long lockSeconds) {
+            this.scope = scope;
+            this.maxFailures = Math.max(1, maxFailures);
+            this.windowMillis = windowSeconds * 1000;
+            this.lockMillis = lockSeconds * 1000;
+        }
+
+        public long getLockMinutes() {
+            return (lockMillis + 59_999) / 60_000;
+        }
+    }
+
+    /**
+     * 本地失败计数，每个键独立加锁
+     */
+    private static final class LocalCounter {
+
+        private final Deque<Long> failureTimes = new ArrayDeque<>();
+
+        private long lockUntil;
+
+        private long expireAt;
+
+        private synchronized long recordFailure(Rule rule, long now) {
+            while (!failureTimes.isEmpty() && failureTimes.peekFirst() <= now - rule.windowMillis) {
+                failureTimes.pollFirst();
+            }
+            failureTimes.addLast(now);
+            int count = failureTimes.size();
+            if (count >= rule.maxFailures) {
+                failureTimes.clear();
+                lockUntil = now + rule.lockMillis;
+            }
+            expireAt = Math.max(now + rule.windowMillis, lockUntil);
+            return count;
+        }
+
+        private synchronized long lockRemaining(long now) {
+            return Math.max(0L, lockUntil - now);
+        }
+
+        private synchronized boolean isIdle(long now) {
+            return expireAt <= now;
+        }
+    }
+}
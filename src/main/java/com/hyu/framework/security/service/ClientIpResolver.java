@@ -0,0 +1,240 @@
+package com.hyu.framework.security.service;
+
+import com.hyu.common.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 客户端IP解析
+ * <p>
+ * 默认使用连接的对端地址（{@code request.getRemoteAddr()}）。只有对端是配置的可信代理时才读取
+ * X-Forwarded-For，并从右向左跳过可信代理，取第一个不可信的地址；客户端自行填写的转发头不会被采信，
+ * 按IP限流的规则不能通过伪造请求头绕过或嫁祸他人。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class ClientIpResolver {
+
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    /**
+     * 可信代理，逗号分隔的IP或CIDR网段
+     */
+    @Value("${security.trusted-proxies:127.0.0.1,::1}")
+    private String trustedProxies;
+
+    private List<byte[]> trustedNetworks;
+
+    private List<Integer> trustedPrefixes;
+
+    @PostConstruct
+    public void init() {
+        trustedNetworks = new ArrayList<>();
+        trustedPrefixes = new ArrayList<>();
+        for (String entry : StringUtils.split(StringUtils.defaultString(trustedProxies), ',')) {
+            String value = entry.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            int slash = value.indexOf('/');
+            byte[] address = parse(slash < 0 ? value : value.substring(0, slash));
+            if (address == null) {
+                log.warn("忽略无效的可信代理配置：{}", value);
+                continue;
+            }
+            trustedNetworks.add(address);
+            trustedPrefixes.add(slash < 0 ? address.length * 8 : Integer.parseInt(value.substring(slash + 1)));
+        }
+    }
+
+    /**
+     * 获取当前请求的客户端IP
+     *
+     * @return IP地址，不在请求线程中时返回null
+     */
+    public String resolve() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return resolve(((ServletRequestAttributes) attributes).getRequest());
+        }
+        return null;
+    }
+
+    /**
+     * 获取客户端IP
+     *
+     * @param request 请求
+     * @return IP地址
+     */
+    public String resolve(HttpServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (StringUtils.isBlank(forwardedFor)) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            if (!isTrusted(hop)) {
+                return hop;
+            }
+        }
+        // 整条链路都是可信代理
+        return remoteAddr;
+    }
+
+    private boolean isTrusted(String ip) {
+        byte[] address = parse(ip);
+        if (address == null) {
+            return false;
+        }
+        for (int i = 0; i < trustedNetworks.size(); i++) {
+            if (matches(address, trustedNetworks.get(i), trustedPrefixes.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] address, byte[] network, int prefix) {
+        if (address.length != network.length) {
+            return false;
+        }
+        int fullBytes = prefix / 8;
+        for (int i = 0; i < fullBytes && i < address.length; i++) {
+            if (address[i] != network[i]) {
+                return false;
+            }
+        }
+        int remainingBits = prefix % 8;
+        if (remainingBits == 0 || fullBytes >= address.length) {
+            return true;
+        }
+        int mask = 0xFF << (8 - remainingBits);
+        return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+    }
+
+    /**
+     * 解析IP字面量，只接受点分十进制IPv4和标准IPv6文本，不做任何DNS查询
+     *
+     * @return 地址字节，不是合法IP字面量时返回null
+     */
+    static byte[] parse(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        return ip.indexOf(':') < 0 ? parseIpv4(ip) : parseIpv6(ip);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        byte[] address = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (value > 255) {
+                return null;
+            }
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        int compress = ip.indexOf("::");
+        if (compress >= 0 && ip.indexOf("::", compress + 1) >= 0) {
+            return null;
+        }
+        // 末尾可以是内嵌的IPv4地址（如 ::ffff:192.168.0.1）
+        byte[] ipv4Tail = null;
+        String groupsText = ip;
+        int lastColon = ip.lastIndexOf(':');
+        if (ip.indexOf('.', lastColon) >= 0) {
+            ipv4Tail = parseIpv4(ip.substring(lastColon + 1));
+            if (ipv4Tail == null) {
+                return null;
+            }
+            groupsText = ip.substring(0, lastColon + 1) + "0:0";
+        }
+        String head = compress < 0 ? groupsText : groupsText.substring(0, groupsText.indexOf("::"));
+        String tail = compress < 0 ? "" : groupsText.substring(groupsText.indexOf("::") + 2);
+        List<Integer> headGroups = parseGroups(head);
+        List<Integer> tailGroups = parseGroups(tail);
+        if (headGroups == null || tailGroups == null) {
+            return null;
+        }
+        int groupCount = headGroups.size() + tailGroups.size();
+        if (compress < 0 ? groupCount != 8 : groupCount > 7) {
+            return null;
+        }
+        byte[] address = new byte[16];
+        for (int i = 0; i < headGroups.size(); i++) {
+            address[i * 2] = (byte) (headGroups.get(i) >> 8);
+            address[i * 2 + 1] = headGroups.get(i).byteValue();
+        }
+        int offset = 8 - tailGroups.size();
+        for (int i = 0; i < tailGroups.size(); i++) {
+            address[(offset + i) * 2] = (byte) (tailGroups.get(i) >> 8);
+            address[(offset + i) * 2 + 1] = tailGroups.get(i).byteValue();
+        }
+        if (ipv4Tail != null) {
+            System.arraycopy(ipv4Tail, 0, address, 12, 4);
+        }
+        return address;
+    }
+
+    private static List<Integer> parseGroups(String text) {
+        List<Integer> groups = new ArrayList<>();
+        if (text.isEmpty()) {
+            return groups;
+        }
+        for (String group : text.split(":", -1)) {
+            if (group.isEmpty() || group.length() > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int i = 0; i < group.length(); i++) {
+                int digit = Character.digit(group.charAt(i), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+            }
+            groups.add(value);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,282 @@
+package com.hyu.framework.security.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.bean.BeanUtil;
+import com.hyu.common.domain.LoginUser;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.common.utils.StringUtils;
+import com.hyu.system.domain.SysUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录用户两级缓存
+ * <p>
+ * 一级为进程内LRU缓存（按容量淘汰并带TTL），按用户ID和token版本号存放构建好的LoginUser；
+ * 二级为Redis，存放去除密码后的用户快照，供其他节点或本地过期后复用。
+ * 用户信息、密码、角色、状态变更时需调用 {@link #evict(Long)} 失效：事务提交后删除Redis条目，
+ * 并通过Redis发布订阅通知各节点移除本地条目，通知丢失时本地条目最迟在本地过期时间后失效。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class LoginUserCache implements MessageListener {
+
+    /**
+     * Redis前缀
+     */
+    private static final String LOGIN_USER_PREFIX = "login_user:";
+
+    /**
+     * 缓存失效通知频道，各节点收到后移除本地条目
+     */
+    private static final String LOGIN_USER_CHANNEL = "login_user:channel";
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 本地缓存最大条目数
+     */
+    @Value("${security.user-cache.local-size:10000}")
+    private int localSize;
+
+    /**
+     * 本地缓存过期时间（秒），决定其他节点失效后本节点最长的陈旧时间
+     */
+    @Value("${security.user-cache.local-ttl:60}")
+    private long localTtl;
+
+    /**
+     * Redis缓存过期时间（秒）
+     */
+    @Value("${security.user-cache.redis-ttl:1800}")
+    private long redisTtl;
+
+    private LRUCache<Long, LoginUser> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        localCache = CacheUtil.newLRUCache(localSize, localTtl * 1000);
+        listenerContainer.addMessageListener(this, new ChannelTopic(LOGIN_USER_CHANNEL));
+    }
+
+    /**
+     * 从本地缓存获取登录用户，缓存条目的token版本号须与请求一致
+     *
+     * @param userId       用户ID
+     * @param tokenVersion token版本号
+     * @return 登录用户，未命中返回null
+     */
+    public LoginUser getLocal(Long userId, long tokenVersion) {
+        if (userId == null) {
+            return null;
+        }
+        LoginUser loginUser = localCache.get(userId, false);
+        if (loginUser != null && loginUser.getTokenVersion() != tokenVersion) {
+            loginUser = null;
+        }
+        if (loginUser != null) {
+            localHits.increment();
+        }
+        return loginUser;
+    }
+
+    /**
+     * 从Redis获取用户快照
+     *
+     * @param userId 用户ID
+     * @return 用户快照，未命中返回null
+     */
+    public SysUser getRemote(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        SysUser user = null;
+        try {
+            user = redisUtils.get(LOGIN_USER_PREFIX + userId, SysUser.class);
+        } catch (Exception e) {
+            log.warn("读取登录用户缓存失败，userId：{}", userId, e);
+        }
+        if (user != null) {
+            redisHits.increment();
+        } else {
+            misses.increment();
+        }
+        return user;
+    }
+
+    /**
+     * 写入本地缓存
+     *
+     * @param loginUser 登录用户
+     */
+    public void putLocal(LoginUser loginUser) {
+        if (loginUser != null && loginUser.getUserId() != null) {
+            localCache.put(loginUser.getUserId(), loginUser);
+        }
+    }
+
+    /**
+     * 写入Redis缓存，密码不落入缓存
+     *
+     * @param user 用户信息
+     */
+    public void putRemote(SysUser user) {
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        SysUser snapshot = BeanUtil.copyProperties(user, SysUser.class);
+        snapshot.setPassword(null);
+        try {
+            redisUtils.set(LOGIN_USER_PREFIX + user.getUserId(), snapshot, redisTtl);
+        } catch (Exception e) {
+            log.warn("写入登录用户缓存失败，userId：{}", user.getUserId(), e);
+        }
+    }
+
+    /**
+     * 失效指定用户的缓存
+     * 在事务中调用时于事务提交后生效，避免提交前的并发请求把旧数据重新写入缓存
+     *
+     * @param userId 用户ID
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(Collections.singletonList(userId));
+    }
+
+    /**
+     * 批量失效用户缓存
+     * 在事务中调用时于事务提交后生效，避免提交前的并发请求把旧数据重新写入缓存
+     *
+     * @param userIds 用户ID集合
+     */
+    public void evict(Collection<?> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds.size());
+        for (Object userId : userIds) {
+            if (userId != null) {
+                ids.add(Long.valueOf(userId.toString()));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(ids);
+                }
+            });
+        } else {
+            doEvict(ids);
+        }
+    }
+
+    private void doEvict(List<Long> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            localCache.remove(id);
+            evictions.increment();
+            keys.add(LOGIN_USER_PREFIX + id);
+        }
+        try {
+            redisUtils.delete(keys);
+        } catch (Exception e) {
+            log.warn("删除登录用户缓存失败，userIds：{}", ids, e);
+        }
+        try {
+            redisUtils.publish(LOGIN_USER_CHANNEL, StringUtils.join(ids, ","));
+        } catch (Exception e) {
+            // 其他节点的本地条目最迟在本地过期时间后失效
+            log.warn("发布登录用户缓存失效通知失败，userIds：{}", ids, e);
+        }
+    }
+
+    /**
+     * 接收失效通知，移除本节点的本地缓存条目
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) {
+                return;
+            }
+            for (String id : body.toString().split(",")) {
+                if (!id.isEmpty()) {
+                    localCache.remove(Long.valueOf(id));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("处理登录用户缓存失效通知失败", e);
+        }
+    }
+
+    /**
+     * 清空本节点的本地缓存（权限目录重建后使用）
+     */
+    public void clearLocal() {
+        localCache.clear();
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 命中/未命中计数
+     */
+    public Map<String, Object> getStats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", local);
+        stats.put("redisHits", redis);
+        stats.put("misses", miss);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", total == 0 ? 0D : (double) (local + redis) / total);
+        stats.put("localSize", localCache.size());
+        stats.put("localCapacity", localCache.capacity());
+        return stats;
+    }
+}
@@ -0,0 +1,368 @@
+package com.hyu.framework.security.service;
+
+import com.hyu.common.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希执行器
+ * <p>
+ * BCrypt 计算耗费CPU，若直接在Tomcat请求线程上执行，登录或支付高峰会占满请求线程池。
+ * 所有BCrypt计算提交到独立的有界线程池（线程数默认等于CPU核数，队列有上限），
+ * 队列已满时立即拒绝并提示繁忙，等待超时同样拒绝，从而对上游形成背压。
+ * <p>
+ * 未显式配置强度时，启动时在本机测量各强度的哈希耗时，选取不超过目标耗时的最大强度（不低于下限）。
+ * 已有哈希按其自身强度校验，新强度只作用于新生成的哈希，可通过 {@link #needsRehash(String)} 判断是否需要升级。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    /**
+     * 校准与压测使用的样本密码
+     */
+    private static final String SAMPLE_PASSWORD = "benchmark-123456";
+
+    /**
+     * 哈希线程数，0表示等于CPU核数
+     */
+    @Value("${security.password.threads:0}")
+    private int threads;
+
+    /**
+     * 等待队列容量，超出后立即拒绝
+     */
+    @Value("${security.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    /**
+     * 调用方等待结果的最长时间（毫秒）
+     */
+    @Value("${security.password.wait-millis:3000}")
+    private long waitMillis;
+
+    /**
+     * BCrypt强度，0表示启动时自动校准
+     */
+    @Value("${security.password.strength:0}")
+    private int configuredStrength;
+
+    /**
+     * 自动校准的目标单次哈希耗时（毫秒）
+     */
+    @Value("${security.password.target-millis:100}")
+    private long targetMillis;
+
+    /**
+     * 自动校准的强度下限
+     */
+    @Value("${security.password.min-strength:10}")
+    private int minStrength;
+
+    /**
+     * 自动校准的强度上限
+     */
+    @Value("${security.password.max-strength:14}")
+    private int maxStrength;
+
+    /**
+     * 是否允许压测，默认关闭
+     */
+    @Value("${security.password.benchmark-enabled:false}")
+    private boolean benchmarkEnabled;
+
+    /**
+     * 同一时间只允许一次压测
+     */
+    private final AtomicBoolean benchmarking = new AtomicBoolean();
+
+    private ThreadPoolExecutor executor;
+
+    private volatile BCryptPasswordEncoder encoder;
+
+    private volatile int strength;
+
+    private volatile long calibratedMillis;
+
+    private final LongAdder encodes = new LongAdder();
+    private final LongAdder verifies = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        if (configuredStrength > 0) {
+            strength = configuredStrength;
+            calibratedMillis = measure(configuredStrength);
+        } else {
+            calibrate();
+        }
+        encoder = new BCryptPasswordEncoder(strength);
+        log.info("密码哈希执行器就绪：线程数 {}，队列容量 {}，BCrypt强度 {}，单次耗时约 {} ms",
+                poolSize, queueCapacity, strength, calibratedMillis);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 生成密码哈希
+     *
+     * @param rawPassword 原始密码
+     * @return BCrypt哈希
+     */
+    public String encode(String rawPassword) {
+        encodes.increment();
+        BCryptPasswordEncoder current = encoder;
+        return submit(() -> current.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码
+     *
+     * @param rawPassword     原始密码
+     * @param encodedPassword BCrypt哈希
+     * @return 是否匹配
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || !isEncoded(encodedPassword)) {
+            return false;
+        }
+        verifies.increment();
+        BCryptPasswordEncoder current = encoder;
+        return submit(() -> current.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 是否为BCrypt哈希（用于兼容历史明文数据）
+     *
+     * @param value 存储值
+     * @return 结果
+     */
+    public boolean isEncoded(String value) {
+        return value != null && BCRYPT_PATTERN.matcher(value).matches();
+    }
+
+    /**
+     * 哈希强度是否低于当前强度，校验成功后可据此重新生成哈希
+     *
+     * @param encodedPassword BCrypt哈希
+     * @return 结果
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return !isEncoded(encodedPassword) || encoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 获取执行器统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strength", strength);
+        stats.put("calibratedMillis", calibratedMillis);
+        stats.put("threads", executor.getCorePoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("encodes", encodes.sum());
+        stats.put("verifies", verifies.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timeouts", timeouts.sum());
+        long calls = encodes.sum() + verifies.sum();
+        stats.put("avgMillis", calls == 0 ? 0D : busyNanos.sum() / 1_000_000D / calls);
+        return stats;
+    }
+
+    /**
+     * 压测校验吞吐量：以与哈希线程池相同的线程数持续校验指定时长
+     * 压测使用临时的独立线程，不占用登录、支付使用的哈希线程；需配置
+     * security.password.benchmark-enabled 开启，同一时间只允许一次压测
+     *
+     * @param seconds 压测时长（秒，1-10）
+     * @return 总吞吐量与每核吞吐量
+     */
+    public Map<String, Object> benchmark(int seconds) {
+        if (!benchmarkEnabled) {
+            throw new BusinessException("密码哈希压测未开启");
+        }
+        if (!benchmarking.compareAndSet(false, true)) {
+            throw new BusinessException("已有压测正在执行，请稍后再试");
+        }
+        try {
+            return runBenchmark(Math.max(1, Math.min(10, seconds)));
+        } finally {
+            benchmarking.set(false);
+        }
+    }
+
+    private Map<String, Object> runBenchmark(int duration) {
+        int workers = executor.getCorePoolSize();
+        BCryptPasswordEncoder current = encoder;
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService benchmarkExecutor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "password-benchmark-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long total = 0;
+        try {
+            String hash = current.encode(SAMPLE_PASSWORD);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(duration);
+            List<Future<Long>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(benchmarkExecutor.submit(() -> {
+                    long ops = 0;
+                    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                        current.matches(SAMPLE_PASSWORD, hash);
+                        ops++;
+                    }
+                    return ops;
+                }));
+            }
+            // 截止时间后再留出单次哈希的耗时余量，超时则放弃本次压测
+            long waitUntil = deadline + TimeUnit.MILLISECONDS.toNanos(Math.max(waitMillis, calibratedMillis * 4));
+            for (Future<Long> future : futures) {
+                total += future.get(Math.max(0, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            throw new BusinessException("压测超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("压测被中断");
+        } catch (ExecutionException e) {
+            throw new BusinessException("压测失败：" + e.getCause().getMessage());
+        } finally {
+            benchmarkExecutor.shutdownNow();
+        }
+
+        double opsPerSecond = (double) total / duration;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("strength", strength);
+        result.put("threads", workers);
+        result.put("cores", Runtime.getRuntime().availableProcessors());
+        result.put("seconds", duration);
+        result.put("verifies", total);
+        result.put("verifiesPerSecond", opsPerSecond);
+        result.put("verifiesPerSecondPerCore", opsPerSecond / Math.min(workers, Runtime.getRuntime().availableProcessors()));
+        result.put("avgMillis", total == 0 ? 0D : duration * 1000D * workers / total);
+        log.info("密码哈希压测结果：{}", result);
+        return result;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    busyNanos.add(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusinessException("系统繁忙，请稍后重试");
+        }
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new BusinessException("系统繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException("请求被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 自动校准：选取单次哈希耗时不超过目标的最大强度
+     */
+    private void calibrate() {
+        int low = Math.max(4, minStrength);
+        int high = Math.max(low, Math.min(31, maxStrength));
+        // 预热JIT
+        measure(low);
+        int chosen = low;
+        long chosenMillis = measure(low);
+        for (int cost = low + 1; cost <= high; cost++) {
+            // 每增加1，耗时约翻倍，据此提前结束避免启动过慢
+            if (chosenMillis * 2 > targetMillis) {
+                break;
+            }
+            long millis = measure(cost);
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = cost;
+            chosenMillis = millis;
+        }
+        strength = chosen;
+        calibratedMillis = chosenMillis;
+    }
+
+    /**
+     * 测量指定强度的单次哈希耗时（三次取中位数）
+     */
+    private long measure(int cost) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(cost);
+        long[] samples = new long[3];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            probe.encode(SAMPLE_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[1];
+    }
+}
@@ -0,0 +1,333 @@
+package com.hyu.framework.security.service;
+
+import com.hyu.common.domain.PermissionSet;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.common.utils.StringUtils;
+import com.hyu.system.mapper.SysMenuMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限目录
+ * <p>
+ * 启动时按用户类型预先构建不可变权限集合（内置权限 + sys_menu/sys_role_menu 中分配给对应角色的权限），
+ * 同一用户类型的登录用户共享同一个 {@link PermissionSet}。权限表达式编译为位下标数组后缓存，
+ * 权限校验时无需再拆分字符串。角色菜单变更后调用 {@link #reloadAll()}，本节点重新构建后通过Redis发布订阅
+ * 通知其他节点重新构建。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class PermissionCatalog implements MessageListener {
+
+    /**
+     * 所有用户默认具备的基本权限
+     */
+    private static final String[] BASE_PERMISSIONS = {
+            "auth:info", "auth:logout", "auth:profile", "auth:password"
+    };
+
+    /**
+     * 系统管理员内置权限
+     */
+    private static final String[] ADMIN_PERMISSIONS = {
+            // 系统管理权限
+            "system:user:list", "system:user:view", "system:user:add", "system:user:edit",
+            "system:user:remove", "system:user:query", "system:user:resetPwd",
+            "system:role:list", "system:role:view", "system:menu:list", "system:config:view",
+            // 物业管理相关权限
+            "property:building:list", "property:building:add", "property:building:edit", "property:building:remove",
+            "property:unit:list", "property:unit:add", "property:unit:edit", "property:unit:remove",
+            "property:house:list", "property:house:add", "property:house:edit", "property:house:remove",
+            "property:owner:list", "property:owner:add", "property:owner:edit", "property:owner:remove",
+            "property:owner:export",
+            // 费用管理权限
+            "property:feetype:list", "property:feetype:view", "property:feetype:add",
+            "property:feetype:edit", "property:feetype:remove", "property:feetype:query",
+            // 维修管理权限
+            "property:repair:list", "property:repair:view", "property:repair:add", "property:repair:edit",
+            "property:repair:delete", "property:repair:assign", "property:repair:accept",
+            "property:repair:handle", "property:repair:rate", "property:repair:archive",
+            // 投诉管理权限（包含所有权限）
+            "property:complaint:list", "property:complaint:query", "property:complaint:add",
+            "property:complaint:edit", "property:complaint:remove", "property:complaint:assign",
+            "property:complaint:handle", "property:complaint:rate", "property:complaint:my",
+            "property:complaint:upload",
+            // 公告管理权限（包含所有权限）
+            "property:notice:list", "property:notice:add", "property:notice:edit",
+            "property:notice:remove", "property:notice:publish", "property:notice:view"
+    };
+
+    /**
+     * 物业管理员内置权限
+     */
+    private static final String[] PROPERTY_MANAGER_PERMISSIONS = {
+            "property:building:list", "property:building:add", "property:building:edit", "property:building:remove",
+            "property:unit:list", "property:unit:add", "property:unit:edit", "property:unit:remove",
+            "property:house:list", "property:house:add", "property:house:edit", "property:house:remove",
+            "property:owner:list", "property:owner:add", "property:owner:edit", "property:owner:remove",
+            "property:owner:export",
+            // 费用管理权限
+            "property:feetype:list", "property:feetype:view", "property:feetype:add",
+            "property:feetype:edit", "property:feetype:remove", "property:feetype:query",
+            // 维修管理权限
+            "property:repair:list", "property:repair:view", "property:repair:add", "property:repair:edit",
+            "property:repair:delete", "property:repair:assign", "property:repair:accept",
+            "property:repair:handle", "property:repair:rate", "property:repair:archive",
+            // 投诉管理权限
+            "property:complaint:list", "property:complaint:query", "property:complaint:add",
+            "property:complaint:edit", "property:complaint:remove", "property:complaint:assign",
+            "property:complaint:handle", "property:complaint:upload",
+            // 公告管理权限
+            "property:notice:list", "property:notice:add", "property:notice:edit",
+            "property:notice:remove", "property:notice:publish"
+    };
+
+    /**
+     * 业主内置权限
+     */
+    private static final String[] OWNER_PERMISSIONS = {
+            "property:owner:list", "property:bill:view", "property:bill:pay",
+            "property:wallet:view", "property:wallet:recharge", "property:transaction:list",
+            "property:complaint:add", "property:complaint:query", "property:complaint:my",
+            "property:complaint:rate", "property:complaint:upload",
+            "property:repair:add", "property:repair:accept", "property:repair:rate",
+            "property:notice:view", "property:notice:list",
+            "portal:view", "portal:dashboard:view"
+    };
+
+    /**
+     * 维修人员内置权限
+     */
+    private static final String[] WORKER_PERMISSIONS = {
+            "property:repair:view", "property:repair:handle", "property:repair:accept",
+            "property:notice:view", "property:notice:list"
+    };
+
+    /**
+     * 用户类型对应的角色标识（sys_role.role_key），下标即用户类型
+     */
+    private static final String[] USER_TYPE_ROLE_KEYS = {null, "admin", "property", "owner", "repair"};
+
+    private static final String[][] USER_TYPE_PERMISSIONS = {
+            {}, ADMIN_PERMISSIONS, PROPERTY_MANAGER_PERMISSIONS, OWNER_PERMISSIONS, WORKER_PERMISSIONS
+    };
+
+    private static final int[] EMPTY_BITS = new int[0];
+
+    /**
+     * 权限目录重新加载通知频道
+     */
+    private static final String PERMISSION_CHANNEL = "permission:catalog:channel";
+
+    /**
+     * 本节点标识，忽略自己发布的通知
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private SysMenuMapper menuMapper;
+
+    @Autowired
+    private LoginUserCache loginUserCache;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 当前目录快照，重新加载时整体替换
+     */
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        reload();
+        listenerContainer.addMessageListener(this, new ChannelTopic(PERMISSION_CHANNEL));
+    }
+
+    /**
+     * 重新构建本节点的权限目录并通知其他节点重新构建
+     * 已缓存的登录用户仍引用旧的权限集合，各节点同时清空本地登录用户缓存
+     *
+     * @return 各用户类型的权限数量
+     */
+    public Map<String, Object> reloadAll() {
+        Map<String, Object> result = reload();
+        loginUserCache.clearLocal();
+        try {
+            redisUtils.publish(PERMISSION_CHANNEL, nodeId);
+        } catch (Exception e) {
+            log.warn("发布权限目录重新加载通知失败", e);
+        }
+        return result;
+    }
+
+    /**
+     * 接收其他节点的重新加载通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body != null && !nodeId.equals(body.toString())) {
+                reload();
+                loginUserCache.clearLocal();
+            }
+        } catch (Exception e) {
+            log.warn("处理权限目录重新加载通知失败", e);
+        }
+    }
+
+    /**
+     * 重新构建权限目录
+     *
+     * @return 各用户类型的权限数量
+     */
+    public synchronized Map<String, Object> reload() {
+        List<Set<String>> definitions = new ArrayList<>(USER_TYPE_ROLE_KEYS.length);
+        for (int userType = 0; userType < USER_TYPE_ROLE_KEYS.length; userType++) {
+            Set<String> perms = new LinkedHashSet<>();
+            Collections.addAll(perms, BASE_PERMISSIONS);
+            Collections.addAll(perms, USER_TYPE_PERMISSIONS[userType]);
+            if (USER_TYPE_ROLE_KEYS[userType] != null) {
+                perms.addAll(loadMenuPerms(USER_TYPE_ROLE_KEYS[userType]));
+            }
+            definitions.add(perms);
+        }
+
+        // 统一分配位下标
+        Map<String, Integer> index = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Set<String> perms : definitions) {
+            for (String perm : perms) {
+                if (!index.containsKey(perm)) {
+                    index.put(perm, names.size());
+                    names.add(perm);
+                }
+            }
+        }
+        Map<String, Integer> sharedIndex = Collections.unmodifiableMap(index);
+        String[] sharedNames = names.toArray(new String[0]);
+
+        PermissionSet[] sets = new PermissionSet[definitions.size()];
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int userType = 0; userType < definitions.size(); userType++) {
+            BitSet bits = new BitSet(sharedNames.length);
+            for (String perm : definitions.get(userType)) {
+                bits.set(sharedIndex.get(perm));
+            }
+            sets[userType] = new PermissionSet(sharedIndex, sharedNames, bits);
+            result.put("userType" + userType, sets[userType].size());
+        }
+
+        this.snapshot = new Snapshot(sharedIndex, sets);
+        result.put("total", sharedNames.length);
+        log.info("权限目录构建完成：{}", result);
+        return result;
+    }
+
+    /**
+     * 获取用户类型对应的共享权限集合
+     *
+     * @param userType 用户类型
+     * @return 不可变权限集合，未知类型仅含基本权限
+     */
+    public PermissionSet getPermissions(Integer userType) {
+        PermissionSet[] sets = snapshot.sets;
+        if (userType == null || userType <= 0 || userType >= sets.length) {
+            return sets[0];
+        }
+        return sets[userType];
+    }
+
+    /**
+     * 将以逗号分隔的权限表达式编译为位下标数组，结果按表达式缓存
+     *
+     * @param permissions 权限表达式
+     * @return 位下标数组，目录中不存在的权限为-1
+     */
+    public int[] compile(String permissions) {
+        if (StringUtils.isEmpty(permissions)) {
+            return EMPTY_BITS;
+        }
+        Snapshot current = snapshot;
+        return current.compiled.computeIfAbsent(permissions, current::doCompile);
+    }
+
+    /**
+     * 从sys_menu/sys_role_menu加载分配给角色的权限
+     */
+    private Set<String> loadMenuPerms(String roleKey) {
+        Set<String> permsSet = new LinkedHashSet<>();
+        try {
+            List<String> perms = menuMapper.selectMenuPermsByRoleKey(roleKey);
+            for (String perm : perms) {
+                if (StringUtils.isEmpty(perm)) {
+                    continue;
+                }
+                for (String item : perm.split(",")) {
+                    if (StringUtils.isNotEmpty(item.trim())) {
+                        permsSet.add(item.trim());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("加载角色菜单权限失败，仅使用内置权限，roleKey：{}", roleKey, e);
+        }
+        return permsSet;
+    }
+
+    /**
+     * 目录快照
+     */
+    private static final class Snapshot {
+
+        private final Map<String, Integer> index;
+
+        private final PermissionSet[] sets;
+
+        private final Map<String, int[]> compiled = new ConcurrentHashMap<>();
+
+        private Snapshot(Map<String, Integer> index, PermissionSet[] sets) {
+            this.index = index;
+            this.sets = sets;
+        }
+
+        private int[] doCompile(String permissions) {
+            String[] items = permissions.split(",");
+            int[] bits = new int[items.length];
+            for (int i = 0; i < items.length; i++) {
+                Integer bit = index.get(items[i].trim());
+                bits[i] = bit != null ? bit : -1;
+            }
+            return bits;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.hyu.framework.security.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.hyu.common.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+/**
+ * Token版本
+ * <p>
+ * 每个用户在Redis中有一个单调递增的token版本号，签发token时写入claim。
+ * 注销、修改/重置密码时版本号加一，该用户此前签发的所有token立即失效，无需逐个记录黑名单。
+ * 各节点在本地缓存当前版本号：变更时通过Redis发布订阅通知各节点，本地条目过期后再从Redis读取兜底。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class TokenVersionService implements MessageListener {
+
+    /**
+     * Redis前缀
+     */
+    private static final String TOKEN_VERSION_PREFIX = "token:version:";
+
+    /**
+     * 版本变更通知频道
+     */
+    private static final String TOKEN_VERSION_CHANNEL = "token:version:channel";
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 本地缓存最大条目数
+     */
+    @Value("${security.token-version.local-size:10000}")
+    private int localSize;
+
+    /**
+     * 本地缓存过期时间（秒），发布订阅消息丢失时本节点最长的陈旧时间
+     */
+    @Value("${security.token-version.local-ttl:60}")
+    private long localTtl;
+
+    /**
+     * 本地版本号缓存（用户ID -> 当前版本号）
+     */
+    private LRUCache<Long, Long> localVersions;
+
+    @PostConstruct
+    public void init() {
+        localVersions = CacheUtil.newLRUCache(localSize, localTtl * 1000);
+        listenerContainer.addMessageListener(this, new ChannelTopic(TOKEN_VERSION_CHANNEL));
+    }
+
+    /**
+     * 获取用户当前的token版本号，从未变更过的用户为0
+     *
+     * @param userId 用户ID
+     * @return 版本号
+     */
+    public long getVersion(Long userId) {
+        Long version = localVersions.get(userId, false);
+        if (version != null) {
+            return version;
+        }
+        Object value = redisUtils.get(TOKEN_VERSION_PREFIX + userId);
+        version = value instanceof Number ? ((Number) value).longValue() : 0L;
+        localVersions.put(userId, version);
+        return version;
+    }
+
+    /**
+     * 判断token中的版本号是否仍然有效
+     *
+     * @param userId       用户ID
+     * @param tokenVersion token中的版本号
+     * @return 是否有效
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        return tokenVersion >= getVersion(userId);
+    }
+
+    /**
+     * 版本号加一，使该用户已签发的所有token失效
+     *
+     * @param userId 用户ID
+     * @return 新版本号
+     */
+    public long revokeAll(Long userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        long version = redisUtils.increment(TOKEN_VERSION_PREFIX + userId, 1);
+        localVersions.put(userId, version);
+        try {
+            redisUtils.publish(TOKEN_VERSION_CHANNEL, userId + "," + version);
+        } catch (Exception e) {
+            // 其他节点会在本地条目过期后从Redis读取
+            log.warn("发布Token版本变更通知失败，userId：{}", userId, e);
+        }
+        return version;
+    }
+
+    /**
+     * 接收其他节点的版本变更通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) {
+                return;
+            }
+            String[] parts = body.toString().split(",");
+            Long userId = Long.valueOf(parts[0]);
+            long version = Long.parseLong(parts[1]);
+            Long current = localVersions.get(userId, false);
+            if (current == null || current < version) {
+                localVersions.put(userId, version);
+            }
+        } catch (Exception e) {
+            log.warn("处理Token版本变更通知失败", e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.hyu.property.controller;
 import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.utils.excel.BillExcelUtil;
 import com.hyu.common.utils.print.BillPrintUtil;
+import com.hyu.framework.idempotent.IdempotencyJournal;
 import com.hyu.property.domain.Bill;
 import com.hyu.property.service.IBillService;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -28,9 +31,14 @@ import javax.servlet.http.HttpServletResponse;
 @Validated
 public class BillController {
 
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
     @Autowired
     private IBillService billService;
 
+    @Autowired
+    private IdempotencyJournal idempotencyJournal;
+
     /**
      * 分页查询账单列表
      */
@@ -152,17 +160,15 @@ public class BillController {
     @GetMapping("/export")
     @PreAuthorize("@ss.hasPermi('property:bill:export')")
     public void exportBillsToExcel(Bill bill, HttpServletResponse response) {
-        try {
-            // 查询账单数据
-            List<Bill> billList = billService.selectBillList(bill);
-
-            // 生成文件名
-            String fileName = "账单明细_" + new java.text.SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        // 生成文件名
+        String fileName = "账单明细_" + LocalDateTime.now().format(FILE_NAME_FORMAT);
 
-            // 导出Excel
-            BillExcelUtil.exportBillsToExcel(billList, response, fileName);
+        // 流式导出：账单逐行从结果集写入SXSSF工作簿，内存占用与行数无关
+        try (BillExcelUtil.StreamingWriter writer = BillExcelUtil.streamingWriter(fileName)) {
+            billService.streamBillList(bill, writer);
+            writer.write(response);
 
-            log.info("成功导出{}条账单记录", billList.size());
+            log.info("成功导出{}条账单记录", writer.getRowCount());
 
         } catch (Exception e) {
             log.error("导出账单Excel失败", e);
@@ -187,7 +193,7 @@ public class BillController {
             List<Bill> billList = billService.selectBillByIds(billIds);
 
             // 生成文件名
-            String fileName = "批量账单导出_" + new java.text.SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+            String fileName = "批量账单导出_" + LocalDateTime.now().format(FILE_NAME_FORMAT);
 
             // 导出Excel
             BillExcelUtil.exportBillsToExcel(billList, response, fileName);
@@ -228,7 +234,7 @@ public class BillController {
             byte[] pdfBytes = BillPrintUtil.generateBatchPrintPdf(billList, params);
 
             // 构建下载响应
-            String fileName = "批量账单打印_" + new java.text.SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".pdf";
+            String fileName = "批量账单打印_" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".pdf";
 
             // 返回PDF数据供前端下载
             Map<String, Object> result = new HashMap<>();
@@ -295,25 +301,29 @@ public class BillController {
 
     /**
      * 在线缴费（业主端）
+     * 携带幂等键（请求头或 paymentToken）重复提交时返回首次结果
      */
     @PostMapping("/owner/pay")
-    public AjaxResult payBill(@RequestBody Map<String, Object> params) {
-        log.info("在线缴费, params: {}", params);
+    public AjaxResult payBill(@RequestBody Map<String, Object> params,
+                              @RequestHeader(value = IdempotencyJournal.HEADER, required = false) String idempotencyKey) {
+        log.info("在线缴费, billId: {}, paymentMethod: {}", params.get("billId"), params.get("paymentMethod"));
 
         try {
             Long billId = Long.valueOf(params.get("billId").toString());
             String paymentMethod = params.get("paymentMethod").toString();
             String payPassword = params.get("payPassword") != null ? params.get("payPassword").toString() : null;
+            String paymentToken = params.get("paymentToken") != null ? params.get("paymentToken").toString() : idempotencyKey;
 
             Long userId = getCurrentUserId();
 
-            Map<String, Object> result = billService.payBill(billId, userId, paymentMethod, payPassword);
-
-            if ((Integer) result.get("code") == 200) {
-                return AjaxResult.success(result.get("msg").toString(), result.get("data"));
-            } else {
+            return idempotencyJournal.execute("bill:pay", userId, paymentToken,
+                    new Object[]{billId, paymentMethod}, () -> {
+                Map<String, Object> result = billService.payBill(billId, userId, paymentMethod, payPassword, paymentToken);
+                if ((Integer) result.get("code") == 200) {
+                    return AjaxResult.success(result.get("msg").toString(), result.get("data"));
+                }
                 return AjaxResult.error(result.get("msg").toString());
-            }
+            });
         } catch (Exception e) {
             log.error("在线缴费失败", e);
             return AjaxResult.error("缴费失败：" + e.getMessage());
@@ -322,31 +332,60 @@ public class BillController {
 
     /**
      * 批量缴费（业主端）
+     * 携带幂等键（请求头或 paymentToken）重复提交时返回首次结果
      */
     @PostMapping("/owner/pay/batch")
-    public AjaxResult batchPayBills(@RequestBody Map<String, Object> params) {
-        log.info("批量缴费, params: {}", params);
+    public AjaxResult batchPayBills(@RequestBody Map<String, Object> params,
+                                    @RequestHeader(value = IdempotencyJournal.HEADER, required = false) String idempotencyKey) {
+        log.info("批量缴费, billIds: {}, paymentMethod: {}", params.get("billIds"), params.get("paymentMethod"));
 
         try {
-            Long[] billIds = (Long[]) params.get("billIds");
+            Long[] billIds = toBillIds(params.get("billIds"));
             String paymentMethod = params.get("paymentMethod").toString();
             String payPassword = params.get("payPassword") != null ? params.get("payPassword").toString() : null;
+            String paymentToken = params.get("paymentToken") != null ? params.get("paymentToken").toString() : idempotencyKey;
 
             Long userId = getCurrentUserId();
 
-            Map<String, Object> result = billService.batchPayBills(billIds, userId, paymentMethod, payPassword);
-
-            if ((Integer) result.get("code") == 200) {
-                return AjaxResult.success(result.get("msg").toString(), result.get("data"));
-            } else {
+            return idempotencyJournal.execute("bill:pay:batch", userId, paymentToken,
+                    new Object[]{billIds, paymentMethod}, () -> {
+                Map<String, Object> result = billService.batchPayBills(billIds, userId, paymentMethod, payPassword,
+                        paymentToken);
+                if ((Integer) result.get("code") == 200) {
+                    return AjaxResult.success(result.get("msg").toString(), result.get("data"));
+                }
                 return AjaxResult.error(result.get("msg").toString());
-            }
+            });
         } catch (Exception e) {
             log.error("批量缴费失败", e);
             return AjaxResult.error("批量缴费失败：" + e.getMessage());
         }
     }
 
+    /**
+     * 获取缴费/充值请求去重统计
+     */
+    @GetMapping("/idempotency/stats")
+    @PreAuthorize("@ss.hasPermi('property:bill:list')")
+    public AjaxResult idempotencyStats() {
+        return AjaxResult.success(idempotencyJournal.getStats());
+    }
+
+    /**
+     * 解析请求体中的账单ID数组（JSON数组反序列化为List）
+     */
+    private Long[] toBillIds(Object value) {
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            Long[] billIds = new Long[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                billIds[i] = Long.valueOf(String.valueOf(list.get(i)));
+            }
+            return billIds;
+        }
+        return value instanceof Long[] ? (Long[]) value : null;
+    }
+
     /**
      * 获取当前用户ID
      */
@@ -0,0 +1,56 @@
+package com.hyu.property.controller;
+
+import com.hyu.common.core.domain.AjaxResult;
+import com.hyu.common.utils.StringUtils;
+import com.hyu.property.service.IBillGenerationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * 账单生成运行状态Controller
+ *
+ * @author hyu
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/property/bill/generation")
+public class BillGenerationController {
+
+    @Autowired
+    private IBillGenerationService billGenerationService;
+
+    /**
+     * 查询计费周期的账单生成运行状态
+     *
+     * @param billingPeriod 计费周期（yyyy-MM），默认当月
+     */
+    @GetMapping("/status")
+    @PreAuthorize("@ss.hasPermi('property:bill:list')")
+    public AjaxResult status(@RequestParam(required = false) String billingPeriod) {
+        if (StringUtils.isEmpty(billingPeriod)) {
+            billingPeriod = YearMonth.now().toString();
+        }
+        Map<String, Object> status = billGenerationService.getRunStatus(billingPeriod);
+        if (status.isEmpty()) {
+            return AjaxResult.error("该计费周期尚未生成账单：" + billingPeriod);
+        }
+        return AjaxResult.success(status);
+    }
+
+    /**
+     * 查询最近一次运行的统计信息
+     */
+    @GetMapping("/last")
+    @PreAuthorize("@ss.hasPermi('property:bill:list')")
+    public AjaxResult last() {
+        return AjaxResult.success(billGenerationService.getLastRunMetrics());
+    }
+}
@@ -136,8 +136,8 @@ public class ComplaintController {
         complaint.setCreateBy(SecurityUtils.getUsername());
         complaint.setUpdateBy(SecurityUtils.getUsername());
 
-        // 校验投诉单号是否唯一
-        if (!complaintService.checkComplaintNoUnique(complaint)) {
+        // 校验投诉单号是否唯一（未指定时由编号生成器分配，无需校验）
+        if (StringUtils.isNotEmpty(complaint.getComplaintNo()) && !complaintService.checkComplaintNoUnique(complaint)) {
             return AjaxResult.error("新增投诉'" + complaint.getComplaintNo() + "'失败，投诉单号已存在");
         }
 
@@ -69,6 +69,27 @@ public class HouseController {
         return AjaxResult.success("查询成功", PageResult.success(result.getTotal(), result.getRecords()));
     }
 
+    /**
+     * 游标分页查询房产列表
+     */
+    @GetMapping("/list/cursor")
+    @PreAuthorize("@ss.hasPermi('property:house:list')")
+    public AjaxResult cursorList(@RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "10") Integer size,
+                                 @RequestParam(required = false) Long buildingId,
+                                 @RequestParam(required = false) Long unitId,
+                                 @RequestParam(required = false) String houseNo,
+                                 @RequestParam(required = false) String roomNumber,
+                                 @RequestParam(required = false) Integer houseStatus) {
+        House house = new House();
+        house.setBuildingId(buildingId);
+        house.setUnitId(unitId);
+        house.setHouseNo(houseNo);
+        house.setRoomNumber(roomNumber);
+        house.setHouseStatus(houseStatus);
+        return AjaxResult.success(houseService.selectHouseVOCursor(house, cursor, size));
+    }
+
     /**
      * 获取房产详细信息
      */
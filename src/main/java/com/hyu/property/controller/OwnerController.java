@@ -5,6 +5,7 @@ import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.core.domain.PageResult;
 import com.hyu.common.utils.SecurityUtils;
 import com.hyu.common.utils.StringUtils;
+import com.hyu.common.utils.excel.OwnerExcelUtil;
 import com.hyu.property.domain.vo.OwnerVO;
 import com.hyu.property.service.IOwnerService;
 import lombok.extern.slf4j.Slf4j;
@@ -13,8 +14,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
@@ -28,6 +32,8 @@ import java.util.*;
 @Validated
 public class OwnerController {
 
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
     @Autowired
     private IOwnerService ownerService;
 
@@ -146,6 +152,28 @@ public class OwnerController {
         return AjaxResult.success(ownerService.getOwnersByHouseId(houseId));
     }
 
+    /**
+     * 导出业主列表到Excel
+     */
+    @GetMapping("/export")
+    @PreAuthorize("@ss.hasPermi('property:owner:export')")
+    public void export(OwnerVO owner, HttpServletResponse response) {
+        // 生成文件名
+        String fileName = "业主信息_" + LocalDateTime.now().format(FILE_NAME_FORMAT);
+
+        // 流式导出：业主分块读取后逐条写入SXSSF工作簿，不把全部业主加载到内存
+        try (OwnerExcelUtil.StreamingWriter writer = OwnerExcelUtil.streamingWriter(fileName)) {
+            ownerService.streamOwnerList(owner, writer);
+            writer.write(response);
+
+            log.info("成功导出{}条业主记录", writer.getRowCount());
+
+        } catch (Exception e) {
+            log.error("导出业主Excel失败", e);
+            throw new RuntimeException("导出业主Excel失败", e);
+        }
+    }
+
   
     /**
      * 返回AjaxResult
@@ -1,6 +1,8 @@
 package com.hyu.property.controller;
 
 import com.hyu.common.core.domain.AjaxResult;
+import com.hyu.common.utils.SecurityUtils;
+import com.hyu.framework.idempotent.IdempotencyJournal;
 import com.hyu.property.domain.dto.*;
 import com.hyu.property.domain.vo.*;
 import com.hyu.property.domain.RepairOrder;
@@ -23,6 +25,7 @@ import java.util.Map;
 public class PortalController {
 
     private final IPortalService portalService;
+    private final IdempotencyJournal idempotencyJournal;
 
     private AjaxResult success(Object data) {
         return AjaxResult.success(data);
@@ -44,11 +47,16 @@ public class PortalController {
 
     /**
      * 批量缴费
+     * 携带幂等键（请求头或 paymentToken）重复提交时返回首次结果
      */
     @PostMapping("/bill/payBatch")
-    public AjaxResult payBillsBatch(@RequestBody BillPayBatchDTO payBatchDTO) {
-        Map<String, Object> result = portalService.payBillsBatch(payBatchDTO);
-        return success(result);
+    public AjaxResult payBillsBatch(@RequestBody BillPayBatchDTO payBatchDTO,
+                                    @RequestHeader(value = IdempotencyJournal.HEADER, required = false) String idempotencyKey) {
+        if (payBatchDTO.getPaymentToken() == null) {
+            payBatchDTO.setPaymentToken(idempotencyKey);
+        }
+        return idempotencyJournal.execute("portal:bill:pay", SecurityUtils.getUserId(), payBatchDTO.getPaymentToken(),
+                new Object[]{payBatchDTO.getBillIds()}, () -> success(portalService.payBillsBatch(payBatchDTO)));
     }
 
     // ========== 我的钱包 ==========
@@ -64,11 +72,13 @@ public class PortalController {
 
     /**
      * 钱包充值
+     * 携带幂等键重复提交时返回首次结果
      */
     @PostMapping("/wallet/recharge")
-    public AjaxResult rechargeWallet(@RequestBody WalletRechargeDTO rechargeDTO) {
-        Map<String, Object> result = portalService.rechargeWallet(rechargeDTO);
-        return success(result);
+    public AjaxResult rechargeWallet(@RequestBody WalletRechargeDTO rechargeDTO,
+                                     @RequestHeader(value = IdempotencyJournal.HEADER, required = false) String idempotencyKey) {
+        return idempotencyJournal.execute("portal:wallet:recharge", SecurityUtils.getUserId(), idempotencyKey,
+                new Object[]{rechargeDTO.getAmount()}, () -> success(portalService.rechargeWallet(rechargeDTO)));
     }
 
     /**
@@ -90,14 +100,31 @@ public class PortalController {
     }
 
     /**
-     * 获取我的交易明细
+     * 获取我的交易明细（游标分页，下一页传入上一页返回的 nextCursor）
      */
     @GetMapping("/wallet/transactions")
-    public AjaxResult getMyTransactionList(@RequestParam(defaultValue = "1") Integer pageNum,
+    public AjaxResult getMyTransactionList(@RequestParam(required = false) String cursor,
                                              @RequestParam(defaultValue = "10") Integer pageSize,
-                                             @RequestParam(required = false) String transactionType) {
-        List<Object> list = portalService.getMyTransactionList(transactionType, pageNum, pageSize);
-        return success(list);
+                                             @RequestParam(required = false) Integer transactionType,
+                                             @RequestParam(required = false) String beginTime,
+                                             @RequestParam(required = false) String endTime) {
+        return success(portalService.getMyTransactionList(transactionType, beginTime, endTime, cursor, pageSize));
+    }
+
+    /**
+     * 获取我的钱包在指定日期日终的余额
+     */
+    @GetMapping("/wallet/balanceAt")
+    public AjaxResult getMyBalanceAtDate(@RequestParam String date) {
+        return success(portalService.getMyBalanceAtDate(date));
+    }
+
+    /**
+     * 获取我的钱包月度对账单
+     */
+    @GetMapping("/wallet/statement")
+    public AjaxResult getMyMonthlyStatement(@RequestParam(required = false) String month) {
+        return success(portalService.getMyMonthlyStatement(month));
     }
 
     // ========== 我的投诉 ==========
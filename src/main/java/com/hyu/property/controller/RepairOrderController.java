@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.core.domain.PageResult;
+import com.hyu.common.utils.IdGenerator;
 import com.hyu.common.utils.SecurityUtils;
 import com.hyu.common.utils.StringUtils;
 import com.hyu.property.domain.RepairOrder;
@@ -36,8 +37,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 /**
@@ -60,6 +59,9 @@ public class RepairOrderController {
     @Autowired
     private ISysUserService userService;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
     @Value("${repair.upload.path:./uploads/images}")
     private String uploadPath;
 
@@ -157,7 +159,10 @@ public class RepairOrderController {
     @PreAuthorize("@ss.hasPermi('property:repair:add')")
     public AjaxResult add(@Valid @RequestBody RepairOrder repairOrder) {
         log.info("新增维修工单, repairOrder: {}", repairOrder);
-        if (!repairOrderService.checkOrderNoUnique(repairOrder)) {
+        // 未指定工单编号时由编号生成器分配，生成的编号全局唯一，无需查库校验
+        if (StringUtils.isEmpty(repairOrder.getOrderNo())) {
+            repairOrder.setOrderNo(idGenerator.nextNo("RO"));
+        } else if (!repairOrderService.checkOrderNoUnique(repairOrder)) {
             return AjaxResult.error("新增维修工单'" + repairOrder.getOrderNo() + "'失败，工单编号已存在");
         }
         repairOrder.setCreateBy(SecurityUtils.getUsername());
@@ -349,18 +354,11 @@ public class RepairOrderController {
         log.info("设置后的repairOrder: houseId={}, houseNo={}", repairOrder.getHouseId(), repairOrder.getHouseNo());
 
         // 生成工单编号
-        String orderNo = "RO" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) +
-                       "_" + String.format("%04d", new java.util.Random().nextInt(10000));
-        repairOrder.setOrderNo(orderNo);
+        repairOrder.setOrderNo(idGenerator.nextNo("RO"));
 
         // 设置初始状态为待派工
         repairOrder.setOrderStatus(1);
 
-        // 验证工单编号唯一性
-        if (!repairOrderService.checkOrderNoUnique(repairOrder)) {
-            return AjaxResult.error("新增维修工单'" + repairOrder.getOrderNo() + "'失败，工单编号已存在");
-        }
-
         repairOrder.setCreateBy(SecurityUtils.getUsername());
         return toAjax(repairOrderService.save(repairOrder));
     }
@@ -4,10 +4,12 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.core.domain.PageResult;
 import com.hyu.common.domain.LoginUser;
+import com.hyu.framework.idempotent.IdempotencyJournal;
 import com.hyu.property.domain.Wallet;
 import com.hyu.property.domain.dto.WalletRechargeDTO;
 import com.hyu.property.domain.dto.WalletSetPasswordDTO;
 import com.hyu.property.domain.dto.WalletChangePasswordDTO;
+import com.hyu.property.service.IWalletBatchRechargeService;
 import com.hyu.property.service.IWalletService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +40,12 @@ public class WalletController {
     @Autowired
     private com.hyu.property.mapper.WalletMapper walletMapper;
 
+    @Autowired
+    private IWalletBatchRechargeService walletBatchRechargeService;
+
+    @Autowired
+    private IdempotencyJournal idempotencyJournal;
+
     /**
      * 分页查询钱包列表
      */
@@ -99,7 +107,7 @@ public class WalletController {
     @PreAuthorize("@ss.hasPermi('property:wallet:edit')")
     public AjaxResult edit(@Valid @RequestBody Wallet wallet) {
         log.info("修改钱包, wallet: {}", wallet);
-        return toAjax(walletService.updateById(wallet));
+        return toAjax(walletService.updateWallet(wallet) > 0);
     }
 
     /**
@@ -157,12 +165,18 @@ public class WalletController {
 
     /**
      * 虚拟充值（给自己充值）
+     * 携带幂等键重复提交时返回首次结果
      */
     @PostMapping("/virtual-recharge")
-    public AjaxResult virtualRecharge(@Valid @RequestBody WalletRechargeDTO rechargeDTO) {
+    public AjaxResult virtualRecharge(@Valid @RequestBody WalletRechargeDTO rechargeDTO,
+                                      @RequestHeader(value = IdempotencyJournal.HEADER, required = false) String idempotencyKey) {
         Long userId = getCurrentUserId();
         log.info("用户{}进行虚拟充值, amount: {}", userId, rechargeDTO.getAmount());
+        return idempotencyJournal.execute("wallet:recharge", userId, idempotencyKey,
+                new Object[]{rechargeDTO.getAmount()}, () -> doVirtualRecharge(userId, rechargeDTO));
+    }
 
+    private AjaxResult doVirtualRecharge(Long userId, WalletRechargeDTO rechargeDTO) {
         try {
             // 检查用户钱包是否已开通支付密码
             Wallet wallet = walletService.getByUserId(userId);
@@ -196,11 +210,19 @@ public class WalletController {
 
     /**
      * 管理员充值（给指定用户充值）
+     * 携带幂等键重复提交时返回首次结果
      */
     @PostMapping("/admin-recharge")
     @PreAuthorize("@ss.hasPermi('property:wallet:recharge')")
-    public AjaxResult adminRecharge(@RequestParam Long userId, @RequestParam BigDecimal amount) {
+    public AjaxResult adminRecharge(@RequestParam Long userId, @RequestParam BigDecimal amount,
+                                    @RequestHeader(value = IdempotencyJournal.HEADER, required = false) String idempotencyKey) {
         log.info("管理员充值, userId: {}, amount: {}", userId, amount);
+        // 幂等键按操作的管理员隔离，目标用户和金额计入请求指纹
+        return idempotencyJournal.execute("wallet:admin-recharge", getCurrentUserId(), idempotencyKey,
+                new Object[]{userId, amount}, () -> doAdminRecharge(userId, amount));
+    }
+
+    private AjaxResult doAdminRecharge(Long userId, BigDecimal amount) {
         try {
             if (amount.compareTo(BigDecimal.ZERO) <= 0) {
                 return AjaxResult.error("充值金额必须大于0");
@@ -219,11 +241,13 @@ public class WalletController {
 
     /**
      * 批量充值（为所有业主充值）
+     * 任务在后台分批执行，立即返回批次号；以相同批次号重复提交不会重复充值
      */
     @PostMapping("/batch-recharge")
     @PreAuthorize("@ss.hasPermi('property:wallet:batchRecharge')")
-    public AjaxResult batchRecharge(@RequestParam BigDecimal amount) {
-        log.info("批量充值给所有业主, amount: {}", amount);
+    public AjaxResult batchRecharge(@RequestParam BigDecimal amount,
+                                    @RequestParam(required = false) String batchNo) {
+        log.info("批量充值给所有业主, amount: {}, batchNo: {}", amount, batchNo);
         try {
             if (amount.compareTo(BigDecimal.ZERO) <= 0) {
                 return AjaxResult.error("充值金额必须大于0");
@@ -232,14 +256,26 @@ public class WalletController {
                 return AjaxResult.error("单次批量充值金额不能超过10000元");
             }
 
-            int count = walletService.batchRechargeForAllOwners(amount);
-            return AjaxResult.success("批量充值成功", "共为 " + count + " 位业主充值 " + amount + " 元");
+            return AjaxResult.success("批量充值任务已提交", walletBatchRechargeService.submit(amount, batchNo));
         } catch (Exception e) {
             log.error("批量充值失败", e);
             return AjaxResult.error(e.getMessage());
         }
     }
 
+    /**
+     * 查询批量充值任务进度
+     */
+    @GetMapping("/batch-recharge/{batchNo}")
+    @PreAuthorize("@ss.hasPermi('property:wallet:batchRecharge')")
+    public AjaxResult batchRechargeStatus(@PathVariable String batchNo) {
+        java.util.Map<String, Object> status = walletBatchRechargeService.getStatus(batchNo);
+        if (status.isEmpty()) {
+            return AjaxResult.error("批量充值任务不存在：" + batchNo);
+        }
+        return AjaxResult.success(status);
+    }
+
     /**
      * 冻结钱包
      */
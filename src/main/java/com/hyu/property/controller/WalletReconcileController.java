@@ -0,0 +1,100 @@
+package com.hyu.property.controller;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hyu.common.core.domain.AjaxResult;
+import com.hyu.common.utils.StringUtils;
+import com.hyu.property.domain.WalletReconcileDrift;
+import com.hyu.property.service.IWalletReconcileService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 钱包对账Controller
+ *
+ * @author hyu
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/property/wallet/reconcile")
+public class WalletReconcileController {
+
+    @Autowired
+    private IWalletReconcileService walletReconcileService;
+
+    /**
+     * 手动执行前一天的对账（后台执行，已完成的日期直接返回结果）
+     */
+    @PostMapping("/run")
+    @PreAuthorize("@ss.hasPermi('property:wallet:edit')")
+    public AjaxResult run() {
+        return AjaxResult.success(walletReconcileService.submit());
+    }
+
+    /**
+     * 查询快照日期的对账运行状态
+     *
+     * @param snapshotDate 快照日期（yyyy-MM-dd），默认前一天
+     */
+    @GetMapping("/status")
+    @PreAuthorize("@ss.hasPermi('property:wallet:list')")
+    public AjaxResult status(@RequestParam(required = false) String snapshotDate) {
+        if (StringUtils.isEmpty(snapshotDate)) {
+            snapshotDate = LocalDate.now().minusDays(1).toString();
+        }
+        Map<String, Object> status = walletReconcileService.getRunStatus(snapshotDate);
+        if (status.isEmpty()) {
+            return AjaxResult.error("该日期尚未对账：" + snapshotDate);
+        }
+        return AjaxResult.success(status);
+    }
+
+    /**
+     * 查询最近一次运行的统计信息
+     */
+    @GetMapping("/last")
+    @PreAuthorize("@ss.hasPermi('property:wallet:list')")
+    public AjaxResult last() {
+        return AjaxResult.success(walletReconcileService.getLastRunMetrics());
+    }
+
+    /**
+     * 分页查询对账差异
+     */
+    @GetMapping("/drift/page")
+    @PreAuthorize("@ss.hasPermi('property:wallet:list')")
+    public AjaxResult driftPage(@RequestParam(defaultValue = "1") Integer pageNum,
+                                @RequestParam(defaultValue = "10") Integer pageSize,
+                                @RequestParam(required = false) String snapshotDate,
+                                @RequestParam(required = false) Long walletId,
+                                @RequestParam(required = false) Long userId,
+                                @RequestParam(required = false) Integer handleStatus) {
+        WalletReconcileDrift drift = new WalletReconcileDrift();
+        if (StringUtils.isNotEmpty(snapshotDate)) {
+            drift.setSnapshotDate(LocalDate.parse(snapshotDate));
+        }
+        drift.setWalletId(walletId);
+        drift.setUserId(userId);
+        drift.setHandleStatus(handleStatus);
+        return AjaxResult.success(walletReconcileService.selectDriftPage(new Page<>(pageNum, pageSize), drift));
+    }
+
+    /**
+     * 标记对账差异为已处理
+     */
+    @PutMapping("/drift/{id}/resolve")
+    @PreAuthorize("@ss.hasPermi('property:wallet:edit')")
+    public AjaxResult resolve(@PathVariable Long id) {
+        return walletReconcileService.resolveDrift(id) ? AjaxResult.success() : AjaxResult.error();
+    }
+}
@@ -9,7 +9,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 /**
  * 钱包交易记录Controller
@@ -41,13 +40,14 @@ public class WalletTransactionController {
     }
 
     /**
-     * 查询交易记录列表
+     * 游标分页查询交易记录列表
      */
     @GetMapping("/list")
     @PreAuthorize("@ss.hasPermi('property:transaction:list')")
-    public AjaxResult listAll(WalletTransaction transaction) {
-        List<WalletTransaction> list = walletTransactionService.selectTransactionList(transaction);
-        return AjaxResult.success(list);
+    public AjaxResult listAll(WalletTransaction transaction,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "20") Integer size) {
+        return AjaxResult.success(walletTransactionService.selectTransactionList(transaction, cursor, size));
     }
 
     /**
@@ -74,13 +74,18 @@ public class WalletTransactionController {
     }
 
     /**
-     * 根据业主ID查询交易记录
+     * 根据业主ID游标分页查询交易记录
      */
     @GetMapping("/owner/{ownerId}")
     @PreAuthorize("@ss.hasPermi('property:transaction:query')")
-    public AjaxResult getInfoByOwnerId(@PathVariable("ownerId") Long ownerId) {
-        List<WalletTransaction> list = walletTransactionService.selectTransactionByOwnerId(ownerId);
-        return AjaxResult.success(list);
+    public AjaxResult getInfoByOwnerId(@PathVariable("ownerId") Long ownerId,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "20") Integer size,
+                                       @RequestParam(required = false) Integer transactionType,
+                                       @RequestParam(required = false) String beginTime,
+                                       @RequestParam(required = false) String endTime) {
+        return AjaxResult.success(walletTransactionService.selectTransactionHistory(
+                ownerId, transactionType, beginTime, endTime, cursor, size));
     }
 
     /**
@@ -186,6 +186,12 @@ public class Bill implements Serializable {
     @TableField("paid_time")
     private Date paidTime;
 
+    /**
+     * 缴费单号，同一次结算的账单相同
+     */
+    @TableField("payment_no")
+    private String paymentNo;
+
     /**
      * 费用名称（冗余字段）
      */
@@ -0,0 +1,89 @@
+package com.hyu.property.domain;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 钱包余额日快照对象 wallet_balance_snapshot
+ *
+ * @author hyu
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("wallet_balance_snapshot")
+public class WalletBalanceSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 快照ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 快照日期（对账的业务日期）
+     */
+    @TableField("snapshot_date")
+    private LocalDate snapshotDate;
+
+    /**
+     * 钱包ID
+     */
+    @TableField("wallet_id")
+    private Long walletId;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 快照余额（执行对账时的钱包余额）
+     */
+    @TableField("balance")
+    private BigDecimal balance;
+
+    /**
+     * 按交易记录推算的预期余额
+     */
+    @TableField("expected_balance")
+    private BigDecimal expectedBalance;
+
+    /**
+     * 差异金额（快照余额 - 预期余额）
+     */
+    @TableField("drift_amount")
+    private BigDecimal driftAmount;
+
+    /**
+     * 快照包含的最后一条交易记录ID
+     */
+    @TableField("last_transaction_id")
+    private Long lastTransactionId;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+
+    /**
+     * 上一快照余额（对账计算用）
+     */
+    @TableField(exist = false)
+    private BigDecimal previousBalance;
+
+    /**
+     * 上一快照之后的交易净额（对账计算用）
+     */
+    @TableField(exist = false)
+    private BigDecimal ledgerDelta;
+}
@@ -0,0 +1,95 @@
+package com.hyu.property.domain;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 钱包对账差异对象 wallet_reconcile_drift
+ *
+ * @author hyu
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("wallet_reconcile_drift")
+public class WalletReconcileDrift implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 差异ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 快照日期
+     */
+    @TableField("snapshot_date")
+    private LocalDate snapshotDate;
+
+    /**
+     * 钱包ID
+     */
+    @TableField("wallet_id")
+    private Long walletId;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 上一快照日期，首次对账为空
+     */
+    @TableField("previous_date")
+    private LocalDate previousDate;
+
+    /**
+     * 上一快照余额
+     */
+    @TableField("previous_balance")
+    private BigDecimal previousBalance;
+
+    /**
+     * 上一快照之后的交易净额
+     */
+    @TableField("ledger_delta")
+    private BigDecimal ledgerDelta;
+
+    /**
+     * 预期余额
+     */
+    @TableField("expected_balance")
+    private BigDecimal expectedBalance;
+
+    /**
+     * 实际余额
+     */
+    @TableField("actual_balance")
+    private BigDecimal actualBalance;
+
+    /**
+     * 差异金额（实际 - 预期）
+     */
+    @TableField("drift_amount")
+    private BigDecimal driftAmount;
+
+    /**
+     * 处理状态 0:未处理 1:已处理
+     */
+    @TableField("handle_status")
+    private Integer handleStatus;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
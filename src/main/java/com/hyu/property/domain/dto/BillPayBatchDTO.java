@@ -28,4 +28,10 @@ public class BillPayBatchDTO {
     @NotNull(message = "支付密码不能为空")
     @Size(min = 6, max = 6, message = "支付密码必须为6位数字")
     private String payPassword;
-}
\ No newline at end of file
+
+    /**
+     * 缴费凭证（客户端生成的幂等键，重复提交不会重复扣款）
+     */
+    @Size(max = 32, message = "缴费凭证不能超过32位")
+    private String paymentToken;
+}
@@ -0,0 +1,47 @@
+package com.hyu.property.domain.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 业主门户首页汇总视图对象
+ *
+ * @author hyu
+ */
+@Data
+public class OwnerSummaryVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 待缴账单数（待缴费、已逾期）
+     */
+    private Long pendingBillCount;
+
+    /**
+     * 待缴账单总额
+     */
+    private BigDecimal pendingBillAmount;
+
+    /**
+     * 进行中的报修数
+     */
+    private Long inProgressRepairCount;
+
+    /**
+     * 未读公告数
+     */
+    private Long unreadNoticeCount;
+
+    /**
+     * 未办结的投诉数（待处理、处理中）
+     */
+    private Long openComplaintCount;
+
+    /**
+     * 钱包余额，未开通钱包时为null
+     */
+    private BigDecimal walletBalance;
+}
@@ -5,8 +5,8 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hyu.property.domain.Bill;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +35,14 @@ public interface BillMapper extends BaseMapper<Bill> {
      */
     List<Bill> selectBillList(Bill bill);
 
+    /**
+     * 流式查询账单列表，逐行交给结果处理器，不在内存中物化结果集
+     *
+     * @param bill 账单信息
+     * @param handler 结果处理器
+     */
+    void streamBillList(@Param("bill") Bill bill, ResultHandler<Bill> handler);
+
     /**
      * 根据账单ID查询账单
      *
@@ -83,6 +91,14 @@ public interface BillMapper extends BaseMapper<Bill> {
      */
     int batchInsertBills(List<Bill> bills);
 
+    /**
+     * 查询计费周期内已存在账单的键（用户ID:房产ID:费用类型ID）
+     *
+     * @param billingPeriod 计费周期
+     * @return 账单键列表
+     */
+    List<String> selectExistingBillKeys(@Param("billingPeriod") String billingPeriod);
+
     /**
      * 更新账单状态
      *
@@ -137,44 +153,54 @@ public interface BillMapper extends BaseMapper<Bill> {
     Map<String, Object> selectFeeTypeById(Long feeTypeId);
 
     /**
-     * 根据业主ID查询钱包余额
+     * 按 (due_date, id) 键集分页查询已到期的待缴费账单
      *
-     * @param ownerId 业主ID
-     * @return 钱包余额
+     * @param dueBefore 截止时间（不含），即本次扫描开始的时间
+     * @param lastDueDate 上一批最后一条的截止日期，为空表示从头开始
+     * @param lastBillId 上一批最后一条的账单ID
+     * @param limit 每批数量
+     * @return 账单列表（仅含ID和截止日期）
      */
-    BigDecimal selectWalletBalance(Long ownerId);
+    List<Bill> selectOverdueCandidates(@Param("dueBefore") java.util.Date dueBefore,
+                                       @Param("lastDueDate") java.util.Date lastDueDate,
+                                       @Param("lastBillId") Long lastBillId,
+                                       @Param("limit") int limit);
 
     /**
-     * 更新钱包余额
+     * 将指定账单标记为超期，仅更新仍为待缴费的账单
      *
-     * @param ownerId 业主ID
-     * @param balance 新余额
-     * @return 结果
+     * @param billIds 账单ID列表
+     * @return 更新数量
      */
-    int updateWalletBalance(@Param("ownerId") Long ownerId, @Param("balance") BigDecimal balance);
+    int markBillsOverdue(@Param("billIds") List<Long> billIds);
 
     /**
-     * 插入缴费交易记录
+     * 锁定并读取待结算的账单（SELECT ... FOR UPDATE，须在事务内调用）
      *
-     * @param ownerId 业主ID
-     * @param billId 账单ID
-     * @param amount 金额
-     * @param description 描述
-     * @param transactionNo 交易流水号
-     * @return 结果
+     * @param billIds 账单ID列表
+     * @return 账单列表（不含关联信息）
      */
-    int insertPaymentTransaction(@Param("ownerId") Long ownerId,
-                                @Param("billId") Long billId,
-                                @Param("amount") BigDecimal amount,
-                                @Param("description") String description,
-                                @Param("transactionNo") String transactionNo);
+    List<Bill> selectBillsForUpdate(@Param("billIds") List<Long> billIds);
 
     /**
-     * 更新超期账单状态
+     * 将指定账单标记为已缴费，仅更新待缴费或已超期的账单，实缴金额等于应缴金额
      *
+     * @param billIds 账单ID列表
+     * @param payMethod 缴费方式
+     * @param paymentNo 缴费单号
      * @return 更新数量
      */
-    int updateOverdueBills();
+    int markBillsPaid(@Param("billIds") List<Long> billIds, @Param("payMethod") Integer payMethod,
+                      @Param("paymentNo") String paymentNo);
+
+    /**
+     * 按缴费单号查询用户已结算的账单ID
+     *
+     * @param paymentNo 缴费单号
+     * @param userId 用户ID
+     * @return 账单ID列表
+     */
+    List<Long> selectBillIdsByPaymentNo(@Param("paymentNo") String paymentNo, @Param("userId") Long userId);
 
     // ==================== 业主端API ====================
 
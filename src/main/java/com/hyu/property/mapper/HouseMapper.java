@@ -6,6 +6,8 @@ import com.hyu.property.domain.vo.HouseVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -33,20 +35,44 @@ public interface HouseMapper extends BaseMapper<House> {
     Long selectUserIdByUsername(@Param("username") String username);
 
     /**
-     * 分页查询房产列表（包含产权人信息）
+     * 分页查询房产列表（按创建时间、ID倒序，不含产权人信息）
+     * 传入游标时从游标之后继续查询，否则按偏移量分页
      *
-     * @param page 分页参数
      * @param house 房产查询条件
+     * @param cursorTime 上一页最后一条的创建时间，可以为空
+     * @param cursorId 上一页最后一条的ID，为空表示不使用游标
+     * @param offset 偏移量，使用游标时传0
+     * @param limit 查询条数
      * @return 房产列表
      */
-    List<HouseVO> selectHouseVOPage(@Param("house") House house);
+    List<HouseVO> selectHouseVOPage(@Param("house") House house,
+                                    @Param("cursorTime") Date cursorTime,
+                                    @Param("cursorId") Long cursorId,
+                                    @Param("offset") long offset,
+                                    @Param("limit") int limit);
 
     /**
-     * 根据房间编号查询房屋ID
+     * 统计符合条件的房产数量
      *
-     * @param houseNo 房间编号
-     * @return 房屋ID
+     * @param house 房产查询条件
+     * @return 房产数量
+     */
+    long countHouseVO(@Param("house") House house);
+
+    /**
+     * 批量查询房产的当前产权人
+     *
+     * @param houseIds 房产ID集合
+     * @return 产权人列表（id为房产ID，同一房产可能有多条，取第一条）
+     */
+    List<HouseVO> selectCurrentResidentsByHouseIds(@Param("houseIds") Collection<Long> houseIds);
+
+    /**
+     * 批量查询房产及所属楼栋、单元名称
+     *
+     * @param ids 房产ID集合
+     * @return 房产列表（buildingName、unitName已填充）
      */
-    Long selectHouseIdByHouseNo(@Param("houseNo") String houseNo);
+    List<House> selectHousesWithNamesByIds(@Param("ids") Collection<Long> ids);
 
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.hyu.property.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hyu.property.domain.Notice;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
 /**
  * 公告Mapper接口
  *
@@ -12,11 +15,21 @@ import org.apache.ibatis.annotations.Update;
 public interface NoticeMapper extends BaseMapper<Notice> {
 
     /**
-     * 增加公告阅读次数
+     * 累加公告阅读次数
      *
      * @param id 公告ID
+     * @param delta 增加的次数
      * @return 结果
      */
-    @Update("UPDATE notice SET read_count = IFNULL(read_count, 0) + 1 WHERE id = #{id}")
-    int incrementReadCount(Long id);
+    @Update("UPDATE notice SET read_count = IFNULL(read_count, 0) + #{delta} WHERE id = #{id}")
+    int addReadCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 查询楼栋、单元内可见的已发布公告（按公告受众索引匹配）
+     *
+     * @param buildingId 楼栋ID，为空时不按楼栋匹配
+     * @param unitId 单元ID，为空时不按单元匹配
+     * @return 公告列表
+     */
+    List<Notice> selectNoticeListForUser(@Param("buildingId") Long buildingId, @Param("unitId") Long unitId);
 }
\ No newline at end of file
@@ -72,6 +72,14 @@ public interface NoticeReadMapper extends BaseMapper<NoticeRead> {
      */
     int batchInsertNoticeRead(@Param("list") List<NoticeRead> noticeReadList);
 
+    /**
+     * 批量插入阅读记录，已存在的 (公告ID, 用户ID) 忽略
+     *
+     * @param noticeReadList 阅读记录列表
+     * @return 实际插入的行数
+     */
+    int insertIgnoreBatch(@Param("list") List<NoticeRead> noticeReadList);
+
     /**
      * 删除公告的所有阅读记录
      *
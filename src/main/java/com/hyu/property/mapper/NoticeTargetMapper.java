@@ -0,0 +1,35 @@
+package com.hyu.property.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 公告受众索引Mapper接口
+ *
+ * @author hyu
+ */
+@Mapper
+public interface NoticeTargetMapper {
+
+    /**
+     * 批量写入公告受众
+     *
+     * @param noticeId 公告ID
+     * @param targetType 目标类型 1-楼栋 2-单元
+     * @param targetIds 楼栋ID或单元ID集合
+     * @return 结果
+     */
+    int insertTargets(@Param("noticeId") Long noticeId,
+                      @Param("targetType") int targetType,
+                      @Param("targetIds") Collection<Long> targetIds);
+
+    /**
+     * 删除公告的全部受众
+     *
+     * @param noticeIds 公告ID集合
+     * @return 结果
+     */
+    int deleteByNoticeIds(@Param("noticeIds") Collection<?> noticeIds);
+}
@@ -0,0 +1,31 @@
+package com.hyu.property.mapper;
+
+import com.hyu.property.domain.vo.OwnerSummaryVO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 业主门户汇总Mapper接口
+ *
+ * @author hyu
+ */
+@Mapper
+public interface OwnerSummaryMapper {
+
+    /**
+     * 聚合查询业主的待缴账单、进行中报修、未办结投诉和钱包余额（不含未读公告）
+     *
+     * @param userId 用户ID
+     * @return 汇总数据
+     */
+    OwnerSummaryVO selectOwnerSummary(@Param("userId") Long userId);
+
+    /**
+     * 统计业主当前可见且未读的公告数
+     * 可见范围按业主当前房产所在的楼栋、单元匹配
+     *
+     * @param userId 用户ID
+     * @return 未读公告数
+     */
+    long countUnreadNotices(@Param("userId") Long userId);
+}
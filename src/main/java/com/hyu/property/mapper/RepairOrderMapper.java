@@ -1,7 +1,13 @@
 package com.hyu.property.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hyu.property.domain.RepairOrder;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 维修工单Mapper接口
@@ -10,4 +16,26 @@ import com.hyu.property.domain.RepairOrder;
  */
 public interface RepairOrderMapper extends BaseMapper<RepairOrder> {
 
-}
\ No newline at end of file
+    /**
+     * 按状态分组统计维修师傅的工单数，以及各状态中指定时间之后完工的数量
+     *
+     * @param workerId 维修师傅ID
+     * @param todayStart 今日零点
+     * @param monthStart 本月一日零点
+     * @return 每个状态一行：order_status, order_count, today_finished, month_finished
+     */
+    List<Map<String, Object>> selectWorkerStatusStats(@Param("workerId") Long workerId,
+                                                      @Param("todayStart") LocalDateTime todayStart,
+                                                      @Param("monthStart") LocalDateTime monthStart);
+
+    /**
+     * 分页查询维修师傅的工单（含楼栋、单元），按创建时间倒序
+     *
+     * @param page 分页参数
+     * @param workerId 维修师傅ID
+     * @param orderStatus 工单状态，为空时查询全部
+     * @return 工单分页数据
+     */
+    Page<RepairOrder> selectWorkerOrderPage(Page<RepairOrder> page, @Param("workerId") Long workerId,
+                                            @Param("orderStatus") Integer orderStatus);
+}
@@ -6,6 +6,7 @@ import com.hyu.property.domain.UserHouse;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -41,6 +42,29 @@ public interface UserHouseMapper extends BaseMapper<UserHouse> {
      */
     List<UserHouse> selectUserHouseByUserId(@Param("userId") Long userId);
 
+    /**
+     * 批量查询多个用户的房产关联（只查关联表，房产信息另行批量查询）
+     *
+     * @param userIds 用户ID集合
+     * @return 房产关联列表，同一用户内当前关联在前
+     */
+    List<UserHouse> selectUserHouseByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 统计全部当前住户数（按用户去重，只统计启用的用户）
+     *
+     * @return 住户数
+     */
+    long countCurrentResidents();
+
+    /**
+     * 查询房产的当前住户ID（去重，只包含启用的用户）
+     *
+     * @param houseIds 房产ID集合
+     * @return 用户ID列表
+     */
+    List<Long> selectCurrentResidentIds(@Param("houseIds") Collection<Long> houseIds);
+
     /**
      * 根据房产ID查询用户关联
      *
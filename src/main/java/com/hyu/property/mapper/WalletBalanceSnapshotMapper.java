@@ -0,0 +1,56 @@
+package com.hyu.property.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hyu.property.domain.WalletBalanceSnapshot;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 钱包余额日快照Mapper接口
+ *
+ * @author hyu
+ */
+@Mapper
+public interface WalletBalanceSnapshotMapper extends BaseMapper<WalletBalanceSnapshot> {
+
+    /**
+     * 查询指定日期之前最近一次快照的日期
+     *
+     * @param snapshotDate 快照日期
+     * @return 上一快照日期，没有时返回null
+     */
+    LocalDate selectPreviousSnapshotDate(@Param("snapshotDate") LocalDate snapshotDate);
+
+    /**
+     * 按钱包ID游标读取一批钱包的当前余额、上一快照及其后的交易净额（一条语句，读取结果一致）
+     *
+     * @param afterId 上一批最后一个钱包ID
+     * @param limit 批次大小
+     * @param previousDate 上一快照日期，为空表示首次对账
+     * @return 对账数据（balance为当前余额，lastTransactionId为当前最后一条交易ID）
+     */
+    List<WalletBalanceSnapshot> selectReconcileChunk(@Param("afterId") long afterId,
+                                                     @Param("limit") int limit,
+                                                     @Param("previousDate") LocalDate previousDate);
+
+    /**
+     * 批量写入快照，同一钱包同一日期重复执行时覆盖
+     *
+     * @param snapshots 快照列表
+     * @return 影响行数
+     */
+    int upsertSnapshots(@Param("list") List<WalletBalanceSnapshot> snapshots);
+
+    /**
+     * 查询用户在指定日期（含）之前最近的一次快照
+     *
+     * @param userId 用户ID
+     * @param snapshotDate 日期
+     * @return 快照，没有时返回null
+     */
+    WalletBalanceSnapshot selectLatestSnapshot(@Param("userId") Long userId,
+                                               @Param("snapshotDate") LocalDate snapshotDate);
+}
@@ -6,6 +6,7 @@ import com.hyu.property.domain.Wallet;
 import org.apache.ibatis.annotations.Param;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * 钱包Mapper接口
@@ -43,4 +44,50 @@ public interface WalletMapper extends BaseMapper<Wallet> {
                                                 @Param("maxBalance") BigDecimal maxBalance,
                                                 @Param("status") Integer status);
 
+
+    /**
+     * 原子增减钱包余额
+     * 余额在SQL中以增量更新，并以“状态正常、余额不为负、不超过上限”为条件，同时递增版本号
+     *
+     * @param userId 用户ID
+     * @param delta 余额增量（扣款为负数）
+     * @param rechargeDelta 累计充值增量
+     * @param consumeDelta 累计消费增量
+     * @param cap 余额上限，为空表示不限制
+     * @return 更新行数，0表示条件不满足
+     */
+    int applyBalanceDelta(@Param("userId") Long userId,
+                          @Param("delta") BigDecimal delta,
+                          @Param("rechargeDelta") BigDecimal rechargeDelta,
+                          @Param("consumeDelta") BigDecimal consumeDelta,
+                          @Param("cap") BigDecimal cap);
+
+    /**
+     * 按ID游标分页查询正常业主的钱包ID（wallet.id 升序）
+     *
+     * @param afterId 上一页最后一个钱包ID，首页传0
+     * @param limit 每页数量
+     * @return 钱包ID列表
+     */
+    List<Long> selectOwnerWalletIds(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 锁定并读取一批钱包的当前余额（SELECT ... FOR UPDATE，须在事务内调用）
+     *
+     * @param ids 钱包ID列表
+     * @return 钱包列表（仅含ID、用户ID、余额、状态）
+     */
+    List<Wallet> selectWalletsForUpdate(@Param("ids") List<Long> ids);
+
+    /**
+     * 批量入账：一条语句为多个钱包增加相同金额，以“状态正常、不超过上限”为条件
+     *
+     * @param ids 钱包ID列表
+     * @param amount 入账金额
+     * @param cap 余额上限
+     * @return 更新行数
+     */
+    int batchApplyCredit(@Param("ids") List<Long> ids,
+                         @Param("amount") BigDecimal amount,
+                         @Param("cap") BigDecimal cap);
 }
@@ -0,0 +1,25 @@
+package com.hyu.property.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hyu.property.domain.WalletReconcileDrift;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 钱包对账差异Mapper接口
+ *
+ * @author hyu
+ */
+@Mapper
+public interface WalletReconcileDriftMapper extends BaseMapper<WalletReconcileDrift> {
+
+    /**
+     * 批量写入对账差异，同一钱包同一日期重复执行时覆盖并重置处理状态
+     *
+     * @param drifts 差异列表
+     * @return 影响行数
+     */
+    int upsertDrifts(@Param("list") List<WalletReconcileDrift> drifts);
+}
@@ -6,7 +6,10 @@ import com.hyu.property.domain.WalletTransaction;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 钱包交易记录Mapper接口
@@ -50,12 +53,24 @@ public interface WalletTransactionMapper extends BaseMapper<WalletTransaction> {
     WalletTransaction selectTransactionByNo(String transactionNo);
 
     /**
-     * 根据业主ID查询交易记录
+     * 按游标查询用户交易记录（按创建时间、ID倒序）
      *
-     * @param ownerId 业主ID
+     * @param userId 用户ID
+     * @param transactionType 交易类型，为空不筛选
+     * @param beginTime 开始时间（含），为空不筛选
+     * @param endTime 结束时间（不含），为空不筛选
+     * @param cursorTime 上一页最后一条的创建时间，为空表示第一页
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 查询条数
      * @return 交易记录列表
      */
-    List<WalletTransaction> selectTransactionByOwnerId(Long ownerId);
+    List<WalletTransaction> selectTransactionsBeforeCursor(@Param("userId") Long userId,
+                                                           @Param("transactionType") Integer transactionType,
+                                                           @Param("beginTime") Date beginTime,
+                                                           @Param("endTime") Date endTime,
+                                                           @Param("cursorTime") Date cursorTime,
+                                                           @Param("cursorId") Long cursorId,
+                                                           @Param("limit") int limit);
 
     /**
      * 新增交易记录
@@ -88,4 +103,59 @@ public interface WalletTransactionMapper extends BaseMapper<WalletTransaction> {
      * @return 交易记录
      */
     WalletTransaction checkTransactionNoUnique(String transactionNo);
-}
\ No newline at end of file
+
+    /**
+     * 查询一批钱包中已有指定关联单号交易记录的钱包ID（批量充值幂等校验）
+     * 加锁读（LOCK IN SHARE MODE）读取最新提交的记录，不受可重复读快照影响，须在锁定钱包行之后调用
+     *
+     * @param relatedOrderNo 关联单号
+     * @param walletIds 钱包ID列表
+     * @return 已入账的钱包ID
+     */
+    List<Long> selectWalletIdsByRelatedOrderNo(@Param("relatedOrderNo") String relatedOrderNo,
+                                               @Param("walletIds") List<Long> walletIds);
+
+    /**
+     * 批量新增交易记录（单条多行INSERT）
+     *
+     * @param transactions 交易记录列表
+     * @return 插入行数
+     */
+    int batchInsertTransactions(@Param("list") List<WalletTransaction> transactions);
+
+    /**
+     * 以快照推算某一时刻余额时的修正额：
+     * 快照之后、截止时间之前的交易净额，减去快照已包含、但发生在截止时间之后的交易净额
+     *
+     * @param userId 用户ID
+     * @param lastTransactionId 快照包含的最后一条交易ID
+     * @param fromTime 查询下界（快照日期零点，之前的交易不影响结果）
+     * @param endTime 截止时间（不含）
+     * @return 修正额
+     */
+    BigDecimal selectBalanceAdjustment(@Param("userId") Long userId,
+                                       @Param("lastTransactionId") Long lastTransactionId,
+                                       @Param("fromTime") Date fromTime,
+                                       @Param("endTime") Date endTime);
+
+    /**
+     * 截止时间之前全部成功交易的净额（没有快照时使用）
+     *
+     * @param userId 用户ID
+     * @param endTime 截止时间（不含）
+     * @return 交易净额
+     */
+    BigDecimal selectNetAmountBefore(@Param("userId") Long userId, @Param("endTime") Date endTime);
+
+    /**
+     * 按交易类型汇总时间段内的成功交易
+     *
+     * @param userId 用户ID
+     * @param beginTime 开始时间（含）
+     * @param endTime 结束时间（不含）
+     * @return 交易类型、笔数、金额
+     */
+    List<Map<String, Object>> selectTypeTotals(@Param("userId") Long userId,
+                                               @Param("beginTime") Date beginTime,
+                                               @Param("endTime") Date endTime);
+}
@@ -0,0 +1,35 @@
+package com.hyu.property.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 月度账单生成Service接口
+ *
+ * @author hyu
+ */
+public interface IBillGenerationService {
+
+    /**
+     * 为当前居住的住户生成指定日期所在月份的账单
+     *
+     * @param currentDate 当前日期，决定计费周期和缴费截止日
+     * @return 本次运行统计信息
+     */
+    Map<String, Object> generateMonthlyBills(LocalDate currentDate);
+
+    /**
+     * 获取最近一次运行的统计信息
+     *
+     * @return 统计信息，尚未运行返回空
+     */
+    Map<String, Object> getLastRunMetrics();
+
+    /**
+     * 获取计费周期的运行状态（分区完成/失败数、吞吐量等）
+     *
+     * @param billingPeriod 计费周期（yyyy-MM）
+     * @return 运行状态，从未运行返回空
+     */
+    Map<String, Object> getRunStatus(String billingPeriod);
+}
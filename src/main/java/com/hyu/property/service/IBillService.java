@@ -3,11 +3,13 @@ package com.hyu.property.service;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.hyu.property.domain.Bill;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 账单Service接口
@@ -33,6 +35,14 @@ public interface IBillService extends IService<Bill> {
      */
     List<Bill> selectBillList(Bill bill);
 
+    /**
+     * 流式查询账单列表，逐行交给结果处理器（导出用）
+     *
+     * @param bill 账单信息
+     * @param handler 结果处理器
+     */
+    void streamBillList(Bill bill, ResultHandler<Bill> handler);
+
     /**
      * 根据账单ID查询账单
      *
@@ -105,6 +115,7 @@ public interface IBillService extends IService<Bill> {
 
     /**
      * 更新超期账单状态
+     * 从上次水位线开始按键集分批处理新到期的待缴费账单，完成后推进水位线
      *
      * @return 更新数量
      */
@@ -121,6 +132,22 @@ public interface IBillService extends IService<Bill> {
      */
     boolean existsBill(Long userId, Long houseId, Long feeTypeId, String billingPeriod);
 
+    /**
+     * 查询计费周期内已存在账单的键集合，键格式为 用户ID:房产ID:费用类型ID
+     *
+     * @param billingPeriod 计费周期
+     * @return 账单键集合
+     */
+    Set<String> selectExistingBillKeys(String billingPeriod);
+
+    /**
+     * 批量插入账单（单个事务）
+     *
+     * @param bills 账单列表
+     * @return 插入数量
+     */
+    int batchInsertBills(List<Bill> bills);
+
     /**
      * 根据账单ID列表查询账单
      *
@@ -160,9 +187,10 @@ public interface IBillService extends IService<Bill> {
      * @param userId 用户ID
      * @param paymentMethod 支付方式
      * @param payPassword 支付密码
+     * @param paymentToken 客户端缴费凭证（幂等键），可为空
      * @return 缴费结果
      */
-    Map<String, Object> payBill(Long billId, Long userId, String paymentMethod, String payPassword);
+    Map<String, Object> payBill(Long billId, Long userId, String paymentMethod, String payPassword, String paymentToken);
 
     /**
      * 批量在线缴费
@@ -171,7 +199,9 @@ public interface IBillService extends IService<Bill> {
      * @param userId 用户ID
      * @param paymentMethod 支付方式
      * @param payPassword 支付密码
+     * @param paymentToken 客户端缴费凭证（幂等键），可为空
      * @return 缴费结果
      */
-    Map<String, Object> batchPayBills(Long[] billIds, Long userId, String paymentMethod, String payPassword);
+    Map<String, Object> batchPayBills(Long[] billIds, Long userId, String paymentMethod, String payPassword,
+                                      String paymentToken);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.hyu.property.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 账单结算Service接口
+ *
+ * @author hyu
+ */
+public interface IBillSettlementService {
+
+    /**
+     * 缴费方式：钱包支付
+     */
+    int PAY_METHOD_WALLET = 4;
+
+    /**
+     * 结算一组账单：一次锁定并校验全部账单，钱包支付时合并扣款，再一次性标记为已缴费
+     * 同一缴费凭证重复提交时返回首次结算结果，不会重复扣款
+     *
+     * @param userId 用户ID
+     * @param billIds 账单ID列表
+     * @param payMethod 缴费方式（1现金 2银行转账 3在线支付 4钱包支付）
+     * @param paymentToken 客户端缴费凭证（幂等键），可为空
+     * @return 结算结果（账单数、总金额、缴费单号、是否为重复提交）
+     */
+    Map<String, Object> settle(Long userId, List<Long> billIds, Integer payMethod, String paymentToken);
+}
@@ -5,7 +5,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.hyu.property.domain.Building;
 import com.hyu.property.domain.Unit;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 楼栋Service接口
@@ -38,4 +40,12 @@ public interface IBuildingService extends IService<Building> {
      * @return 单元列表
      */
     List<Unit> getBuildingUnits(Long buildingId);
+
+    /**
+     * 批量获取楼栋名称
+     *
+     * @param buildingIds 楼栋ID集合
+     * @return 楼栋ID到楼栋名称的映射，不存在的楼栋不在映射中
+     */
+    Map<Long, String> selectBuildingNameMap(Collection<Long> buildingIds);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.hyu.property.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.hyu.common.core.domain.CursorResult;
 import com.hyu.property.domain.House;
 import com.hyu.property.domain.vo.HouseVO;
 
@@ -32,6 +33,16 @@ public interface IHouseService extends IService<House> {
      */
     Page<HouseVO> selectHouseVOPage(Page<HouseVO> page, House house);
 
+    /**
+     * 游标分页查询房产列表（包含产权人信息），不统计总数
+     *
+     * @param house 房产信息
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 本页房产及下一页游标
+     */
+    CursorResult<HouseVO> selectHouseVOCursor(House house, String cursor, Integer size);
+
     /**
      * 校验房产编号是否唯一
      *
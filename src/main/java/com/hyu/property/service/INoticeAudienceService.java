@@ -0,0 +1,37 @@
+package com.hyu.property.service;
+
+import com.hyu.property.domain.Notice;
+
+import java.util.Collection;
+
+/**
+ * 公告受众Service接口
+ * <p>
+ * 公告的发布范围展开到 notice_target 表，业主可见公告按楼栋、单元索引查询；应读人数按小区拓扑和当前住户精确统计。
+ *
+ * @author hyu
+ */
+public interface INoticeAudienceService {
+
+    /**
+     * 按公告当前的发布范围重建受众索引
+     *
+     * @param notice 公告（需含id、publishScope、targetBuildingIds、targetUnitIds）
+     */
+    void rebuildTargets(Notice notice);
+
+    /**
+     * 删除公告的受众索引
+     *
+     * @param noticeIds 公告ID集合
+     */
+    void removeTargets(Collection<?> noticeIds);
+
+    /**
+     * 统计公告的应读人数（发布范围内房产的当前住户，按用户去重）
+     *
+     * @param notice 公告
+     * @return 应读人数
+     */
+    int countTargetUsers(Notice notice);
+}
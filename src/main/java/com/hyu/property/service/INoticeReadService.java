@@ -0,0 +1,23 @@
+package com.hyu.property.service;
+
+import com.hyu.property.domain.NoticeRead;
+
+import java.util.List;
+
+/**
+ * 公告阅读记录Service接口
+ *
+ * @author hyu
+ */
+public interface INoticeReadService {
+
+    /**
+     * 写入一条公告的一批阅读记录并累加阅读次数（单个事务）
+     * 已存在的 (公告ID, 用户ID) 忽略，阅读次数按实际插入的行数累加
+     *
+     * @param noticeId 公告ID
+     * @param reads 阅读记录
+     * @return 实际插入的行数
+     */
+    int saveReads(Long noticeId, List<NoticeRead> reads);
+}
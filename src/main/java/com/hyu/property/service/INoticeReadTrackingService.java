@@ -0,0 +1,34 @@
+package com.hyu.property.service;
+
+import java.util.Collection;
+
+/**
+ * 公告阅读跟踪Service接口
+ * <p>
+ * 标记已读先经Redis位图去重后写入本节点的缓冲区，由定时任务批量写入阅读记录并累加阅读次数；
+ * 阅读统计以数据库为准，缓冲区中尚未写入的阅读在下次写入后计入。
+ *
+ * @author hyu
+ */
+public interface INoticeReadTrackingService {
+
+    /**
+     * 记录用户阅读公告，重复阅读不重复计数
+     *
+     * @param noticeId 公告ID
+     * @param userId 用户ID
+     */
+    void recordRead(Long noticeId, Long userId);
+
+    /**
+     * 丢弃已删除公告的待写入阅读记录
+     *
+     * @param noticeIds 公告ID集合
+     */
+    void discard(Collection<?> noticeIds);
+
+    /**
+     * 将缓冲区中的阅读记录写入数据库
+     */
+    void flush();
+}
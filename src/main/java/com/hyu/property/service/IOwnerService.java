@@ -8,6 +8,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 业主Service接口
@@ -33,6 +34,15 @@ public interface IOwnerService extends IService<Owner> {
      */
     List<OwnerVO> selectOwnerList(OwnerVO owner);
 
+    /**
+     * 逐条处理符合条件的业主，用于导出等全量场景
+     * 业主分块读取并组装房产信息，不把全部业主一次加载到内存
+     *
+     * @param owner 业主信息
+     * @param consumer 业主处理
+     */
+    void streamOwnerList(OwnerVO owner, Consumer<OwnerVO> consumer);
+
     /**
      * 根据业主ID查询业主信息
      *
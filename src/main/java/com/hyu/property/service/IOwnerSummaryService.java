@@ -0,0 +1,94 @@
+package com.hyu.property.service;
+
+import com.hyu.property.domain.Bill;
+import com.hyu.property.domain.vo.OwnerSummaryVO;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * 业主门户汇总Service接口
+ * <p>
+ * 汇总记录按业主缓存，账单、报修、投诉、公告、钱包的状态变更通过本接口增量维护，
+ * 变更方法在当前事务提交后才生效，事务回滚时不改动汇总。
+ *
+ * @author hyu
+ */
+public interface IOwnerSummaryService {
+
+    /**
+     * 获取业主门户首页汇总
+     *
+     * @param userId 用户ID
+     * @return 汇总数据
+     */
+    OwnerSummaryVO getSummary(Long userId);
+
+    /**
+     * 新增账单后累加待缴数量与金额（只统计待缴费、已逾期的账单）
+     *
+     * @param bills 新增的账单
+     */
+    void billsAdded(Collection<Bill> bills);
+
+    /**
+     * 账单结清后扣减待缴数量与金额
+     *
+     * @param userId 用户ID
+     * @param bills 已结清的账单
+     */
+    void billsSettled(Long userId, Collection<Bill> bills);
+
+    /**
+     * 报修工单状态变更
+     *
+     * @param userId 报修业主ID
+     * @param oldStatus 原状态
+     * @param newStatus 新状态
+     */
+    void repairStatusChanged(Long userId, Integer oldStatus, Integer newStatus);
+
+    /**
+     * 投诉状态变更，新增投诉时原状态传null，删除投诉时新状态传null
+     *
+     * @param userId 投诉业主ID
+     * @param oldStatus 原状态
+     * @param newStatus 新状态
+     */
+    void complaintStatusChanged(Long userId, Integer oldStatus, Integer newStatus);
+
+    /**
+     * 业主首次阅读一条公告
+     *
+     * @param userId 用户ID
+     */
+    void noticeRead(Long userId);
+
+    /**
+     * 钱包余额变动
+     *
+     * @param userId 用户ID
+     * @param delta 变动金额，扣款为负
+     */
+    void walletBalanceChanged(Long userId, BigDecimal delta);
+
+    /**
+     * 一批钱包余额变动相同金额，用于批量入账
+     *
+     * @param userIds 用户ID
+     * @param delta 每个钱包的变动金额
+     */
+    void walletBalancesChanged(Collection<Long> userIds, BigDecimal delta);
+
+    /**
+     * 公告发布、撤回、修改或删除，所有业主的未读数在下次访问时重新统计
+     */
+    void noticesChanged();
+
+    /**
+     * 清除业主的汇总，用于无法确定增量的通用修改
+     *
+     * @param userIds 用户ID
+     */
+    void evict(Collection<Long> userIds);
+}
@@ -1,7 +1,9 @@
 package com.hyu.property.service;
 
+import com.hyu.common.core.domain.CursorResult;
 import com.hyu.property.domain.dto.*;
 import com.hyu.property.domain.RepairOrder;
+import com.hyu.property.domain.WalletTransaction;
 
 import java.util.List;
 import java.util.Map;
@@ -69,14 +71,33 @@ public interface IPortalService {
     public Map<String, Object> changePayPassword(WalletChangePasswordDTO changePasswordDTO);
 
     /**
-     * 获取我的交易明细
+     * 获取我的交易明细（游标分页）
      *
      * @param transactionType 交易类型
-     * @param pageNum 页码
+     * @param beginTime 开始日期（yyyy-MM-dd）
+     * @param endTime 结束日期（yyyy-MM-dd）
+     * @param cursor 上一页返回的游标，为空表示第一页
      * @param pageSize 每页条数
-     * @return 交易明细
+     * @return 交易明细及下一页游标
+     */
+    public CursorResult<WalletTransaction> getMyTransactionList(Integer transactionType, String beginTime, String endTime,
+                                                                String cursor, Integer pageSize);
+
+    /**
+     * 获取我的钱包在指定日期日终的余额
+     *
+     * @param date 日期（yyyy-MM-dd）
+     * @return 余额
+     */
+    public Map<String, Object> getMyBalanceAtDate(String date);
+
+    /**
+     * 获取我的钱包月度对账单
+     *
+     * @param month 月份（yyyy-MM），默认上月
+     * @return 月度对账单
      */
-    public List<Object> getMyTransactionList(String transactionType, Integer pageNum, Integer pageSize);
+    public Map<String, Object> getMyMonthlyStatement(String month);
 
     // ========== 我的投诉 ==========
 
@@ -0,0 +1,40 @@
+package com.hyu.property.service;
+
+import com.hyu.property.domain.RepairOrder;
+import com.hyu.property.domain.dto.WorkbenchStatsDTO;
+
+import java.util.List;
+
+/**
+ * 维修工单统计Service接口
+ *
+ * @author hyu
+ */
+public interface IRepairOrderStatsService {
+
+    /**
+     * 查询维修师傅的工作台统计（带短时缓存）
+     *
+     * @param workerId 维修师傅ID
+     * @return 各状态工单数及今日、本月完成数
+     */
+    WorkbenchStatsDTO getWorkerStats(Long workerId);
+
+    /**
+     * 分页查询维修师傅的工单，按派单时间倒序
+     *
+     * @param workerId 维修师傅ID
+     * @param orderStatus 工单状态，为空时查询全部
+     * @param pageNum 页码
+     * @param pageSize 每页条数
+     * @return 当前页工单
+     */
+    List<RepairOrder> selectWorkerOrders(Long workerId, Integer orderStatus, int pageNum, int pageSize);
+
+    /**
+     * 清除维修师傅的统计缓存，工单派工、接单、完成等状态变更后调用
+     *
+     * @param workerId 维修师傅ID
+     */
+    void evictWorkerStats(Long workerId);
+}
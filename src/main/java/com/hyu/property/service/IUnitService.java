@@ -5,7 +5,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.hyu.property.domain.Unit;
 import com.hyu.property.domain.House;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 单元Service接口
@@ -94,4 +96,12 @@ public interface IUnitService extends IService<Unit> {
      * @return 房产列表
      */
     List<House> getUnitHouses(Long unitId);
+
+    /**
+     * 批量获取单元名称
+     *
+     * @param unitIds 单元ID集合
+     * @return 单元ID到单元名称的映射，不存在的单元不在映射中
+     */
+    Map<Long, String> selectUnitNameMap(Collection<Long> unitIds);
 }
\ No newline at end of file
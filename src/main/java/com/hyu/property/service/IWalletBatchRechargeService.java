@@ -0,0 +1,30 @@
+package com.hyu.property.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 业主钱包批量充值Service接口
+ *
+ * @author hyu
+ */
+public interface IWalletBatchRechargeService {
+
+    /**
+     * 提交批量充值任务，任务在后台按批次执行
+     * 批次号相同的重复提交不会重复入账：已完成的直接返回结果，未完成的继续执行
+     *
+     * @param amount 每位业主的充值金额
+     * @param batchNo 批次号（幂等键），为空时自动生成
+     * @return 任务进度句柄（含批次号和状态）
+     */
+    Map<String, Object> submit(BigDecimal amount, String batchNo);
+
+    /**
+     * 查询批量充值任务进度
+     *
+     * @param batchNo 批次号
+     * @return 任务进度，不存在返回空
+     */
+    Map<String, Object> getStatus(String batchNo);
+}
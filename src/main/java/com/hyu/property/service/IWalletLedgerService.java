@@ -0,0 +1,64 @@
+package com.hyu.property.service;
+
+import com.hyu.property.domain.Bill;
+import com.hyu.property.domain.WalletTransaction;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 钱包账务Service接口
+ * 所有余额变动均通过本接口完成，余额以原子增量更新并在同一事务内追加交易流水
+ *
+ * @author hyu
+ */
+public interface IWalletLedgerService {
+
+    /**
+     * 钱包余额上限
+     */
+    BigDecimal BALANCE_CAP = new BigDecimal("100000");
+
+    /**
+     * 入账（充值）
+     *
+     * @param userId 用户ID
+     * @param amount 金额，必须大于0
+     * @param remark 备注
+     * @return 交易流水
+     */
+    WalletTransaction credit(Long userId, BigDecimal amount, String remark);
+
+    /**
+     * 扣款（消费）
+     *
+     * @param userId 用户ID
+     * @param amount 金额，必须大于0
+     * @param relatedBillId 关联账单ID，可为空
+     * @param remark 备注
+     * @return 交易流水
+     */
+    WalletTransaction debit(Long userId, BigDecimal amount, Long relatedBillId, String remark);
+
+    /**
+     * 批量入账：为一批钱包增加相同金额，一个事务内完成
+     * 以批次号作为交易记录的关联单号，已有该批次号交易记录的钱包不会重复入账
+     *
+     * @param walletIds 钱包ID列表
+     * @param amount 金额，必须大于0
+     * @param batchNo 批次号（幂等键）
+     * @param remark 备注
+     * @return 本次入账的钱包数量
+     */
+    int batchCredit(List<Long> walletIds, BigDecimal amount, String batchNo, String remark);
+
+    /**
+     * 账单合并扣款：按账单总额一次扣减余额，并为每张账单追加一条交易流水（单条多行INSERT）
+     *
+     * @param userId 用户ID
+     * @param bills 待扣款账单（须已锁定并校验）
+     * @param paymentNo 缴费单号，作为交易流水的关联单号
+     * @return 交易流水
+     */
+    List<WalletTransaction> debitBills(Long userId, List<Bill> bills, String paymentNo);
+}
@@ -0,0 +1,61 @@
+package com.hyu.property.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hyu.property.domain.WalletReconcileDrift;
+
+import java.util.Map;
+
+/**
+ * 钱包对账Service接口
+ *
+ * @author hyu
+ */
+public interface IWalletReconcileService {
+
+    /**
+     * 对前一天执行快照与增量对账（同步执行，供定时任务调用）
+     * 同一日期已完成的不会重复执行
+     *
+     * @return 本次运行统计信息
+     */
+    Map<String, Object> reconcile();
+
+    /**
+     * 提交对账任务，在后台执行
+     *
+     * @return 任务运行状态
+     */
+    Map<String, Object> submit();
+
+    /**
+     * 获取快照日期的对账运行状态
+     *
+     * @param snapshotDate 快照日期（yyyy-MM-dd）
+     * @return 运行状态，从未运行返回空
+     */
+    Map<String, Object> getRunStatus(String snapshotDate);
+
+    /**
+     * 获取最近一次运行的统计信息
+     *
+     * @return 统计信息，尚未运行返回空
+     */
+    Map<String, Object> getLastRunMetrics();
+
+    /**
+     * 分页查询对账差异
+     *
+     * @param page 分页参数
+     * @param drift 查询条件（快照日期、钱包ID、用户ID、处理状态）
+     * @return 对账差异分页数据
+     */
+    Page<WalletReconcileDrift> selectDriftPage(Page<WalletReconcileDrift> page, WalletReconcileDrift drift);
+
+    /**
+     * 标记对账差异为已处理
+     *
+     * @param id 差异ID
+     * @return 结果
+     */
+    boolean resolveDrift(Long id);
+}
@@ -101,14 +101,6 @@ public interface IWalletService extends IService<Wallet> {
      */
     boolean createWallet(Long userId, BigDecimal initialBalance);
 
-    /**
-     * 批量充值给所有业主
-     *
-     * @param amount 充值金额
-     * @return 充值的业主数量
-     */
-    int batchRechargeForAllOwners(BigDecimal amount);
-
     /**
      * 管理员充值（给指定用户充值）
      *
@@ -0,0 +1,48 @@
+package com.hyu.property.service;
+
+import com.hyu.property.domain.WalletBalanceSnapshot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 钱包余额快照Service接口
+ *
+ * @author hyu
+ */
+public interface IWalletSnapshotService {
+
+    /**
+     * 为一批钱包写入快照并记录对账差异（单个事务）
+     * 预期余额 = 上一快照余额 + 上一快照交易水位之后的成功交易净额
+     *
+     * @param snapshotDate 快照日期
+     * @param previousDate 上一快照日期，为空表示首次对账
+     * @param afterId 上一批最后一个钱包ID
+     * @param limit 批次大小
+     * @return 本批写入的快照，为空表示已处理完全部钱包
+     */
+    List<WalletBalanceSnapshot> snapshotChunk(LocalDate snapshotDate, LocalDate previousDate, long afterId, int limit);
+
+    /**
+     * 查询用户在指定日期日终的钱包余额
+     * 以该日期之前最近的快照为基准修正，不汇总全部历史交易
+     *
+     * @param userId 用户ID
+     * @param date 日期，今天及以后返回当前余额
+     * @return 余额
+     */
+    BigDecimal getBalanceAtDate(Long userId, LocalDate date);
+
+    /**
+     * 查询用户的钱包月度对账单：期初余额、期末余额及按交易类型汇总
+     *
+     * @param userId 用户ID
+     * @param month 月份
+     * @return 月度对账单
+     */
+    Map<String, Object> getMonthlyStatement(Long userId, YearMonth month);
+}
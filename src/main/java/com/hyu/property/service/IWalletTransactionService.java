@@ -2,9 +2,9 @@ package com.hyu.property.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.hyu.common.core.domain.CursorResult;
 import com.hyu.property.domain.WalletTransaction;
 
-import java.util.List;
 
 /**
  * 钱包交易记录Service接口
@@ -23,12 +23,14 @@ public interface IWalletTransactionService extends IService<WalletTransaction> {
     Page<WalletTransaction> selectTransactionPage(Page<WalletTransaction> page, WalletTransaction transaction);
 
     /**
-     * 查询交易记录列表
+     * 游标分页查询交易记录列表（按时间倒序）
      *
      * @param transaction 交易记录信息
-     * @return 交易记录集合信息
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 本页交易记录及下一页游标
      */
-    List<WalletTransaction> selectTransactionList(WalletTransaction transaction);
+    CursorResult<WalletTransaction> selectTransactionList(WalletTransaction transaction, String cursor, Integer size);
 
     /**
      * 根据交易ID查询交易记录
@@ -47,12 +49,18 @@ public interface IWalletTransactionService extends IService<WalletTransaction> {
     WalletTransaction selectTransactionByNo(String transactionNo);
 
     /**
-     * 根据业主ID查询交易记录
+     * 游标分页查询用户交易记录（按时间倒序）
      *
-     * @param ownerId 业主ID
-     * @return 交易记录列表
+     * @param userId 用户ID
+     * @param transactionType 交易类型，为空不筛选
+     * @param beginDate 开始日期（yyyy-MM-dd，含），为空不筛选
+     * @param endDate 结束日期（yyyy-MM-dd，含），为空不筛选
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 本页交易记录及下一页游标
      */
-    List<WalletTransaction> selectTransactionByOwnerId(Long ownerId);
+    CursorResult<WalletTransaction> selectTransactionHistory(Long userId, Integer transactionType, String beginDate,
+                                                             String endDate, String cursor, Integer size);
 
     /**
      * 新增交易记录
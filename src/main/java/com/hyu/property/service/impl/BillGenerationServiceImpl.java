@@ -0,0 +1,540 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.common.utils.IdGenerator;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.property.domain.Bill;
+import com.hyu.property.domain.FeeType;
+import com.hyu.property.domain.House;
+import com.hyu.property.domain.UserHouse;
+import com.hyu.property.service.IBillGenerationService;
+import com.hyu.property.service.IBillService;
+import com.hyu.property.service.IFeeTypeService;
+import com.hyu.property.service.IHouseService;
+import com.hyu.property.service.IUserHouseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 月度账单生成Service业务层处理
+ * <p>
+ * 以集合方式生成账单：房产、费用类型一次性预加载，计费周期内已存在的账单键一次查询放入哈希集合，
+ * 金额在内存中计算，新账单按批次通过 batchInsertBills 写入，每个批次一个事务。
+ * <p>
+ * 住户按房产所属楼栋划分为分区，分区在有界线程池中并行处理。每个分区全部批次成功后
+ * 记入Redis中该计费周期的已完成分区集合；上一次运行中途崩溃（运行记录仍为RUNNING）时续跑并跳过已完成分区，
+ * 运行结束后清除该集合，之后的运行重新处理全部分区，由已存在账单键去重，为新入住的住户、新启用的费用类型补生成账单。
+ * 运行记录（状态、分区进度、吞吐量）同样保存在Redis中，供运行状态接口查询。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class BillGenerationServiceImpl implements IBillGenerationService {
+
+    private static final DateTimeFormatter PERIOD_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /**
+     * 运行记录Redis前缀，后接计费周期
+     */
+    private static final String RUN_KEY_PREFIX = "bill:generation:run:";
+
+    /**
+     * 已完成分区集合后缀
+     */
+    private static final String DONE_KEY_SUFFIX = ":done";
+
+    /**
+     * 运行记录保留时间（秒）
+     */
+    private static final long RUN_RECORD_TTL = 40L * 24 * 3600;
+
+    /**
+     * 房产未关联楼栋时使用的分区号
+     */
+    private static final long NO_BUILDING_PARTITION = 0L;
+
+    /**
+     * 按ID预加载房产时单次IN查询的最大数量
+     */
+    private static final int HOUSE_QUERY_SIZE = 1000;
+
+    @Autowired
+    private IUserHouseService userHouseService;
+
+    @Autowired
+    private IFeeTypeService feeTypeService;
+
+    @Autowired
+    private IHouseService houseService;
+
+    @Autowired
+    private IBillService billService;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    /**
+     * 每个批次插入的账单数量
+     */
+    @Value("${bill.generation.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 并行处理分区的线程数
+     */
+    @Value("${bill.generation.threads:4}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 正在进行的运行，未运行时为null
+     */
+    private volatile RunProgress currentRun;
+
+    private volatile Map<String, Object> lastRunMetrics = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "bill-generation-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> generateMonthlyBills(LocalDate currentDate) {
+        String billingPeriod = YearMonth.from(currentDate).format(PERIOD_FORMATTER);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("账单生成任务正在运行，忽略本次触发，计费周期：{}", billingPeriod);
+            return getRunStatus(billingPeriod);
+        }
+        try {
+            return doGenerate(currentDate, billingPeriod);
+        } finally {
+            currentRun = null;
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> doGenerate(LocalDate currentDate, String billingPeriod) {
+        long startNanos = System.nanoTime();
+        log.info("正在生成 {} 计费周期的账单", billingPeriod);
+
+        // 一次性加载住户、费用类型、房产和已存在的账单键
+        List<UserHouse> residents = userHouseService.getCurrentResidents();
+        List<FeeType> feeTypes = feeTypeService.getActiveFeeTypesForBillGeneration();
+        Map<Long, House> houses = loadHouses(residents);
+        Set<String> existingKeys = billService.selectExistingBillKeys(billingPeriod);
+        long loadMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("预加载完成：住户 {} 个，费用类型 {} 个，房产 {} 套，已存在账单 {} 条，耗时 {} ms",
+                residents.size(), feeTypes.size(), houses.size(), existingKeys.size(), loadMillis);
+
+        // 按楼栋划分分区
+        Map<Long, List<UserHouse>> partitions = new TreeMap<>();
+        for (UserHouse userHouse : residents) {
+            House house = houses.get(userHouse.getHouseId());
+            Long partitionId = house != null && house.getBuildingId() != null
+                    ? house.getBuildingId() : NO_BUILDING_PARTITION;
+            partitions.computeIfAbsent(partitionId, k -> new ArrayList<>()).add(userHouse);
+        }
+
+        String runKey = RUN_KEY_PREFIX + billingPeriod;
+        String doneKey = runKey + DONE_KEY_SUFFIX;
+        Set<String> donePartitions = loadDonePartitions(runKey, doneKey);
+
+        RunProgress progress = new RunProgress(billingPeriod, partitions.size());
+        currentRun = progress;
+        saveRunRecord(runKey, progress.snapshot("RUNNING", loadMillis));
+
+        // 提交未完成的分区
+        List<Future<?>> futures = new ArrayList<>();
+        for (Map.Entry<Long, List<UserHouse>> entry : partitions.entrySet()) {
+            Long partitionId = entry.getKey();
+            if (donePartitions.contains(String.valueOf(partitionId))) {
+                progress.partitionsSkipped.incrementAndGet();
+                continue;
+            }
+            List<UserHouse> members = entry.getValue();
+            futures.add(executor.submit(() -> runPartition(partitionId, members, feeTypes, houses, existingKeys,
+                    billingPeriod, currentDate, progress, doneKey)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("等待账单生成分区完成时被中断，计费周期：{}", billingPeriod);
+                break;
+            } catch (ExecutionException e) {
+                log.error("账单生成分区执行异常：{}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        String status = progress.partitionsFailed.get() == 0
+                && progress.partitionsDone.get() + progress.partitionsSkipped.get() == partitions.size()
+                ? "COMPLETED" : "PARTIAL";
+        Map<String, Object> metrics = progress.snapshot(status, loadMillis);
+        metrics.put("residents", residents.size());
+        metrics.put("feeTypes", feeTypes.size());
+        metrics.put("finishTime", LocalDateTime.now().toString());
+        saveRunRecord(runKey, metrics);
+        clearDonePartitions(doneKey);
+        this.lastRunMetrics = Collections.unmodifiableMap(metrics);
+
+        log.info("===== 账单生成完成 ===== {}", metrics);
+        return metrics;
+    }
+
+    @Override
+    public Map<String, Object> getLastRunMetrics() {
+        return lastRunMetrics;
+    }
+
+    @Override
+    public Map<String, Object> getRunStatus(String billingPeriod) {
+        RunProgress progress = currentRun;
+        if (progress != null && progress.billingPeriod.equals(billingPeriod)) {
+            return progress.snapshot("RUNNING", null);
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        try {
+            Map<Object, Object> stored = redisUtils.hGetAll(RUN_KEY_PREFIX + billingPeriod);
+            if (stored != null) {
+                for (Map.Entry<Object, Object> entry : stored.entrySet()) {
+                    record.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取账单生成运行记录失败，计费周期：{}", billingPeriod, e);
+        }
+        return record;
+    }
+
+    /**
+     * 处理单个分区：计算分区内全部账单并分批写入，全部批次成功后记录检查点
+     */
+    private void runPartition(Long partitionId, List<UserHouse> members, List<FeeType> feeTypes,
+                              Map<Long, House> houses, Set<String> existingKeys, String billingPeriod,
+                              LocalDate currentDate, RunProgress progress, String doneKey) {
+        Set<String> seenKeys = new HashSet<>();
+        List<Bill> pending = new ArrayList<>();
+        int failures = 0;
+        for (UserHouse userHouse : members) {
+            try {
+                if (!shouldGenerateBillForUser(userHouse, billingPeriod)) {
+                    log.debug("住户ID {} 入住时间晚于计费周期 {}，跳过生成账单", userHouse.getUserId(), billingPeriod);
+                    continue;
+                }
+                House house = houses.get(userHouse.getHouseId());
+                if (house == null) {
+                    log.warn("房产ID {} 不存在，跳过账单生成", userHouse.getHouseId());
+                    continue;
+                }
+
+                LocalDate checkInDate = toLocalDate(userHouse.getStartDate());
+                for (FeeType feeType : feeTypes) {
+                    String key = userHouse.getUserId() + ":" + userHouse.getHouseId() + ":" + feeType.getId();
+                    if (existingKeys.contains(key) || !seenKeys.add(key)) {
+                        progress.skippedExisting.increment();
+                        continue;
+                    }
+                    BigDecimal fullAmount = calculateBillAmount(house, feeType);
+                    if (fullAmount.compareTo(BigDecimal.ZERO) <= 0) {
+                        continue;
+                    }
+                    BigDecimal actualAmount = calculateProratedAmount(fullAmount, checkInDate, billingPeriod);
+                    if (actualAmount.compareTo(BigDecimal.ZERO) <= 0) {
+                        continue;
+                    }
+                    pending.add(createBill(userHouse, feeType, actualAmount, billingPeriod, currentDate));
+                }
+            } catch (Exception e) {
+                failures++;
+                log.error("为住户ID {} 计算账单时发生错误：{}", userHouse.getUserId(), e.getMessage(), e);
+            }
+        }
+
+        // 分批写入，每批一个事务
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < pending.size(); from += size) {
+            List<Bill> chunk = pending.subList(from, Math.min(from + size, pending.size()));
+            try {
+                progress.generated.add(billService.batchInsertBills(chunk));
+            } catch (Exception e) {
+                failures++;
+                log.error("楼栋分区 {} 账单批次写入失败，本批 {} 条已回滚：{}",
+                        partitionId, chunk.size(), e.getMessage(), e);
+            }
+        }
+
+        if (failures > 0) {
+            progress.partitionsFailed.incrementAndGet();
+            log.warn("楼栋分区 {} 存在 {} 处失败，未记录检查点，下次运行将重新处理", partitionId, failures);
+            return;
+        }
+        progress.partitionsDone.incrementAndGet();
+        try {
+            redisUtils.sAdd(doneKey, String.valueOf(partitionId));
+            redisUtils.expire(doneKey, RUN_RECORD_TTL);
+        } catch (Exception e) {
+            log.warn("记录账单生成检查点失败，楼栋分区：{}", partitionId, e);
+        }
+        log.debug("楼栋分区 {} 完成，住户 {} 个，生成账单 {} 条", partitionId, members.size(), pending.size());
+    }
+
+    /**
+     * 读取计费周期内已完成的分区，仅在上一次运行中途崩溃时续跑，否则处理全部分区
+     */
+    private Set<String> loadDonePartitions(String runKey, String doneKey) {
+        Set<String> done = new HashSet<>();
+        try {
+            if (!"RUNNING".equals(redisUtils.hGet(runKey, "status"))) {
+                redisUtils.delete(doneKey);
+                return done;
+            }
+            Set<Object> members = redisUtils.sMembers(doneKey);
+            if (members != null) {
+                for (Object member : members) {
+                    done.add(String.valueOf(member));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取账单生成检查点失败，将处理全部分区", e);
+        }
+        if (!done.isEmpty()) {
+            log.info("上次运行未结束，从检查点续跑，已完成分区 {} 个", done.size());
+        }
+        return done;
+    }
+
+    /**
+     * 运行结束后清除已完成分区集合
+     */
+    private void clearDonePartitions(String doneKey) {
+        try {
+            redisUtils.delete(doneKey);
+        } catch (Exception e) {
+            log.warn("清除账单生成检查点失败：{}", doneKey, e);
+        }
+    }
+
+    /**
+     * 保存运行记录
+     */
+    private void saveRunRecord(String runKey, Map<String, Object> record) {
+        try {
+            for (Map.Entry<String, Object> entry : record.entrySet()) {
+                redisUtils.hSet(runKey, entry.getKey(), entry.getValue());
+            }
+            redisUtils.expire(runKey, RUN_RECORD_TTL);
+        } catch (Exception e) {
+            log.warn("保存账单生成运行记录失败：{}", runKey, e);
+        }
+    }
+
+    /**
+     * 按住户关联的房产ID批量加载房产
+     */
+    private Map<Long, House> loadHouses(List<UserHouse> residents) {
+        Set<Long> houseIds = new LinkedHashSet<>();
+        for (UserHouse userHouse : residents) {
+            if (userHouse.getHouseId() != null) {
+                houseIds.add(userHouse.getHouseId());
+            }
+        }
+        Map<Long, House> houses = new HashMap<>(houseIds.size() * 2);
+        List<Long> ids = new ArrayList<>(houseIds);
+        for (int from = 0; from < ids.size(); from += HOUSE_QUERY_SIZE) {
+            List<Long> part = ids.subList(from, Math.min(from + HOUSE_QUERY_SIZE, ids.size()));
+            for (House house : houseService.listByIds(part)) {
+                houses.put(house.getId(), house);
+            }
+        }
+        return houses;
+    }
+
+    /**
+     * 只要用户在计费周期结束前入住就应该生成账单（按比例计算）
+     */
+    private boolean shouldGenerateBillForUser(UserHouse userHouse, String billingPeriod) {
+        if (userHouse.getStartDate() == null) {
+            return false;
+        }
+        LocalDate lastDayOfBillingPeriod = YearMonth.parse(billingPeriod).atEndOfMonth();
+        return !toLocalDate(userHouse.getStartDate()).isAfter(lastDayOfBillingPeriod);
+    }
+
+    /**
+     * 计算账单金额：单价 × 面积或数量
+     */
+    private BigDecimal calculateBillAmount(House house, FeeType feeType) {
+        BigDecimal unitPrice = feeType.getUnitPrice();
+        if (unitPrice == null || unitPrice.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal area = BigDecimal.ONE;
+        String billingUnit = feeType.getBillingUnit();
+        if (billingUnit != null && billingUnit.contains("平方米")) {
+            // 按面积计费，优先使用使用面积，如果为空则使用建筑面积
+            if (house.getUsableArea() != null && house.getUsableArea().compareTo(BigDecimal.ZERO) > 0) {
+                area = house.getUsableArea();
+            } else {
+                area = house.getBuildingArea();
+            }
+            if (area == null) {
+                return BigDecimal.ZERO;
+            }
+        }
+
+        return unitPrice.multiply(area).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 按入住时间比例计算账单金额
+     */
+    private BigDecimal calculateProratedAmount(BigDecimal fullAmount, LocalDate checkInDate, String billingPeriod) {
+        YearMonth billYearMonth = YearMonth.parse(billingPeriod);
+        LocalDate firstDayOfMonth = billYearMonth.atDay(1);
+        LocalDate lastDayOfMonth = billYearMonth.atEndOfMonth();
+        int totalDaysInMonth = lastDayOfMonth.getDayOfMonth();
+
+        // 计算居住天数（从入住日期或该月第一天开始，包含入住当天）
+        LocalDate startDate = checkInDate.isBefore(firstDayOfMonth) ? firstDayOfMonth : checkInDate;
+        int actualDays = (int) ChronoUnit.DAYS.between(startDate, lastDayOfMonth) + 1;
+        actualDays = Math.min(actualDays, totalDaysInMonth);
+        if (actualDays == totalDaysInMonth) {
+            return fullAmount;
+        }
+
+        return fullAmount.multiply(new BigDecimal(actualDays))
+                .divide(new BigDecimal(totalDaysInMonth), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 创建账单对象
+     */
+    private Bill createBill(UserHouse userHouse, FeeType feeType, BigDecimal amount,
+                            String billingPeriod, LocalDate currentDate) {
+        Date now = new Date();
+        Bill bill = new Bill();
+        bill.setBillNo(idGenerator.nextNo("BIL"));
+        bill.setUserId(userHouse.getUserId());
+        bill.setHouseId(userHouse.getHouseId());
+        bill.setFeeTypeId(feeType.getId());
+        bill.setFeeTypeName(feeType.getTypeName());
+        bill.setBillPeriod(billingPeriod);
+        bill.setAmount(amount);
+        bill.setPaidAmount(BigDecimal.ZERO);
+        bill.setDiscountAmount(BigDecimal.ZERO);
+        bill.setBillStatus(1); // 1-待缴费
+        bill.setDeleted(0);
+        bill.setDueDate(Date.from(currentDate.plusMonths(1).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        bill.setRemark("系统自动生成：" + feeType.getDescription());
+        bill.setCreateBy("system");
+        bill.setCreateTime(now);
+        bill.setUpdateTime(now);
+        return bill;
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * 单次运行的进度计数
+     */
+    private static final class RunProgress {
+
+        private final String billingPeriod;
+
+        private final int partitionsTotal;
+
+        private final long startNanos = System.nanoTime();
+
+        private final String startTime = LocalDateTime.now().toString();
+
+        private final AtomicInteger partitionsDone = new AtomicInteger();
+
+        private final AtomicInteger partitionsFailed = new AtomicInteger();
+
+        private final AtomicInteger partitionsSkipped = new AtomicInteger();
+
+        private final LongAdder generated = new LongAdder();
+
+        private final LongAdder skippedExisting = new LongAdder();
+
+        private RunProgress(String billingPeriod, int partitionsTotal) {
+            this.billingPeriod = billingPeriod;
+            this.partitionsTotal = partitionsTotal;
+        }
+
+        private Map<String, Object> snapshot(String status, Long loadMillis) {
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            long rows = generated.sum();
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("billingPeriod", billingPeriod);
+            metrics.put("status", status);
+            metrics.put("startTime", startTime);
+            metrics.put("partitionsTotal", partitionsTotal);
+            metrics.put("partitionsDone", partitionsDone.get());
+            metrics.put("partitionsFailed", partitionsFailed.get());
+            metrics.put("partitionsSkipped", partitionsSkipped.get());
+            metrics.put("generated", rows);
+            metrics.put("skippedExisting", skippedExisting.sum());
+            if (loadMillis != null) {
+                metrics.put("loadMillis", loadMillis);
+            }
+            metrics.put("elapsedMillis", elapsedMillis);
+            metrics.put("rowsPerSecond", rows * 1000L / elapsedMillis);
+            return metrics;
+        }
+    }
+}
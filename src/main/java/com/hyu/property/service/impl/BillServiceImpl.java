@@ -3,18 +3,27 @@ package com.hyu.property.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.IdGenerator;
 import com.hyu.common.utils.StringUtils;
 import com.hyu.property.domain.Bill;
 import com.hyu.property.mapper.BillMapper;
 import com.hyu.property.service.IBillService;
+import com.hyu.property.service.IBillSettlementService;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.service.IWalletService;
+import com.hyu.property.topology.EstateTopology;
+import com.hyu.property.topology.EstateTopologyCache;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultHandler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 账单Service业务层处理
@@ -28,6 +37,29 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
     @Autowired
     private BillMapper billMapper;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IBillSettlementService billSettlementService;
+
+    @Autowired
+    private IWalletService walletService;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    @Autowired
+    private EstateTopologyCache estateTopologyCache;
+
+    /**
+     * 超期扫描每批处理的账单数量
+     */
+    @Value("${bill.overdue.batch-size:500}")
+    private int overdueBatchSize;
+
+    private final AtomicBoolean overdueSweeping = new AtomicBoolean(false);
+
     /**
      * 分页查询账单列表
      *
@@ -58,6 +90,18 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
         return list(queryWrapper);
     }
 
+    /**
+     * 流式查询账单列表，查询列和筛选条件与账单列表（BillMapper.selectBillList）一致
+     *
+     * @param bill 账单信息
+     * @param handler 结果处理器
+     */
+    @Override
+    public void streamBillList(Bill bill, ResultHandler<Bill> handler) {
+        // 业主姓名、房间编号、楼栋名称在同一条语句中关联查询，流式读取期间不能在同一连接上再发查询
+        billMapper.streamBillList(bill, handler);
+    }
+
     /**
      * 根据账单ID查询账单
      *
@@ -77,7 +121,13 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
      */
     @Override
     public int deleteBillByIds(Long[] billIds) {
-        return billMapper.deleteBillByIds(billIds);
+        List<Long> userIds = new ArrayList<>();
+        for (Bill bill : selectBillByIds(billIds)) {
+            userIds.add(bill.getUserId());
+        }
+        int rows = billMapper.deleteBillByIds(billIds);
+        ownerSummaryService.evict(userIds);
+        return rows;
     }
 
     /**
@@ -90,7 +140,11 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
     public int insertBill(Bill bill) {
         bill.setBillNo(generateBillNo());
         bill.setCreateTime(new Date());
-        return billMapper.insertBill(bill);
+        int rows = billMapper.insertBill(bill);
+        if (rows > 0) {
+            ownerSummaryService.billsAdded(Collections.singletonList(bill));
+        }
+        return rows;
     }
 
     /**
@@ -101,7 +155,11 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
      */
     @Override
     public int updateBill(Bill bill) {
-        return billMapper.updateBill(bill);
+        // 管理端可任意修改金额、状态和业主，无法得出增量，清除修改前后两个业主的汇总
+        Bill existing = billMapper.selectBillById(bill.getBillId());
+        int rows = billMapper.updateBill(bill);
+        ownerSummaryService.evict(Arrays.asList(existing == null ? null : existing.getUserId(), bill.getUserId()));
+        return rows;
     }
 
     /**
@@ -164,6 +222,7 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
             for (Bill bill : bills) {
                 count += billMapper.insertBill(bill);
             }
+            ownerSummaryService.billsAdded(bills);
 
             result.put("code", 200);
             result.put("msg", "账单生成成功");
@@ -186,60 +245,15 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
      * @return 缴费结果
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> payBills(Long[] billIds, Long ownerId) {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            // 查询账单信息
-            List<Bill> bills = new ArrayList<>();
-            BigDecimal totalAmount = BigDecimal.ZERO;
-
-            for (Long billId : billIds) {
-                Bill bill = billMapper.selectBillById(billId);
-                if (bill == null) {
-                    result.put("code", 500);
-                    result.put("msg", "账单不存在：" + billId);
-                    return result;
-                }
-                if (!bill.getUserId().equals(ownerId)) {
-                    result.put("code", 500);
-                    result.put("msg", "账单不属于当前业主：" + billId);
-                    return result;
-                }
-                if (bill.getBillStatus() != 1) {
-                    result.put("code", 500);
-                    result.put("msg", "账单状态不正确：" + billId);
-                    return result;
-                }
-                bills.add(bill);
-                totalAmount = totalAmount.add(bill.getAmount());
-            }
-
-            // 检查钱包余额
-            BigDecimal balance = billMapper.selectWalletBalance(ownerId);
-            if (balance == null || balance.compareTo(totalAmount) < 0) {
-                result.put("code", 500);
-                result.put("msg", "钱包余额不足");
-                return result;
-            }
-            billMapper.updateWalletBalance(ownerId, balance.subtract(totalAmount));
-
-            // 更新账单状态
-            for (Bill bill : bills) {
-                bill.setBillStatus(2); // 已缴费
-                bill.setPaidTime(new Date());
-                billMapper.updateBill(bill);
-
-              // 插入缴费交易记录
-                billMapper.insertPaymentTransaction(ownerId, bill.getBillId(), bill.getAmount(),
-                    "缴费：" + bill.getBillNo(), generateTransactionNo());
-            }
-
+            Map<String, Object> data = billSettlementService.settle(ownerId,
+                    billIds == null ? null : Arrays.asList(billIds), IBillSettlementService.PAY_METHOD_WALLET, null);
             result.put("code", 200);
             result.put("msg", "缴费成功");
-            result.put("data", totalAmount);
-
+            result.put("data", data.get("totalAmount"));
         } catch (Exception e) {
             log.error("缴费失败", e);
             result.put("code", 500);
@@ -256,10 +270,7 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
      */
     @Override
     public String generateReceiptNo() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-        String date = sdf.format(new Date());
-        long timestamp = System.currentTimeMillis();
-        return "RCP" + date + timestamp;
+        return idGenerator.nextNo("RCP");
     }
 
     /**
@@ -281,7 +292,62 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
      */
     @Override
     public int updateOverdueBills() {
-        return billMapper.updateOverdueBills();
+        if (!overdueSweeping.compareAndSet(false, true)) {
+            log.warn("超期账单扫描正在进行，忽略本次触发");
+            return 0;
+        }
+        try {
+            return sweepOverdueBills();
+        } finally {
+            overdueSweeping.set(false);
+        }
+    }
+
+    /**
+     * 按 (due_date, id) 键集分批扫描当前时间之前到期的全部待缴费账单并标记超期。
+     * 不以上次扫描时间为下界：后补录、撤回为待缴费的账单截止日期可能早于上次扫描，
+     * 待缴费且已到期的账单每次都会被标记，走 idx_bill_status_due 索引，扫描量与需要更新的行数相当。
+     * 每批一条短UPDATE语句独立提交，只锁定本批行，避免与业主缴费长时间争用行锁。
+     */
+    private int sweepOverdueBills() {
+        long startNanos = System.nanoTime();
+        Date dueBefore = new Date();
+        Date lastDueDate = null;
+        Long lastBillId = 0L;
+        int size = Math.max(1, overdueBatchSize);
+        int scanned = 0;
+        int updated = 0;
+        int chunks = 0;
+
+        try {
+            while (true) {
+                List<Bill> candidates = billMapper.selectOverdueCandidates(dueBefore, lastDueDate, lastBillId, size);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                List<Long> billIds = new ArrayList<>(candidates.size());
+                for (Bill candidate : candidates) {
+                    billIds.add(candidate.getBillId());
+                }
+                updated += billMapper.markBillsOverdue(billIds);
+                scanned += candidates.size();
+                chunks++;
+
+                Bill last = candidates.get(candidates.size() - 1);
+                lastDueDate = last.getDueDate();
+                lastBillId = last.getBillId();
+                if (candidates.size() < size) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // 已提交的批次保持超期状态，其余账单在下次扫描时处理
+            log.error("超期账单扫描中断，已处理 {} 批：{}", chunks, e.getMessage(), e);
+        }
+
+        log.info("超期账单扫描完成：截止 {}，扫描 {} 条，标记超期 {} 条，共 {} 批，耗时 {} ms",
+                dueBefore, scanned, updated, chunks, (System.nanoTime() - startNanos) / 1_000_000);
+        return updated;
     }
 
     /**
@@ -315,14 +381,39 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
         }
     }
 
+    /**
+     * 查询计费周期内已存在账单的键集合
+     *
+     * @param billingPeriod 计费周期
+     * @return 账单键集合
+     */
+    @Override
+    public Set<String> selectExistingBillKeys(String billingPeriod) {
+        return new HashSet<>(billMapper.selectExistingBillKeys(billingPeriod));
+    }
+
+    /**
+     * 批量插入账单，整批在同一事务内提交
+     *
+     * @param bills 账单列表
+     * @return 插入数量
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int batchInsertBills(List<Bill> bills) {
+        if (bills == null || bills.isEmpty()) {
+            return 0;
+        }
+        int rows = billMapper.batchInsertBills(bills);
+        ownerSummaryService.billsAdded(bills);
+        return rows;
+    }
+
     /**
      * 生成账单编号
      */
     private String generateBillNo() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-        String date = sdf.format(new Date());
-        long timestamp = System.currentTimeMillis();
-        return "BIL" + date + timestamp;
+        return idGenerator.nextNo("BIL");
     }
 
     /**
@@ -353,16 +444,6 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
         }
     }
 
-    /**
-     * 生成交易流水号
-     */
-    private String generateTransactionNo() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-        String date = sdf.format(new Date());
-        long timestamp = System.currentTimeMillis();
-        return "TXN" + date + timestamp;
-    }
-
     // ==================== 业主端API实现 ====================
 
     /**
@@ -371,7 +452,12 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
     @Override
     public Page<Bill> selectMyBillPage(Page<Bill> page, Long userId, String billNo, Long feeTypeId, Integer billStatus, String billPeriod) {
         try {
-            return billMapper.selectMyBillPage(page, userId, billNo, feeTypeId, billStatus, billPeriod);
+            Page<Bill> result = billMapper.selectMyBillPage(page, userId, billNo, feeTypeId, billStatus, billPeriod);
+            EstateTopology topology = estateTopologyCache.get();
+            for (Bill bill : result.getRecords()) {
+                fillHouseNames(bill, topology);
+            }
+            return result;
         } catch (Exception e) {
             log.error("查询我的账单列表失败，用户ID: {}", userId, e);
             return new Page<>();
@@ -384,18 +470,34 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
     @Override
     public Bill selectMyBillById(Long billId, Long userId) {
         try {
-            return billMapper.selectMyBillById(billId, userId);
+            Bill bill = billMapper.selectMyBillById(billId, userId);
+            if (bill != null) {
+                fillHouseNames(bill, estateTopologyCache.get());
+            }
+            return bill;
         } catch (Exception e) {
             log.error("查询我的账单详情失败，账单ID: {}, 用户ID: {}", billId, userId, e);
             return null;
         }
     }
 
+    /**
+     * 从小区拓扑补充账单的房间编号和楼栋名称
+     */
+    private void fillHouseNames(Bill bill, EstateTopology topology) {
+        if (bill.getHouseId() == null) {
+            return;
+        }
+        bill.setHouseCode(topology.getHouseNo(bill.getHouseId()));
+        bill.setBuildingName(topology.getHouseBuildingName(bill.getHouseId()));
+    }
+
     /**
      * 在线缴费
      */
     @Override
-    public Map<String, Object> payBill(Long billId, Long userId, String paymentMethod, String payPassword) {
+    public Map<String, Object> payBill(Long billId, Long userId, String paymentMethod, String payPassword,
+                                       String paymentToken) {
         try {
             // 查询账单
             Bill bill = selectMyBillById(billId, userId);
@@ -406,8 +508,8 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
                 return result;
             }
 
-            // 检查账单状态
-            if (bill.getBillStatus().equals(2)) {
+            // 检查账单状态（重复提交同一缴费凭证时由结算返回首次结果）
+            if (bill.getBillStatus().equals(2) && StringUtils.isBlank(paymentToken)) {
                 Map<String, Object> result = new HashMap<>();
                 result.put("code", 400);
                 result.put("msg", "账单已缴费");
@@ -421,8 +523,8 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
                 return result;
             }
 
-            // 检查缴费方式
-            if ("wallet".equals(paymentMethod)) {
+            Integer payMethod = toPayMethod(paymentMethod);
+            if (payMethod == IBillSettlementService.PAY_METHOD_WALLET) {
                 // 验证钱包支付密码
                 if (StringUtils.isBlank(payPassword)) {
                     Map<String, Object> result = new HashMap<>();
@@ -430,49 +532,27 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
                     result.put("msg", "请输入支付密码");
                     return result;
                 }
-
-                // 调用钱包服务验证密码并扣款
-                // 这里需要调用WalletService的方法
-                // TODO: 实现钱包支付逻辑
-                log.info("用户{}使用钱包支付账单{}, 金额: {}", userId, billId, bill.getAmount());
+                walletService.verifyPayPassword(userId, payPassword);
             }
 
-            // 更新账单状态
-            bill.setBillStatus(2); // 已缴费
-            bill.setPaidAmount(bill.getAmount()); // 实缴金额等于应缴金额
-            // 将支付方式字符串转换为数字
-            Integer payMethodInt = 1; // 默认现金
-            if ("bank".equals(paymentMethod)) {
-                payMethodInt = 2; // 银行转账
-            } else if ("wechat".equals(paymentMethod) || "alipay".equals(paymentMethod)) {
-                payMethodInt = 3; // 在线支付
-            } else if ("wallet".equals(paymentMethod)) {
-                payMethodInt = 4; // 钱包支付
-            }
-            bill.setPayMethod(payMethodInt);
-            bill.setPaidTime(new java.util.Date());
-            bill.setUpdateTime(new java.util.Date());
-
-            boolean result = updateById(bill);
-            if (result) {
-                log.info("账单缴费成功，账单ID: {}, 用户ID: {}, 支付方式: {}", billId, userId, paymentMethod);
-                Map<String, Object> response = new HashMap<>();
-                response.put("code", 200);
-                response.put("msg", "缴费成功");
-                response.put("data", bill);
-                return response;
-            } else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("code", 500);
-                response.put("msg", "缴费失败");
-                return response;
-            }
+            billSettlementService.settle(userId, Collections.singletonList(billId), payMethod, paymentToken);
+            log.info("账单缴费成功，账单ID: {}, 用户ID: {}, 支付方式: {}", billId, userId, paymentMethod);
+            Map<String, Object> response = new HashMap<>();
+            response.put("code", 200);
+            response.put("msg", "缴费成功");
+            response.put("data", selectMyBillById(billId, userId));
+            return response;
 
+        } catch (BusinessException e) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("code", 400);
+            result.put("msg", e.getMessage());
+            return result;
         } catch (Exception e) {
             log.error("在线缴费失败，账单ID: {}, 用户ID: {}", billId, userId, e);
             Map<String, Object> result = new HashMap<>();
             result.put("code", 500);
-            result.put("msg", "系统异常，缴费失败");
+            result.put("msg", "缴费失败：" + e.getMessage());
             return result;
         }
     }
@@ -481,7 +561,8 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
      * 批量在线缴费
      */
     @Override
-    public Map<String, Object> batchPayBills(Long[] billIds, Long userId, String paymentMethod, String payPassword) {
+    public Map<String, Object> batchPayBills(Long[] billIds, Long userId, String paymentMethod, String payPassword,
+                                             String paymentToken) {
         try {
             if (billIds == null || billIds.length == 0) {
                 Map<String, Object> result = new HashMap<>();
@@ -490,26 +571,8 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
                 return result;
             }
 
-            // 查询所有账单
-            List<Bill> bills = selectBillByIds(billIds);
-            List<Bill> validBills = new ArrayList<>();
-
-            // 验证账单
-            for (Bill bill : bills) {
-                if (bill.getUserId().equals(userId) && bill.getBillStatus().equals(1)) {
-                    validBills.add(bill);
-                }
-            }
-
-            if (validBills.isEmpty()) {
-                Map<String, Object> result = new HashMap<>();
-                result.put("code", 400);
-                result.put("msg", "没有可缴费的账单");
-                return result;
-            }
-
-            // 检查缴费方式
-            if ("wallet".equals(paymentMethod)) {
+            Integer payMethod = toPayMethod(paymentMethod);
+            if (payMethod == IBillSettlementService.PAY_METHOD_WALLET) {
                 // 验证钱包支付密码
                 if (StringUtils.isBlank(payPassword)) {
                     Map<String, Object> result = new HashMap<>();
@@ -517,66 +580,51 @@ public class BillServiceImpl extends ServiceImpl<BillMapper, Bill> implements IB
                     result.put("msg", "请输入支付密码");
                     return result;
                 }
-
-                // 计算总金额
-                BigDecimal totalAmount = validBills.stream()
-                        .map(Bill::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                // 调用钱包服务验证密码并扣款
-                // TODO: 实现钱包支付逻辑
-                log.info("用户{}使用钱包批量支付{}个账单，总金额: {}", userId, validBills.size(), totalAmount);
+                walletService.verifyPayPassword(userId, payPassword);
             }
 
-            // 批量更新账单状态
-            int successCount = 0;
-            for (Bill bill : validBills) {
-                bill.setBillStatus(2); // 已缴费
-                bill.setPaidAmount(bill.getAmount()); // 实缴金额等于应缴金额
-                // 将支付方式字符串转换为数字
-                Integer payMethodInt = 1; // 默认现金
-                if ("bank".equals(paymentMethod)) {
-                    payMethodInt = 2; // 银行转账
-                } else if ("wechat".equals(paymentMethod) || "alipay".equals(paymentMethod)) {
-                    payMethodInt = 3; // 在线支付
-                } else if ("wallet".equals(paymentMethod)) {
-                    payMethodInt = 4; // 钱包支付
-                }
-                bill.setPayMethod(payMethodInt);
-                bill.setPaidTime(new java.util.Date());
-                bill.setUpdateTime(new java.util.Date());
+            // 一次锁定校验全部账单，合并扣款后批量标记已缴费
+            Map<String, Object> settlement = billSettlementService.settle(userId, Arrays.asList(billIds),
+                    payMethod, paymentToken);
+            int count = (Integer) settlement.get("billCount");
+            log.info("批量缴费完成，用户ID: {}, 账单数: {}, 总金额: {}", userId, count, settlement.get("totalAmount"));
 
-                if (updateById(bill)) {
-                    successCount++;
-                }
-            }
+            Map<String, Object> data = new HashMap<>(settlement);
+            data.put("totalCount", count);
+            data.put("successCount", count);
+            data.put("failCount", 0);
 
-            if (successCount > 0) {
-                log.info("批量缴费完成，成功{}个，失败{}个", successCount, validBills.size() - successCount);
-                Map<String, Object> response = new HashMap<>();
-                response.put("code", 200);
-                response.put("msg", "批量缴费成功");
-
-                Map<String, Object> data = new HashMap<>();
-                data.put("totalCount", validBills.size());
-                data.put("successCount", successCount);
-                data.put("failCount", validBills.size() - successCount);
-
-                response.put("data", data);
-                return response;
-            } else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("code", 500);
-                response.put("msg", "批量缴费失败");
-                return response;
-            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("code", 200);
+            response.put("msg", "批量缴费成功");
+            response.put("data", data);
+            return response;
 
+        } catch (BusinessException e) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("code", 400);
+            result.put("msg", e.getMessage());
+            return result;
         } catch (Exception e) {
             log.error("批量缴费失败，用户ID: {}", userId, e);
             Map<String, Object> result = new HashMap<>();
             result.put("code", 500);
-            result.put("msg", "系统异常，批量缴费失败");
+            result.put("msg", "批量缴费失败：" + e.getMessage());
             return result;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 将支付方式字符串转换为缴费方式编码
+     */
+    private Integer toPayMethod(String paymentMethod) {
+        if ("bank".equals(paymentMethod)) {
+            return 2; // 银行转账
+        } else if ("wechat".equals(paymentMethod) || "alipay".equals(paymentMethod)) {
+            return 3; // 在线支付
+        } else if ("wallet".equals(paymentMethod)) {
+            return IBillSettlementService.PAY_METHOD_WALLET; // 钱包支付
+        }
+        return 1; // 默认现金
+    }
+}
@@ -0,0 +1,163 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.IdGenerator;
+import com.hyu.common.utils.StringUtils;
+import com.hyu.property.domain.Bill;
+import com.hyu.property.mapper.BillMapper;
+import com.hyu.property.service.IBillSettlementService;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.service.IWalletLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 账单结算Service业务层处理
+ * <p>
+ * 多张账单的缴费在一个事务内以固定次数的语句完成，与账单数量无关：
+ * 一次 SELECT ... FOR UPDATE 锁定并校验全部账单，钱包支付时按总额一次条件扣款，
+ * 一条 UPDATE 将账单标记为已缴费，一条多行 INSERT 写入交易流水。
+ * <p>
+ * 缴费凭证作为缴费单号写入账单（钱包支付时同时作为交易流水的关联单号），各缴费方式均可据此识别重复提交。
+ * 账单行锁使同一批账单的并发结算串行执行，
+ * 后到的请求若发现凭证已结算过相同账单则直接返回首次结果，否则因账单状态已变更而失败，不会重复扣款。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class BillSettlementServiceImpl implements IBillSettlementService {
+
+    /**
+     * 单次结算的最大账单数量
+     */
+    private static final int MAX_BILLS = 200;
+
+    /**
+     * 缴费凭证格式，同时作为账单的缴费单号
+     */
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    @Autowired
+    private BillMapper billMapper;
+
+    @Autowired
+    private IWalletLedgerService walletLedgerService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> settle(Long userId, List<Long> billIds, Integer payMethod, String paymentToken) {
+        if (userId == null) {
+            throw new BusinessException("用户未登录");
+        }
+        if (billIds == null || billIds.isEmpty()) {
+            throw new BusinessException("请选择要缴费的账单");
+        }
+        Set<Long> requested = new LinkedHashSet<>();
+        for (Long billId : billIds) {
+            if (billId != null) {
+                requested.add(billId);
+            }
+        }
+        if (requested.isEmpty()) {
+            throw new BusinessException("请选择要缴费的账单");
+        }
+        if (requested.size() > MAX_BILLS) {
+            throw new BusinessException("单次最多缴纳" + MAX_BILLS + "张账单");
+        }
+        if (StringUtils.isNotEmpty(paymentToken) && !TOKEN_PATTERN.matcher(paymentToken).matches()) {
+            throw new BusinessException("缴费凭证格式不正确");
+        }
+        int method = payMethod == null ? PAY_METHOD_WALLET : payMethod;
+        List<Long> ids = new ArrayList<>(requested);
+
+        // 锁定全部账单，同一批账单的并发结算在此串行
+        List<Bill> bills = billMapper.selectBillsForUpdate(ids);
+
+        if (StringUtils.isNotEmpty(paymentToken)) {
+            List<Long> settledIds = billMapper.selectBillIdsByPaymentNo(paymentToken, userId);
+            if (!settledIds.isEmpty()) {
+                if (!new HashSet<>(settledIds).equals(requested)) {
+                    throw new BusinessException("缴费凭证已用于其他账单");
+                }
+                log.info("重复的缴费请求，返回首次结算结果，用户ID：{}，缴费凭证：{}", userId, paymentToken);
+                return result(paymentToken, bills, true);
+            }
+        }
+
+        Map<Long, Bill> found = new HashMap<>(bills.size() * 2);
+        for (Bill bill : bills) {
+            found.put(bill.getBillId(), bill);
+        }
+        List<Bill> payable = new ArrayList<>(ids.size());
+        for (Long billId : ids) {
+            Bill bill = found.get(billId);
+            if (bill == null || !userId.equals(bill.getUserId())) {
+                throw new BusinessException("账单不存在或无权限访问：" + billId);
+            }
+            Integer status = bill.getBillStatus();
+            if (status != null && status == 2) {
+                throw new BusinessException("账单已缴费：" + bill.getBillNo());
+            }
+            if (status == null || (status != 1 && status != 3)) {
+                throw new BusinessException("账单状态不正确：" + bill.getBillNo());
+            }
+            if (bill.getAmount() == null || bill.getAmount().signum() <= 0) {
+                throw new BusinessException("账单金额不正确：" + bill.getBillNo());
+            }
+            payable.add(bill);
+        }
+
+        String paymentNo = StringUtils.isNotEmpty(paymentToken) ? paymentToken : idGenerator.nextNo("PAY");
+        int rows = billMapper.markBillsPaid(ids, method, paymentNo);
+        if (rows != ids.size()) {
+            throw new BusinessException("账单状态已变更，请刷新后重试");
+        }
+        if (method == PAY_METHOD_WALLET) {
+            walletLedgerService.debitBills(userId, payable, paymentNo);
+        }
+        ownerSummaryService.billsSettled(userId, payable);
+
+        Map<String, Object> data = result(paymentNo, payable, false);
+        log.info("账单结算完成，用户ID：{}，账单数：{}，总金额：{}，缴费单号：{}",
+                userId, payable.size(), data.get("totalAmount"), paymentNo);
+        return data;
+    }
+
+    private Map<String, Object> result(String paymentNo, List<Bill> bills, boolean replayed) {
+        BigDecimal total = BigDecimal.ZERO;
+        List<Long> ids = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            ids.add(bill.getBillId());
+            // 重复提交时账单已标记为实缴
+            BigDecimal amount = replayed && bill.getPaidAmount() != null ? bill.getPaidAmount() : bill.getAmount();
+            total = total.add(amount == null ? BigDecimal.ZERO : amount);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("paymentNo", paymentNo);
+        data.put("billIds", ids);
+        data.put("billCount", bills.size());
+        data.put("totalAmount", total);
+        data.put("replayed", replayed);
+        return data;
+    }
+}
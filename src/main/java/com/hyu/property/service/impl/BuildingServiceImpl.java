@@ -10,11 +10,17 @@ import com.hyu.property.domain.Unit;
 import com.hyu.property.mapper.BuildingMapper;
 import com.hyu.property.mapper.UnitMapper;
 import com.hyu.property.service.IBuildingService;
+import com.hyu.property.topology.EstateTopology;
+import com.hyu.property.topology.EstateTopologyCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 楼栋Service业务层处理
@@ -28,6 +34,69 @@ public class BuildingServiceImpl extends ServiceImpl<BuildingMapper, Building> i
     @Autowired
     private UnitMapper unitMapper;
 
+    @Autowired
+    private EstateTopologyCache estateTopologyCache;
+
+    /**
+     * 新增楼栋，提交后刷新小区拓扑
+     *
+     * @param entity 楼栋信息
+     * @return 是否成功
+     */
+    @Override
+    public boolean save(Building entity) {
+        boolean result = super.save(entity);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 修改楼栋，提交后刷新小区拓扑
+     *
+     * @param entity 楼栋信息
+     * @return 是否成功
+     */
+    @Override
+    public boolean updateById(Building entity) {
+        boolean result = super.updateById(entity);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 删除楼栋，提交后刷新小区拓扑
+     *
+     * @param id 楼栋ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 批量删除楼栋，提交后刷新小区拓扑
+     *
+     * @param list 楼栋ID集合
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        boolean result = super.removeByIds(list);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
     /**
      * 分页查询楼栋列表
      *
@@ -76,4 +145,26 @@ public class BuildingServiceImpl extends ServiceImpl<BuildingMapper, Building> i
 
         return unitMapper.selectList(queryWrapper);
     }
+
+    /**
+     * 批量获取楼栋名称（从小区拓扑缓存解析，不查询数据库）
+     *
+     * @param buildingIds 楼栋ID集合
+     * @return 楼栋ID到楼栋名称的映射
+     */
+    @Override
+    public Map<Long, String> selectBuildingNameMap(Collection<Long> buildingIds) {
+        Map<Long, String> nameMap = new HashMap<>();
+        if (buildingIds == null || buildingIds.isEmpty()) {
+            return nameMap;
+        }
+        EstateTopology topology = estateTopologyCache.get();
+        for (Long buildingId : buildingIds) {
+            String buildingName = topology.getBuildingName(buildingId);
+            if (buildingName != null) {
+                nameMap.put(buildingId, buildingName);
+            }
+        }
+        return nameMap;
+    }
 }
\ No newline at end of file
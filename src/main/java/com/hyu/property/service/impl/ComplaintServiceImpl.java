@@ -3,11 +3,13 @@ package com.hyu.property.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hyu.common.utils.IdGenerator;
 import com.hyu.common.utils.StringUtils;
 import com.hyu.property.domain.Complaint;
 import com.hyu.property.mapper.ComplaintMapper;
-import com.hyu.property.mapper.HouseMapper;
 import com.hyu.property.service.IComplaintService;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.topology.EstateTopologyCache;
 import com.hyu.system.domain.SysUser;
 import com.hyu.system.mapper.SysUserMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -15,11 +17,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * 投诉Service业务层处理
@@ -32,11 +33,17 @@ import java.util.Random;
 public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint> implements IComplaintService {
 
     @Autowired
-    private HouseMapper houseMapper;
+    private EstateTopologyCache estateTopologyCache;
 
     @Autowired
     private SysUserMapper sysUserMapper;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
     /**
      * 分页查询投诉列表
      *
@@ -184,7 +191,7 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
 
         // 根据房间编号获取房屋ID
         if (StringUtils.isNotEmpty(complaint.getHouseNo())) {
-            Long houseId = houseMapper.selectHouseIdByHouseNo(complaint.getHouseNo());
+            Long houseId = estateTopologyCache.get().findHouseIdByHouseNo(complaint.getHouseNo());
             if (houseId != null) {
                 complaint.setHouseId(houseId);
                 log.info("根据房间编号 {} 找到房屋ID: {}", complaint.getHouseNo(), houseId);
@@ -215,7 +222,11 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
             }
         }
 
-        return save(complaint) ? 1 : 0;
+        if (!save(complaint)) {
+            return 0;
+        }
+        ownerSummaryService.complaintStatusChanged(complaint.getUserId(), null, complaint.getComplaintStatus());
+        return 1;
     }
 
     /**
@@ -227,7 +238,13 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
     @Override
     public int updateComplaint(Complaint complaint) {
         complaint.setUpdateTime(LocalDateTime.now());
-        return updateById(complaint) ? 1 : 0;
+        // 通用修改可能变更状态或投诉人，清除修改前后业主的门户汇总
+        Complaint existing = getById(complaint.getId());
+        if (!updateById(complaint)) {
+            return 0;
+        }
+        ownerSummaryService.evict(Arrays.asList(existing == null ? null : existing.getUserId(), complaint.getUserId()));
+        return 1;
     }
 
     /**
@@ -241,13 +258,7 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
         // 逻辑删除
         int count = 0;
         for (Long id : ids) {
-            Complaint complaint = new Complaint();
-            complaint.setId(id);
-            complaint.setDeleted(1);
-            complaint.setUpdateTime(LocalDateTime.now());
-            if (updateById(complaint)) {
-                count++;
-            }
+            count += deleteComplaintById(id);
         }
         return count;
     }
@@ -260,11 +271,18 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
      */
     @Override
     public int deleteComplaintById(Long id) {
+        Complaint existing = getById(id);
         Complaint complaint = new Complaint();
         complaint.setId(id);
         complaint.setDeleted(1);
         complaint.setUpdateTime(LocalDateTime.now());
-        return updateById(complaint) ? 1 : 0;
+        if (!updateById(complaint)) {
+            return 0;
+        }
+        if (existing != null && !Integer.valueOf(1).equals(existing.getDeleted())) {
+            ownerSummaryService.complaintStatusChanged(existing.getUserId(), existing.getComplaintStatus(), null);
+        }
+        return 1;
     }
 
     /**
@@ -285,10 +303,15 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
         complaint.setHandleContent((String) params.get("handleContent"));
         complaint.setHandleImageUrls((String) params.get("handleImageUrls"));
         complaint.setHandleTime(LocalDateTime.now());
+        Integer oldStatus = complaint.getComplaintStatus();
         complaint.setComplaintStatus(3); // 已处理
         complaint.setUpdateTime(LocalDateTime.now());
 
-        return updateById(complaint) ? 1 : 0;
+        if (!updateById(complaint)) {
+            return 0;
+        }
+        ownerSummaryService.complaintStatusChanged(complaint.getUserId(), oldStatus, complaint.getComplaintStatus());
+        return 1;
     }
 
     /**
@@ -311,10 +334,15 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
         complaint.setRatingTime(LocalDateTime.now());
 
         // 评价完成后将状态设为已关闭
+        Integer oldStatus = complaint.getComplaintStatus();
         complaint.setComplaintStatus(4);
         complaint.setUpdateTime(LocalDateTime.now());
 
-        return updateById(complaint) ? 1 : 0;
+        if (!updateById(complaint)) {
+            return 0;
+        }
+        ownerSummaryService.complaintStatusChanged(complaint.getUserId(), oldStatus, complaint.getComplaintStatus());
+        return 1;
     }
 
     /**
@@ -330,11 +358,16 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
             return 0;
         }
 
+        Integer oldStatus = complaint.getComplaintStatus();
         complaint.setComplaintStatus(4); // 已关闭
         complaint.setAutoCloseTime(LocalDateTime.now());
         complaint.setUpdateTime(LocalDateTime.now());
 
-        return updateById(complaint) ? 1 : 0;
+        if (!updateById(complaint)) {
+            return 0;
+        }
+        ownerSummaryService.complaintStatusChanged(complaint.getUserId(), oldStatus, complaint.getComplaintStatus());
+        return 1;
     }
 
     /**
@@ -370,10 +403,15 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
 
         complaint.setHandlerId(handlerId);
         complaint.setHandlerName(handlerName);
+        Integer oldStatus = complaint.getComplaintStatus();
         complaint.setComplaintStatus(2); // 处理中
         complaint.setUpdateTime(LocalDateTime.now());
 
-        return updateById(complaint) ? 1 : 0;
+        if (!updateById(complaint)) {
+            return 0;
+        }
+        ownerSummaryService.complaintStatusChanged(complaint.getUserId(), oldStatus, complaint.getComplaintStatus());
+        return 1;
     }
 
     /**
@@ -383,11 +421,7 @@ public class ComplaintServiceImpl extends ServiceImpl<ComplaintMapper, Complaint
      */
     @Override
     public String generateComplaintNo() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-        String timestamp = LocalDateTime.now().format(formatter);
-        Random random = new Random();
-        int randomNum = 1000 + random.nextInt(9000);
-        return "CO" + timestamp + "_" + randomNum;
+        return idGenerator.nextNo("CO");
     }
 
     /**
@@ -3,10 +3,9 @@ package com.hyu.property.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hyu.common.core.domain.CursorResult;
 import com.hyu.common.utils.StringUtils;
-import com.hyu.property.domain.Building;
 import com.hyu.property.domain.House;
-import com.hyu.property.domain.Unit;
 import com.hyu.property.domain.UserHouse;
 import com.hyu.property.domain.vo.HouseVO;
 import com.hyu.property.mapper.HouseMapper;
@@ -14,18 +13,25 @@ import com.hyu.property.service.IHouseService;
 import com.hyu.property.service.IBuildingService;
 import com.hyu.property.service.IUnitService;
 import com.hyu.property.service.IUserHouseService;
+import com.hyu.property.topology.EstateTopologyCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 房产Service业务层处理
@@ -36,6 +42,16 @@ import java.util.List;
 @Service
 public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements IHouseService {
 
+    /**
+     * 房产列表默认每页条数
+     */
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    /**
+     * 房产列表每页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private IBuildingService buildingService;
 
@@ -45,6 +61,69 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
     @Autowired
     private IUserHouseService userHouseService;
 
+    @Autowired
+    private EstateTopologyCache estateTopologyCache;
+
+    /**
+     * 新增房产，提交后刷新小区拓扑
+     *
+     * @param entity 房产信息
+     * @return 是否成功
+     */
+    @Override
+    public boolean save(House entity) {
+        boolean result = super.save(entity);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 修改房产，提交后刷新小区拓扑
+     *
+     * @param entity 房产信息
+     * @return 是否成功
+     */
+    @Override
+    public boolean updateById(House entity) {
+        boolean result = super.updateById(entity);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 删除房产，提交后刷新小区拓扑
+     *
+     * @param id 房产ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 批量删除房产，提交后刷新小区拓扑
+     *
+     * @param list 房产ID集合
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        boolean result = super.removeByIds(list);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
     /**
      * 分页查询房产列表
      *
@@ -65,14 +144,26 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
 
         Page<House> result = page(page, queryWrapper);
 
-        // 填充楼栋和单元名称
-        if (result != null && result.getRecords() != null) {
+        // 填充楼栋和单元名称，本页涉及的楼栋、单元各一次查询
+        if (result != null && result.getRecords() != null && !result.getRecords().isEmpty()) {
+            Set<Long> buildingIds = new HashSet<>();
+            Set<Long> unitIds = new HashSet<>();
             for (House houseRecord : result.getRecords()) {
                 if (houseRecord.getBuildingId() != null) {
-                    houseRecord.setBuildingName(getBuildingNameById(houseRecord.getBuildingId()));
+                    buildingIds.add(houseRecord.getBuildingId());
                 }
                 if (houseRecord.getUnitId() != null) {
-                    houseRecord.setUnitName(getUnitNameById(houseRecord.getUnitId()));
+                    unitIds.add(houseRecord.getUnitId());
+                }
+            }
+            Map<Long, String> buildingNames = buildingService.selectBuildingNameMap(buildingIds);
+            Map<Long, String> unitNames = unitService.selectUnitNameMap(unitIds);
+            for (House houseRecord : result.getRecords()) {
+                if (houseRecord.getBuildingId() != null) {
+                    houseRecord.setBuildingName(buildingNames.getOrDefault(houseRecord.getBuildingId(), ""));
+                }
+                if (houseRecord.getUnitId() != null) {
+                    houseRecord.setUnitName(unitNames.getOrDefault(houseRecord.getUnitId(), ""));
                 }
             }
         }
@@ -90,19 +181,15 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
     @Override
     public Page<HouseVO> selectHouseVOPage(Page<HouseVO> page, House house) {
         try {
-            // 使用自定义查询获取包含产权人信息的房产数据
-            List<HouseVO> houseVOList = baseMapper.selectHouseVOPage(house);
-
-            // 手动实现分页逻辑
-            int total = houseVOList.size();
-            int pageSize = (int) page.getSize();
-            int pageNum = (int) page.getCurrent();
-            int startIndex = (pageNum - 1) * pageSize;
-            int endIndex = Math.min(startIndex + pageSize, total);
+            // 数据库分页：总数单独统计，本页记录按偏移量查询后再补充产权人
+            long total = page.searchCount() ? baseMapper.countHouseVO(house) : 0L;
+            int pageSize = (int) Math.max(1, Math.min(page.getSize(), MAX_PAGE_SIZE));
+            long offset = (Math.max(1, page.getCurrent()) - 1) * pageSize;
 
             List<HouseVO> records = new ArrayList<>();
-            if (startIndex < total) {
-                records = houseVOList.subList(startIndex, endIndex);
+            if (!page.searchCount() || offset < total) {
+                records = baseMapper.selectHouseVOPage(house, null, null, offset, pageSize);
+                fillCurrentResidents(records);
             }
 
             // 设置分页结果
@@ -117,55 +204,83 @@ public class HouseServiceImpl extends ServiceImpl<HouseMapper, House> implements
     }
 
     /**
-     * 校验房产编号是否唯一
+     * 游标分页查询房产列表（包含产权人信息）
+     * <p>
+     * 游标为上一页最后一条记录的 (创建时间, ID)，不统计总数，翻页深度不影响查询耗时。
+     * 创建时间为空的历史房产按倒序排在最后，游标同样覆盖这部分记录。
      *
      * @param house 房产信息
-     * @return 结果 true唯一 false不唯一
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 本页房产及下一页游标
      */
     @Override
-    public boolean checkHouseNoUnique(House house) {
-        Long houseId = house.getId() == null ? -1L : house.getId();
-        QueryWrapper<House> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("house_no", house.getHouseNo())
-                   .eq("deleted", 0);
+    public CursorResult<HouseVO> selectHouseVOCursor(House house, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        Date cursorTime = null;
+        Long cursorId = null;
+        if (StringUtils.isNotEmpty(cursor)) {
+            CursorResult.Position position = CursorResult.decodeCursor(cursor);
+            cursorTime = position.getCreateTime();
+            cursorId = position.getId();
+        }
 
-        House info = getOne(queryWrapper);
-        if (info != null && !info.getId().equals(houseId)) {
-            return false;
+        // 多查一条用于判断是否还有下一页
+        List<HouseVO> records = baseMapper.selectHouseVOPage(house, cursorTime, cursorId, 0, pageSize + 1);
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+            HouseVO last = records.get(pageSize - 1);
+            nextCursor = CursorResult.encodeCursor(last.getCreateTime(), last.getId());
         }
-        return true;
+        fillCurrentResidents(records);
+        return CursorResult.build(records, nextCursor);
     }
 
     /**
-     * 根据楼栋ID获取楼栋名称
+     * 按本页房产ID批量补充当前产权人
      *
-     * @param buildingId 楼栋ID
-     * @return 楼栋名称
+     * @param records 本页房产
      */
-    private String getBuildingNameById(Long buildingId) {
-        try {
-            Building building = buildingService.getById(buildingId);
-            return building != null ? building.getBuildingName() : "";
-        } catch (Exception e) {
-            log.error("获取楼栋名称失败, buildingId: {}", buildingId, e);
-            return "";
+    private void fillCurrentResidents(List<HouseVO> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<Long> houseIds = new ArrayList<>(records.size());
+        for (HouseVO record : records) {
+            houseIds.add(record.getId());
+        }
+        Map<Long, HouseVO> residents = new HashMap<>();
+        for (HouseVO resident : baseMapper.selectCurrentResidentsByHouseIds(houseIds)) {
+            residents.putIfAbsent(resident.getId(), resident);
+        }
+        for (HouseVO record : records) {
+            HouseVO resident = residents.get(record.getId());
+            if (resident != null) {
+                record.setPropertyOwner(resident.getPropertyOwner());
+                record.setPropertyOwnerId(resident.getPropertyOwnerId());
+            }
         }
     }
 
     /**
-     * 根据单元ID获取单元名称
+     * 校验房产编号是否唯一
      *
-     * @param unitId 单元ID
-     * @return 单元名称
+     * @param house 房产信息
+     * @return 结果 true唯一 false不唯一
      */
-    private String getUnitNameById(Long unitId) {
-        try {
-            Unit unit = unitService.getById(unitId);
-            return unit != null ? unit.getUnitName() : "";
-        } catch (Exception e) {
-            log.error("获取单元名称失败, unitId: {}", unitId, e);
-            return "";
+    @Override
+    public boolean checkHouseNoUnique(House house) {
+        Long houseId = house.getId() == null ? -1L : house.getId();
+        QueryWrapper<House> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("house_no", house.getHouseNo())
+                   .eq("deleted", 0);
+
+        House info = getOne(queryWrapper);
+        if (info != null && !info.getId().equals(houseId)) {
+            return false;
         }
+        return true;
     }
 
     /**
@@ -0,0 +1,151 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.common.utils.StringUtils;
+import com.hyu.property.domain.Notice;
+import com.hyu.property.mapper.NoticeTargetMapper;
+import com.hyu.property.mapper.UserHouseMapper;
+import com.hyu.property.service.INoticeAudienceService;
+import com.hyu.property.topology.EstateTopology;
+import com.hyu.property.topology.EstateTopologyCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 公告受众Service业务层处理
+ * <p>
+ * 发布范围：1-全部 2-指定楼栋 3-指定单元。指定楼栋的公告同时写入其目标楼栋和目标单元，指定单元的公告只写入目标单元；
+ * 全部范围的公告不写入受众表，查询时按 publish_scope 直接匹配。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class NoticeAudienceServiceImpl implements INoticeAudienceService {
+
+    /**
+     * 受众目标类型：楼栋
+     */
+    private static final int TARGET_BUILDING = 1;
+
+    /**
+     * 受众目标类型：单元
+     */
+    private static final int TARGET_UNIT = 2;
+
+    /**
+     * 按房产统计住户时每批的房产数
+     */
+    private static final int HOUSE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private NoticeTargetMapper noticeTargetMapper;
+
+    @Autowired
+    private UserHouseMapper userHouseMapper;
+
+    @Autowired
+    private EstateTopologyCache estateTopologyCache;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuildTargets(Notice notice) {
+        if (notice == null || notice.getId() == null) {
+            return;
+        }
+        noticeTargetMapper.deleteByNoticeIds(Collections.singletonList(notice.getId()));
+        Integer scope = notice.getPublishScope();
+        if (scope == null || scope == 1) {
+            return;
+        }
+        List<Long> buildingIds = scope == 2 ? parseIds(notice.getTargetBuildingIds()) : Collections.emptyList();
+        List<Long> unitIds = parseIds(notice.getTargetUnitIds());
+        if (!buildingIds.isEmpty()) {
+            noticeTargetMapper.insertTargets(notice.getId(), TARGET_BUILDING, buildingIds);
+        }
+        if (!unitIds.isEmpty()) {
+            noticeTargetMapper.insertTargets(notice.getId(), TARGET_UNIT, unitIds);
+        }
+    }
+
+    @Override
+    public void removeTargets(Collection<?> noticeIds) {
+        if (noticeIds == null || noticeIds.isEmpty()) {
+            return;
+        }
+        noticeTargetMapper.deleteByNoticeIds(noticeIds);
+    }
+
+    @Override
+    public int countTargetUsers(Notice notice) {
+        Integer scope = notice.getPublishScope();
+        if (scope == null || scope == 1) {
+            return (int) userHouseMapper.countCurrentResidents();
+        }
+
+        // 由小区拓扑展开范围内的房产
+        EstateTopology topology = estateTopologyCache.get();
+        Set<Long> houseIds = new LinkedHashSet<>();
+        if (scope == 2) {
+            for (Long buildingId : parseIds(notice.getTargetBuildingIds())) {
+                for (long houseId : topology.getHouseIdsInBuilding(buildingId)) {
+                    houseIds.add(houseId);
+                }
+            }
+        }
+        for (Long unitId : parseIds(notice.getTargetUnitIds())) {
+            for (long houseId : topology.getHouseIdsInUnit(unitId)) {
+                houseIds.add(houseId);
+            }
+        }
+        if (houseIds.isEmpty()) {
+            return 0;
+        }
+
+        // 同一住户可能在多套房产中，跨批次按用户去重
+        Set<Long> userIds = new HashSet<>();
+        List<Long> batch = new ArrayList<>(Math.min(HOUSE_BATCH_SIZE, houseIds.size()));
+        for (Long houseId : houseIds) {
+            batch.add(houseId);
+            if (batch.size() == HOUSE_BATCH_SIZE) {
+                userIds.addAll(userHouseMapper.selectCurrentResidentIds(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            userIds.addAll(userHouseMapper.selectCurrentResidentIds(batch));
+        }
+        return userIds.size();
+    }
+
+    /**
+     * 解析逗号分隔的ID，忽略空白和非法值
+     */
+    private List<Long> parseIds(String ids) {
+        if (StringUtils.isEmpty(ids)) {
+            return Collections.emptyList();
+        }
+        Set<Long> result = new LinkedHashSet<>();
+        for (String id : ids.split(",")) {
+            String trimmed = id.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                result.add(Long.valueOf(trimmed));
+            } catch (NumberFormatException e) {
+                log.warn("忽略非法的公告目标ID：{}", trimmed);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+}
@@ -0,0 +1,39 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.property.domain.NoticeRead;
+import com.hyu.property.mapper.NoticeMapper;
+import com.hyu.property.mapper.NoticeReadMapper;
+import com.hyu.property.service.INoticeReadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 公告阅读记录Service业务层处理
+ *
+ * @author hyu
+ */
+@Service
+public class NoticeReadServiceImpl implements INoticeReadService {
+
+    @Autowired
+    private NoticeReadMapper noticeReadMapper;
+
+    @Autowired
+    private NoticeMapper noticeMapper;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int saveReads(Long noticeId, List<NoticeRead> reads) {
+        if (reads == null || reads.isEmpty()) {
+            return 0;
+        }
+        int inserted = noticeReadMapper.insertIgnoreBatch(reads);
+        if (inserted > 0) {
+            noticeMapper.addReadCount(noticeId, inserted);
+        }
+        return inserted;
+    }
+}
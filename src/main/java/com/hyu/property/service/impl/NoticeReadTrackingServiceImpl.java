@@ -0,0 +1,237 @@
+package com.hyu.property.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hyu.property.domain.Notice;
+import com.hyu.property.domain.NoticeRead;
+import com.hyu.property.mapper.NoticeMapper;
+import com.hyu.property.service.INoticeReadService;
+import com.hyu.property.service.INoticeReadTrackingService;
+import com.hyu.property.service.IOwnerSummaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 公告阅读跟踪Service业务层处理
+ * <p>
+ * 每条公告一个Redis位图，以用户ID为偏移量，只记录已写入数据库的阅读；标记已读时位已置位说明已读过，
+ * 直接返回，不访问数据库。未置位的阅读写入本节点按公告分组的缓冲区，待写入人数用 {@link LongAdder} 累计；
+ * 定时任务按公告把缓冲区以多行 INSERT IGNORE 写入 notice_read，并按实际插入的行数累加一次阅读次数，
+ * 提交后才在位图中置位。节点在写入前异常退出时位未置位，用户再次阅读会重新记录；位图过期或Redis不可用时
+ * 由唯一键兜底去重，阅读次数不会重复累加。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class NoticeReadTrackingServiceImpl implements INoticeReadTrackingService {
+
+    /**
+     * 已读位图Redis前缀，后接公告ID
+     */
+    private static final String BITMAP_KEY_PREFIX = "notice:read:";
+
+    /**
+     * 每批（事务）写入的阅读记录数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 公告ID → 待写入的阅读记录
+     * 只为已发布的公告创建缓冲区，写空后移除；增删都在 compute 中进行，与并发标记已读互斥
+     */
+    private final Map<Long, PendingReads> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private INoticeReadService noticeReadService;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    @Autowired
+    private NoticeMapper noticeMapper;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 已读位图过期时间（秒），过期后重复阅读由数据库唯一键去重
+     */
+    @Value("${notice.read.bitmap-ttl:2592000}")
+    private long bitmapTtl;
+
+    @Override
+    public void recordRead(Long noticeId, Long userId) {
+        if (noticeId == null || userId == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(isRead(noticeId, userId))) {
+            // 已读过且已写入数据库
+            return;
+        }
+        // 缓冲区已存在说明公告已校验过，否则确认公告已发布，避免任意公告ID撑大缓冲区
+        if (!pending.containsKey(noticeId) && !isPublished(noticeId)) {
+            return;
+        }
+        LocalDateTime readTime = LocalDateTime.now();
+        boolean[] added = new boolean[1];
+        pending.compute(noticeId, (key, reads) -> {
+            PendingReads target = reads == null ? new PendingReads() : reads;
+            if (target.users.putIfAbsent(userId, readTime) == null) {
+                target.count.increment();
+                added[0] = true;
+            }
+            return target;
+        });
+        if (added[0]) {
+            // 先扣减未读数，写入后清除汇总以数据库为准
+            ownerSummaryService.noticeRead(userId);
+        }
+    }
+
+    @Override
+    public void discard(Collection<?> noticeIds) {
+        if (noticeIds == null) {
+            return;
+        }
+        for (Object noticeId : noticeIds) {
+            if (noticeId != null) {
+                pending.remove(Long.valueOf(noticeId.toString()));
+            }
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void flush() {
+        for (Map.Entry<Long, PendingReads> entry : pending.entrySet()) {
+            if (!entry.getValue().users.isEmpty()) {
+                flushNotice(entry.getKey(), entry.getValue());
+            }
+            // 写空的缓冲区移除，期间新加入的阅读会保留到下次写入
+            pending.computeIfPresent(entry.getKey(), (key, reads) -> reads.users.isEmpty() ? null : reads);
+        }
+    }
+
+    /**
+     * 分批写入单个公告的阅读记录；某批失败时放弃该公告本轮剩余批次，不影响其他公告
+     */
+    private void flushNotice(Long noticeId, PendingReads reads) {
+        List<NoticeRead> batch = new ArrayList<>(Math.min(FLUSH_BATCH_SIZE, reads.users.size()));
+        for (Map.Entry<Long, LocalDateTime> user : reads.users.entrySet()) {
+            NoticeRead noticeRead = new NoticeRead();
+            noticeRead.setNoticeId(noticeId);
+            noticeRead.setUserId(user.getKey());
+            noticeRead.setReadTime(user.getValue());
+            batch.add(noticeRead);
+            if (batch.size() == FLUSH_BATCH_SIZE) {
+                if (!save(noticeId, reads, batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(noticeId, reads, batch);
+        }
+    }
+
+    /**
+     * 写入一批阅读记录，成功后从缓冲区移除；失败时保留在缓冲区，下次写入时重试
+     *
+     * @return 是否成功
+     */
+    private boolean save(Long noticeId, PendingReads reads, List<NoticeRead> batch) {
+        try {
+            noticeReadService.saveReads(noticeId, batch);
+        } catch (Exception e) {
+            log.warn("写入公告阅读记录失败，公告ID：{}，待写入：{}", noticeId, reads.count.sum(), e);
+            return false;
+        }
+        List<Long> userIds = new ArrayList<>(batch.size());
+        for (NoticeRead noticeRead : batch) {
+            userIds.add(noticeRead.getUserId());
+        }
+        // 阅读记录已提交，置位后重复阅读不再进入缓冲区；置位失败时重复阅读由唯一键去重
+        markBitmap(noticeId, userIds);
+        for (NoticeRead noticeRead : batch) {
+            if (reads.users.remove(noticeRead.getUserId(), noticeRead.getReadTime())) {
+                reads.count.decrement();
+            }
+        }
+        // 重复阅读（位图过期、Redis不可用、多节点并发）时先前的扣减可能不准，清除后按数据库重新统计
+        ownerSummaryService.evict(userIds);
+        return true;
+    }
+
+    /**
+     * 查询已读位图
+     *
+     * @return 是否已读，Redis不可用时返回null
+     */
+    private Boolean isRead(Long noticeId, Long userId) {
+        try {
+            return redisTemplate.opsForValue().getBit(BITMAP_KEY_PREFIX + noticeId, userId);
+        } catch (Exception e) {
+            log.warn("查询公告已读位图失败，公告ID：{}，用户ID：{}", noticeId, userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 在已读位图中批量置位
+     */
+    private void markBitmap(Long noticeId, List<Long> userIds) {
+        byte[] key = redisTemplate.getStringSerializer().serialize(BITMAP_KEY_PREFIX + noticeId);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : userIds) {
+                    connection.setBit(key, userId, true);
+                }
+                connection.expire(key, bitmapTtl);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("公告已读位图置位失败，公告ID：{}", noticeId, e);
+        }
+    }
+
+    /**
+     * 公告是否已发布且未删除
+     */
+    private boolean isPublished(Long noticeId) {
+        return noticeMapper.selectCount(new QueryWrapper<Notice>()
+                .eq("id", noticeId)
+                .eq("deleted", 0)
+                .eq("notice_status", 1)) > 0;
+    }
+
+    /**
+     * 一条公告的待写入阅读记录
+     */
+    private static final class PendingReads {
+
+        /**
+         * 用户ID → 阅读时间
+         */
+        private final Map<Long, LocalDateTime> users = new ConcurrentHashMap<>();
+
+        /**
+         * 待写入人数
+         */
+        private final LongAdder count = new LongAdder();
+    }
+}
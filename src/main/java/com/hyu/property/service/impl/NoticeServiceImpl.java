@@ -9,10 +9,14 @@ import com.hyu.property.domain.Notice;
 import com.hyu.property.domain.NoticeRead;
 import com.hyu.property.mapper.NoticeMapper;
 import com.hyu.property.mapper.NoticeReadMapper;
+import com.hyu.property.service.INoticeAudienceService;
+import com.hyu.property.service.INoticeReadTrackingService;
 import com.hyu.property.service.INoticeService;
+import com.hyu.property.service.IOwnerSummaryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -29,6 +33,15 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
     @Autowired
     private NoticeReadMapper noticeReadMapper;
 
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    @Autowired
+    private INoticeAudienceService noticeAudienceService;
+
+    @Autowired
+    private INoticeReadTrackingService noticeReadTrackingService;
+
     /**
      * 新增公告
      *
@@ -36,41 +49,44 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
      * @return 是否成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean save(Notice notice) {
-        try {
-            log.info("开始保存公告: {}", notice);
-
-            // 设置默认值
-            if (notice.getNoticeStatus() == null) {
-                notice.setNoticeStatus(0); // 草稿状态
-            }
-            if (notice.getIsTop() == null) {
-                notice.setIsTop(0); // 不置顶
-            }
-            if (notice.getReadCount() == null) {
-                notice.setReadCount(0); // 阅读次数初始化为0
-            }
-            if (notice.getDeleted() == null) {
-                notice.setDeleted(0); // 未删除
-            }
-
-            // 设置创建时间
-            notice.setCreateTime(LocalDateTime.now());
-
-            // 如果是发布状态，设置发布时间
-            if (notice.getNoticeStatus() == 1) {
-                notice.setPublishTime(LocalDateTime.now());
-            }
-
-            log.info("保存公告前的数据: {}", notice);
-            boolean result = super.save(notice);
-            log.info("公告保存结果: {}, 生成ID: {}", result, notice.getId());
-
-            return result;
-        } catch (Exception e) {
-            log.error("保存公告失败", e);
-            return false;
+        log.info("开始保存公告: {}", notice);
+
+        // 设置默认值
+        if (notice.getNoticeStatus() == null) {
+            notice.setNoticeStatus(0); // 草稿状态
+        }
+        if (notice.getIsTop() == null) {
+            notice.setIsTop(0); // 不置顶
+        }
+        if (notice.getReadCount() == null) {
+            notice.setReadCount(0); // 阅读次数初始化为0
         }
+        if (notice.getDeleted() == null) {
+            notice.setDeleted(0); // 未删除
+        }
+
+        // 设置创建时间
+        notice.setCreateTime(LocalDateTime.now());
+
+        // 如果是发布状态，设置发布时间
+        if (notice.getNoticeStatus() == 1) {
+            notice.setPublishTime(LocalDateTime.now());
+        }
+
+        log.info("保存公告前的数据: {}", notice);
+        boolean result = super.save(notice);
+        log.info("公告保存结果: {}, 生成ID: {}", result, notice.getId());
+        // 受众索引与公告在同一事务中写入，重建失败时公告一并回滚
+        if (result) {
+            noticeAudienceService.rebuildTargets(notice);
+        }
+        if (result && notice.getNoticeStatus() == 1) {
+            ownerSummaryService.noticesChanged();
+        }
+
+        return result;
     }
 
     /**
@@ -80,28 +96,51 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
      * @return 是否成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean updateById(Notice notice) {
-        try {
-            log.info("开始更新公告: {}", notice);
+        log.info("开始更新公告: {}", notice);
+
+        // 设置更新时间
+        notice.setUpdateTime(LocalDateTime.now());
 
-            // 设置更新时间
-            notice.setUpdateTime(LocalDateTime.now());
+        // 如果状态改为发布状态，设置发布时间
+        Notice existingNotice = getById(notice.getId());
+        if (existingNotice != null && existingNotice.getNoticeStatus() != 1 && notice.getNoticeStatus() == 1) {
+            notice.setPublishTime(LocalDateTime.now());
+        }
 
-            // 如果状态改为发布状态，设置发布时间
-            Notice existingNotice = getById(notice.getId());
-            if (existingNotice != null && existingNotice.getNoticeStatus() != 1 && notice.getNoticeStatus() == 1) {
-                notice.setPublishTime(LocalDateTime.now());
-            }
+        log.info("更新公告前的数据: {}", notice);
+        boolean result = super.updateById(notice);
+        log.info("公告更新结果: {}", result);
+        // 修改了发布范围则按更新后的公告重建受众索引，与公告更新在同一事务中
+        if (result && (notice.getPublishScope() != null || notice.getTargetBuildingIds() != null
+                || notice.getTargetUnitIds() != null)) {
+            noticeAudienceService.rebuildTargets(getById(notice.getId()));
+        }
+        // 发布、撤回、修改范围或有效期都会改变业主的未读数
+        if (result) {
+            ownerSummaryService.noticesChanged();
+        }
 
-            log.info("更新公告前的数据: {}", notice);
-            boolean result = super.updateById(notice);
-            log.info("公告更新结果: {}", result);
+        return result;
+    }
 
-            return result;
-        } catch (Exception e) {
-            log.error("更新公告失败", e);
-            return false;
+    /**
+     * 批量删除公告
+     *
+     * @param list 公告ID集合
+     * @return 是否成功
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeByIds(Collection<?> list) {
+        boolean result = super.removeByIds(list);
+        if (result) {
+            noticeAudienceService.removeTargets(list);
+            noticeReadTrackingService.discard(list);
+            ownerSummaryService.noticesChanged();
         }
+        return result;
     }
 
     /**
@@ -135,12 +174,18 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean publishNotice(Long id) {
         Notice notice = new Notice();
         notice.setId(id);
         notice.setNoticeStatus(1); // 已发布
         notice.setPublishTime(LocalDateTime.now());
-        return updateById(notice);
+        boolean result = updateById(notice);
+        // 发布时按公告的发布范围展开受众索引
+        if (result) {
+            noticeAudienceService.rebuildTargets(getById(id));
+        }
+        return result;
     }
 
     @Override
@@ -161,52 +206,16 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
 
     @Override
     public List<Notice> getUserNotices(Long buildingId, Long unitId) {
-        QueryWrapper<Notice> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("notice_status", 1) // 已发布
-                   .eq("deleted", 0)
-                   .and(wrapper -> wrapper.eq("publish_scope", 1) // 全部
-                           .or(w -> w.eq("publish_scope", 2) // 指定范围
-                                   .and(subWrapper -> subWrapper
-                                           .apply("find_in_set({0}, target_building_ids)", buildingId)
-                                           .or()
-                                           .apply("find_in_set({0}, target_unit_ids)", unitId))))
-                   .and(wrapper -> wrapper.isNull("effective_start_time")
-                           .or(w -> w.le("effective_start_time", LocalDateTime.now())))
-                   .and(wrapper -> wrapper.isNull("effective_end_time")
-                           .or(w -> w.ge("effective_end_time", LocalDateTime.now())))
-                   .orderByDesc("is_top")
-                   .orderByDesc("publish_time");
-
-        return list(queryWrapper);
+        // 全部范围的公告按 publish_scope 匹配，指定范围的公告按受众索引匹配楼栋、单元
+        return baseMapper.selectNoticeListForUser(buildingId, unitId);
     }
 
     @Override
     public boolean markAsRead(Long id) {
         try {
-            // 检查是否已读
-            QueryWrapper<NoticeRead> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("notice_id", id)
-                       .eq("user_id", SecurityUtils.getUserId());
-
-            NoticeRead existRead = noticeReadMapper.selectOne(queryWrapper);
-            if (existRead != null) {
-                return true; // 已读
-            }
-
-            // 记录阅读
-            NoticeRead noticeRead = new NoticeRead();
-            noticeRead.setNoticeId(id);
-            noticeRead.setUserId(SecurityUtils.getUserId());
-            noticeRead.setReadTime(LocalDateTime.now());
-
-            int result = noticeReadMapper.insert(noticeRead);
-
-            // 增加阅读次数
-            if (result > 0) {
-                baseMapper.incrementReadCount(id);
-            }
-
-            return result > 0;
+            // 已读去重和阅读次数累加由阅读跟踪批量处理，不在请求中访问数据库
+            noticeReadTrackingService.recordRead(id, SecurityUtils.getUserId());
+            return true;
         } catch (Exception e) {
             log.error("标记公告已读失败", e);
             return false;
@@ -222,17 +231,19 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
             return stats;
         }
 
-        // 总阅读次数
-        stats.put("readCount", notice.getReadCount() != null ? notice.getReadCount() : 0);
+        // 总阅读次数（以数据库为准，缓冲区中的阅读在写入后计入）
+        int readCount = notice.getReadCount() != null ? notice.getReadCount() : 0;
+        stats.put("readCount", readCount);
 
         // 查询实际阅读人数
         QueryWrapper<NoticeRead> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("notice_id", id);
         Long readUserCount = noticeReadMapper.selectCount(queryWrapper);
-        stats.put("readUserCount", readUserCount != null ? readUserCount.intValue() : 0);
+        readUserCount = readUserCount != null ? readUserCount : 0L;
+        stats.put("readUserCount", readUserCount.intValue());
 
-        // 应读人数（简化计算，根据发布范围估算）
-        Integer targetUserCount = calculateTargetUserCount(notice);
+        // 应读人数（发布范围内房产的当前住户数）
+        Integer targetUserCount = noticeAudienceService.countTargetUsers(notice);
         stats.put("targetUserCount", targetUserCount);
 
         // 阅读率
@@ -277,29 +288,4 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
 
         return overview;
     }
-
-    /**
-     * 计算应读人数
-     */
-    private Integer calculateTargetUserCount(Notice notice) {
-        // 简化实现，实际应该根据发布范围查询具体用户数
-        if (notice.getPublishScope() == 1) {
-            // 全部用户，这里返回一个估算值
-            return 100;
-        } else if (notice.getPublishScope() == 2) {
-            // 指定范围用户，根据楼栋和单元数量估算
-            int count = 0;
-            if (notice.getTargetBuildingIds() != null && !notice.getTargetBuildingIds().trim().isEmpty()) {
-                String[] buildingIds = notice.getTargetBuildingIds().split(",");
-                count += buildingIds.length * 50; // 每个楼栋约50用户
-            }
-            if (notice.getTargetUnitIds() != null && !notice.getTargetUnitIds().trim().isEmpty()) {
-                String[] unitIds = notice.getTargetUnitIds().split(",");
-                count += unitIds.length * 20; // 每个单元约20用户
-            }
-            return Math.max(count, 20); // 至少20人
-        } else {
-            return 20;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -5,18 +5,16 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hyu.common.utils.SecurityUtils;
 import com.hyu.common.utils.StringUtils;
-import com.hyu.property.domain.Building;
+import com.hyu.framework.security.service.LoginUserCache;
+import com.hyu.framework.security.service.TokenVersionService;
 import com.hyu.property.domain.House;
 import com.hyu.property.domain.Owner;
-import com.hyu.property.domain.Unit;
 import com.hyu.property.domain.UserHouse;
 import com.hyu.property.domain.vo.OwnerVO;
+import com.hyu.property.mapper.HouseMapper;
 import com.hyu.property.mapper.OwnerMapper;
+import com.hyu.property.mapper.UserHouseMapper;
 import com.hyu.property.service.IOwnerService;
-import com.hyu.property.service.IBuildingService;
-import com.hyu.property.service.IHouseService;
-import com.hyu.property.service.IUnitService;
-import com.hyu.property.service.IUserHouseService;
 import com.hyu.system.domain.SysUser;
 
 import com.hyu.system.mapper.SysUserMapper;
@@ -29,12 +27,24 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 业主Service业务层处理
+ * <p>
+ * 业主的房产信息按批组装：一页（或导出的一块）业主先用一次IN查询取出全部房产关联，
+ * 再用一次IN查询取出涉及的房产及楼栋、单元名称，在内存中拼装，不再逐个业主、逐套房产查询。
  *
  * @author hyu
  */
@@ -42,6 +52,11 @@ import java.util.List;
 @Service
 public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements IOwnerService {
 
+    /**
+     * 导出时每块读取的业主数
+     */
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     @Autowired
     private OwnerMapper ownerMapper;
 
@@ -52,16 +67,16 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private IHouseService houseService;
+    private UserHouseMapper userHouseMapper;
 
     @Autowired
-    private IBuildingService buildingService;
+    private HouseMapper houseMapper;
 
     @Autowired
-    private IUnitService unitService;
+    private LoginUserCache loginUserCache;
 
     @Autowired
-    private IUserHouseService userHouseService;
+    private TokenVersionService tokenVersionService;
 
     /**
      * 分页查询业主列表
@@ -87,28 +102,7 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
 
         // 转换为OwnerVO
         Page<OwnerVO> ownerVOPage = new Page<>(result.getCurrent(), result.getSize(), result.getTotal());
-        List<OwnerVO> ownerVOList = new ArrayList<>();
-        for (SysUser user : result.getRecords()) {
-            OwnerVO ownerVO = new OwnerVO();
-            BeanUtils.copyProperties(user, ownerVO);
-            ownerVO.setUserId(user.getUserId()); // 使用userId字段
-            // 添加房产信息
-            List<OwnerVO.HouseInfo> houseList = getUserHouseInfo(user.getUserId());
-            ownerVO.setHouseList(houseList);
-
-            // 设置入住时间 - 从当前居住的房产中获取
-            if (houseList != null && !houseList.isEmpty()) {
-                for (OwnerVO.HouseInfo houseInfo : houseList) {
-                    if (houseInfo.getIsCurrent() != null && houseInfo.getIsCurrent() && houseInfo.getStartDate() != null) {
-                        ownerVO.setCheckInTime(formatDate(houseInfo.getStartDate()));
-                        break;
-                    }
-                }
-            }
-
-            ownerVOList.add(ownerVO);
-        }
-        ownerVOPage.setRecords(ownerVOList);
+        ownerVOPage.setRecords(toOwnerVOList(result.getRecords()));
 
         return ownerVOPage;
     }
@@ -121,36 +115,55 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
      */
     @Override
     public List<OwnerVO> selectOwnerList(OwnerVO owner) {
-        QueryWrapper<SysUser> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_type", 3)
-                   .like(StringUtils.isNotEmpty(owner.getUsername()), "username", owner.getUsername())
-                   .like(StringUtils.isNotEmpty(owner.getRealName()), "real_name", owner.getRealName())
-                   .like(StringUtils.isNotEmpty(owner.getPhone()), "phone", owner.getPhone())
-                   .orderByDesc("create_time");
-
-        List<SysUser> userList = sysUserMapper.selectList(queryWrapper);
         List<OwnerVO> ownerVOList = new ArrayList<>();
-        for (SysUser user : userList) {
-            OwnerVO ownerVO = new OwnerVO();
-            BeanUtils.copyProperties(user, ownerVO);
-            ownerVO.setUserId(user.getUserId()); // 使用userId字段
-            // 添加房产信息
-            List<OwnerVO.HouseInfo> houseList = getUserHouseInfo(user.getUserId());
-            ownerVO.setHouseList(houseList);
+        streamOwnerList(owner, ownerVOList::add);
+        return ownerVOList;
+    }
 
-            // 设置入住时间 - 从当前居住的房产中获取
-            if (houseList != null && !houseList.isEmpty()) {
-                for (OwnerVO.HouseInfo houseInfo : houseList) {
-                    if (houseInfo.getIsCurrent() != null && houseInfo.getIsCurrent() && houseInfo.getStartDate() != null) {
-                        ownerVO.setCheckInTime(formatDate(houseInfo.getStartDate()));
-                        break;
-                    }
+    /**
+     * 逐条处理符合条件的业主，用于导出
+     * 按创建时间、ID倒序以键集分块读取，每块单独组装房产信息，内存中只保留一块业主
+     *
+     * @param owner 业主信息
+     * @param consumer 业主处理
+     */
+    @Override
+    public void streamOwnerList(OwnerVO owner, Consumer<OwnerVO> consumer) {
+        LocalDateTime lastCreateTime = null;
+        Long lastUserId = null;
+        while (true) {
+            QueryWrapper<SysUser> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("user_type", 3)
+                       .like(StringUtils.isNotEmpty(owner.getUsername()), "username", owner.getUsername())
+                       .like(StringUtils.isNotEmpty(owner.getRealName()), "real_name", owner.getRealName())
+                       .like(StringUtils.isNotEmpty(owner.getPhone()), "phone", owner.getPhone());
+            if (lastUserId != null) {
+                // 从上一块最后一条之后继续
+                Long afterId = lastUserId;
+                if (lastCreateTime == null) {
+                    queryWrapper.isNull("create_time").lt("id", afterId);
+                } else {
+                    LocalDateTime afterTime = lastCreateTime;
+                    queryWrapper.and(w -> w.lt("create_time", afterTime)
+                                          .or(o -> o.eq("create_time", afterTime).lt("id", afterId))
+                                          .or().isNull("create_time"));
                 }
             }
+            queryWrapper.orderByDesc("create_time").orderByDesc("id");
 
-            ownerVOList.add(ownerVO);
+            Page<SysUser> chunk = new Page<>(1, EXPORT_CHUNK_SIZE, false);
+            List<SysUser> users = sysUserMapper.selectPage(chunk, queryWrapper).getRecords();
+            if (users.isEmpty()) {
+                return;
+            }
+            toOwnerVOList(users).forEach(consumer);
+            if (users.size() < EXPORT_CHUNK_SIZE) {
+                return;
+            }
+            SysUser last = users.get(users.size() - 1);
+            lastCreateTime = last.getCreateTime();
+            lastUserId = last.getUserId();
         }
-        return ownerVOList;
     }
 
     /**
@@ -176,24 +189,7 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
         if (user == null || !user.getUserType().equals(3)) {
             return null;
         }
-        OwnerVO ownerVO = new OwnerVO();
-        BeanUtils.copyProperties(user, ownerVO);
-        ownerVO.setUserId(user.getUserId()); // 使用userId字段
-        // 添加房产信息
-        List<OwnerVO.HouseInfo> houseList = getUserHouseInfo(user.getUserId());
-        ownerVO.setHouseList(houseList);
-
-        // 设置入住时间 - 从当前居住的房产中获取
-        if (houseList != null && !houseList.isEmpty()) {
-            for (OwnerVO.HouseInfo houseInfo : houseList) {
-                if (houseInfo.getIsCurrent() != null && houseInfo.getIsCurrent() && houseInfo.getStartDate() != null) {
-                    ownerVO.setCheckInTime(formatDate(houseInfo.getStartDate()));
-                    break;
-                }
-            }
-        }
-
-        return ownerVO;
+        return toOwnerVOList(Collections.singletonList(user)).get(0);
     }
 
     /**
@@ -325,7 +321,13 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
             user.setPassword(passwordEncoder.encode(owner.getPassword()));
         }
 
-        return sysUserMapper.updateById(user) > 0;
+        boolean result = sysUserMapper.updateById(user) > 0;
+        loginUserCache.evict(user.getUserId());
+        // 修改了密码则使该业主已签发的token全部失效
+        if (result && StringUtils.isNotEmpty(owner.getPassword())) {
+            tokenVersionService.revokeAll(user.getUserId());
+        }
+        return result;
     }
 
     /**
@@ -351,6 +353,7 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
         for (Long id : ids) {
             sysUserMapper.deleteById(id);
         }
+        loginUserCache.evict(Arrays.asList(ids));
         return true;
     }
 
@@ -378,7 +381,13 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
             return false;
         }
         user.setPassword(passwordEncoder.encode("123456")); // 重置为默认密码
-        return sysUserMapper.updateById(user) > 0;
+        boolean result = sysUserMapper.updateById(user) > 0;
+        loginUserCache.evict(user.getUserId());
+        // 重置密码后使该业主已签发的token全部失效
+        if (result) {
+            tokenVersionService.revokeAll(user.getUserId());
+        }
+        return result;
     }
 
     /**
@@ -394,7 +403,9 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
             return false;
         }
         user.setStatus(owner.getStatus());
-        return sysUserMapper.updateById(user) > 0;
+        boolean result = sysUserMapper.updateById(user) > 0;
+        loginUserCache.evict(user.getUserId());
+        return result;
     }
 
     /**
@@ -466,63 +477,101 @@ public class OwnerServiceImpl extends ServiceImpl<OwnerMapper, Owner> implements
     }
 
     /**
-     * 获取用户房产信息
+     * 将一批用户转换为OwnerVO，房产信息按批加载
+     *
+     * @param users 用户列表
+     * @return OwnerVO列表，顺序与用户列表一致
+     */
+    private List<OwnerVO> toOwnerVOList(List<SysUser> users) {
+        List<Long> userIds = new ArrayList<>(users.size());
+        for (SysUser user : users) {
+            userIds.add(user.getUserId());
+        }
+        Map<Long, List<OwnerVO.HouseInfo>> houseInfoMap = loadHouseInfo(userIds);
+
+        List<OwnerVO> ownerVOList = new ArrayList<>(users.size());
+        for (SysUser user : users) {
+            OwnerVO ownerVO = new OwnerVO();
+            BeanUtils.copyProperties(user, ownerVO);
+            ownerVO.setUserId(user.getUserId()); // 使用userId字段
+            // 添加房产信息
+            List<OwnerVO.HouseInfo> houseList = houseInfoMap.getOrDefault(user.getUserId(), new ArrayList<>());
+            ownerVO.setHouseList(houseList);
+
+            // 设置入住时间 - 从当前居住的房产中获取
+            for (OwnerVO.HouseInfo houseInfo : houseList) {
+                if (houseInfo.getIsCurrent() != null && houseInfo.getIsCurrent() && houseInfo.getStartDate() != null) {
+                    ownerVO.setCheckInTime(formatDate(houseInfo.getStartDate()));
+                    break;
+                }
+            }
+
+            ownerVOList.add(ownerVO);
+        }
+        return ownerVOList;
+    }
+
+    /**
+     * 批量获取用户房产信息
+     * 一次查询房产关联，一次查询房产及楼栋、单元名称，关联顺序与单个用户查询一致（当前房产在前）
      *
-     * @param userId 用户ID
-     * @return 房产信息列表
+     * @param userIds 用户ID集合
+     * @return 用户ID到房产信息列表的映射，查询失败时返回空映射
      */
-    private List<OwnerVO.HouseInfo> getUserHouseInfo(Long userId) {
-        List<OwnerVO.HouseInfo> houseList = new ArrayList<>();
+    private Map<Long, List<OwnerVO.HouseInfo>> loadHouseInfo(Collection<Long> userIds) {
+        Map<Long, List<OwnerVO.HouseInfo>> result = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return result;
+        }
 
         try {
             // 查询用户的房产关联关系
-            List<UserHouse> userHouseList = userHouseService.selectUserHouseByUserId(userId);
+            List<UserHouse> userHouseList = userHouseMapper.selectUserHouseByUserIds(userIds);
+            Set<Long> houseIds = new LinkedHashSet<>();
+            for (UserHouse userHouse : userHouseList) {
+                if (userHouse.getHouseId() != null) {
+                    houseIds.add(userHouse.getHouseId());
+                }
+            }
+            if (houseIds.isEmpty()) {
+                return result;
+            }
+
+            // 获取房产详细信息（含楼栋、单元名称）
+            Map<Long, House> houseMap = new HashMap<>();
+            for (House house : houseMapper.selectHousesWithNamesByIds(houseIds)) {
+                houseMap.put(house.getId(), house);
+            }
 
             for (UserHouse userHouse : userHouseList) {
-                Long houseId = userHouse.getHouseId();
-                if (houseId != null) {
-                    // 获取房产详细信息
-                    House house = houseService.getById(houseId);
-                    if (house != null) {
-                        OwnerVO.HouseInfo houseInfo = new OwnerVO.HouseInfo();
-                        houseInfo.setHouseId(house.getId());
-                        houseInfo.setHouseNo(house.getHouseNo());
-                        houseInfo.setHouseType(house.getHouseType());
-                        houseInfo.setBuildingAreaNum(house.getBuildingArea() != null ? house.getBuildingArea().doubleValue() : null);
-                        houseInfo.setUsableArea(house.getUsableArea() != null ? house.getUsableArea().doubleValue() : null);
-                        houseInfo.setHouseStatus(house.getHouseStatus());
-
-                        // 获取楼栋信息
-                        if (house.getBuildingId() != null) {
-                            Building building = buildingService.getById(house.getBuildingId());
-                            if (building != null) {
-                                houseInfo.setBuildingName(building.getBuildingName());
-                            }
-                        }
-
-                        // 获取单元信息
-                        if (house.getUnitId() != null) {
-                            Unit unit = unitService.getById(house.getUnitId());
-                            if (unit != null) {
-                                houseInfo.setUnitName(unit.getUnitName());
-                            }
-                        }
-
-                        // 设置关系类型
-                        houseInfo.setRelationTypeNum(userHouse.getRelationType());
-                        houseInfo.setStartDate(userHouse.getStartDate());
-                        houseInfo.setEndDate(userHouse.getEndDate());
-                        houseInfo.setIsCurrent(userHouse.getIsCurrent());
-
-                        houseList.add(houseInfo);
-                    }
+                House house = userHouse.getHouseId() == null ? null : houseMap.get(userHouse.getHouseId());
+                if (house == null) {
+                    continue;
                 }
+                OwnerVO.HouseInfo houseInfo = new OwnerVO.HouseInfo();
+                houseInfo.setHouseId(house.getId());
+                houseInfo.setHouseNo(house.getHouseNo());
+                houseInfo.setHouseType(house.getHouseType());
+                houseInfo.setBuildingAreaNum(house.getBuildingArea() != null ? house.getBuildingArea().doubleValue() : null);
+                houseInfo.setUsableArea(house.getUsableArea() != null ? house.getUsableArea().doubleValue() : null);
+                houseInfo.setHouseStatus(house.getHouseStatus());
+                houseInfo.setBuildingName(house.getBuildingName());
+                houseInfo.setUnitName(house.getUnitName());
+
+                // 设置关系类型
+                houseInfo.setRelationTypeNum(userHouse.getRelationType());
+                houseInfo.setStartDate(userHouse.getStartDate());
+                houseInfo.setEndDate(userHouse.getEndDate());
+                houseInfo.setIsCurrent(userHouse.getIsCurrent());
+
+                result.computeIfAbsent(userHouse.getUserId(), k -> new ArrayList<>()).add(houseInfo);
             }
         } catch (Exception e) {
-            log.error("获取用户房产信息失败, userId: {}", userId, e);
+            log.error("批量获取用户房产信息失败, userIds: {}", userIds, e);
+            result.clear();
         }
 
-        return houseList;
+        return result;
     }
 
     /**
@@ -0,0 +1,439 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.property.domain.Bill;
+import com.hyu.property.domain.vo.OwnerSummaryVO;
+import com.hyu.property.mapper.OwnerSummaryMapper;
+import com.hyu.property.service.IOwnerSummaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 业主门户汇总Service业务层处理
+ * <p>
+ * 每个业主一条Redis哈希（待缴账单数/金额、进行中报修、未办结投诉、未读公告、钱包余额，金额以分为单位），
+ * 门户首页只读这一个键。各业务在状态变更的事务提交后以HINCRBY累加增量，键不存在时不创建，
+ * 由下次访问时以聚合查询重建；键设置过期时间，管理端通用修改等未维护增量的路径最多在过期时间内不一致。
+ * <p>
+ * 每个业主另有一个变更代数键，增量与清除都会递增它。重建前读取代数，写入时代数已变化则放弃写入，
+ * 避免“查询旧数据 - 其他事务提交 - 写入旧结果”覆盖新状态。
+ * 公告的发布、撤回影响全部业主，只递增全局公告版本号，汇总中记录的版本号不一致时按未命中处理。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class OwnerSummaryServiceImpl implements IOwnerSummaryService {
+
+    private static final String KEY_PREFIX = "portal:summary:";
+
+    private static final String NOTICE_VERSION_KEY = KEY_PREFIX + "notice-version";
+
+    private static final String F_BILL_COUNT = "pendingBillCount";
+    private static final String F_BILL_CENTS = "pendingBillCents";
+    private static final String F_REPAIR_COUNT = "inProgressRepairCount";
+    private static final String F_COMPLAINT_COUNT = "openComplaintCount";
+    private static final String F_NOTICE_COUNT = "unreadNoticeCount";
+    private static final String F_WALLET_CENTS = "walletBalanceCents";
+    private static final String F_NOTICE_VERSION = "noticeVersion";
+
+    /**
+     * 增量字段，顺序即增量数组的下标
+     */
+    private static final String[] FIELDS = {
+            F_BILL_COUNT, F_BILL_CENTS, F_REPAIR_COUNT, F_COMPLAINT_COUNT, F_NOTICE_COUNT, F_WALLET_CENTS
+    };
+
+    /**
+     * 单次脚本调用处理的业主数
+     */
+    private static final int SCRIPT_BATCH = 200;
+
+    /**
+     * 读取汇总：公告版本号一致时返回全部字段，否则返回空
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> READ_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('GET', KEYS[2]) or '0'\n"
+                    + "if redis.call('HGET', KEYS[1], '" + F_NOTICE_VERSION + "') ~= version then\n"
+                    + "  return {}\n"
+                    + "end\n"
+                    + "return redis.call('HGETALL', KEYS[1])", List.class);
+
+    /**
+     * 写入重建结果：KEYS = 汇总键, 代数键；ARGV = 读取时的代数, 过期秒数, 字段, 值, ...
+     */
+    private static final DefaultRedisScript<Long> STORE_SCRIPT = new DefaultRedisScript<>(
+            "local gen = redis.call('GET', KEYS[2]) or '0'\n"
+                    + "if gen ~= ARGV[1] then\n"
+                    + "  return 0\n"
+                    + "end\n"
+                    + "redis.call('DEL', KEYS[1])\n"
+                    + "for i = 3, #ARGV, 2 do\n"
+                    + "  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n"
+                    + "end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2])\n"
+                    + "return 1", Long.class);
+
+    /**
+     * 累加增量：KEYS = 汇总键, 代数键, ...；ARGV = 过期秒数, 字段数n, n个字段, 每个业主n个增量
+     * 只累加已存在的字段，汇总键不存在时只递增代数
+     */
+    private static final DefaultRedisScript<Long> DELTA_SCRIPT = new DefaultRedisScript<>(
+            "local n = tonumber(ARGV[2])\n"
+                    + "for k = 1, #KEYS, 2 do\n"
+                    + "  redis.call('INCR', KEYS[k + 1])\n"
+                    + "  redis.call('EXPIRE', KEYS[k + 1], ARGV[1])\n"
+                    + "  if redis.call('EXISTS', KEYS[k]) == 1 then\n"
+                    + "    local base = 2 + n + (k - 1) / 2 * n\n"
+                    + "    for f = 1, n do\n"
+                    + "      local delta = ARGV[base + f]\n"
+                    + "      if delta ~= '0' and redis.call('HEXISTS', KEYS[k], ARGV[2 + f]) == 1 then\n"
+                    + "        redis.call('HINCRBY', KEYS[k], ARGV[2 + f], delta)\n"
+                    + "      end\n"
+                    + "    end\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "return #KEYS / 2", Long.class);
+
+    /**
+     * 清除汇总：KEYS = 汇总键, 代数键, ...；ARGV = 过期秒数
+     */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "for k = 1, #KEYS, 2 do\n"
+                    + "  redis.call('INCR', KEYS[k + 1])\n"
+                    + "  redis.call('EXPIRE', KEYS[k + 1], ARGV[1])\n"
+                    + "  redis.call('DEL', KEYS[k])\n"
+                    + "end\n"
+                    + "return #KEYS / 2", Long.class);
+
+    private static final StringRedisSerializer STRING_SERIALIZER = new StringRedisSerializer();
+
+    private static final GenericToStringSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * 脚本返回的多条结果逐项按字符串反序列化
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisSerializer<List> LIST_SERIALIZER = (RedisSerializer) STRING_SERIALIZER;
+
+    @Autowired
+    private OwnerSummaryMapper ownerSummaryMapper;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 汇总缓存过期时间（秒）
+     */
+    @Value("${portal.summary.ttl:600}")
+    private long ttl;
+
+    @Override
+    public OwnerSummaryVO getSummary(Long userId) {
+        String summaryKey = summaryKey(userId);
+        try {
+            List<?> cached = redisTemplate.execute(READ_SCRIPT, STRING_SERIALIZER, LIST_SERIALIZER,
+                    Arrays.asList(summaryKey, NOTICE_VERSION_KEY));
+            if (cached != null && !cached.isEmpty()) {
+                return fromHash(cached);
+            }
+        } catch (Exception e) {
+            log.warn("读取门户汇总失败，直接查询数据库，用户ID：{}", userId, e);
+            return load(userId);
+        }
+
+        // 先取代数与公告版本，再查数据库，期间发生的变更会使本次写入作废
+        String gen = "0";
+        String noticeVersion = "0";
+        try {
+            List<Object> versions = redisTemplate.opsForValue().multiGet(Arrays.asList(genKey(userId), NOTICE_VERSION_KEY));
+            if (versions != null) {
+                gen = versions.get(0) == null ? "0" : String.valueOf(versions.get(0));
+                noticeVersion = versions.get(1) == null ? "0" : String.valueOf(versions.get(1));
+            }
+        } catch (Exception e) {
+            log.warn("读取门户汇总版本失败，用户ID：{}", userId, e);
+            return load(userId);
+        }
+
+        OwnerSummaryVO summary = load(userId);
+        List<String> args = new ArrayList<>(2 + (FIELDS.length + 1) * 2);
+        args.add(gen);
+        args.add(String.valueOf(ttl));
+        Collections.addAll(args, F_BILL_COUNT, String.valueOf(summary.getPendingBillCount()));
+        Collections.addAll(args, F_BILL_CENTS, String.valueOf(toCents(summary.getPendingBillAmount())));
+        Collections.addAll(args, F_REPAIR_COUNT, String.valueOf(summary.getInProgressRepairCount()));
+        Collections.addAll(args, F_COMPLAINT_COUNT, String.valueOf(summary.getOpenComplaintCount()));
+        Collections.addAll(args, F_NOTICE_COUNT, String.valueOf(summary.getUnreadNoticeCount()));
+        if (summary.getWalletBalance() != null) {
+            Collections.addAll(args, F_WALLET_CENTS, String.valueOf(toCents(summary.getWalletBalance())));
+        }
+        Collections.addAll(args, F_NOTICE_VERSION, noticeVersion);
+        try {
+            redisTemplate.execute(STORE_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER,
+                    Arrays.asList(summaryKey, genKey(userId)), args.toArray());
+        } catch (Exception e) {
+            log.warn("写入门户汇总失败，用户ID：{}", userId, e);
+        }
+        return summary;
+    }
+
+    @Override
+    public void billsAdded(Collection<Bill> bills) {
+        applyBills(bills, 1);
+    }
+
+    @Override
+    public void billsSettled(Long userId, Collection<Bill> bills) {
+        applyBills(bills, -1);
+    }
+
+    @Override
+    public void repairStatusChanged(Long userId, Integer oldStatus, Integer newStatus) {
+        long delta = flag(isInProgressRepair(newStatus)) - flag(isInProgressRepair(oldStatus));
+        if (userId != null && delta != 0) {
+            applyDelta(userId, F_REPAIR_COUNT, delta);
+        }
+    }
+
+    @Override
+    public void complaintStatusChanged(Long userId, Integer oldStatus, Integer newStatus) {
+        long delta = flag(isOpenComplaint(newStatus)) - flag(isOpenComplaint(oldStatus));
+        if (userId != null && delta != 0) {
+            applyDelta(userId, F_COMPLAINT_COUNT, delta);
+        }
+    }
+
+    @Override
+    public void noticeRead(Long userId) {
+        if (userId != null) {
+            applyDelta(userId, F_NOTICE_COUNT, -1);
+        }
+    }
+
+    @Override
+    public void walletBalanceChanged(Long userId, BigDecimal delta) {
+        walletBalancesChanged(Collections.singletonList(userId), delta);
+    }
+
+    @Override
+    public void walletBalancesChanged(Collection<Long> userIds, BigDecimal delta) {
+        if (userIds == null || delta == null || delta.signum() == 0) {
+            return;
+        }
+        long cents = toCents(delta);
+        int index = Arrays.asList(FIELDS).indexOf(F_WALLET_CENTS);
+        Map<Long, long[]> deltas = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                deltas.computeIfAbsent(userId, k -> new long[FIELDS.length])[index] += cents;
+            }
+        }
+        applyDeltas(deltas);
+    }
+
+    @Override
+    public void noticesChanged() {
+        afterCommit(() -> {
+            try {
+                redisTemplate.opsForValue().increment(NOTICE_VERSION_KEY);
+            } catch (Exception e) {
+                log.warn("更新公告版本号失败，未读数将在汇总过期后更新", e);
+            }
+        });
+    }
+
+    @Override
+    public void evict(Collection<Long> userIds) {
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                distinct.add(userId);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            List<Long> ids = new ArrayList<>(distinct);
+            for (int from = 0; from < ids.size(); from += SCRIPT_BATCH) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + SCRIPT_BATCH));
+                try {
+                    redisTemplate.execute(EVICT_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER,
+                            keys(batch), String.valueOf(ttl));
+                } catch (Exception e) {
+                    log.warn("清除门户汇总失败，用户ID：{}", batch, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 按业主合并账单的待缴数量与金额
+     */
+    private void applyBills(Collection<Bill> bills, int sign) {
+        if (bills == null || bills.isEmpty()) {
+            return;
+        }
+        Map<Long, long[]> deltas = new LinkedHashMap<>();
+        for (Bill bill : bills) {
+            Integer status = bill.getBillStatus();
+            // 结清时账单对象保留的是结清前的状态
+            if (bill.getUserId() == null || status == null || (status != 1 && status != 3)) {
+                continue;
+            }
+            long[] delta = deltas.computeIfAbsent(bill.getUserId(), k -> new long[FIELDS.length]);
+            delta[0] += sign;
+            delta[1] += sign * toCents(bill.getAmount());
+        }
+        applyDeltas(deltas);
+    }
+
+    private void applyDelta(Long userId, String field, long delta) {
+        long[] values = new long[FIELDS.length];
+        values[Arrays.asList(FIELDS).indexOf(field)] = delta;
+        Map<Long, long[]> deltas = new HashMap<>(2);
+        deltas.put(userId, values);
+        applyDeltas(deltas);
+    }
+
+    /**
+     * 事务提交后按批执行增量脚本
+     */
+    private void applyDeltas(Map<Long, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            List<Long> ids = new ArrayList<>(deltas.keySet());
+            for (int from = 0; from < ids.size(); from += SCRIPT_BATCH) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + SCRIPT_BATCH));
+                List<String> args = new ArrayList<>(2 + FIELDS.length * (batch.size() + 1));
+                args.add(String.valueOf(ttl));
+                args.add(String.valueOf(FIELDS.length));
+                Collections.addAll(args, FIELDS);
+                for (Long userId : batch) {
+                    for (long value : deltas.get(userId)) {
+                        args.add(String.valueOf(value));
+                    }
+                }
+                try {
+                    redisTemplate.execute(DELTA_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER,
+                            keys(batch), args.toArray());
+                } catch (Exception e) {
+                    log.warn("更新门户汇总失败，汇总将在过期后重建，用户ID：{}", batch, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 有事务时在提交后执行，无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private OwnerSummaryVO load(Long userId) {
+        OwnerSummaryVO summary = ownerSummaryMapper.selectOwnerSummary(userId);
+        if (summary == null) {
+            summary = new OwnerSummaryVO();
+        }
+        summary.setPendingBillCount(nullToZero(summary.getPendingBillCount()));
+        summary.setPendingBillAmount(summary.getPendingBillAmount() == null ? BigDecimal.ZERO : summary.getPendingBillAmount());
+        summary.setInProgressRepairCount(nullToZero(summary.getInProgressRepairCount()));
+        summary.setOpenComplaintCount(nullToZero(summary.getOpenComplaintCount()));
+        summary.setUnreadNoticeCount(ownerSummaryMapper.countUnreadNotices(userId));
+        return summary;
+    }
+
+    private OwnerSummaryVO fromHash(List<?> entries) {
+        Map<String, Long> values = new HashMap<>(entries.size());
+        for (int i = 0; i + 1 < entries.size(); i += 2) {
+            values.put(String.valueOf(entries.get(i)), Long.parseLong(String.valueOf(entries.get(i + 1))));
+        }
+        OwnerSummaryVO summary = new OwnerSummaryVO();
+        summary.setPendingBillCount(values.getOrDefault(F_BILL_COUNT, 0L));
+        summary.setPendingBillAmount(fromCents(values.getOrDefault(F_BILL_CENTS, 0L)));
+        summary.setInProgressRepairCount(values.getOrDefault(F_REPAIR_COUNT, 0L));
+        summary.setOpenComplaintCount(values.getOrDefault(F_COMPLAINT_COUNT, 0L));
+        // 阅读与公告版本号更新之间可能短暂出现负数
+        summary.setUnreadNoticeCount(Math.max(0L, values.getOrDefault(F_NOTICE_COUNT, 0L)));
+        Long walletCents = values.get(F_WALLET_CENTS);
+        summary.setWalletBalance(walletCents == null ? null : fromCents(walletCents));
+        return summary;
+    }
+
+    private List<String> keys(List<Long> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            keys.add(summaryKey(userId));
+            keys.add(genKey(userId));
+        }
+        return keys;
+    }
+
+    private static String summaryKey(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static String genKey(Long userId) {
+        return KEY_PREFIX + userId + ":gen";
+    }
+
+    private static boolean isInProgressRepair(Integer status) {
+        return status != null && status == 3;
+    }
+
+    private static boolean isOpenComplaint(Integer status) {
+        return status != null && (status == 1 || status == 2);
+    }
+
+    private static long flag(boolean value) {
+        return value ? 1L : 0L;
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -1,10 +1,15 @@
 package com.hyu.property.service.impl;
 
+import com.hyu.common.core.domain.CursorResult;
+import com.hyu.common.exception.BusinessException;
 import com.hyu.common.utils.SecurityUtils;
+import com.hyu.common.utils.StringUtils;
 import com.hyu.property.domain.Bill;
 import com.hyu.property.domain.Wallet;
+import com.hyu.property.domain.WalletTransaction;
 import com.hyu.property.domain.RepairOrder;
 import com.hyu.property.domain.dto.*;
+import com.hyu.property.domain.vo.OwnerSummaryVO;
 // import com.hyu.property.domain.vo.RepairOrder; // Use RepairOrder instead
 import com.hyu.property.service.*;
 import com.hyu.system.service.ISysUserService;
@@ -14,6 +19,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -28,8 +36,11 @@ import java.util.*;
 public class PortalServiceImpl implements IPortalService {
 
     private final IBillService billService;
+    private final IBillSettlementService billSettlementService;
     private final IWalletService walletService;
     private final IWalletTransactionService walletTransactionService;
+    private final IWalletSnapshotService walletSnapshotService;
+    private final IOwnerSummaryService ownerSummaryService;
     private final IRepairOrderService repairOrderService;
     private final ISysUserService sysUserService;
 
@@ -47,65 +58,31 @@ public class PortalServiceImpl implements IPortalService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> payBillsBatch(BillPayBatchDTO payBatchDTO) {
         Long currentUserId = SecurityUtils.getUserId();
         Map<String, Object> result = new HashMap<>();
-        List<Map<String, Object>> paidBills = new ArrayList<>();
-        List<Map<String, Object>> failedBills = new ArrayList<>();
-        BigDecimal totalAmount = BigDecimal.ZERO;
 
         try {
             // 验证支付密码
-            Wallet wallet = walletService.getOne(new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<Wallet>()
-                .eq("user_id", currentUserId));
-            if (wallet == null) {
-                return createErrorResult("钱包不存在");
+            walletService.verifyPayPassword(currentUserId, payBatchDTO.getPayPassword());
+
+            // 一次锁定校验全部账单，合并扣款后批量标记已缴费
+            Map<String, Object> settlement = billSettlementService.settle(currentUserId, payBatchDTO.getBillIds(),
+                    IBillSettlementService.PAY_METHOD_WALLET, payBatchDTO.getPaymentToken());
+
+            List<Map<String, Object>> paidBills = new ArrayList<>();
+            for (Object billId : (List<?>) settlement.get("billIds")) {
+                Map<String, Object> billResult = new HashMap<>();
+                billResult.put("billId", billId);
+                billResult.put("status", "缴费成功");
+                paidBills.add(billResult);
             }
-
-            // 简化支付密码验证，实际项目中需要加密验证
-            if (wallet.getPayPassword() == null || !wallet.getPayPassword().equals(payBatchDTO.getPayPassword())) {
-                return createErrorResult("支付密码错误");
-            }
-
-            // 获取账单列表并验证金额
-            for (Long billId : payBatchDTO.getBillIds()) {
-                Object bill = billService.selectBillById(billId);
-                if (bill == null) {
-                    failedBills.add(createBillError(billId, "账单不存在或无权限"));
-                    continue;
-                }
-
-                // 简化验证，实际项目中需要根据具体Bill对象进行验证
-                // if (bill.getBillStatus() != 1) {
-                //     failedBills.add(createBillError(billId, "账单状态不正确，无法缴费"));
-                //     continue;
-                // }
-
-                // totalAmount = totalAmount.add(bill.getAmount());
-
-                if (wallet.getBalance().compareTo(BigDecimal.valueOf(100)) < 0) {
-                    failedBills.add(createBillError(billId, "余额不足"));
-                    continue;
-                }
-
-                // 执行缴费
-                // Map<String, Object> payResult = billService.payBill(billId, currentUserId);
-                // if ((Integer) payResult.get("code") == 200) {
-                //     paidBills.add(createBillSuccess(billId, bill.getAmount()));
-                // } else {
-                //     failedBills.add(createBillError(billId, (String) payResult.get("msg")));
-                // }
-
-                // 临时实现，模拟缴费成功
-                paidBills.add(createBillSuccess(billId, BigDecimal.valueOf(50)));
-            }
-
+            result.put("paymentNo", settlement.get("paymentNo"));
             result.put("successCount", paidBills.size());
-            result.put("failCount", failedBills.size());
-            result.put("totalAmount", totalAmount);
+            result.put("failCount", 0);
+            result.put("totalAmount", settlement.get("totalAmount"));
             result.put("paidBills", paidBills);
-            result.put("failedBills", failedBills);
+            result.put("failedBills", new ArrayList<>());
 
         } catch (Exception e) {
             log.error("批量缴费异常", e);
@@ -138,8 +115,10 @@ public class PortalServiceImpl implements IPortalService {
             }
 
             // 验证支付密码
-            if (wallet.getPayPassword() == null || !wallet.getPayPassword().equals(rechargeDTO.getPayPassword())) {
-                return createErrorResult("支付密码错误");
+            try {
+                walletService.verifyPayPassword(currentUserId, rechargeDTO.getPayPassword());
+            } catch (RuntimeException e) {
+                return createErrorResult(e.getMessage());
             }
 
             // 验证充值金额
@@ -196,10 +175,9 @@ public class PortalServiceImpl implements IPortalService {
                 return createErrorResult("支付密码已设置，请使用修改密码功能");
             }
 
-            // 设置支付密码（需要更新Wallet实体，这里简化处理）
-            wallet.setPayPassword(setPasswordDTO.getPayPassword());
-            int updateResult = walletService.updateWallet(wallet);
-            boolean updateSuccess = updateResult > 0;
+            // 设置支付密码（哈希后保存）
+            setPasswordDTO.setUserId(currentUserId);
+            boolean updateSuccess = walletService.setPayPassword(setPasswordDTO);
             if (updateSuccess) {
                 result.put("code", 200);
                 result.put("msg", "支付密码设置成功");
@@ -241,15 +219,9 @@ public class PortalServiceImpl implements IPortalService {
                 return createErrorResult("尚未设置支付密码，请先设置支付密码");
             }
 
-            // 验证原密码
-            if (!wallet.getPayPassword().equals(changePasswordDTO.getOldPassword())) {
-                return createErrorResult("原支付密码错误");
-            }
-
-            // 修改支付密码
-            wallet.setPayPassword(changePasswordDTO.getNewPassword());
-            int updateResult = walletService.updateWallet(wallet);
-            boolean updateSuccess = updateResult > 0;
+            // 验证原密码并修改支付密码（哈希后保存）
+            changePasswordDTO.setUserId(currentUserId);
+            boolean updateSuccess = walletService.changePayPassword(changePasswordDTO);
             if (updateSuccess) {
                 result.put("code", 200);
                 result.put("msg", "支付密码修改成功");
@@ -266,10 +238,38 @@ public class PortalServiceImpl implements IPortalService {
     }
 
     @Override
-    public List<Object> getMyTransactionList(String transactionType, Integer pageNum, Integer pageSize) {
+    public CursorResult<WalletTransaction> getMyTransactionList(Integer transactionType, String beginTime, String endTime,
+                                                                String cursor, Integer pageSize) {
         Long currentUserId = SecurityUtils.getUserId();
-        // 暂时返回空列表，待实现具体逻辑
-        return new ArrayList<>();
+        return walletTransactionService.selectTransactionHistory(currentUserId, transactionType, beginTime, endTime,
+                cursor, pageSize);
+    }
+
+    @Override
+    public Map<String, Object> getMyBalanceAtDate(String date) {
+        Long currentUserId = SecurityUtils.getUserId();
+        LocalDate balanceDate;
+        try {
+            balanceDate = LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("日期格式错误，应为yyyy-MM-dd：" + date);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("date", balanceDate.toString());
+        result.put("balance", walletSnapshotService.getBalanceAtDate(currentUserId, balanceDate));
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getMyMonthlyStatement(String month) {
+        Long currentUserId = SecurityUtils.getUserId();
+        YearMonth statementMonth;
+        try {
+            statementMonth = StringUtils.isEmpty(month) ? YearMonth.now().minusMonths(1) : YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("月份格式错误，应为yyyy-MM：" + month);
+        }
+        return walletSnapshotService.getMonthlyStatement(currentUserId, statementMonth);
     }
 
     // ========== 我的投诉 ==========
@@ -346,36 +346,16 @@ public class PortalServiceImpl implements IPortalService {
         Map<String, Object> stats = new HashMap<>();
 
         try {
-            Long currentUserId = SecurityUtils.getUserId();
-
-            // 获取待缴费账单数量
-            Bill queryBill = new Bill();
-            queryBill.setUserId(currentUserId);
-            queryBill.setBillStatus(1); // 待缴费
-            List<Object> pendingBills = new ArrayList<>(billService.selectBillList(queryBill));
-            stats.put("pendingBillsCount", pendingBills.size());
-
-            // 获取钱包信息
-            Object wallet = walletService.getOne(new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<Wallet>()
-                .eq("user_id", currentUserId));
-            if (pendingBills.size() > 0 && wallet != null) {
-                // 简化处理，模拟数据
-                stats.put("pendingBillsAmount", BigDecimal.valueOf(100));
-                // stats.put("walletBalance", wallet.getBalance());
-                // stats.put("canPayAll", wallet.getBalance().compareTo(totalPending) >= 0);
-                stats.put("canPayAll", true);
+            OwnerSummaryVO summary = ownerSummaryService.getSummary(SecurityUtils.getUserId());
+            stats.put("pendingBillsCount", summary.getPendingBillCount());
+            stats.put("pendingBillsAmount", summary.getPendingBillAmount());
+            stats.put("inProgressRepairsCount", summary.getInProgressRepairCount());
+            stats.put("pendingComplaintsCount", summary.getOpenComplaintCount());
+            stats.put("unreadNoticesCount", summary.getUnreadNoticeCount());
+            if (summary.getWalletBalance() != null) {
+                stats.put("walletBalance", summary.getWalletBalance());
+                stats.put("canPayAll", summary.getWalletBalance().compareTo(summary.getPendingBillAmount()) >= 0);
             }
-
-            // 获取待处理投诉数量
-            // stats.put("pendingComplaintsCount", complaintService.countPendingByUserId(currentUserId));
-
-            // 获取进行中报修数量
-            List<RepairOrder> repairs = repairOrderService.selectRepairOrdersByUserId(currentUserId);
-            long inProgressCount = repairs.stream()
-                    .filter(repair -> repair.getOrderStatus() == 3)
-                    .count();
-            stats.put("inProgressRepairsCount", inProgressCount);
-
         } catch (Exception e) {
             log.error("获取业主门户统计数据异常", e);
             stats.put("error", "获取统计数据失败");
@@ -389,27 +369,11 @@ public class PortalServiceImpl implements IPortalService {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            Long currentUserId = SecurityUtils.getUserId();
-
-            // 待缴费账单
-            Bill billQuery = new Bill();
-            billQuery.setUserId(currentUserId);
-            billQuery.setBillStatus(1);
-            List<Object> pendingBills = new ArrayList<>(billService.selectBillList(billQuery));
-
-            // 待处理投诉
-            // int pendingComplaints = complaintService.countPendingByUserId(currentUserId);
-
-            // 进行中报修
-            List<RepairOrder> repairs = repairOrderService.selectRepairOrdersByUserId(currentUserId);
-            long inProgressRepairs = repairs.stream()
-                    .filter(repair -> repair.getOrderStatus() == 3)
-                    .count();
-
-            result.put("pendingBills", pendingBills.size());
-            // result.put("pendingComplaints", pendingComplaints);
-            result.put("inProgressRepairs", inProgressRepairs);
-
+            OwnerSummaryVO summary = ownerSummaryService.getSummary(SecurityUtils.getUserId());
+            result.put("pendingBills", summary.getPendingBillCount());
+            result.put("pendingComplaints", summary.getOpenComplaintCount());
+            result.put("inProgressRepairs", summary.getInProgressRepairCount());
+            result.put("unreadNotices", summary.getUnreadNoticeCount());
         } catch (Exception e) {
             log.error("获取待办事项统计异常", e);
             result.put("error", "获取待办事项失败");
@@ -433,20 +397,4 @@ public class PortalServiceImpl implements IPortalService {
         result.put("msg", message);
         return result;
     }
-
-    private Map<String, Object> createBillSuccess(Long billId, BigDecimal amount) {
-        Map<String, Object> billResult = new HashMap<>();
-        billResult.put("billId", billId);
-        billResult.put("amount", amount);
-        billResult.put("status", "缴费成功");
-        return billResult;
-    }
-
-    private Map<String, Object> createBillError(Long billId, String message) {
-        Map<String, Object> billResult = new HashMap<>();
-        billResult.put("billId", billId);
-        billResult.put("message", message);
-        billResult.put("status", "缴费失败");
-        return billResult;
-    }
 }
\ No newline at end of file
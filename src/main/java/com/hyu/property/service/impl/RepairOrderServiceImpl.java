@@ -3,6 +3,7 @@ package com.hyu.property.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hyu.common.utils.IdGenerator;
 import com.hyu.common.utils.StringUtils;
 import com.hyu.common.utils.SecurityUtils;
 import com.hyu.property.domain.RepairOrder;
@@ -10,6 +11,8 @@ import com.hyu.property.domain.Bill;
 import com.hyu.property.mapper.RepairOrderMapper;
 import com.hyu.property.service.IRepairOrderService;
 import com.hyu.property.service.IBillService;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.service.IRepairOrderStatsService;
 import com.hyu.system.domain.SysUser;
 import com.hyu.system.service.ISysUserService;
 import java.math.BigDecimal;
@@ -26,7 +29,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 /**
  * 维修工单Service业务层处理
@@ -43,6 +45,15 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
     @Autowired
     private ISysUserService userService;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    @Autowired
+    private IRepairOrderStatsService repairOrderStatsService;
+
     /**
      * 分页查询维修工单列表
      *
@@ -269,6 +280,7 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
             }
 
             // 更新工单信息
+            Long previousWorkerId = repairOrder.getWorkerId();
             repairOrder.setWorkerId(repairerId);
             repairOrder.setWorkerName(worker.getRealName());
             repairOrder.setRequiredFinishTime(LocalDateTime.parse(expectedCompleteTime, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
@@ -277,7 +289,15 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
             repairOrder.setOrderStatus(2); // 状态改为待接单
             repairOrder.setUpdateBy(SecurityUtils.getUsername());
 
-            return updateById(repairOrder);
+            if (!updateById(repairOrder)) {
+                return false;
+            }
+            // 改派时原师傅和新师傅的工作台统计都会变化
+            repairOrderStatsService.evictWorkerStats(repairerId);
+            if (previousWorkerId != null && !previousWorkerId.equals(repairerId)) {
+                repairOrderStatsService.evictWorkerStats(previousWorkerId);
+            }
+            return true;
         } catch (Exception e) {
             log.error("派工失败: {}", e.getMessage(), e);
             return false;
@@ -297,7 +317,12 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
 
         repairOrder.setOrderStatus(3); // 状态改为进行中
         repairOrder.setUpdateBy(SecurityUtils.getUsername());
-        return updateById(repairOrder);
+        if (!updateById(repairOrder)) {
+            return false;
+        }
+        ownerSummaryService.repairStatusChanged(repairOrder.getUserId(), 2, 3);
+        repairOrderStatsService.evictWorkerStats(repairOrder.getWorkerId());
+        return true;
     }
 
     /**
@@ -334,7 +359,12 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
         repairOrder.setOrderStatus(4); // 状态改为待验收
         repairOrder.setUpdateBy(SecurityUtils.getUsername());
 
-        return updateById(repairOrder);
+        if (!updateById(repairOrder)) {
+            return false;
+        }
+        ownerSummaryService.repairStatusChanged(repairOrder.getUserId(), 3, 4);
+        repairOrderStatsService.evictWorkerStats(repairOrder.getWorkerId());
+        return true;
     }
 
     /**
@@ -418,7 +448,12 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
 
         repairOrder.setUpdateBy(SecurityUtils.getUsername());
 
-        return updateById(repairOrder);
+        if (!updateById(repairOrder)) {
+            return false;
+        }
+        // 待验收转为已完成，师傅的工作台统计随之变化
+        repairOrderStatsService.evictWorkerStats(repairOrder.getWorkerId());
+        return true;
     }
 
     /**
@@ -491,8 +526,7 @@ public class RepairOrderServiceImpl extends ServiceImpl<RepairOrderMapper, Repai
 
             Bill bill = new Bill();
             // 生成账单编号
-            String billNo = "REPAIR_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) +
-                          "_" + String.format("%04d", new Random().nextInt(10000));
+            String billNo = idGenerator.nextNo("REPAIR_");
             bill.setBillNo(billNo);
             log.info("📝 维修账单编号生成: {}", billNo);
 
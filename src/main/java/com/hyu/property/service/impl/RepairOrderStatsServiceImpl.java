@@ -0,0 +1,141 @@
+package com.hyu.property.service.impl;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.property.domain.RepairOrder;
+import com.hyu.property.domain.dto.WorkbenchStatsDTO;
+import com.hyu.property.mapper.RepairOrderMapper;
+import com.hyu.property.service.IRepairOrderStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 维修工单统计Service业务层处理
+ * <p>
+ * 工作台统计由数据库按状态分组聚合，今日、本月完工数以完工时间的区间条件求和，不再把工单读到内存逐条判断；
+ * 结果按维修师傅缓存较短时间，派工、接单、完工、评价时清除对应师傅的缓存。
+ * 工单列表在数据库分页，不查询总数。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class RepairOrderStatsServiceImpl implements IRepairOrderStatsService {
+
+    /**
+     * 统计缓存Redis前缀，后接维修师傅ID
+     */
+    private static final String STATS_KEY_PREFIX = "workbench:stats:";
+
+    /**
+     * 单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private RepairOrderMapper repairOrderMapper;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    /**
+     * 统计缓存过期时间（秒）
+     */
+    @Value("${workbench.stats.ttl:60}")
+    private long statsTtl;
+
+    @Override
+    public WorkbenchStatsDTO getWorkerStats(Long workerId) {
+        String key = STATS_KEY_PREFIX + workerId;
+        WorkbenchStatsDTO cached = redisUtils.get(key, WorkbenchStatsDTO.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Map<String, Object>> rows = repairOrderMapper.selectWorkerStatusStats(workerId,
+                today.atStartOfDay(), today.withDayOfMonth(1).atStartOfDay());
+
+        int pendingCount = 0;
+        int processingCount = 0;
+        int pendingAcceptCount = 0;
+        int completedCount = 0;
+        int todayCompleted = 0;
+        int monthCompleted = 0;
+        for (Map<String, Object> row : rows) {
+            Object status = row.get("order_status");
+            if (status == null) {
+                continue;
+            }
+            int count = intValue(row.get("order_count"));
+            switch (((Number) status).intValue()) {
+                case 2: // 待接单
+                    pendingCount += count;
+                    break;
+                case 3: // 进行中
+                    processingCount += count;
+                    break;
+                case 4: // 待验收
+                    pendingAcceptCount += count;
+                    break;
+                case 5: // 已完成
+                case 6: // 已归档
+                    completedCount += count;
+                    break;
+                default:
+                    continue;
+            }
+            // 完工时间在完成维修时写入，待验收及之后的状态都计入完工数
+            if (((Number) status).intValue() >= 4) {
+                todayCompleted += intValue(row.get("today_finished"));
+                monthCompleted += intValue(row.get("month_finished"));
+            }
+        }
+
+        WorkbenchStatsDTO stats = new WorkbenchStatsDTO();
+        stats.setPendingCount(pendingCount);
+        stats.setProcessingCount(processingCount);
+        stats.setPendingAcceptCount(pendingAcceptCount);
+        stats.setCompletedCount(completedCount);
+        stats.setTodayCompleted(todayCompleted);
+        stats.setMonthCompleted(monthCompleted);
+        try {
+            redisUtils.set(key, stats, statsTtl);
+        } catch (Exception e) {
+            log.warn("缓存工作台统计失败，维修师傅ID：{}", workerId, e);
+        }
+        return stats;
+    }
+
+    @Override
+    public List<RepairOrder> selectWorkerOrders(Long workerId, Integer orderStatus, int pageNum, int pageSize) {
+        Page<RepairOrder> page = new Page<>(Math.max(1, pageNum), Math.max(1, Math.min(MAX_PAGE_SIZE, pageSize)));
+        // 工作台只展示当前页，不需要总数
+        page.setSearchCount(false);
+        // 与工单列表相同的列，含楼栋、单元ID和名称
+        return repairOrderMapper.selectWorkerOrderPage(page, workerId, orderStatus).getRecords();
+    }
+
+    @Override
+    public void evictWorkerStats(Long workerId) {
+        if (workerId == null) {
+            return;
+        }
+        try {
+            redisUtils.delete(STATS_KEY_PREFIX + workerId);
+        } catch (Exception e) {
+            log.warn("清除工作台统计缓存失败，维修师傅ID：{}", workerId, e);
+        }
+    }
+
+    private static int intValue(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+}
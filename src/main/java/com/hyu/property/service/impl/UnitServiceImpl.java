@@ -4,18 +4,25 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hyu.common.utils.StringUtils;
-import com.hyu.property.domain.Building;
 import com.hyu.property.domain.House;
 import com.hyu.property.domain.Unit;
 import com.hyu.property.mapper.HouseMapper;
 import com.hyu.property.mapper.UnitMapper;
 import com.hyu.property.service.IUnitService;
 import com.hyu.property.service.IBuildingService;
+import com.hyu.property.topology.EstateTopology;
+import com.hyu.property.topology.EstateTopologyCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 单元Service业务层处理
@@ -32,6 +39,69 @@ public class UnitServiceImpl extends ServiceImpl<UnitMapper, Unit> implements IU
     @Autowired
     private HouseMapper houseMapper;
 
+    @Autowired
+    private EstateTopologyCache estateTopologyCache;
+
+    /**
+     * 新增单元，提交后刷新小区拓扑
+     *
+     * @param entity 单元信息
+     * @return 是否成功
+     */
+    @Override
+    public boolean save(Unit entity) {
+        boolean result = super.save(entity);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 修改单元，提交后刷新小区拓扑
+     *
+     * @param entity 单元信息
+     * @return 是否成功
+     */
+    @Override
+    public boolean updateById(Unit entity) {
+        boolean result = super.updateById(entity);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 删除单元，提交后刷新小区拓扑
+     *
+     * @param id 单元ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * 批量删除单元，提交后刷新小区拓扑
+     *
+     * @param list 单元ID集合
+     * @return 是否成功
+     */
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        boolean result = super.removeByIds(list);
+        if (result) {
+            estateTopologyCache.invalidate();
+        }
+        return result;
+    }
+
     /**
      * 分页查询单元列表
      *
@@ -43,11 +113,18 @@ public class UnitServiceImpl extends ServiceImpl<UnitMapper, Unit> implements IU
     public Page<Unit> selectUnitPage(Page<Unit> page, Unit unit) {
         Page<Unit> result = baseMapper.selectUnitList(page, unit);
 
-        // 填充楼栋名称
-        if (result != null && result.getRecords() != null) {
+        // 填充楼栋名称，本页涉及的楼栋一次查询
+        if (result != null && result.getRecords() != null && !result.getRecords().isEmpty()) {
+            Set<Long> buildingIds = new HashSet<>();
+            for (Unit unitRecord : result.getRecords()) {
+                if (unitRecord.getBuildingId() != null) {
+                    buildingIds.add(unitRecord.getBuildingId());
+                }
+            }
+            Map<Long, String> buildingNames = buildingService.selectBuildingNameMap(buildingIds);
             for (Unit unitRecord : result.getRecords()) {
                 if (unitRecord.getBuildingId() != null) {
-                    unitRecord.setBuildingName(getBuildingNameById(unitRecord.getBuildingId()));
+                    unitRecord.setBuildingName(buildingNames.getOrDefault(unitRecord.getBuildingId(), ""));
                 }
             }
         }
@@ -173,18 +250,24 @@ public class UnitServiceImpl extends ServiceImpl<UnitMapper, Unit> implements IU
     }
 
     /**
-     * 根据楼栋ID获取楼栋名称
+     * 批量获取单元名称（从小区拓扑缓存解析，不查询数据库）
      *
-     * @param buildingId 楼栋ID
-     * @return 楼栋名称
+     * @param unitIds 单元ID集合
+     * @return 单元ID到单元名称的映射
      */
-    private String getBuildingNameById(Long buildingId) {
-        try {
-            Building building = buildingService.getById(buildingId);
-            return building != null ? building.getBuildingName() : "";
-        } catch (Exception e) {
-            log.error("获取楼栋名称失败, buildingId: {}", buildingId, e);
-            return "";
+    @Override
+    public Map<Long, String> selectUnitNameMap(Collection<Long> unitIds) {
+        Map<Long, String> nameMap = new HashMap<>();
+        if (unitIds == null || unitIds.isEmpty()) {
+            return nameMap;
+        }
+        EstateTopology topology = estateTopologyCache.get();
+        for (Long unitId : unitIds) {
+            String unitName = topology.getUnitName(unitId);
+            if (unitName != null) {
+                nameMap.put(unitId, unitName);
+            }
         }
+        return nameMap;
     }
 }
\ No newline at end of file
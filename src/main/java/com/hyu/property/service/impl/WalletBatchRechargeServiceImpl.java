@@ -0,0 +1,352 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.IdGenerator;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.common.utils.StringUtils;
+import com.hyu.property.mapper.WalletMapper;
+import com.hyu.property.service.IWalletBatchRechargeService;
+import com.hyu.property.service.IWalletLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 业主钱包批量充值Service业务层处理
+ * <p>
+ * 按 wallet.id 游标分页扫描业主钱包，每页通过 {@link IWalletLedgerService#batchCredit} 在一个短事务内入账，
+ * 不再为全部业主持有一个长事务。批次号作为交易记录的关联单号写入数据库，同一批次号重复执行时
+ * 已入账的钱包会被跳过，因此任务重试不会重复充值。
+ * <p>
+ * 任务在后台单线程执行，运行记录（状态、游标检查点、入账/跳过数量）保存在Redis中供进度查询；
+ * 中途崩溃或部分失败后以同一批次号重新提交，从检查点继续执行。
+ * 每个批次号执行期间在Redis中持有运行锁（SET NX，执行中定期续期），同一批次号不能在多个节点或
+ * 同一节点上同时执行；节点崩溃后运行锁过期，才允许续跑仍为RUNNING状态的任务。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class WalletBatchRechargeServiceImpl implements IWalletBatchRechargeService {
+
+    /**
+     * 运行记录Redis前缀，后接批次号
+     */
+    private static final String RUN_KEY_PREFIX = "wallet:batch-recharge:run:";
+
+    /**
+     * 运行锁Redis前缀，后接批次号
+     */
+    private static final String LOCK_KEY_PREFIX = "wallet:batch-recharge:lock:";
+
+    /**
+     * 运行锁过期时间（秒），每个批次完成后续期，节点崩溃后最长在此时间后允许续跑
+     */
+    private static final long LOCK_TTL = 300L;
+
+    /**
+     * 仅当运行锁仍由本次运行持有时删除
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "  return redis.call('DEL', KEYS[1])\n"
+                    + "end\n"
+                    + "return 0", Long.class);
+
+    /**
+     * 运行记录保留时间（秒）
+     */
+    private static final long RUN_RECORD_TTL = 30L * 24 * 3600;
+
+    /**
+     * 批次号格式，同时作为交易记录的关联单号
+     */
+    private static final Pattern BATCH_NO_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    private static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String STATUS_PARTIAL = "PARTIAL";
+
+    private static final String STATUS_FAILED = "FAILED";
+
+    @Autowired
+    private WalletMapper walletMapper;
+
+    @Autowired
+    private IWalletLedgerService walletLedgerService;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 每个批次处理的钱包数量
+     */
+    @Value("${wallet.batch-recharge.batch-size:500}")
+    private int batchSize;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 正在进行的任务，未运行时为null
+     */
+    private volatile RunProgress currentRun;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "wallet-batch-recharge-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized Map<String, Object> submit(BigDecimal amount, String batchNo) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessException("充值金额必须大于0");
+        }
+        if (StringUtils.isEmpty(batchNo)) {
+            batchNo = idGenerator.nextNo("BRC");
+        } else if (!BATCH_NO_PATTERN.matcher(batchNo).matches()) {
+            throw new BusinessException("批次号只能包含字母、数字、下划线和短横线，且不超过32位");
+        }
+
+        RunProgress running = currentRun;
+        if (running != null) {
+            if (running.batchNo.equals(batchNo)) {
+                return running.snapshot(STATUS_RUNNING);
+            }
+            throw new BusinessException("已有批量充值任务正在执行，批次号：" + running.batchNo);
+        }
+
+        // 跨节点互斥：运行锁被持有说明该批次正在其他节点执行
+        String lockKey = LOCK_KEY_PREFIX + batchNo;
+        String lockToken = UUID.randomUUID().toString();
+        if (!redisUtils.setIfAbsent(lockKey, lockToken, LOCK_TTL)) {
+            throw new BusinessException("批次号" + batchNo + "的批量充值正在执行，请稍后查询进度");
+        }
+
+        RunProgress progress;
+        String runKey = RUN_KEY_PREFIX + batchNo;
+        Map<String, Object> snapshot;
+        try {
+            Map<String, Object> stored = loadRunRecord(runKey);
+            long startAfter = 0L;
+            if (!stored.isEmpty()) {
+                BigDecimal storedAmount = new BigDecimal(String.valueOf(stored.get("amount")));
+                if (storedAmount.compareTo(amount) != 0) {
+                    throw new BusinessException("批次号" + batchNo + "已用于" + storedAmount.toPlainString() + "元的批量充值");
+                }
+                if (STATUS_COMPLETED.equals(stored.get("status"))) {
+                    unlock(lockKey, lockToken);
+                    return stored;
+                }
+                if (STATUS_RUNNING.equals(stored.get("status"))) {
+                    // 运行锁已过期，上一次执行的节点已退出
+                    log.warn("批量充值任务上次执行未正常结束，批次号：{}", batchNo);
+                }
+                Object checkpoint = stored.get("checkpoint");
+                if (checkpoint != null) {
+                    startAfter = Long.parseLong(String.valueOf(checkpoint));
+                }
+                log.info("继续执行批量充值任务，批次号：{}，检查点钱包ID：{}", batchNo, startAfter);
+            }
+
+            progress = new RunProgress(batchNo, amount, startAfter);
+            snapshot = progress.snapshot(STATUS_RUNNING);
+            saveRunRecord(runKey, snapshot);
+            currentRun = progress;
+            executor.execute(() -> run(progress, runKey, lockKey, lockToken));
+        } catch (RuntimeException e) {
+            currentRun = null;
+            unlock(lockKey, lockToken);
+            throw e;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public Map<String, Object> getStatus(String batchNo) {
+        RunProgress progress = currentRun;
+        if (progress != null && progress.batchNo.equals(batchNo)) {
+            return progress.snapshot(STATUS_RUNNING);
+        }
+        return loadRunRecord(RUN_KEY_PREFIX + batchNo);
+    }
+
+    /**
+     * 按钱包ID游标逐批入账，每批一个事务
+     */
+    private void run(RunProgress progress, String runKey, String lockKey, String lockToken) {
+        String status;
+        try {
+            int size = Math.max(1, batchSize);
+            long afterId = progress.startAfter;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> walletIds = walletMapper.selectOwnerWalletIds(afterId, size);
+                if (walletIds.isEmpty()) {
+                    break;
+                }
+                afterId = walletIds.get(walletIds.size() - 1);
+                progress.scanned.addAndGet(walletIds.size());
+                try {
+                    int credited = walletLedgerService.batchCredit(walletIds, progress.amount, progress.batchNo, "批量充值");
+                    progress.credited.addAndGet(credited);
+                    progress.skipped.addAndGet(walletIds.size() - credited);
+                    // 检查点只在之前的批次全部成功时前移，续跑时不会漏掉失败批次
+                    if (progress.failedChunks.get() == 0) {
+                        progress.checkpoint = afterId;
+                    }
+                } catch (Exception e) {
+                    progress.failedChunks.incrementAndGet();
+                    progress.failedWallets.addAndGet(walletIds.size());
+                    log.error("批量充值批次失败，批次号：{}，钱包ID {}~{} 已回滚：{}", progress.batchNo,
+                            walletIds.get(0), afterId, e.getMessage(), e);
+                }
+                saveRunRecord(runKey, progress.snapshot(STATUS_RUNNING));
+                renewLock(lockKey);
+            }
+            status = progress.failedChunks.get() == 0 && !Thread.currentThread().isInterrupted()
+                    ? STATUS_COMPLETED : STATUS_PARTIAL;
+        } catch (Exception e) {
+            status = STATUS_FAILED;
+            log.error("批量充值任务执行异常，批次号：{}", progress.batchNo, e);
+        }
+
+        Map<String, Object> result = progress.snapshot(status);
+        result.put("finishTime", LocalDateTime.now().toString());
+        saveRunRecord(runKey, result);
+        currentRun = null;
+        unlock(lockKey, lockToken);
+        log.info("===== 批量充值完成 ===== {}", result);
+    }
+
+    private void renewLock(String lockKey) {
+        try {
+            redisUtils.expire(lockKey, LOCK_TTL);
+        } catch (Exception e) {
+            log.warn("批量充值运行锁续期失败：{}", lockKey, e);
+        }
+    }
+
+    private void unlock(String lockKey, String lockToken) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), lockToken);
+        } catch (Exception e) {
+            // 运行锁在过期后自动释放
+            log.warn("释放批量充值运行锁失败：{}", lockKey, e);
+        }
+    }
+
+    private Map<String, Object> loadRunRecord(String runKey) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        try {
+            Map<Object, Object> stored = redisUtils.hGetAll(runKey);
+            if (stored != null) {
+                for (Map.Entry<Object, Object> entry : stored.entrySet()) {
+                    record.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取批量充值运行记录失败：{}", runKey, e);
+        }
+        return record;
+    }
+
+    private void saveRunRecord(String runKey, Map<String, Object> record) {
+        try {
+            for (Map.Entry<String, Object> entry : record.entrySet()) {
+                redisUtils.hSet(runKey, entry.getKey(), entry.getValue());
+            }
+            redisUtils.expire(runKey, RUN_RECORD_TTL);
+        } catch (Exception e) {
+            log.warn("保存批量充值运行记录失败：{}", runKey, e);
+        }
+    }
+
+    /**
+     * 单次任务的进度计数
+     */
+    private static final class RunProgress {
+
+        private final String batchNo;
+
+        private final BigDecimal amount;
+
+        private final long startAfter;
+
+        private final String startTime = LocalDateTime.now().toString();
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile long checkpoint;
+
+        private final AtomicInteger scanned = new AtomicInteger();
+
+        private final AtomicInteger credited = new AtomicInteger();
+
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        private final AtomicInteger failedChunks = new AtomicInteger();
+
+        private final AtomicLong failedWallets = new AtomicLong();
+
+        private RunProgress(String batchNo, BigDecimal amount, long startAfter) {
+            this.batchNo = batchNo;
+            this.amount = amount;
+            this.startAfter = startAfter;
+            this.checkpoint = startAfter;
+        }
+
+        private Map<String, Object> snapshot(String status) {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("batchNo", batchNo);
+            metrics.put("amount", amount.toPlainString());
+            metrics.put("status", status);
+            metrics.put("startTime", startTime);
+            metrics.put("checkpoint", checkpoint);
+            metrics.put("scanned", scanned.get());
+            metrics.put("credited", credited.get());
+            metrics.put("skipped", skipped.get());
+            metrics.put("failedChunks", failedChunks.get());
+            metrics.put("failedWallets", failedWallets.get());
+            metrics.put("elapsedMillis", (System.nanoTime() - startNanos) / 1_000_000);
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.hyu.property.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.IdGenerator;
+import com.hyu.property.domain.Bill;
+import com.hyu.property.domain.Wallet;
+import com.hyu.property.domain.WalletTransaction;
+import com.hyu.property.mapper.WalletMapper;
+import com.hyu.property.mapper.WalletTransactionMapper;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.service.IWalletLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 钱包账务Service业务层处理
+ * <p>
+ * 余额不再“读出-计算-写回绝对值”，而是执行带条件的 {@code balance = balance + ?} 更新：
+ * 条件包含钱包状态正常、变动后余额不为负、不超过上限，并同时递增版本号。
+ * 钱包的其他修改（支付密码、冻结状态等）只更新各自的列，不写回余额。
+ * 不使用 SELECT ... FOR UPDATE，行锁只在更新语句到事务提交之间持有。
+ * 更新后在同一事务内读取本事务写入的余额，得到准确的变动前后余额并追加交易流水。
+ * 遇到锁等待超时按有界退避重试。
+ * <p>
+ * 批量入账先锁定整批钱包行读取余额，再以一条 UPDATE 入账、一条多行 INSERT 写入流水，
+ * 行锁只在该批次的短事务内持有。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class WalletLedgerServiceImpl implements IWalletLedgerService {
+
+    private static final int TYPE_RECHARGE = 1;
+
+    private static final int TYPE_CONSUME = 2;
+
+    @Autowired
+    private WalletMapper walletMapper;
+
+    @Autowired
+    private WalletTransactionMapper walletTransactionMapper;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    /**
+     * 锁等待超时的最大重试次数
+     */
+    @Value("${wallet.ledger.max-retries:3}")
+    private int maxRetries;
+
+    /**
+     * 重试退避基数（毫秒），每次翻倍并加随机抖动
+     */
+    @Value("${wallet.ledger.backoff-millis:20}")
+    private long backoffMillis;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public WalletTransaction credit(Long userId, BigDecimal amount, String remark) {
+        checkAmount(amount);
+        return apply(userId, amount, amount, BigDecimal.ZERO, BALANCE_CAP, TYPE_RECHARGE, null, remark);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public WalletTransaction debit(Long userId, BigDecimal amount, Long relatedBillId, String remark) {
+        checkAmount(amount);
+        return apply(userId, amount.negate(), BigDecimal.ZERO, amount, null, TYPE_CONSUME, relatedBillId, remark);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int batchCredit(List<Long> walletIds, BigDecimal amount, String batchNo, String remark) {
+        checkAmount(amount);
+        if (walletIds == null || walletIds.isEmpty()) {
+            return 0;
+        }
+
+        // 先锁定钱包行，再以加锁读查询已入账的钱包：同一批次号的并发执行在行锁上排队，
+        // 后执行者读到先执行者已提交的交易记录，不会因可重复读快照重复入账
+        List<Wallet> wallets = walletMapper.selectWalletsForUpdate(walletIds);
+        Set<Long> credited = new HashSet<>(walletTransactionMapper.selectWalletIdsByRelatedOrderNo(batchNo, walletIds));
+        List<Long> eligibleIds = new ArrayList<>(walletIds.size());
+        List<WalletTransaction> transactions = new ArrayList<>(walletIds.size());
+        Date now = new Date();
+        for (Wallet wallet : wallets) {
+            if (credited.contains(wallet.getId())
+                    || wallet.getStatus() == null || wallet.getStatus() != 1) {
+                continue;
+            }
+            BigDecimal balanceBefore = wallet.getBalance() == null ? BigDecimal.ZERO : wallet.getBalance();
+            BigDecimal balanceAfter = balanceBefore.add(amount);
+            if (balanceAfter.compareTo(BALANCE_CAP) > 0) {
+                continue;
+            }
+            eligibleIds.add(wallet.getId());
+
+            WalletTransaction transaction = new WalletTransaction();
+            transaction.setTransactionNo(idGenerator.nextNo("WAL"));
+            transaction.setUserId(wallet.getUserId());
+            transaction.setWalletId(wallet.getId());
+            transaction.setTransactionType(TYPE_RECHARGE);
+            transaction.setAmount(amount);
+            transaction.setBalanceBefore(balanceBefore);
+            transaction.setBalanceAfter(balanceAfter);
+            transaction.setRelatedOrderNo(batchNo);
+            transaction.setTransactionStatus(1); // 成功
+            transaction.setRemark(remark);
+            transaction.setCreateTime(now);
+            transactions.add(transaction);
+        }
+        if (eligibleIds.isEmpty()) {
+            return 0;
+        }
+
+        // 行已锁定，更新行数必须与校验结果一致，否则整批回滚
+        int rows = walletMapper.batchApplyCredit(eligibleIds, amount, BALANCE_CAP);
+        if (rows != eligibleIds.size()) {
+            throw new BusinessException("批量入账行数不一致，预期" + eligibleIds.size() + "行，实际" + rows + "行");
+        }
+        walletTransactionMapper.batchInsertTransactions(transactions);
+        List<Long> userIds = new ArrayList<>(transactions.size());
+        for (WalletTransaction transaction : transactions) {
+            userIds.add(transaction.getUserId());
+        }
+        ownerSummaryService.walletBalancesChanged(userIds, amount);
+        return rows;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<WalletTransaction> debitBills(Long userId, List<Bill> bills, String paymentNo) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Bill bill : bills) {
+            total = total.add(bill.getAmount());
+        }
+        checkAmount(total);
+
+        int rows = updateWithRetry(userId, total.negate(), BigDecimal.ZERO, total, null);
+        Wallet wallet = walletMapper.selectOne(new QueryWrapper<Wallet>()
+                .select("id", "balance", "status")
+                .eq("user_id", userId));
+        if (rows == 0) {
+            throw rejection(wallet, total.negate(), null);
+        }
+
+        // 由扣款后余额倒推每张账单的变动前后余额
+        BigDecimal balance = wallet.getBalance().add(total);
+        Date now = new Date();
+        List<WalletTransaction> transactions = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            WalletTransaction transaction = new WalletTransaction();
+            transaction.setTransactionNo(idGenerator.nextNo("WAL"));
+            transaction.setUserId(userId);
+            transaction.setWalletId(wallet.getId());
+            transaction.setTransactionType(TYPE_CONSUME);
+            transaction.setAmount(bill.getAmount());
+            transaction.setBalanceBefore(balance);
+            balance = balance.subtract(bill.getAmount());
+            transaction.setBalanceAfter(balance);
+            transaction.setRelatedBillId(bill.getBillId());
+            transaction.setRelatedOrderNo(paymentNo);
+            transaction.setTransactionStatus(1); // 成功
+            transaction.setRemark("缴费：" + bill.getBillNo());
+            transaction.setCreateTime(now);
+            transactions.add(transaction);
+        }
+        walletTransactionMapper.batchInsertTransactions(transactions);
+        ownerSummaryService.walletBalanceChanged(userId, total.negate());
+        return transactions;
+    }
+
+    private WalletTransaction apply(Long userId, BigDecimal delta, BigDecimal rechargeDelta, BigDecimal consumeDelta,
+                                    BigDecimal cap, int transactionType, Long relatedBillId, String remark) {
+        int rows = updateWithRetry(userId, delta, rechargeDelta, consumeDelta, cap);
+
+        // 本事务已更新该行，此处读到的是本事务写入后的最新余额
+        Wallet wallet = walletMapper.selectOne(new QueryWrapper<Wallet>()
+                .select("id", "balance", "status")
+                .eq("user_id", userId));
+        if (rows == 0) {
+            throw rejection(wallet, delta, cap);
+        }
+
+        BigDecimal balanceAfter = wallet.getBalance();
+        WalletTransaction transaction = new WalletTransaction();
+        transaction.setTransactionNo(idGenerator.nextNo("WAL"));
+        transaction.setUserId(userId);
+        transaction.setWalletId(wallet.getId());
+        transaction.setTransactionType(transactionType);
+        transaction.setAmount(delta.abs());
+        transaction.setBalanceBefore(balanceAfter.subtract(delta));
+        transaction.setBalanceAfter(balanceAfter);
+        transaction.setRelatedBillId(relatedBillId);
+        transaction.setTransactionStatus(1); // 成功
+        transaction.setRemark(remark);
+        transaction.setCreateTime(new Date());
+        walletTransactionMapper.insert(transaction);
+        ownerSummaryService.walletBalanceChanged(userId, delta);
+        return transaction;
+    }
+
+    private int updateWithRetry(Long userId, BigDecimal delta, BigDecimal rechargeDelta,
+                                BigDecimal consumeDelta, BigDecimal cap) {
+        int attempt = 0;
+        while (true) {
+            try {
+                return walletMapper.applyBalanceDelta(userId, delta, rechargeDelta, consumeDelta, cap);
+            } catch (CannotAcquireLockException e) {
+                if (++attempt > maxRetries) {
+                    log.warn("钱包余额更新锁等待超时，已重试{}次，用户ID：{}", maxRetries, userId);
+                    throw new BusinessException("钱包繁忙，请稍后重试");
+                }
+                long sleep = (backoffMillis << (attempt - 1)) + ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+                log.debug("钱包余额更新锁等待超时，{}ms后第{}次重试，用户ID：{}", sleep, attempt, userId);
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException("钱包操作被中断");
+                }
+            }
+        }
+    }
+
+    /**
+     * 条件更新未生效时给出具体原因
+     */
+    private BusinessException rejection(Wallet wallet, BigDecimal delta, BigDecimal cap) {
+        if (wallet == null) {
+            return new BusinessException("钱包不存在，请先开通钱包服务");
+        }
+        if (wallet.getStatus() == null || wallet.getStatus() != 1) {
+            return new BusinessException("钱包已被冻结");
+        }
+        if (delta.signum() < 0) {
+            return new BusinessException("钱包余额不足");
+        }
+        return new BusinessException("钱包余额不能超过" + cap.toPlainString() + "元");
+    }
+
+    private void checkAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessException("金额必须大于0");
+        }
+    }
+}
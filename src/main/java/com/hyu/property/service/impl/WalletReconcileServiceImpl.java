@@ -0,0 +1,323 @@
+package com.hyu.property.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.property.domain.WalletBalanceSnapshot;
+import com.hyu.property.domain.WalletReconcileDrift;
+import com.hyu.property.mapper.WalletBalanceSnapshotMapper;
+import com.hyu.property.mapper.WalletReconcileDriftMapper;
+import com.hyu.property.service.IWalletReconcileService;
+import com.hyu.property.service.IWalletSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 钱包对账Service业务层处理
+ * <p>
+ * 每天为前一天的业务日期按钱包ID游标分批写入余额快照，每批一个短事务
+ * （见 {@link IWalletSnapshotService#snapshotChunk}），预期余额由上一快照加增量交易得出，
+ * 与实际余额不一致的钱包写入差异表。不扫描全部历史交易，耗时只与钱包数和当天交易量有关。
+ * <p>
+ * 运行记录（状态、检查点、差异数）保存在Redis中；中途失败后重新执行同一日期时从检查点继续，
+ * 快照与差异按“钱包 + 日期”覆盖写入，重复执行不会产生重复数据。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class WalletReconcileServiceImpl implements IWalletReconcileService {
+
+    /**
+     * 运行记录Redis前缀，后接快照日期
+     */
+    private static final String RUN_KEY_PREFIX = "wallet:reconcile:run:";
+
+    /**
+     * 运行记录保留时间（秒）
+     */
+    private static final long RUN_RECORD_TTL = 40L * 24 * 3600;
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    private static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String STATUS_FAILED = "FAILED";
+
+    @Autowired
+    private IWalletSnapshotService walletSnapshotService;
+
+    @Autowired
+    private WalletBalanceSnapshotMapper snapshotMapper;
+
+    @Autowired
+    private WalletReconcileDriftMapper driftMapper;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    /**
+     * 每个批次处理的钱包数量
+     */
+    @Value("${wallet.reconcile.batch-size:500}")
+    private int batchSize;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 正在进行的运行，未运行时为null
+     */
+    private volatile RunProgress currentRun;
+
+    private volatile Map<String, Object> lastRunMetrics = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1), r -> {
+                    Thread thread = new Thread(r, "wallet-reconcile-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> reconcile() {
+        LocalDate snapshotDate = LocalDate.now().minusDays(1);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("钱包对账任务正在运行，忽略本次触发，快照日期：{}", snapshotDate);
+            return getRunStatus(snapshotDate.toString());
+        }
+        try {
+            return doReconcile(snapshotDate);
+        } finally {
+            currentRun = null;
+            running.set(false);
+        }
+    }
+
+    @Override
+    public Map<String, Object> submit() {
+        RunProgress progress = currentRun;
+        if (progress != null) {
+            return progress.snapshot(STATUS_RUNNING);
+        }
+        executor.execute(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                log.error("钱包对账任务执行失败：{}", e.getMessage(), e);
+            }
+        });
+        Map<String, Object> handle = new LinkedHashMap<>();
+        handle.put("snapshotDate", LocalDate.now().minusDays(1).toString());
+        handle.put("status", STATUS_RUNNING);
+        return handle;
+    }
+
+    @Override
+    public Map<String, Object> getRunStatus(String snapshotDate) {
+        RunProgress progress = currentRun;
+        if (progress != null && progress.snapshotDate.toString().equals(snapshotDate)) {
+            return progress.snapshot(STATUS_RUNNING);
+        }
+        return loadRunRecord(RUN_KEY_PREFIX + snapshotDate);
+    }
+
+    @Override
+    public Map<String, Object> getLastRunMetrics() {
+        return lastRunMetrics;
+    }
+
+    @Override
+    public Page<WalletReconcileDrift> selectDriftPage(Page<WalletReconcileDrift> page, WalletReconcileDrift drift) {
+        LambdaQueryWrapper<WalletReconcileDrift> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(drift.getSnapshotDate() != null, WalletReconcileDrift::getSnapshotDate, drift.getSnapshotDate())
+                   .eq(drift.getWalletId() != null, WalletReconcileDrift::getWalletId, drift.getWalletId())
+                   .eq(drift.getUserId() != null, WalletReconcileDrift::getUserId, drift.getUserId())
+                   .eq(drift.getHandleStatus() != null, WalletReconcileDrift::getHandleStatus, drift.getHandleStatus())
+                   .orderByDesc(WalletReconcileDrift::getSnapshotDate)
+                   .orderByDesc(WalletReconcileDrift::getId);
+        return driftMapper.selectPage(page, queryWrapper);
+    }
+
+    @Override
+    public boolean resolveDrift(Long id) {
+        WalletReconcileDrift drift = driftMapper.selectById(id);
+        if (drift == null) {
+            throw new BusinessException("对账差异不存在");
+        }
+        drift.setHandleStatus(1);
+        return driftMapper.updateById(drift) > 0;
+    }
+
+    private Map<String, Object> doReconcile(LocalDate snapshotDate) {
+        String runKey = RUN_KEY_PREFIX + snapshotDate;
+        Map<String, Object> stored = loadRunRecord(runKey);
+        if (STATUS_COMPLETED.equals(stored.get("status"))) {
+            log.info("快照日期 {} 已完成对账，跳过", snapshotDate);
+            return stored;
+        }
+        long startAfter = 0L;
+        Object checkpoint = stored.get("checkpoint");
+        if (checkpoint != null) {
+            startAfter = Long.parseLong(String.valueOf(checkpoint));
+        }
+
+        LocalDate previousDate = snapshotMapper.selectPreviousSnapshotDate(snapshotDate);
+        RunProgress progress = new RunProgress(snapshotDate, previousDate, startAfter);
+        if (checkpoint != null) {
+            // 计数与检查点在同一次写入中保存，续跑时从检查点处的累计值继续
+            progress.restore(stored);
+            log.info("继续执行钱包对账，快照日期：{}，检查点钱包ID：{}，已对账钱包数：{}，差异数：{}",
+                    snapshotDate, startAfter, progress.wallets, progress.drifts);
+        }
+        currentRun = progress;
+        saveRunRecord(runKey, progress.snapshot(STATUS_RUNNING));
+
+        String status;
+        try {
+            int size = Math.max(1, batchSize);
+            long afterId = startAfter;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<WalletBalanceSnapshot> snapshots =
+                        walletSnapshotService.snapshotChunk(snapshotDate, previousDate, afterId, size);
+                if (snapshots.isEmpty()) {
+                    break;
+                }
+                afterId = snapshots.get(snapshots.size() - 1).getWalletId();
+                progress.wallets += snapshots.size();
+                for (WalletBalanceSnapshot snapshot : snapshots) {
+                    if (snapshot.getDriftAmount().signum() != 0) {
+                        progress.drifts++;
+                        progress.driftAmount = progress.driftAmount.add(snapshot.getDriftAmount().abs());
+                    }
+                }
+                progress.checkpoint = afterId;
+                saveRunRecord(runKey, progress.snapshot(STATUS_RUNNING));
+            }
+            status = Thread.currentThread().isInterrupted() ? STATUS_FAILED : STATUS_COMPLETED;
+        } catch (Exception e) {
+            status = STATUS_FAILED;
+            log.error("钱包对账执行异常，快照日期：{}，检查点钱包ID：{}", snapshotDate, progress.checkpoint, e);
+        }
+
+        Map<String, Object> metrics = progress.snapshot(status);
+        metrics.put("finishTime", LocalDateTime.now().toString());
+        saveRunRecord(runKey, metrics);
+        this.lastRunMetrics = Collections.unmodifiableMap(metrics);
+        log.info("===== 钱包对账完成 ===== {}", metrics);
+        return metrics;
+    }
+
+    private Map<String, Object> loadRunRecord(String runKey) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        try {
+            Map<Object, Object> stored = redisUtils.hGetAll(runKey);
+            if (stored != null) {
+                for (Map.Entry<Object, Object> entry : stored.entrySet()) {
+                    record.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取钱包对账运行记录失败：{}", runKey, e);
+        }
+        return record;
+    }
+
+    private void saveRunRecord(String runKey, Map<String, Object> record) {
+        try {
+            // 检查点与计数一次写入，避免中断后两者不一致
+            redisUtils.hSetAll(runKey, record);
+            redisUtils.expire(runKey, RUN_RECORD_TTL);
+        } catch (Exception e) {
+            log.warn("保存钱包对账运行记录失败：{}", runKey, e);
+        }
+    }
+
+    /**
+     * 单次对账的进度计数，只由执行线程写入
+     */
+    private static final class RunProgress {
+
+        private final LocalDate snapshotDate;
+
+        private final LocalDate previousDate;
+
+        private final long startAfter;
+
+        private final String startTime = LocalDateTime.now().toString();
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile long checkpoint;
+
+        private volatile int wallets;
+
+        private volatile int drifts;
+
+        private volatile BigDecimal driftAmount = BigDecimal.ZERO;
+
+        private RunProgress(LocalDate snapshotDate, LocalDate previousDate, long startAfter) {
+            this.snapshotDate = snapshotDate;
+            this.previousDate = previousDate;
+            this.startAfter = startAfter;
+            this.checkpoint = startAfter;
+        }
+
+        /**
+         * 从运行记录恢复累计计数
+         */
+        private void restore(Map<String, Object> stored) {
+            wallets = parseInt(stored.get("wallets"));
+            drifts = parseInt(stored.get("drifts"));
+            Object amount = stored.get("driftAmount");
+            driftAmount = amount == null ? BigDecimal.ZERO : new BigDecimal(String.valueOf(amount));
+        }
+
+        private static int parseInt(Object value) {
+            return value == null ? 0 : Integer.parseInt(String.valueOf(value));
+        }
+
+        private Map<String, Object> snapshot(String status) {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("snapshotDate", snapshotDate.toString());
+            metrics.put("previousDate", previousDate == null ? "" : previousDate.toString());
+            metrics.put("status", status);
+            metrics.put("startTime", startTime);
+            metrics.put("startAfter", startAfter);
+            metrics.put("checkpoint", checkpoint);
+            metrics.put("wallets", wallets);
+            metrics.put("drifts", drifts);
+            metrics.put("driftAmount", driftAmount.toPlainString());
+            metrics.put("elapsedMillis", (System.nanoTime() - startNanos) / 1_000_000);
+            return metrics;
+        }
+    }
+}
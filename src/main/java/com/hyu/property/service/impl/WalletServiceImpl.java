@@ -1,26 +1,31 @@
 package com.hyu.property.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hyu.common.utils.StringUtils;
+import com.hyu.framework.security.service.AttemptLimiter;
+import com.hyu.framework.security.service.ClientIpResolver;
+import com.hyu.framework.security.service.PasswordHasher;
 import com.hyu.property.domain.Wallet;
-import com.hyu.property.domain.WalletTransaction;
 import com.hyu.property.domain.dto.WalletRechargeDTO;
 import com.hyu.property.domain.dto.WalletSetPasswordDTO;
 import com.hyu.property.domain.dto.WalletChangePasswordDTO;
 import com.hyu.property.mapper.WalletMapper;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.service.IWalletLedgerService;
 import com.hyu.property.service.IWalletService;
-import com.hyu.property.service.IWalletTransactionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Collections;
 
 /**
  * 钱包Service业务层处理
@@ -32,9 +37,29 @@ import java.util.UUID;
 public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> implements IWalletService {
 
     @Autowired
-    private IWalletTransactionService walletTransactionService;
+    private IWalletLedgerService walletLedgerService;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AttemptLimiter attemptLimiter;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    @Autowired
+    private IOwnerSummaryService ownerSummaryService;
+
+    /**
+     * 支付密码：同一用户1小时内错误3次锁定1小时
+     */
+    private static final AttemptLimiter.Rule PAY_PASSWORD_RULE = new AttemptLimiter.Rule("pay-password", 3, 3600, 3600);
+
+    /**
+     * 支付密码：同一IP 10分钟内错误20次锁定30分钟，防止轮换账号猜测
+     */
+    private static final AttemptLimiter.Rule PAY_PASSWORD_IP_RULE = new AttemptLimiter.Rule("pay-password-ip", 20, 600, 1800);
 
     /**
      * 分页查询钱包列表
@@ -56,27 +81,14 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
      * @return 结果
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean recharge(Long userId, BigDecimal amount) {
-        Wallet wallet = getOne(new QueryWrapper<Wallet>().eq("user_id", userId));
-        if (wallet == null) {
+        if (!existsByUserId(userId)) {
             // 创建新钱包
-            wallet = new Wallet();
-            wallet.setUserId(userId);
-            wallet.setBalance(amount);
-            wallet.setTotalRecharge(amount);
-            wallet.setTotalConsume(BigDecimal.ZERO);
-            wallet.setStatus(1);
-            wallet.setVersion(0);
-            wallet.setCreateTime(LocalDateTime.now());
-            wallet.setUpdateTime(LocalDateTime.now());
-            return save(wallet);
-        } else {
-            // 更新现有钱包
-            wallet.setBalance(wallet.getBalance().add(amount));
-            wallet.setTotalRecharge(wallet.getTotalRecharge().add(amount));
-            wallet.setUpdateTime(LocalDateTime.now());
-            return updateById(wallet);
+            createWallet(userId, BigDecimal.ZERO);
         }
+        walletLedgerService.credit(userId, amount, "钱包充值");
+        return true;
     }
 
     /**
@@ -87,6 +99,9 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
      */
     @Override
     public int updateWallet(Wallet wallet) {
+        // 余额只经账务服务原子增减，这里不写回余额和版本号，避免覆盖并发入账、扣款
+        wallet.setBalance(null);
+        wallet.setVersion(null);
         wallet.setUpdateTime(LocalDateTime.now());
         return updateById(wallet) ? 1 : 0;
     }
@@ -126,13 +141,12 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
             throw new RuntimeException("钱包不存在");
         }
 
-        // 系统采用明文密码策略，直接存储明文
-        wallet.setPayPassword(setPasswordDTO.getPayPassword());
         // 设置密码状态为已设置
-        wallet.setPasswordStatus(1);
-        wallet.setUpdateTime(LocalDateTime.now());
-
-        return updateById(wallet);
+        return update(new UpdateWrapper<Wallet>()
+                .eq("id", wallet.getId())
+                .set("pay_password", passwordHasher.encode(setPasswordDTO.getPayPassword()))
+                .set("password_status", 1)
+                .set("update_time", LocalDateTime.now()));
     }
 
     /**
@@ -159,19 +173,17 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
             throw new RuntimeException("钱包不存在");
         }
 
-        // 验证原密码（系统采用明文密码策略）
-        if (wallet.getPayPassword() != null &&
-            !changePasswordDTO.getOldPassword().equals(wallet.getPayPassword())) {
-            throw new RuntimeException("原支付密码错误");
+        // 验证原密码（与支付验证共用失败计数和锁定，防止借修改密码接口穷举）
+        if (StringUtils.isNotEmpty(wallet.getPayPassword())) {
+            checkPayPassword(wallet, changePasswordDTO.getOldPassword());
         }
 
-        // 系统采用明文密码策略，直接存储明文
-        wallet.setPayPassword(changePasswordDTO.getNewPassword());
         // 设置密码状态为已设置
-        wallet.setPasswordStatus(1);
-        wallet.setUpdateTime(LocalDateTime.now());
-
-        return updateById(wallet);
+        return update(new UpdateWrapper<Wallet>()
+                .eq("id", wallet.getId())
+                .set("pay_password", passwordHasher.encode(changePasswordDTO.getNewPassword()))
+                .set("password_status", 1)
+                .set("update_time", LocalDateTime.now()));
     }
 
     /**
@@ -195,39 +207,50 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
             throw new RuntimeException("支付密码未设置，请先设置支付密码");
         }
 
-        // 检查是否被锁定
-        if (wallet.getPayPasswordLockTime() != null &&
-            wallet.getPayPasswordLockTime().isAfter(LocalDateTime.now())) {
-            throw new RuntimeException("支付密码已被锁定，请稍后再试");
+        checkPayPassword(wallet, payPassword);
+
+        // 历史明文或低强度哈希在验证成功后升级为当前强度的哈希
+        if (passwordHasher.needsRehash(wallet.getPayPassword())) {
+            lambdaUpdate()
+                    .set(Wallet::getPayPassword, passwordHasher.encode(payPassword))
+                    .eq(Wallet::getId, wallet.getId())
+                    .eq(Wallet::getPayPassword, wallet.getPayPassword())
+                    .update();
         }
 
-        // 系统采用明文密码策略，直接比较字符串
-        boolean isValid = payPassword.equals(wallet.getPayPassword());
+        return true;
+    }
 
-        if (!isValid) {
-            // 增加错误次数
-            int errorCount = wallet.getPayPasswordErrorCount() == null ? 1 : wallet.getPayPasswordErrorCount() + 1;
-            wallet.setPayPasswordErrorCount(errorCount);
+    /**
+     * 校验支付密码，按用户和IP限制失败次数，错误或已锁定时抛出异常
+     *
+     * @param wallet 钱包（已设置支付密码）
+     * @param payPassword 支付密码
+     */
+    private void checkPayPassword(Wallet wallet, String payPassword) {
+        // 检查是否被锁定（失败计数在Redis中，不写钱包行；兼容升级前写入钱包行的锁定时间）
+        String subject = String.valueOf(wallet.getUserId());
+        long lockRemaining = attemptLimiter.getLockRemaining(PAY_PASSWORD_RULE, subject);
+        if (lockRemaining > 0 || (wallet.getPayPasswordLockTime() != null &&
+            wallet.getPayPasswordLockTime().isAfter(LocalDateTime.now()))) {
+            throw new RuntimeException("支付密码已被锁定，请稍后再试");
+        }
+        String ip = clientIpResolver.resolve();
+        if (attemptLimiter.getLockRemaining(PAY_PASSWORD_IP_RULE, ip) > 0) {
+            throw new RuntimeException("支付密码错误次数过多，请稍后再试");
+        }
 
-            // 如果错误次数达到3次，锁定1小时
-            if (errorCount >= 3) {
-                wallet.setPayPasswordLockTime(LocalDateTime.now().plusHours(1));
-                wallet.setPayPasswordErrorCount(0);
-                updateById(wallet);
-                throw new RuntimeException("支付密码错误次数过多，已被锁定1小时");
-            }
-            updateById(wallet);
-            throw new RuntimeException("支付密码错误，还剩" + (3 - errorCount) + "次尝试机会");
-        } else {
-            // 验证成功，清零错误次数
-            if (wallet.getPayPasswordErrorCount() != null && wallet.getPayPasswordErrorCount() > 0) {
-                wallet.setPayPasswordErrorCount(0);
-                wallet.setPayPasswordLockTime(null);
-                updateById(wallet);
+        if (!payPasswordMatches(payPassword, wallet.getPayPassword())) {
+            attemptLimiter.recordFailure(PAY_PASSWORD_IP_RULE, ip);
+            int remaining = attemptLimiter.recordFailure(PAY_PASSWORD_RULE, subject);
+            if (remaining <= 0) {
+                throw new RuntimeException("支付密码错误次数过多，已被锁定" + PAY_PASSWORD_RULE.getLockMinutes() / 60 + "小时");
             }
+            throw new RuntimeException("支付密码错误，还剩" + remaining + "次尝试机会");
         }
 
-        return isValid;
+        // 验证成功，清除失败记录
+        attemptLimiter.reset(PAY_PASSWORD_RULE, subject);
     }
 
     /**
@@ -254,34 +277,9 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
         // 验证支付密码
         verifyPayPassword(userId, rechargeDTO.getPayPassword());
 
-        BigDecimal beforeBalance = wallet.getBalance();
-        BigDecimal afterBalance = beforeBalance.add(rechargeDTO.getAmount());
-
-        // 检查余额上限
-        if (afterBalance.compareTo(new BigDecimal("100000")) > 0) {
-            throw new RuntimeException("充值后余额将超过100000元上限");
-        }
-
-        // 更新钱包
-        wallet.setBalance(afterBalance);
-        wallet.setTotalRecharge(wallet.getTotalRecharge().add(rechargeDTO.getAmount()));
-        wallet.setUpdateTime(LocalDateTime.now());
-        updateById(wallet);
-
-        // 创建交易记录
-        WalletTransaction transaction = new WalletTransaction();
-        transaction.setTransactionNo(generateTransactionNo());
-        transaction.setUserId(userId);
-        transaction.setWalletId(wallet.getId());
-        transaction.setTransactionType(1); // 充值
-        transaction.setAmount(rechargeDTO.getAmount());
-        transaction.setBalanceBefore(beforeBalance);
-        transaction.setBalanceAfter(afterBalance);
-        transaction.setTransactionStatus(1); // 成功
-        transaction.setRemark("虚拟充值");
-        transaction.setCreateTime(new java.util.Date());
-
-        return walletTransactionService.save(transaction);
+        // 原子入账（余额上限在更新条件中校验）并追加交易记录
+        walletLedgerService.credit(userId, rechargeDTO.getAmount(), "虚拟充值");
+        return true;
     }
 
     /**
@@ -318,77 +316,11 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
         wallet.setCreateTime(LocalDateTime.now());
         wallet.setUpdateTime(LocalDateTime.now());
 
-        return save(wallet);
-    }
-
-    /**
-     * 批量充值给所有业主
-     *
-     * @param amount 充值金额
-     * @return 充值的业主数量
-     */
-    @Override
-    @Transactional
-    public int batchRechargeForAllOwners(BigDecimal amount) {
-        // 直接查询所有业主的钱包（通过join查询sys_user表确认user_type=3）
-        com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<Wallet> walletQuery =
-            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<>();
-        walletQuery.exists("SELECT 1 FROM sys_user WHERE id = wallet.user_id AND user_type = 3 AND deleted = 0 AND status = 1");
-
-        java.util.List<Wallet> ownerWallets = list(walletQuery);
-
-        if (ownerWallets.isEmpty()) {
-            throw new RuntimeException("没有找到业主钱包");
-        }
-
-        int successCount = 0;
-
-        for (Wallet wallet : ownerWallets) {
-            try {
-                BigDecimal beforeBalance = wallet.getBalance();
-                BigDecimal afterBalance = beforeBalance.add(amount);
-
-                // 检查余额上限
-                if (afterBalance.compareTo(new BigDecimal("100000")) > 0) {
-                    log.warn("业主{}的钱包余额将达到{}，超过上限，跳过充值", wallet.getUserId(), afterBalance);
-                    continue;
-                }
-
-                // 更新现有钱包
-                wallet.setBalance(afterBalance);
-                wallet.setTotalRecharge(wallet.getTotalRecharge().add(amount));
-                wallet.setUpdateTime(LocalDateTime.now());
-                updateById(wallet);
-
-                // 创建交易记录
-                WalletTransaction transaction = new WalletTransaction();
-                transaction.setTransactionNo(generateTransactionNo());
-                transaction.setUserId(wallet.getUserId());
-                transaction.setWalletId(wallet.getId());
-                transaction.setTransactionType(1); // 充值
-                transaction.setAmount(amount);
-                transaction.setBalanceBefore(beforeBalance);
-                transaction.setBalanceAfter(afterBalance);
-                transaction.setTransactionStatus(1); // 成功
-                transaction.setRemark("批量充值");
-                transaction.setCreateTime(new java.util.Date());
-                walletTransactionService.save(transaction);
-
-                successCount++;
-                log.info("为业主{}批量充值{}元成功，余额从{}变为{}",
-                        wallet.getUserId(), amount, beforeBalance, afterBalance);
-
-            } catch (Exception e) {
-                log.error("为业主{}批量充值失败：{}", wallet.getUserId(), e.getMessage(), e);
-                // 继续处理其他业主，不因单个失败而中断整个批量操作
-            }
-        }
-
-        if (successCount == 0) {
-            throw new RuntimeException("批量充值失败，没有成功充值的业主");
+        boolean saved = save(wallet);
+        if (saved) {
+            ownerSummaryService.evict(Collections.singletonList(userId));
         }
-
-        return successCount;
+        return saved;
     }
 
     /**
@@ -402,49 +334,13 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
     @Transactional
     public boolean adminRecharge(Long userId, BigDecimal amount) {
         // 获取或创建钱包
-        Wallet wallet = getByUserId(userId);
-        BigDecimal beforeBalance = wallet != null ? wallet.getBalance() : BigDecimal.ZERO;
-        BigDecimal afterBalance = beforeBalance.add(amount);
-
-        // 检查余额上限
-        if (afterBalance.compareTo(new BigDecimal("100000")) > 0) {
-            throw new RuntimeException("钱包余额不能超过100000元");
-        }
-
-        if (wallet == null) {
-            // 创建新钱包
-            wallet = new Wallet();
-            wallet.setUserId(userId);
-            wallet.setBalance(afterBalance);
-            wallet.setTotalRecharge(amount);
-            wallet.setTotalConsume(BigDecimal.ZERO);
-            wallet.setStatus(1);
-            wallet.setVersion(0);
-            wallet.setCreateTime(LocalDateTime.now());
-            wallet.setUpdateTime(LocalDateTime.now());
-            save(wallet);
-        } else {
-            // 更新现有钱包
-            wallet.setBalance(afterBalance);
-            wallet.setTotalRecharge(wallet.getTotalRecharge().add(amount));
-            wallet.setUpdateTime(LocalDateTime.now());
-            updateById(wallet);
+        if (!existsByUserId(userId)) {
+            createWallet(userId, BigDecimal.ZERO);
         }
 
-        // 创建交易记录
-        WalletTransaction transaction = new WalletTransaction();
-        transaction.setTransactionNo(generateTransactionNo());
-        transaction.setUserId(userId);
-        transaction.setWalletId(wallet.getId());
-        transaction.setTransactionType(1); // 充值
-        transaction.setAmount(amount);
-        transaction.setBalanceBefore(beforeBalance);
-        transaction.setBalanceAfter(afterBalance);
-        transaction.setTransactionStatus(1); // 成功
-        transaction.setRemark("管理员充值");
-        transaction.setCreateTime(new java.util.Date());
-
-        return walletTransactionService.save(transaction);
+        // 原子入账（余额上限在更新条件中校验）并追加交易记录
+        walletLedgerService.credit(userId, amount, "管理员充值");
+        return true;
     }
 
     /**
@@ -464,10 +360,10 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
             throw new RuntimeException("钱包已经是冻结状态");
         }
 
-        wallet.setStatus(0);
-        wallet.setUpdateTime(LocalDateTime.now());
-
-        boolean result = updateById(wallet);
+        boolean result = update(new UpdateWrapper<Wallet>()
+                .eq("id", id)
+                .set("status", 0)
+                .set("update_time", LocalDateTime.now()));
         if (result) {
             log.info("冻结钱包成功, 钱包ID: {}", id);
         }
@@ -492,10 +388,10 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
             throw new RuntimeException("钱包已经是正常状态");
         }
 
-        wallet.setStatus(1);
-        wallet.setUpdateTime(LocalDateTime.now());
-
-        boolean result = updateById(wallet);
+        boolean result = update(new UpdateWrapper<Wallet>()
+                .eq("id", id)
+                .set("status", 1)
+                .set("update_time", LocalDateTime.now()));
         if (result) {
             log.info("解冻钱包成功, 钱包ID: {}", id);
         }
@@ -516,16 +412,16 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
             throw new RuntimeException("钱包不存在");
         }
 
-        // 重置支付密码为null，表示需要重新设置
-        wallet.setPayPassword(null);
-        // 设置密码状态为未设置
-        wallet.setPasswordStatus(0);
-        wallet.setPayPasswordErrorCount(0);
-        wallet.setPayPasswordLockTime(null);
-        wallet.setUpdateTime(LocalDateTime.now());
-
-        boolean result = updateById(wallet);
+        // 重置支付密码为null，表示需要重新设置；设置密码状态为未设置
+        boolean result = update(new UpdateWrapper<Wallet>()
+                .eq("id", id)
+                .set("pay_password", null)
+                .set("password_status", 0)
+                .set("pay_password_error_count", 0)
+                .set("pay_password_lock_time", null)
+                .set("update_time", LocalDateTime.now()));
         if (result) {
+            attemptLimiter.reset(PAY_PASSWORD_RULE, String.valueOf(wallet.getUserId()));
             log.info("重置支付密码成功, 钱包ID: {}", id);
         }
 
@@ -533,11 +429,16 @@ public class WalletServiceImpl extends ServiceImpl<WalletMapper, Wallet> impleme
     }
 
     /**
-     * 生成交易流水号
-     *
-     * @return 交易流水号
+     * 校验支付密码，兼容尚未升级为哈希的历史明文密码
      */
-    private String generateTransactionNo() {
-        return "WAL" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private boolean payPasswordMatches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (passwordHasher.isEncoded(storedPassword)) {
+            return passwordHasher.matches(rawPassword, storedPassword);
+        }
+        return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                storedPassword.getBytes(StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.hyu.property.service.impl;
+
+import com.hyu.common.exception.BusinessException;
+import com.hyu.property.domain.Wallet;
+import com.hyu.property.domain.WalletBalanceSnapshot;
+import com.hyu.property.domain.WalletReconcileDrift;
+import com.hyu.property.mapper.WalletBalanceSnapshotMapper;
+import com.hyu.property.mapper.WalletReconcileDriftMapper;
+import com.hyu.property.mapper.WalletTransactionMapper;
+import com.hyu.property.service.IWalletService;
+import com.hyu.property.service.IWalletSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 钱包余额快照Service业务层处理
+ * <p>
+ * 快照记录对账时的钱包余额和已包含的最后一条交易ID。同一钱包的交易记录都在持有钱包行锁时写入，
+ * 因此按交易ID可以准确划分“快照之前/之后”的交易，下一次对账只需累加水位之后的交易。
+ * 历史某日余额与月度对账单也以最近的快照为基准，只读取快照之后的少量交易。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Service
+public class WalletSnapshotServiceImpl implements IWalletSnapshotService {
+
+    private static final int TYPE_CONSUME = 2;
+
+    private static final int TYPE_REFUND = 3;
+
+    @Autowired
+    private WalletBalanceSnapshotMapper snapshotMapper;
+
+    @Autowired
+    private WalletReconcileDriftMapper driftMapper;
+
+    @Autowired
+    private WalletTransactionMapper walletTransactionMapper;
+
+    @Autowired
+    private IWalletService walletService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<WalletBalanceSnapshot> snapshotChunk(LocalDate snapshotDate, LocalDate previousDate, long afterId, int limit) {
+        List<WalletBalanceSnapshot> snapshots = snapshotMapper.selectReconcileChunk(afterId, limit, previousDate);
+        if (snapshots.isEmpty()) {
+            return snapshots;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<WalletReconcileDrift> drifts = new ArrayList<>();
+        for (WalletBalanceSnapshot snapshot : snapshots) {
+            BigDecimal balance = nvl(snapshot.getBalance());
+            BigDecimal previousBalance = nvl(snapshot.getPreviousBalance());
+            BigDecimal ledgerDelta = nvl(snapshot.getLedgerDelta());
+            BigDecimal expected = previousBalance.add(ledgerDelta);
+
+            snapshot.setSnapshotDate(snapshotDate);
+            snapshot.setBalance(balance);
+            snapshot.setExpectedBalance(expected);
+            snapshot.setDriftAmount(balance.subtract(expected));
+            snapshot.setCreateTime(now);
+
+            if (snapshot.getDriftAmount().signum() != 0) {
+                WalletReconcileDrift drift = new WalletReconcileDrift();
+                drift.setSnapshotDate(snapshotDate);
+                drift.setWalletId(snapshot.getWalletId());
+                drift.setUserId(snapshot.getUserId());
+                // 钱包在上一快照中不存在时（新钱包）以0为期初余额
+                drift.setPreviousDate(snapshot.getPreviousBalance() == null ? null : previousDate);
+                drift.setPreviousBalance(previousBalance);
+                drift.setLedgerDelta(ledgerDelta);
+                drift.setExpectedBalance(expected);
+                drift.setActualBalance(balance);
+                drift.setDriftAmount(snapshot.getDriftAmount());
+                drift.setHandleStatus(0);
+                drift.setCreateTime(now);
+                drifts.add(drift);
+            }
+        }
+
+        snapshotMapper.upsertSnapshots(snapshots);
+        if (!drifts.isEmpty()) {
+            driftMapper.upsertDrifts(drifts);
+            for (WalletReconcileDrift drift : drifts) {
+                log.warn("钱包对账差异：钱包ID {}，用户ID {}，预期余额 {}，实际余额 {}，差异 {}", drift.getWalletId(),
+                        drift.getUserId(), drift.getExpectedBalance(), drift.getActualBalance(), drift.getDriftAmount());
+            }
+        }
+        return snapshots;
+    }
+
+    @Override
+    public BigDecimal getBalanceAtDate(Long userId, LocalDate date) {
+        if (!date.isBefore(LocalDate.now())) {
+            Wallet wallet = walletService.getByUserId(userId);
+            if (wallet == null) {
+                throw new BusinessException("钱包不存在");
+            }
+            return nvl(wallet.getBalance());
+        }
+
+        Date endTime = toDate(date.plusDays(1));
+        WalletBalanceSnapshot snapshot = snapshotMapper.selectLatestSnapshot(userId, date);
+        if (snapshot == null) {
+            // 早于首个快照的日期只能汇总历史交易
+            return nvl(walletTransactionMapper.selectNetAmountBefore(userId, endTime));
+        }
+        BigDecimal adjustment = walletTransactionMapper.selectBalanceAdjustment(userId,
+                snapshot.getLastTransactionId(), toDate(snapshot.getSnapshotDate()), endTime);
+        return nvl(snapshot.getBalance()).add(nvl(adjustment));
+    }
+
+    @Override
+    public Map<String, Object> getMonthlyStatement(Long userId, YearMonth month) {
+        if (month.isAfter(YearMonth.now())) {
+            throw new BusinessException("不能查询未来月份的对账单");
+        }
+
+        BigDecimal openingBalance = getBalanceAtDate(userId, month.atDay(1).minusDays(1));
+        BigDecimal closingBalance = getBalanceAtDate(userId, month.atEndOfMonth());
+
+        Map<String, Object> recharge = emptyTotal();
+        Map<String, Object> consume = emptyTotal();
+        Map<String, Object> refund = emptyTotal();
+        List<Map<String, Object>> totals = walletTransactionMapper.selectTypeTotals(userId,
+                toDate(month.atDay(1)), toDate(month.plusMonths(1).atDay(1)));
+        for (Map<String, Object> total : totals) {
+            int type = ((Number) total.get("transactionType")).intValue();
+            Map<String, Object> target = type == TYPE_CONSUME ? consume : type == TYPE_REFUND ? refund : recharge;
+            target.put("count", ((Number) target.get("count")).longValue() + ((Number) total.get("count")).longValue());
+            target.put("amount", ((BigDecimal) target.get("amount")).add(new BigDecimal(String.valueOf(total.get("amount")))));
+        }
+        BigDecimal netAmount = ((BigDecimal) recharge.get("amount"))
+                .add((BigDecimal) refund.get("amount"))
+                .subtract((BigDecimal) consume.get("amount"));
+
+        Map<String, Object> statement = new LinkedHashMap<>();
+        statement.put("month", month.toString());
+        statement.put("openingBalance", openingBalance);
+        statement.put("closingBalance", closingBalance);
+        statement.put("recharge", recharge);
+        statement.put("consume", consume);
+        statement.put("refund", refund);
+        statement.put("netAmount", netAmount);
+        // 期初 + 本月净额 = 期末，不相等说明本月存在未记录交易的余额变动
+        statement.put("balanced", openingBalance.add(netAmount).compareTo(closingBalance) == 0);
+        return statement;
+    }
+
+    private Map<String, Object> emptyTotal() {
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("count", 0L);
+        total.put("amount", BigDecimal.ZERO);
+        return total;
+    }
+
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private BigDecimal nvl(BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+}
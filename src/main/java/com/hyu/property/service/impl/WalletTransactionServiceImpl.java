@@ -3,6 +3,9 @@ package com.hyu.property.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hyu.common.core.domain.CursorResult;
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.IdGenerator;
 import com.hyu.common.utils.StringUtils;
 import com.hyu.property.domain.WalletTransaction;
 import com.hyu.property.mapper.WalletTransactionMapper;
@@ -11,7 +14,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -24,9 +30,22 @@ import java.util.List;
 @Service
 public class WalletTransactionServiceImpl extends ServiceImpl<WalletTransactionMapper, WalletTransaction> implements IWalletTransactionService {
 
+    /**
+     * 交易明细默认每页条数
+     */
+    private static final int DEFAULT_HISTORY_SIZE = 20;
+
+    /**
+     * 交易明细每页最大条数
+     */
+    private static final int MAX_HISTORY_SIZE = 100;
+
     @Autowired
     private WalletTransactionMapper walletTransactionMapper;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
     /**
      * 分页查询交易记录列表
      *
@@ -46,20 +65,41 @@ public class WalletTransactionServiceImpl extends ServiceImpl<WalletTransactionM
     }
 
     /**
-     * 查询交易记录列表
+     * 游标分页查询交易记录列表（管理端）
+     * <p>
+     * 按 (创建时间, ID) 倒序，每次最多返回一页，避免一次加载全部交易历史。
      *
      * @param transaction 交易记录信息
-     * @return 交易记录集合信息
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 本页交易记录及下一页游标
      */
     @Override
-    public List<WalletTransaction> selectTransactionList(WalletTransaction transaction) {
+    public CursorResult<WalletTransaction> selectTransactionList(WalletTransaction transaction, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_HISTORY_SIZE : Math.min(size, MAX_HISTORY_SIZE);
+        CursorResult.Position position = StringUtils.isEmpty(cursor) ? null : CursorResult.decodeCursor(cursor);
+
         LambdaQueryWrapper<WalletTransaction> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.like(StringUtils.isNotEmpty(transaction.getTransactionNo()), WalletTransaction::getTransactionNo, transaction.getTransactionNo())
                    .eq(transaction.getUserId() != null, WalletTransaction::getUserId, transaction.getUserId())
                    .eq(transaction.getTransactionType() != null, WalletTransaction::getTransactionType, transaction.getTransactionType())
                    .eq(transaction.getTransactionStatus() != null, WalletTransaction::getTransactionStatus, transaction.getTransactionStatus())
-                   .orderByDesc(WalletTransaction::getCreateTime);
-        return list(queryWrapper);
+                   .and(position != null && position.getCreateTime() != null, w -> w
+                           .lt(WalletTransaction::getCreateTime, position.getCreateTime())
+                           .or(q -> q.eq(WalletTransaction::getCreateTime, position.getCreateTime())
+                                   .lt(WalletTransaction::getId, position.getId())))
+                   .orderByDesc(WalletTransaction::getCreateTime, WalletTransaction::getId)
+                   // 多查一条用于判断是否还有下一页
+                   .last("limit " + (pageSize + 1));
+        List<WalletTransaction> rows = list(queryWrapper);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            WalletTransaction last = rows.get(pageSize - 1);
+            nextCursor = CursorResult.encodeCursor(last.getCreateTime(), last.getId());
+        }
+        return CursorResult.build(rows, nextCursor);
     }
 
     /**
@@ -85,14 +125,47 @@ public class WalletTransactionServiceImpl extends ServiceImpl<WalletTransactionM
     }
 
     /**
-     * 根据业主ID查询交易记录
+     * 游标分页查询用户交易记录
+     * <p>
+     * 游标为上一页最后一条记录的 (创建时间, ID)，下一页从其之后继续查询，
+     * 每页耗时只与页大小有关，不随翻页深度增长。
      *
-     * @param ownerId 业主ID
-     * @return 交易记录列表
+     * @param userId 用户ID
+     * @param transactionType 交易类型，为空不筛选
+     * @param beginDate 开始日期（yyyy-MM-dd，含），为空不筛选
+     * @param endDate 结束日期（yyyy-MM-dd，含），为空不筛选
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 本页交易记录及下一页游标
      */
     @Override
-    public List<WalletTransaction> selectTransactionByOwnerId(Long ownerId) {
-        return walletTransactionMapper.selectTransactionByOwnerId(ownerId);
+    public CursorResult<WalletTransaction> selectTransactionHistory(Long userId, Integer transactionType, String beginDate,
+                                                                    String endDate, String cursor, Integer size) {
+        if (userId == null) {
+            throw new BusinessException("用户ID不能为空");
+        }
+        int pageSize = size == null || size <= 0 ? DEFAULT_HISTORY_SIZE : Math.min(size, MAX_HISTORY_SIZE);
+        Date beginTime = StringUtils.isEmpty(beginDate) ? null : toDate(parseDate(beginDate));
+        Date endTime = StringUtils.isEmpty(endDate) ? null : toDate(parseDate(endDate).plusDays(1));
+
+        Date cursorTime = null;
+        Long cursorId = null;
+        if (StringUtils.isNotEmpty(cursor)) {
+            CursorResult.Position position = CursorResult.decodeCursor(cursor);
+            cursorTime = position.getCreateTime();
+            cursorId = position.getId();
+        }
+
+        // 多查一条用于判断是否还有下一页
+        List<WalletTransaction> rows = walletTransactionMapper.selectTransactionsBeforeCursor(
+                userId, transactionType, beginTime, endTime, cursorTime, cursorId, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            WalletTransaction last = rows.get(pageSize - 1);
+            nextCursor = CursorResult.encodeCursor(last.getCreateTime(), last.getId());
+        }
+        return CursorResult.build(rows, nextCursor);
     }
 
     /**
@@ -140,6 +213,18 @@ public class WalletTransactionServiceImpl extends ServiceImpl<WalletTransactionM
         return transaction == null;
     }
 
+    private LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("日期格式错误，应为yyyy-MM-dd：" + date);
+        }
+    }
+
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
     /**
      * 生成交易流水号
      *
@@ -148,9 +233,6 @@ public class WalletTransactionServiceImpl extends ServiceImpl<WalletTransactionM
      */
     @Override
     public String generateTransactionNo(Integer transactionType) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-        String date = sdf.format(new Date());
-        long timestamp = System.currentTimeMillis();
-        return "TXN" + date + timestamp;
+        return idGenerator.nextNo("TXN");
     }
 }
\ No newline at end of file
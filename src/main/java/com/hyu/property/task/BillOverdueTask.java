@@ -0,0 +1,33 @@
+package com.hyu.property.task;
+
+import com.hyu.property.service.IBillService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 超期账单扫描定时任务
+ * 按水位线增量扫描新到期的待缴费账单，分批标记为超期
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class BillOverdueTask {
+
+    @Autowired
+    private IBillService billService;
+
+    /**
+     * 默认每10分钟执行一次
+     */
+    @Scheduled(cron = "${bill.overdue.cron:0 */10 * * * ?}")
+    public void sweepOverdueBills() {
+        try {
+            billService.updateOverdueBills();
+        } catch (Exception e) {
+            log.error("超期账单扫描任务执行失败：{}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.hyu.property.task;
+
+import com.hyu.property.service.INoticeReadTrackingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 公告阅读记录写入定时任务
+ * 将本节点缓冲的阅读记录批量写入数据库并累加阅读次数
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class NoticeReadFlushTask {
+
+    @Autowired
+    private INoticeReadTrackingService noticeReadTrackingService;
+
+    /**
+     * 默认上次执行结束后2秒再次执行
+     */
+    @Scheduled(fixedDelayString = "${notice.read.flush-interval:2000}")
+    public void flush() {
+        try {
+            noticeReadTrackingService.flush();
+        } catch (Exception e) {
+            log.error("公告阅读记录写入任务执行失败：{}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.hyu.property.task;
+
+import com.hyu.property.service.IWalletReconcileService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 钱包日终对账定时任务
+ * 为前一天写入钱包余额快照，按上一快照加增量交易校验余额
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class WalletReconcileTask {
+
+    @Autowired
+    private IWalletReconcileService walletReconcileService;
+
+    /**
+     * 默认每天1:30执行
+     */
+    @Scheduled(cron = "${wallet.reconcile.cron:0 30 1 * * ?}")
+    public void reconcile() {
+        try {
+            walletReconcileService.reconcile();
+        } catch (Exception e) {
+            log.error("钱包对账任务执行失败：{}", e.getMessage(), e);
+        }
+    }
+}
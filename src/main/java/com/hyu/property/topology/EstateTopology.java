@@ -0,0 +1,234 @@
+package com.hyu.property.topology;
+
+import com.hyu.property.domain.Building;
+import com.hyu.property.domain.House;
+import com.hyu.property.domain.Unit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 小区楼栋 → 单元 → 房产拓扑快照
+ * <p>
+ * 快照构建后不可变，由 {@link EstateTopologyCache} 整体替换。楼栋、单元、房产各自按下标存放在数组中，
+ * 主键到下标经 {@link LongIndexMap} 映射，父子关系以下标数组表示，名称解析、房间编号查ID均为O(1)。
+ * <p>
+ * 名称解析包含已删除的记录（历史账单、投诉仍引用它们），房间编号查询与"楼栋/单元下的房产"只包含未删除的房产。
+ *
+ * @author hyu
+ */
+public final class EstateTopology {
+
+    private static final long[] EMPTY_IDS = new long[0];
+
+    private final long[] buildingIds;
+    private final String[] buildingNames;
+    private final LongIndexMap buildingIndex;
+
+    private final long[] unitIds;
+    private final String[] unitNames;
+    private final LongIndexMap unitIndex;
+
+    private final long[] houseIds;
+    private final String[] houseNos;
+    private final int[] houseBuilding;
+    private final int[] houseUnit;
+    private final LongIndexMap houseIndex;
+
+    /**
+     * 房间编号 → 房产下标（仅未删除房产）
+     */
+    private final Map<String, Integer> houseNoIndex;
+
+    /**
+     * 楼栋下标 → 房产ID（仅未删除房产）
+     */
+    private final long[][] buildingHouseIds;
+
+    /**
+     * 单元下标 → 房产ID（仅未删除房产）
+     */
+    private final long[][] unitHouseIds;
+
+    private EstateTopology(List<Building> buildings, List<Unit> units, List<House> houses) {
+        buildingIds = new long[buildings.size()];
+        buildingNames = new String[buildings.size()];
+        for (int i = 0; i < buildings.size(); i++) {
+            buildingIds[i] = buildings.get(i).getId();
+            buildingNames[i] = buildings.get(i).getBuildingName();
+        }
+        buildingIndex = new LongIndexMap(buildingIds);
+
+        unitIds = new long[units.size()];
+        unitNames = new String[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            unitIds[i] = units.get(i).getId();
+            unitNames[i] = units.get(i).getUnitName();
+        }
+        unitIndex = new LongIndexMap(unitIds);
+
+        houseIds = new long[houses.size()];
+        houseNos = new String[houses.size()];
+        houseBuilding = new int[houses.size()];
+        houseUnit = new int[houses.size()];
+        houseNoIndex = new HashMap<>(houses.size() * 2);
+        int[] buildingHouseCount = new int[buildingIds.length];
+        int[] unitHouseCount = new int[unitIds.length];
+        for (int i = 0; i < houses.size(); i++) {
+            House house = houses.get(i);
+            houseIds[i] = house.getId();
+            houseNos[i] = house.getHouseNo();
+            houseBuilding[i] = house.getBuildingId() == null ? -1 : buildingIndex.get(house.getBuildingId());
+            houseUnit[i] = house.getUnitId() == null ? -1 : unitIndex.get(house.getUnitId());
+            if (isActive(house)) {
+                if (house.getHouseNo() != null) {
+                    houseNoIndex.putIfAbsent(house.getHouseNo(), i);
+                }
+                if (houseBuilding[i] >= 0) {
+                    buildingHouseCount[houseBuilding[i]]++;
+                }
+                if (houseUnit[i] >= 0) {
+                    unitHouseCount[houseUnit[i]]++;
+                }
+            }
+        }
+        houseIndex = new LongIndexMap(houseIds);
+
+        buildingHouseIds = new long[buildingIds.length][];
+        for (int b = 0; b < buildingIds.length; b++) {
+            buildingHouseIds[b] = new long[buildingHouseCount[b]];
+        }
+        unitHouseIds = new long[unitIds.length][];
+        for (int u = 0; u < unitIds.length; u++) {
+            unitHouseIds[u] = new long[unitHouseCount[u]];
+        }
+        int[] buildingFill = new int[buildingIds.length];
+        int[] unitFill = new int[unitIds.length];
+        for (int i = 0; i < houses.size(); i++) {
+            if (!isActive(houses.get(i))) {
+                continue;
+            }
+            if (houseBuilding[i] >= 0) {
+                buildingHouseIds[houseBuilding[i]][buildingFill[houseBuilding[i]]++] = houseIds[i];
+            }
+            if (houseUnit[i] >= 0) {
+                unitHouseIds[houseUnit[i]][unitFill[houseUnit[i]]++] = houseIds[i];
+            }
+        }
+    }
+
+    /**
+     * 由全量楼栋、单元、房产构建快照
+     *
+     * @param buildings 楼栋（需含id、buildingName）
+     * @param units 单元（需含id、unitName）
+     * @param houses 房产（需含id、houseNo、buildingId、unitId、deleted）
+     * @return 拓扑快照
+     */
+    public static EstateTopology build(List<Building> buildings, List<Unit> units, List<House> houses) {
+        return new EstateTopology(buildings, units, houses);
+    }
+
+    private static boolean isActive(House house) {
+        return house.getDeleted() == null || house.getDeleted() == 0;
+    }
+
+    /**
+     * 获取楼栋名称
+     *
+     * @param buildingId 楼栋ID
+     * @return 楼栋名称，楼栋不存在时返回null
+     */
+    public String getBuildingName(Long buildingId) {
+        int index = buildingId == null ? -1 : buildingIndex.get(buildingId);
+        return index < 0 ? null : buildingNames[index];
+    }
+
+    /**
+     * 获取单元名称
+     *
+     * @param unitId 单元ID
+     * @return 单元名称，单元不存在时返回null
+     */
+    public String getUnitName(Long unitId) {
+        int index = unitId == null ? -1 : unitIndex.get(unitId);
+        return index < 0 ? null : unitNames[index];
+    }
+
+    /**
+     * 获取房间编号
+     *
+     * @param houseId 房产ID
+     * @return 房间编号，房产不存在时返回null
+     */
+    public String getHouseNo(Long houseId) {
+        int index = houseId == null ? -1 : houseIndex.get(houseId);
+        return index < 0 ? null : houseNos[index];
+    }
+
+    /**
+     * 获取房产所在楼栋的名称
+     *
+     * @param houseId 房产ID
+     * @return 楼栋名称，房产或楼栋不存在时返回null
+     */
+    public String getHouseBuildingName(Long houseId) {
+        int index = houseId == null ? -1 : houseIndex.get(houseId);
+        return index < 0 || houseBuilding[index] < 0 ? null : buildingNames[houseBuilding[index]];
+    }
+
+    /**
+     * 根据房间编号查询房产ID
+     *
+     * @param houseNo 房间编号
+     * @return 房产ID，不存在时返回null
+     */
+    public Long findHouseIdByHouseNo(String houseNo) {
+        Integer index = houseNo == null ? null : houseNoIndex.get(houseNo);
+        return index == null ? null : houseIds[index];
+    }
+
+    /**
+     * 获取楼栋下的房产ID
+     *
+     * @param buildingId 楼栋ID
+     * @return 房产ID数组，调用方不得修改
+     */
+    public long[] getHouseIdsInBuilding(Long buildingId) {
+        int index = buildingId == null ? -1 : buildingIndex.get(buildingId);
+        return index < 0 ? EMPTY_IDS : buildingHouseIds[index];
+    }
+
+    /**
+     * 获取单元下的房产ID
+     *
+     * @param unitId 单元ID
+     * @return 房产ID数组，调用方不得修改
+     */
+    public long[] getHouseIdsInUnit(Long unitId) {
+        int index = unitId == null ? -1 : unitIndex.get(unitId);
+        return index < 0 ? EMPTY_IDS : unitHouseIds[index];
+    }
+
+    /**
+     * @return 楼栋数量（含已删除）
+     */
+    public int getBuildingCount() {
+        return buildingIds.length;
+    }
+
+    /**
+     * @return 单元数量（含已删除）
+     */
+    public int getUnitCount() {
+        return unitIds.length;
+    }
+
+    /**
+     * @return 房产数量（含已删除）
+     */
+    public int getHouseCount() {
+        return houseIds.length;
+    }
+}
@@ -0,0 +1,199 @@
+package com.hyu.property.topology;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.property.domain.Building;
+import com.hyu.property.domain.House;
+import com.hyu.property.domain.Unit;
+import com.hyu.property.mapper.BuildingMapper;
+import com.hyu.property.mapper.HouseMapper;
+import com.hyu.property.mapper.UnitMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 小区拓扑缓存
+ * <p>
+ * 本节点内存中持有一份不可变的 {@link EstateTopology} 快照，读取无锁。楼栋、单元、房产变更后（事务提交后）
+ * 变更计数加一并通过Redis发布通知，各节点在下一次读取时重新加载全量拓扑并整体替换引用（写时复制），
+ * 正在使用旧快照的线程不受影响。通知丢失时本节点最迟在刷新间隔后重新加载。
+ *
+ * @author hyu
+ */
+@Slf4j
+@Component
+public class EstateTopologyCache implements MessageListener {
+
+    /**
+     * 拓扑变更通知频道
+     */
+    private static final String TOPOLOGY_CHANNEL = "property:topology:channel";
+
+    /**
+     * 加载失败后的重试间隔（毫秒），期间继续使用旧快照
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 5000L;
+
+    /**
+     * 本节点标识，忽略自己发布的通知
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 变更计数，本节点或其他节点每次变更加一
+     */
+    private final AtomicLong changeVersion = new AtomicLong();
+
+    @Autowired
+    private BuildingMapper buildingMapper;
+
+    @Autowired
+    private UnitMapper unitMapper;
+
+    @Autowired
+    private HouseMapper houseMapper;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 快照刷新间隔（秒），发布订阅消息丢失时本节点最长的陈旧时间
+     */
+    @Value("${property.topology.refresh-interval:3600}")
+    private long refreshInterval;
+
+    private volatile EstateTopology topology;
+
+    /**
+     * 当前快照对应的变更计数
+     */
+    private volatile long loadedVersion = -1L;
+
+    private volatile long loadedAt;
+
+    private volatile long retryAt;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(TOPOLOGY_CHANNEL));
+    }
+
+    /**
+     * 获取当前拓扑快照，快照过期或已变更时重新加载
+     *
+     * @return 拓扑快照
+     */
+    public EstateTopology get() {
+        EstateTopology current = topology;
+        if (current != null && isFresh()) {
+            return current;
+        }
+        return reload();
+    }
+
+    /**
+     * 拓扑发生变更（楼栋、单元、房产新增、修改、删除）
+     * 在事务中调用时于事务提交后生效
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changed();
+                }
+            });
+        } else {
+            changed();
+        }
+    }
+
+    private boolean isFresh() {
+        long now = System.currentTimeMillis();
+        if (now < retryAt) {
+            return true;
+        }
+        return loadedVersion == changeVersion.get() && now - loadedAt < refreshInterval * 1000;
+    }
+
+    private synchronized EstateTopology reload() {
+        EstateTopology current = topology;
+        if (current != null && isFresh()) {
+            // 等待锁期间已由其他线程重新加载
+            return current;
+        }
+        long version = changeVersion.get();
+        try {
+            EstateTopology loaded = load();
+            topology = loaded;
+            loadedVersion = version;
+            loadedAt = System.currentTimeMillis();
+            log.info("加载小区拓扑完成，楼栋：{}，单元：{}，房产：{}",
+                    loaded.getBuildingCount(), loaded.getUnitCount(), loaded.getHouseCount());
+            return loaded;
+        } catch (RuntimeException e) {
+            if (current == null) {
+                throw e;
+            }
+            retryAt = System.currentTimeMillis() + RETRY_INTERVAL_MILLIS;
+            log.warn("重新加载小区拓扑失败，继续使用旧快照", e);
+            return current;
+        }
+    }
+
+    private EstateTopology load() {
+        List<Building> buildings = buildingMapper.selectList(
+                new QueryWrapper<Building>().select("id", "building_name"));
+        List<Unit> units = unitMapper.selectList(
+                new QueryWrapper<Unit>().select("id", "unit_name"));
+        List<House> houses = houseMapper.selectList(
+                new QueryWrapper<House>().select("id", "house_no", "building_id", "unit_id", "deleted"));
+        return EstateTopology.build(buildings, units, houses);
+    }
+
+    private void changed() {
+        changeVersion.incrementAndGet();
+        try {
+            redisUtils.publish(TOPOLOGY_CHANNEL, nodeId);
+        } catch (Exception e) {
+            // 其他节点会在刷新间隔后重新加载
+            log.warn("发布小区拓扑变更通知失败", e);
+        }
+    }
+
+    /**
+     * 接收其他节点的拓扑变更通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body != null && !nodeId.equals(body.toString())) {
+                changeVersion.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("处理小区拓扑变更通知失败", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.hyu.property.topology;
+
+import java.util.Arrays;
+
+/**
+ * long主键到数组下标的只读哈希表（开放寻址、线性探测）
+ * <p>
+ * 构建完成后不再修改，可被多个线程并发读取；键和值都存放在基本类型数组中，不产生装箱对象。
+ *
+ * @author hyu
+ */
+final class LongIndexMap {
+
+    private final long[] keys;
+
+    private final int[] values;
+
+    private final int mask;
+
+    /**
+     * @param ids 主键数组，值为其在数组中的下标
+     */
+    LongIndexMap(long[] ids) {
+        int capacity = Integer.highestOneBit(Math.max(4, ids.length * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(values, -1);
+        for (int i = 0; i < ids.length; i++) {
+            int slot = slot(ids[i]);
+            while (values[slot] >= 0 && keys[slot] != ids[i]) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = ids[i];
+            values[slot] = i;
+        }
+    }
+
+    /**
+     * 查询主键对应的下标
+     *
+     * @param key 主键
+     * @return 下标，不存在时返回-1
+     */
+    int get(long key) {
+        int slot = slot(key);
+        while (values[slot] >= 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
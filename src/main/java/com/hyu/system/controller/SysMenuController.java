@@ -2,6 +2,7 @@ package com.hyu.system.controller;
 
 import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.utils.SecurityUtils;
+import com.hyu.framework.security.service.PermissionCatalog;
 import com.hyu.system.domain.SysMenu;
 import com.hyu.system.service.ISysMenuService;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -29,6 +31,9 @@ public class SysMenuController {
     @Autowired
     private ISysMenuService menuService;
 
+    @Autowired
+    private PermissionCatalog permissionCatalog;
+
     /**
      * 获取菜单列表
      */
@@ -158,6 +163,18 @@ public class SysMenuController {
         return AjaxResult.success(menuService.buildMenuTree(menus));
     }
 
+    /**
+     * 重新加载权限目录（角色菜单分配变更后调用）
+     */
+    @PostMapping("/perms/reload")
+    @PreAuthorize("@ss.hasPermi('system:menu:edit')")
+    public AjaxResult reloadPerms() {
+        log.info("重新加载权限目录");
+        // 各节点重新构建权限目录并清空本地登录用户缓存
+        Map<String, Object> result = permissionCatalog.reloadAll();
+        return AjaxResult.success("重新加载成功", result);
+    }
+
     /**
      * 返回AjaxResult
      */
@@ -5,6 +5,9 @@ import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.core.domain.PageResult;
 import com.hyu.common.utils.SecurityUtils;
 import com.hyu.common.utils.StringUtils;
+import com.hyu.framework.security.service.LoginUserCache;
+import com.hyu.framework.security.service.AttemptLimiter;
+import com.hyu.framework.security.service.PasswordHasher;
 import com.hyu.system.domain.SysUser;
 import com.hyu.system.service.ISysUserService;
 import com.hyu.property.service.IWalletService;
@@ -47,6 +50,15 @@ public class SysUserController {
     @Autowired
     private IWalletService walletService;
 
+    @Autowired
+    private LoginUserCache loginUserCache;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AttemptLimiter attemptLimiter;
+
     /**
      * 分页查询用户列表
      */
@@ -261,6 +273,42 @@ public class SysUserController {
         return AjaxResult.success(userService.getUserRoleIds(userId));
     }
 
+    /**
+     * 获取登录用户缓存命中统计
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("@ss.hasPermi('system:user:list')")
+    public AjaxResult getLoginUserCacheStats() {
+        return AjaxResult.success(loginUserCache.getStats());
+    }
+
+    /**
+     * 获取密码哈希执行器统计
+     */
+    @GetMapping("/password-hasher/stats")
+    @PreAuthorize("@ss.hasPermi('system:user:list')")
+    public AjaxResult getPasswordHasherStats() {
+        return AjaxResult.success(passwordHasher.getStats());
+    }
+
+    /**
+     * 压测密码校验吞吐量（仅管理员，需配置开启；占满CPU，请在低峰期执行）
+     */
+    @PostMapping("/password-hasher/benchmark")
+    @PreAuthorize("@ss.isAdmin()")
+    public AjaxResult benchmarkPasswordHasher(@RequestParam(defaultValue = "3") Integer seconds) {
+        return AjaxResult.success(passwordHasher.benchmark(seconds));
+    }
+
+    /**
+     * 获取登录/支付密码失败限制统计
+     */
+    @GetMapping("/attempt-limiter/stats")
+    @PreAuthorize("@ss.hasPermi('system:user:list')")
+    public AjaxResult getAttemptLimiterStats() {
+        return AjaxResult.success(attemptLimiter.getStats());
+    }
+
     /**
      * 导出用户Excel
      */
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hyu.system.domain.SysMenu;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
 import java.util.Set;
@@ -56,6 +57,18 @@ public interface SysMenuMapper extends BaseMapper<SysMenu> {
      */
     List<String> selectMenuPermsByRoleId(Long roleId);
 
+    /**
+     * 根据角色标识查询权限
+     *
+     * @param roleKey 角色标识
+     * @return 权限列表
+     */
+    @Select("SELECT DISTINCT m.perms FROM sys_menu m " +
+            "INNER JOIN sys_role_menu rm ON rm.menu_id = m.id " +
+            "INNER JOIN sys_role r ON r.role_id = rm.role_id " +
+            "WHERE r.role_key = #{roleKey} AND m.perms IS NOT NULL AND m.perms <> ''")
+    List<String> selectMenuPermsByRoleKey(@Param("roleKey") String roleKey);
+
     /**
      * 根据用户ID查询菜单树信息
      *
@@ -1,7 +1,6 @@
 package com.hyu.system.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.util.StrUtil;
 import com.hyu.common.domain.LoginBody;
 import com.hyu.common.domain.LoginUser;
 import com.hyu.common.domain.RegisterBody;
@@ -9,11 +8,15 @@ import com.hyu.common.core.domain.AjaxResult;
 import com.hyu.common.exception.BusinessException;
 import com.hyu.common.utils.CaptchaUtils;
 import com.hyu.common.utils.JwtUtils;
-import com.hyu.common.utils.PasswordUtils;
 import com.hyu.common.utils.RedisUtils;
+import com.hyu.framework.security.service.AttemptLimiter;
+import com.hyu.framework.security.service.ClientIpResolver;
+import com.hyu.framework.security.service.PasswordHasher;
+import com.hyu.framework.security.service.TokenVersionService;
 import com.hyu.system.domain.SysUser;
 import com.hyu.system.service.IAuthService;
 import com.hyu.system.service.ISysUserService;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -55,13 +58,39 @@ public class AuthServiceImpl implements IAuthService {
     @Autowired
     private HttpServletRequest request;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AttemptLimiter attemptLimiter;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
     /**
      * Redis前缀
      */
     private static final String CAPTCHA_PREFIX = "captcha:";
-    private static final String TOKEN_BLACKLIST_PREFIX = "token:blacklist:";
     private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
 
+    /**
+     * 登录：同一用户名15分钟内失败5次锁定15分钟
+     */
+    private static final AttemptLimiter.Rule LOGIN_RULE = new AttemptLimiter.Rule("login", 5, 900, 900);
+
+    /**
+     * 登录：同一IP 15分钟内失败30次锁定15分钟，防止轮换用户名撞库
+     */
+    private static final AttemptLimiter.Rule LOGIN_IP_RULE = new AttemptLimiter.Rule("login-ip", 30, 900, 900);
+
+    /**
+     * 验证码：同一IP 10分钟内错误10次锁定10分钟
+     */
+    private static final AttemptLimiter.Rule CAPTCHA_IP_RULE = new AttemptLimiter.Rule("captcha-ip", 10, 600, 600);
+
     @Override
     public AjaxResult login(LoginBody loginBody) {
         // 验证码校验
@@ -69,6 +98,14 @@ public class AuthServiceImpl implements IAuthService {
             validateCaptcha(loginBody.getCaptcha());
         }
 
+        // 失败次数限制：按用户名和IP分别计数
+        String username = loginBody.getUsername();
+        String ip = getClientIP();
+        if (attemptLimiter.getLockRemaining(LOGIN_RULE, username) > 0
+                || attemptLimiter.getLockRemaining(LOGIN_IP_RULE, ip) > 0) {
+            throw new BusinessException("登录失败次数过多，请" + LOGIN_RULE.getLockMinutes() + "分钟后再试", 1003);
+        }
+
         // 用户认证
         Authentication authentication;
         try {
@@ -79,12 +116,19 @@ public class AuthServiceImpl implements IAuthService {
                     )
             );
         } catch (BadCredentialsException e) {
+            attemptLimiter.recordFailure(LOGIN_IP_RULE, ip);
+            int remaining = attemptLimiter.recordFailure(LOGIN_RULE, username);
+            if (remaining <= 0) {
+                throw new BusinessException("登录失败次数过多，请" + LOGIN_RULE.getLockMinutes() + "分钟后再试", 1003);
+            }
             throw new BusinessException("用户名或密码错误", 1001);
         } catch (Exception e) {
             log.error("用户认证失败", e);
             throw new BusinessException("认证失败", 1001);
         }
 
+        attemptLimiter.reset(LOGIN_RULE, username);
+
         // 获取用户信息
         LoginUser loginUser = (LoginUser) authentication.getPrincipal();
         SysUser user = userService.getById(loginUser.getUserId());
@@ -93,17 +137,19 @@ public class AuthServiceImpl implements IAuthService {
             throw new BusinessException("账号已被禁用", 1002);
         }
 
-        // 生成token
+        // 生成token（携带用户当前的token版本号）
+        long tokenVersion = tokenVersionService.getVersion(user.getUserId());
         String token = jwtUtils.generateToken(
                 user.getUserId(),
                 user.getUsername(),
                 user.getRealName(),
                 user.getUserType(),
-                null // 数据库中不存在deptId字段，传入null
+                null, // 数据库中不存在deptId字段，传入null
+                tokenVersion
         );
 
         // 生成刷新token
-        String refreshToken = jwtUtils.generateRefreshToken(user.getUserId());
+        String refreshToken = jwtUtils.generateRefreshToken(user.getUserId(), tokenVersion);
 
         // 存储刷新token到Redis
         redisUtils.set(REFRESH_TOKEN_PREFIX + user.getUserId(), refreshToken, 7 * 24 * 60 * 60);
@@ -126,12 +172,20 @@ public class AuthServiceImpl implements IAuthService {
     @Override
     public AjaxResult register(RegisterBody registerBody) {
         // 校验验证码
+        String ip = getClientIP();
+        if (attemptLimiter.getLockRemaining(CAPTCHA_IP_RULE, ip) > 0) {
+            throw new BusinessException("验证码错误次数过多，请" + CAPTCHA_IP_RULE.getLockMinutes() + "分钟后再试", 1201);
+        }
         String captchaKey = CAPTCHA_PREFIX + registerBody.getCaptchaKey();
         String storedCaptcha = (String) redisUtils.get(captchaKey);
+        // 验证码只能校验一次，校验失败须重新获取，避免对同一验证码反复猜测
+        if (storedCaptcha != null) {
+            redisUtils.delete(captchaKey);
+        }
         if (!CaptchaUtils.validateCaptcha(registerBody.getCaptchaKey(), registerBody.getCaptchaCode(), storedCaptcha)) {
+            attemptLimiter.recordFailure(CAPTCHA_IP_RULE, ip);
             throw new BusinessException("验证码错误", 1201);
         }
-        redisUtils.delete(captchaKey);
 
         // 校验两次密码是否一致
         if (!registerBody.getPassword().equals(registerBody.getConfirmPassword())) {
@@ -153,7 +207,7 @@ public class AuthServiceImpl implements IAuthService {
         // 创建用户
         SysUser user = new SysUser();
         user.setUsername(registerBody.getUsername());
-        user.setPassword(PasswordUtils.encode(registerBody.getPassword()));
+        user.setPassword(passwordHasher.encode(registerBody.getPassword()));
         user.setRealName(registerBody.getRealName());
         user.setPhone(registerBody.getPhone());
         user.setUserType(3); // 默认为业主
@@ -172,11 +226,8 @@ public class AuthServiceImpl implements IAuthService {
         if (authentication != null && authentication.getPrincipal() instanceof LoginUser) {
             LoginUser loginUser = (LoginUser) authentication.getPrincipal();
 
-            // 将token加入黑名单
-            String token = getTokenFromRequest();
-            if (StringUtils.hasText(token)) {
-                redisUtils.set(TOKEN_BLACKLIST_PREFIX + token, "1", jwtUtils.getExpirationTime(token));
-            }
+            // token版本号加一，该用户已签发的所有token（含其他设备）立即失效
+            tokenVersionService.revokeAll(loginUser.getUserId());
 
             // 删除刷新token
             redisUtils.delete(REFRESH_TOKEN_PREFIX + loginUser.getUserId());
@@ -195,13 +246,19 @@ public class AuthServiceImpl implements IAuthService {
         }
 
         try {
-            // 验证刷新token
-            if (!jwtUtils.isRefreshToken(refreshToken)) {
+            // 验证刷新token（只解析验证一次）
+            Claims claims = jwtUtils.parseOnce(refreshToken);
+            if (!"refresh".equals(claims.get("type"))) {
                 throw new BusinessException("无效的刷新令牌", 1005);
             }
 
             // 获取用户ID
-            Long userId = jwtUtils.getUserIdFromToken(refreshToken);
+            Long userId = jwtUtils.getUserId(claims);
+
+            // 校验token版本号
+            if (!tokenVersionService.isCurrent(userId, jwtUtils.getTokenVersion(claims))) {
+                throw new BusinessException("刷新令牌已失效", 1005);
+            }
 
             // 验证Redis中的刷新token
             String storedRefreshToken = (String) redisUtils.get(REFRESH_TOKEN_PREFIX + userId);
@@ -220,16 +277,18 @@ public class AuthServiceImpl implements IAuthService {
             }
 
             // 生成新的token
+            long tokenVersion = tokenVersionService.getVersion(userId);
             String newToken = jwtUtils.generateToken(
                     user.getUserId(),
                     user.getUsername(),
                     user.getRealName(),
                     user.getUserType(),
-                    null // 数据库中不存在deptId字段，传入null
+                    null, // 数据库中不存在deptId字段，传入null
+                    tokenVersion
             );
 
             // 生成新的刷新token
-            String newRefreshToken = jwtUtils.generateRefreshToken(user.getUserId());
+            String newRefreshToken = jwtUtils.generateRefreshToken(user.getUserId(), tokenVersion);
 
             // 更新Redis中的刷新token
             redisUtils.set(REFRESH_TOKEN_PREFIX + userId, newRefreshToken, 7 * 24 * 60 * 60);
@@ -349,15 +408,16 @@ public class AuthServiceImpl implements IAuthService {
         }
 
         try {
-            // 检查token是否在黑名单中
-            if (redisUtils.hasKey(TOKEN_BLACKLIST_PREFIX + token)) {
+            // 验证token（只解析验证一次，过期token在解析时即抛出异常）
+            Claims claims = jwtUtils.parseOnce(token);
+            Long userId = jwtUtils.getUserId(claims);
+            String username = jwtUtils.getUsername(claims);
+
+            // 检查token版本号是否已被注销
+            if (!tokenVersionService.isCurrent(userId, jwtUtils.getTokenVersion(claims))) {
                 return AjaxResult.error(1005, "Token已失效");
             }
 
-            // 验证token
-            Long userId = jwtUtils.getUserIdFromToken(token);
-            String username = jwtUtils.getUsernameFromToken(token);
-
             // 检查用户是否存在且状态正常
             SysUser user = userService.selectUserByUsername(username);
             if (user == null || user.getStatus() == 0) {
@@ -365,7 +425,8 @@ public class AuthServiceImpl implements IAuthService {
             }
 
             // 检查token是否过期
-            if (jwtUtils.isTokenExpired(token)) {
+            long expiresIn = jwtUtils.getExpirationTime(claims);
+            if (expiresIn <= 0) {
                 return AjaxResult.error(1004, "Token已过期");
             }
 
@@ -373,7 +434,7 @@ public class AuthServiceImpl implements IAuthService {
             result.put("valid", true);
             result.put("userId", userId);
             result.put("username", username);
-            result.put("expireTime", System.currentTimeMillis() + jwtUtils.getExpirationTime(token) * 1000);
+            result.put("expireTime", System.currentTimeMillis() + expiresIn * 1000);
 
             return AjaxResult.success("Token有效", result);
         } catch (Exception e) {
@@ -626,23 +687,7 @@ public class AuthServiceImpl implements IAuthService {
      * @return IP地址
      */
     private String getClientIP() {
-        String ip = request.getHeader("x-forwarded-for");
-        if (StrUtil.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (StrUtil.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (StrUtil.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("HTTP_CLIENT_IP");
-        }
-        if (StrUtil.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("HTTP_X_FORWARDED_FOR");
-        }
-        if (StrUtil.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        return ip;
+        return clientIpResolver.resolve(request);
     }
 
     /**
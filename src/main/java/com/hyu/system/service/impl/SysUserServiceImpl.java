@@ -3,7 +3,9 @@ package com.hyu.system.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hyu.common.exception.BusinessException;
-import com.hyu.common.utils.PasswordUtils;
+import com.hyu.framework.security.service.LoginUserCache;
+import com.hyu.framework.security.service.PasswordHasher;
+import com.hyu.framework.security.service.TokenVersionService;
 import com.hyu.system.domain.SysUser;
 import com.hyu.system.mapper.SysUserMapper;
 import com.hyu.system.mapper.SysUserRoleMapper;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -28,6 +31,15 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
     @Autowired
     private SysUserRoleMapper userRoleMapper;
 
+    @Autowired
+    private LoginUserCache loginUserCache;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     @Override
     public SysUser selectUserByUsername(String username) {
         if (!StringUtils.hasText(username)) {
@@ -87,7 +99,9 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             }
         }
 
-        return this.updateById(user);
+        boolean result = this.updateById(user);
+        loginUserCache.evict(user.getUserId());
+        return result;
     }
 
     @Override
@@ -102,15 +116,21 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         }
 
         // 验证旧密码
-        if (!PasswordUtils.matches(oldPassword, user.getPassword())) {
+        if (!passwordHasher.matches(oldPassword, user.getPassword())) {
             throw new BusinessException("原密码不正确");
         }
 
         // 加密新密码
-        String encryptedPassword = PasswordUtils.encode(newPassword);
+        String encryptedPassword = passwordHasher.encode(newPassword);
         user.setPassword(encryptedPassword);
 
-        return this.updateById(user);
+        boolean result = this.updateById(user);
+        loginUserCache.evict(userId);
+        // 密码变更后使该用户已签发的token全部失效
+        if (result) {
+            tokenVersionService.revokeAll(userId);
+        }
+        return result;
     }
 
     @Override
@@ -125,10 +145,16 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         }
 
         // 加密新密码
-        String encryptedPassword = PasswordUtils.encode(newPassword);
+        String encryptedPassword = passwordHasher.encode(newPassword);
         user.setPassword(encryptedPassword);
 
-        return this.updateById(user);
+        boolean result = this.updateById(user);
+        loginUserCache.evict(userId);
+        // 密码变更后使该用户已签发的token全部失效
+        if (result) {
+            tokenVersionService.revokeAll(userId);
+        }
+        return result;
     }
 
     @Override
@@ -192,6 +218,9 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
             return false;
         }
 
+        // 角色变更后权限随之变化，失效登录用户缓存
+        loginUserCache.evict(userId);
+
         // 先删除原有的用户角色关联
         userRoleMapper.deleteUserRoleByUserId(userId);
 
@@ -204,6 +233,13 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         return userRoleMapper.batchInsertUserRole(userId, roleIds) > 0;
     }
 
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        boolean result = super.removeByIds(list);
+        loginUserCache.evict(list);
+        return result;
+    }
+
     @Override
     public List<Long> getUserRoleIds(Long userId) {
         if (userId == null) {
@@ -0,0 +1,9 @@
+-- V10__Add_Notice_Read_Unique_Key.sql
+-- 公告阅读记录按 (notice_id, user_id) 唯一：阅读记录改为定时批量 INSERT IGNORE 写入，
+-- 由唯一键去重，插入影响的行数即为新增的阅读人数，据此累加公告阅读次数
+
+-- 清理并发标记已读产生的重复记录，保留最早的一条
+DELETE r1 FROM notice_read r1
+JOIN notice_read r2 ON r1.notice_id = r2.notice_id AND r1.user_id = r2.user_id AND r1.id > r2.id;
+
+ALTER TABLE notice_read ADD UNIQUE KEY uk_notice_read_notice_user (notice_id, user_id);
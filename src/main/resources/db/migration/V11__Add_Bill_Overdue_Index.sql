@@ -0,0 +1,5 @@
+-- V11__Add_Bill_Overdue_Index.sql
+-- 超期账单扫描按 bill_status = 1 与 due_date < 当前时间 键集分批读取 (due_date, id)，
+-- 每次扫描全部已到期的待缴费账单，不依赖上次扫描时间，该索引使扫描只触及需要标记超期的行
+
+CREATE INDEX idx_bill_status_due ON bill (bill_status, due_date, id);
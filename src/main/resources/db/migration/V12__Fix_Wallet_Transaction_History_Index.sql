@@ -0,0 +1,11 @@
+-- V12__Fix_Wallet_Transaction_History_Index.sql
+-- V5 的索引为 (user_id, create_time, transaction_type)，transaction_type 位于 create_time 与隐含主键之间，
+-- 无法按 ORDER BY create_time DESC, id DESC 顺序读取，每页都要对游标之前的全部记录排序。
+-- 改为 (user_id, create_time, id) 供游标分页直接按索引顺序读取；
+-- 按交易类型筛选时使用 (user_id, transaction_type, create_time, id)
+
+DROP INDEX idx_wallet_transaction_user_time ON wallet_transaction;
+
+CREATE INDEX idx_wallet_transaction_user_time ON wallet_transaction(user_id, create_time, id);
+
+CREATE INDEX idx_wallet_transaction_user_type_time ON wallet_transaction(user_id, transaction_type, create_time, id);
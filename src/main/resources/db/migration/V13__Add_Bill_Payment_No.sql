@@ -0,0 +1,7 @@
+-- V13__Add_Bill_Payment_No.sql
+-- 结算时将缴费单号（客户端缴费凭证或系统生成的单号）写入账单，
+-- 重复提交按 (user_id, payment_no) 查找首次结算的账单，对钱包、现金、转账、在线支付等各缴费方式均适用
+
+ALTER TABLE bill ADD COLUMN payment_no VARCHAR(32) NULL COMMENT '缴费单号' AFTER paid_time;
+
+CREATE INDEX idx_bill_user_payment_no ON bill (user_id, payment_no);
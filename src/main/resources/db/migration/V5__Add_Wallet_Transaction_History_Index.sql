@@ -0,0 +1,6 @@
+-- V5__Add_Wallet_Transaction_History_Index.sql
+-- 交易明细按 (user_id, create_time, id) 游标分页，替代 OFFSET 分页
+-- 索引包含 transaction_type，按类型筛选时在索引内过滤；InnoDB 二级索引自带主键 id，
+-- 分页子查询只读索引即可定位本页记录ID，再按主键回表取本页数据
+
+CREATE INDEX idx_wallet_transaction_user_time ON wallet_transaction(user_id, create_time, transaction_type);
@@ -0,0 +1,40 @@
+-- V6__Create_Wallet_Reconcile_Tables.sql
+-- 钱包余额日快照与对账差异表
+-- 每日对账任务为每个钱包写入一条快照：快照余额 = 执行时的 wallet.balance，
+-- 预期余额 = 上一快照余额 + 上一快照之后的成功交易（按交易ID水位线增量累加），两者不一致时写入差异表
+
+CREATE TABLE IF NOT EXISTS wallet_balance_snapshot (
+    id BIGINT NOT NULL AUTO_INCREMENT COMMENT '快照ID',
+    snapshot_date DATE NOT NULL COMMENT '快照日期（对账的业务日期）',
+    wallet_id BIGINT NOT NULL COMMENT '钱包ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    balance DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '快照余额',
+    expected_balance DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '按交易记录推算的预期余额',
+    drift_amount DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '差异金额（快照余额 - 预期余额）',
+    last_transaction_id BIGINT NOT NULL DEFAULT 0 COMMENT '快照包含的最后一条交易记录ID',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_snapshot_wallet_date (wallet_id, snapshot_date),
+    KEY idx_snapshot_user_date (user_id, snapshot_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='钱包余额日快照';
+
+CREATE TABLE IF NOT EXISTS wallet_reconcile_drift (
+    id BIGINT NOT NULL AUTO_INCREMENT COMMENT '差异ID',
+    snapshot_date DATE NOT NULL COMMENT '快照日期',
+    wallet_id BIGINT NOT NULL COMMENT '钱包ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    previous_date DATE DEFAULT NULL COMMENT '上一快照日期，首次对账为空',
+    previous_balance DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '上一快照余额',
+    ledger_delta DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '上一快照之后的交易净额',
+    expected_balance DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '预期余额',
+    actual_balance DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '实际余额',
+    drift_amount DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '差异金额（实际 - 预期）',
+    handle_status TINYINT NOT NULL DEFAULT 0 COMMENT '处理状态：0-未处理，1-已处理',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_drift_wallet_date (wallet_id, snapshot_date),
+    KEY idx_drift_date_status (snapshot_date, handle_status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='钱包对账差异';
+
+-- 增量对账按钱包读取上一快照之后的交易记录（二级索引自带主键 id）
+CREATE INDEX idx_wallet_transaction_wallet ON wallet_transaction(wallet_id);
@@ -0,0 +1,7 @@
+-- V7__Add_Repair_Order_Worker_Index.sql
+-- 维修师傅工作台：按状态分组统计与按派单时间倒序分页都以 worker_id 为前缀
+-- 统计索引包含 order_status、finish_time，分组与今日/本月完工的条件求和只读索引
+-- 列表索引按 create_time 排序，分页取前N条无需对该师傅的全部工单排序
+
+CREATE INDEX idx_repair_order_worker_status ON repair_order(worker_id, deleted, order_status, finish_time);
+CREATE INDEX idx_repair_order_worker_time ON repair_order(worker_id, deleted, create_time);
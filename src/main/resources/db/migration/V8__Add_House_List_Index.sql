@@ -0,0 +1,5 @@
+-- V8__Add_House_List_Index.sql
+-- 房产列表按 (create_time, id) 倒序在数据库分页，支持偏移量与游标两种方式
+-- 分页子查询沿索引取本页ID后回表；InnoDB 二级索引自带主键 id，游标条件可直接在索引内定位
+
+CREATE INDEX idx_house_deleted_time ON house(deleted, create_time);
@@ -0,0 +1,25 @@
+-- V9__Create_Notice_Target_Table.sql
+-- 公告受众索引：发布范围中的楼栋、单元展开为 (notice_id, target_type, target_id) 行，
+-- 业主查询可见公告时按其当前房产所在的楼栋、单元走 idx_notice_target_target 索引，不再对逗号分隔字段 find_in_set 全表扫描
+-- 发布范围为全部（publish_scope = 1）的公告不写入本表
+
+CREATE TABLE IF NOT EXISTS notice_target (
+    notice_id BIGINT NOT NULL COMMENT '公告ID',
+    target_type TINYINT NOT NULL COMMENT '目标类型（1楼栋 2单元）',
+    target_id BIGINT NOT NULL COMMENT '楼栋ID或单元ID',
+    PRIMARY KEY (notice_id, target_type, target_id),
+    KEY idx_notice_target_target (target_type, target_id, notice_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='公告受众索引';
+
+-- 回填已有公告：指定楼栋范围同时包含楼栋和单元，指定单元范围只包含单元
+INSERT IGNORE INTO notice_target (notice_id, target_type, target_id)
+SELECT n.id, 1, b.id
+FROM notice n
+JOIN building b ON find_in_set(b.id, n.target_building_ids)
+WHERE n.deleted = 0 AND n.publish_scope = 2;
+
+INSERT IGNORE INTO notice_target (notice_id, target_type, target_id)
+SELECT n.id, 2, u.id
+FROM notice n
+JOIN unit u ON find_in_set(u.id, n.target_unit_ids)
+WHERE n.deleted = 0 AND n.publish_scope IN (2, 3);
@@ -0,0 +1,17 @@
+-- 添加业主导出权限
+
+-- 在业主管理菜单下添加导出按钮
+INSERT INTO `sys_menu` (`menu_name`, `parent_id`, `menu_type`, `path`, `perms`, `icon`, `order_num`, `status`, `create_by`, `create_time`, `update_by`, `update_time`)
+SELECT '业主导出', m.id, 'F', NULL, 'property:owner:export', '#', 5, 1, 'admin', NOW(), 'admin', NOW()
+FROM `sys_menu` m
+WHERE m.perms = 'property:owner:list' AND m.menu_type = 'C'
+  AND NOT EXISTS (SELECT 1 FROM `sys_menu` WHERE perms = 'property:owner:export')
+LIMIT 1;
+
+-- 为系统管理员（role_id = 1）和物业管理员（role_id = 2）分配业主导出权限
+INSERT INTO `sys_role_menu` (`role_id`, `menu_id`)
+SELECT r.role_id, m.id FROM `sys_menu` m
+CROSS JOIN (SELECT 1 AS role_id UNION ALL SELECT 2) r
+WHERE m.perms = 'property:owner:export' AND m.id NOT IN (
+    SELECT menu_id FROM `sys_role_menu` WHERE role_id = r.role_id
+);
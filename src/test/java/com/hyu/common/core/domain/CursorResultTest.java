@@ -0,0 +1,56 @@
+package com.hyu.common.core.domain;
+
+import com.hyu.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页结果测试
+ */
+class CursorResultTest {
+
+    @Test
+    void cursorRoundTrip() {
+        Date createTime = new Date(1_717_171_717_123L);
+        CursorResult.Position position = CursorResult.decodeCursor(CursorResult.encodeCursor(createTime, 42L));
+
+        assertEquals(createTime, position.getCreateTime());
+        assertEquals(Long.valueOf(42L), position.getId());
+    }
+
+    @Test
+    void cursorWithoutCreateTime() {
+        CursorResult.Position position = CursorResult.decodeCursor(CursorResult.encodeCursor(null, 7L));
+
+        assertNull(position.getCreateTime());
+        assertEquals(Long.valueOf(7L), position.getId());
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = CursorResult.encodeCursor(new Date(Long.MAX_VALUE / 2), Long.MAX_VALUE);
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        for (String cursor : Arrays.asList("!!!", "bm8tc2VwYXJhdG9y", "YWJjOjEyMw", "OnRlbg")) {
+            assertThrows(BusinessException.class, () -> CursorResult.decodeCursor(cursor), cursor);
+        }
+    }
+
+    @Test
+    void hasMoreFollowsNextCursor() {
+        CursorResult<String> last = CursorResult.build(Collections.singletonList("a"), null);
+        CursorResult<String> more = CursorResult.build(Collections.singletonList("a"), "next");
+
+        assertFalse(last.getHasMore());
+        assertTrue(more.getHasMore());
+        assertEquals("next", more.getNextCursor());
+    }
+}
@@ -0,0 +1,87 @@
+package com.hyu.common.domain;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 位图权限集合测试
+ */
+class PermissionSetTest {
+
+    private static final String[] NAMES = {"a:list", "a:add", "b:list", "b:remove"};
+
+    private static PermissionSet of(int... bitIndexes) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            index.put(NAMES[i], i);
+        }
+        BitSet bits = new BitSet();
+        for (int bit : bitIndexes) {
+            bits.set(bit);
+        }
+        return new PermissionSet(index, NAMES, bits);
+    }
+
+    @Test
+    void behavesAsSetOfGrantedNames() {
+        PermissionSet set = of(0, 2);
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains("a:list"));
+        assertTrue(set.contains("b:list"));
+        assertFalse(set.contains("a:add"));
+        assertFalse(set.contains("unknown"));
+        assertFalse(set.contains(1));
+        List<String> names = new ArrayList<>(set);
+        assertEquals(Arrays.asList("a:list", "b:list"), names);
+    }
+
+    @Test
+    void bitChecks() {
+        PermissionSet set = of(1, 3);
+
+        assertTrue(set.containsBit(1));
+        assertFalse(set.containsBit(0));
+        // 目录中不存在的权限编译为负下标
+        assertFalse(set.containsBit(-1));
+        assertTrue(set.containsAnyBit(new int[]{0, 3}));
+        assertFalse(set.containsAnyBit(new int[]{0, 2, -1}));
+        assertFalse(set.containsAnyBit(new int[0]));
+        assertTrue(set.containsAllBits(new int[]{1, 3}));
+        assertFalse(set.containsAllBits(new int[]{1, -1}));
+        assertTrue(set.containsAllBits(new int[0]));
+    }
+
+    @Test
+    void authoritiesMatchGrantedNames() {
+        PermissionSet set = of(0, 1, 3);
+
+        List<String> authorities = set.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+        assertEquals(new ArrayList<>(set), authorities);
+        assertThrows(UnsupportedOperationException.class, () -> set.getAuthorities().clear());
+    }
+
+    @Test
+    void copiesBitsOnConstruction() {
+        Map<String, Integer> index = new HashMap<>();
+        index.put("a:list", 0);
+        BitSet bits = new BitSet();
+        bits.set(0);
+        PermissionSet set = new PermissionSet(index, NAMES, bits);
+
+        bits.clear();
+        assertTrue(set.contains("a:list"));
+        assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,116 @@
+package com.hyu.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 编号生成器测试：位布局、单调性、时钟回拨和节点号校验
+ */
+class IdGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+
+    private static final long T0 = EPOCH + 86_400_000L;
+
+    @Test
+    void idLayoutIsTimeNodeSequence() {
+        AtomicLong clock = new AtomicLong(T0);
+        IdGenerator generator = new IdGenerator(5, clock::get);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertEquals(T0 - EPOCH, first >>> 22);
+        assertEquals(5, (first >>> 12) & 1023);
+        assertEquals(0, first & 4095);
+        assertEquals(1, second & 4095);
+        assertEquals(first >>> 12, second >>> 12);
+    }
+
+    @Test
+    void idsIncreaseAcrossMillisAndSequenceOverflow() {
+        AtomicLong clock = new AtomicLong(T0);
+        IdGenerator generator = new IdGenerator(1023, clock::get);
+
+        long previous = generator.nextId();
+        // 同一毫秒内超过4096个编号时序列号进位到下一毫秒
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 5000 == 0) {
+                clock.addAndGet(1);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, "编号未单调递增：" + previous + " -> " + id);
+            assertEquals(1023, (id >>> 12) & 1023);
+            previous = id;
+        }
+    }
+
+    @Test
+    void clockRollbackKeepsIssuingIncreasingIds() {
+        AtomicLong clock = new AtomicLong(T0);
+        IdGenerator generator = new IdGenerator(7, clock::get);
+
+        long beforeRollback = generator.nextId();
+        clock.set(T0 - 5_000);
+        long afterRollback = generator.nextId();
+
+        assertTrue(afterRollback > beforeRollback);
+        // 回拨期间沿用已发出的最大时间戳
+        assertEquals(T0 - EPOCH, afterRollback >>> 22);
+        assertEquals(1, afterRollback & 4095);
+
+        // 时钟追上后恢复使用真实时间
+        clock.set(T0 + 1);
+        long recovered = generator.nextId();
+        assertEquals(T0 + 1 - EPOCH, recovered >>> 22);
+        assertEquals(0, recovered & 4095);
+    }
+
+    @Test
+    void concurrentIdsAreUnique() throws Exception {
+        IdGenerator generator = new IdGenerator(3, System::currentTimeMillis);
+        int threads = 8;
+        int perThread = 20_000;
+        long[][] ids = new long[threads][perThread];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long[] out = ids[t];
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    out[i] = generator.nextId();
+                }
+            });
+            workers[t].start();
+        }
+        Set<Long> seen = new HashSet<>(threads * perThread * 2);
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            for (int i = 0; i < perThread; i++) {
+                if (i > 0) {
+                    assertTrue(ids[t][i] > ids[t][i - 1]);
+                }
+                assertTrue(seen.add(ids[t][i]), "重复编号：" + ids[t][i]);
+            }
+        }
+    }
+
+    @Test
+    void startupFailsWithoutNodeIdOrRedis() {
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(-1, System::currentTimeMillis).init());
+        assertThrows(IllegalStateException.class, () -> new IdGenerator(1024, System::currentTimeMillis).init());
+        assertDoesNotThrow(() -> new IdGenerator(0, System::currentTimeMillis).init());
+    }
+
+    @Test
+    void nextNoPrependsPrefix() {
+        IdGenerator generator = new IdGenerator(2, () -> T0);
+        String no = generator.nextNo("BIL");
+        assertTrue(no.startsWith("BIL"));
+        assertEquals(2, (Long.parseLong(no.substring(3)) >>> 12) & 1023);
+    }
+}
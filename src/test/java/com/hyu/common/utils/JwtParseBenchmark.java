@@ -0,0 +1,83 @@
+package com.hyu.common.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT认证过滤器解析开销基准
+ * <p>
+ * 对比每次请求重建密钥和解析器并验证签名、复用解析器验证签名、以及按token缓存已验证Claims三种方式。
+ * 运行：mvn test-compile 后以 test classpath 执行本类的 main 方法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "propertyManagement2025SecretKeyForJWTTokenGenerationAndAuthentication"
+            + "ThisIsASecureKeyThatMeetsHS512RequirementsWithMinimum64CharactersLength";
+
+    private JwtUtils jwtUtils;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 7_200_000L);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(jwtUtils, "claimsCacheSize", 10_000);
+        jwtUtils.init();
+        token = jwtUtils.generateToken(1L, "admin", "管理员", 1, 100L, 3L);
+    }
+
+    /**
+     * 每次请求重建密钥和解析器并验证签名
+     */
+    @Benchmark
+    public Claims rebuildParserEachRequest() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    /**
+     * 复用解析器，每次请求验证签名
+     */
+    @Benchmark
+    public Claims verifyEachRequest() {
+        return jwtUtils.getClaimsFromToken(token);
+    }
+
+    /**
+     * 过滤器当前路径：解析一次（命中已验证Claims缓存）并从Claims读取过期时间
+     */
+    @Benchmark
+    public boolean parseOnceCached() {
+        Claims claims = jwtUtils.parseOnce(token);
+        return jwtUtils.isExpired(claims) || jwtUtils.getUserId(claims) == null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtParseBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
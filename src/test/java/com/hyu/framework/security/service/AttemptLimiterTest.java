@@ -0,0 +1,78 @@
+package com.hyu.framework.security.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 失败尝试限制器测试：Redis不可用时的本地降级计数
+ */
+class AttemptLimiterTest {
+
+    private static final AttemptLimiter.Rule RULE = new AttemptLimiter.Rule("test", 3, 60, 120);
+
+    private AttemptLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        RedisTemplate<?, ?> redisTemplate = mock(RedisTemplate.class, invocation -> {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.callRealMethod();
+            }
+            throw new RedisConnectionFailureException("Redis不可用");
+        });
+        limiter = new AttemptLimiter();
+        ReflectionTestUtils.setField(limiter, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(limiter, "localSize", 100);
+    }
+
+    @Test
+    void locksAfterMaxFailures() {
+        assertEquals(0, limiter.getLockRemaining(RULE, "alice"));
+        assertEquals(2, limiter.recordFailure(RULE, "alice"));
+        assertEquals(1, limiter.recordFailure(RULE, "alice"));
+        assertEquals(0, limiter.recordFailure(RULE, "alice"));
+
+        long remaining = limiter.getLockRemaining(RULE, "alice");
+        assertTrue(remaining > 110 && remaining <= 120, "剩余锁定秒数：" + remaining);
+        // 其他对象不受影响
+        assertEquals(0, limiter.getLockRemaining(RULE, "bob"));
+    }
+
+    @Test
+    void resetClearsFailuresAndLock() {
+        limiter.recordFailure(RULE, "alice");
+        limiter.recordFailure(RULE, "alice");
+        limiter.recordFailure(RULE, "alice");
+
+        limiter.reset(RULE, "alice");
+
+        assertEquals(0, limiter.getLockRemaining(RULE, "alice"));
+        assertEquals(2, limiter.recordFailure(RULE, "alice"));
+    }
+
+    @Test
+    void nullSubjectIsNeverCounted() {
+        assertEquals(3, limiter.recordFailure(RULE, null));
+        assertEquals(0, limiter.getLockRemaining(RULE, null));
+    }
+
+    @Test
+    void statsCountRedisErrorsAndLockouts() {
+        limiter.recordFailure(RULE, "alice");
+        limiter.recordFailure(RULE, "alice");
+        limiter.recordFailure(RULE, "alice");
+        limiter.getLockRemaining(RULE, "alice");
+
+        assertEquals(3L, limiter.getStats().get("failures"));
+        assertEquals(1L, limiter.getStats().get("lockouts"));
+        assertEquals(1L, limiter.getStats().get("rejections"));
+        assertTrue((Long) limiter.getStats().get("redisErrors") >= 4L);
+        assertEquals(1, limiter.getStats().get("localEntries"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.hyu.framework.security.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientIpResolverTest {
+
+    private ClientIpResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new ClientIpResolver();
+        ReflectionTestUtils.setField(resolver, "trustedProxies", "127.0.0.1,10.0.0.0/8,::1");
+        resolver.init();
+    }
+
+    @Test
+    void parseAcceptsIpLiterals() {
+        assertArrayEquals(new byte[]{(byte) 192, (byte) 168, 0, 1}, ClientIpResolver.parse("192.168.0.1"));
+        byte[] loopback = new byte[16];
+        loopback[15] = 1;
+        assertArrayEquals(loopback, ClientIpResolver.parse("::1"));
+        byte[] mapped = ClientIpResolver.parse("::ffff:10.1.2.3");
+        assertNotNull(mapped);
+        assertEquals((byte) 0xff, mapped[10]);
+        assertEquals(10, mapped[12]);
+        assertEquals(3, mapped[15]);
+        assertNotNull(ClientIpResolver.parse("2001:db8:0:0:0:0:0:1"));
+        assertNotNull(ClientIpResolver.parse("fe80::"));
+    }
+
+    @Test
+    void parseRejectsNonLiterals() {
+        assertNull(ClientIpResolver.parse("localhost"));
+        assertNull(ClientIpResolver.parse("cafe.bad"));
+        assertNull(ClientIpResolver.parse("1.2.3"));
+        assertNull(ClientIpResolver.parse("1.2.3.256"));
+        assertNull(ClientIpResolver.parse("1..2.3"));
+        assertNull(ClientIpResolver.parse("1::2::3"));
+        assertNull(ClientIpResolver.parse("1:2:3:4:5:6:7"));
+        assertNull(ClientIpResolver.parse("12345::1"));
+        assertNull(ClientIpResolver.parse(""));
+    }
+
+    @Test
+    void ignoresForwardedHeaderFromUntrustedPeer() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Forwarded-For", "1.1.1.1");
+        assertEquals("203.0.113.7", resolver.resolve(request));
+    }
+
+    @Test
+    void takesRightMostUntrustedHopBehindTrustedProxies() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("127.0.0.1");
+        request.addHeader("X-Forwarded-For", "6.6.6.6, 198.51.100.2, 10.1.2.3");
+        assertEquals("198.51.100.2", resolver.resolve(request));
+    }
+
+    @Test
+    void fallsBackToPeerWhenWholeChainIsTrusted() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("::1");
+        request.addHeader("X-Forwarded-For", "10.0.0.5");
+        assertEquals("::1", resolver.resolve(request));
+    }
+}
@@ -0,0 +1,223 @@
+package com.hyu.property.service.impl;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.hyu.common.exception.BusinessException;
+import com.hyu.common.utils.IdGenerator;
+import com.hyu.property.domain.Wallet;
+import com.hyu.property.domain.WalletTransaction;
+import com.hyu.property.mapper.WalletMapper;
+import com.hyu.property.mapper.WalletTransactionMapper;
+import com.hyu.property.service.IOwnerSummaryService;
+import com.hyu.property.service.IWalletLedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 钱包账务并发测试：同一钱包上数百笔并行扣款/充值后余额与交易流水一致
+ */
+@SpringBootTest(classes = WalletLedgerConcurrencyTest.TestConfig.class, properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:wallet_ledger;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/h2/wallet-schema.sql",
+        "mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+        "logging.level.com.hyu=info",
+        "id-generator.node-id=1"
+})
+class WalletLedgerConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    private static final BigDecimal ONE = new BigDecimal("1.00");
+
+    private static final AtomicInteger NEXT_USER_ID = new AtomicInteger(1000);
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            TransactionAutoConfiguration.class, SqlInitializationAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+    @MapperScan("com.hyu.property.mapper")
+    @Import({WalletLedgerServiceImpl.class, IdGenerator.class})
+    static class TestConfig {
+    }
+
+    @MockBean
+    private IOwnerSummaryService ownerSummaryService;
+
+    @Autowired
+    private IWalletLedgerService walletLedgerService;
+
+    @Autowired
+    private WalletMapper walletMapper;
+
+    @Autowired
+    private WalletTransactionMapper walletTransactionMapper;
+
+    private ExecutorService pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void parallelDebitsNeverOverdrawAndMatchLedger() throws Exception {
+        Wallet wallet = createWallet(new BigDecimal("200.00"));
+        int attempts = 300;
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        runConcurrently(attempts, i -> {
+            try {
+                walletLedgerService.debit(wallet.getUserId(), ONE, null, "并发扣款");
+                succeeded.incrementAndGet();
+            } catch (BusinessException e) {
+                if ("钱包余额不足".equals(e.getMessage())) {
+                    rejected.incrementAndGet();
+                } else {
+                    unexpected.add(e);
+                }
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "意外异常：" + unexpected);
+        assertEquals(200, succeeded.get());
+        assertEquals(100, rejected.get());
+
+        Wallet after = walletMapper.selectById(wallet.getId());
+        assertEquals(0, after.getBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(0, after.getTotalConsume().compareTo(new BigDecimal("200.00")));
+
+        List<WalletTransaction> transactions = transactionsOf(wallet);
+        assertEquals(200, transactions.size());
+        assertLedgerConsistent(new BigDecimal("200.00"), after.getBalance(), transactions);
+
+        // 扣款在行锁上串行执行，每笔的变动后余额互不相同
+        Set<BigDecimal> balancesAfter = new HashSet<>();
+        for (WalletTransaction transaction : transactions) {
+            balancesAfter.add(transaction.getBalanceAfter().stripTrailingZeros());
+        }
+        assertEquals(200, balancesAfter.size());
+    }
+
+    @Test
+    void parallelCreditsAndDebitsHaveNoDrift() throws Exception {
+        BigDecimal initial = new BigDecimal("50.00");
+        Wallet wallet = createWallet(initial);
+        int attempts = 400;
+
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        runConcurrently(attempts, i -> {
+            try {
+                if (i % 2 == 0) {
+                    walletLedgerService.credit(wallet.getUserId(), ONE, "并发充值");
+                } else {
+                    walletLedgerService.debit(wallet.getUserId(), new BigDecimal("1.50"), null, "并发扣款");
+                }
+            } catch (BusinessException e) {
+                if (!"钱包余额不足".equals(e.getMessage())) {
+                    unexpected.add(e);
+                }
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "意外异常：" + unexpected);
+        Wallet after = walletMapper.selectById(wallet.getId());
+        assertTrue(after.getBalance().signum() >= 0);
+
+        List<WalletTransaction> transactions = transactionsOf(wallet);
+        assertEquals(attempts / 2, transactions.stream().filter(t -> t.getTransactionType() == 1).count());
+        assertLedgerConsistent(initial, after.getBalance(), transactions);
+        assertEquals(0, after.getBalance().compareTo(initial.add(after.getTotalRecharge()).subtract(after.getTotalConsume())));
+    }
+
+    /**
+     * 期初余额 + 流水净额 = 期末余额，且每条流水的变动前后余额与金额相符
+     */
+    private void assertLedgerConsistent(BigDecimal initial, BigDecimal finalBalance, List<WalletTransaction> transactions) {
+        BigDecimal net = BigDecimal.ZERO;
+        for (WalletTransaction transaction : transactions) {
+            BigDecimal signed = transaction.getTransactionType() == 1 ? transaction.getAmount() : transaction.getAmount().negate();
+            net = net.add(signed);
+            assertEquals(0, transaction.getBalanceBefore().add(signed).compareTo(transaction.getBalanceAfter()));
+            assertTrue(transaction.getBalanceAfter().signum() >= 0);
+        }
+        assertEquals(0, initial.add(net).compareTo(finalBalance));
+    }
+
+    private Wallet createWallet(BigDecimal balance) {
+        Wallet wallet = new Wallet();
+        wallet.setUserId((long) NEXT_USER_ID.incrementAndGet());
+        wallet.setBalance(balance);
+        wallet.setTotalRecharge(BigDecimal.ZERO);
+        wallet.setTotalConsume(BigDecimal.ZERO);
+        wallet.setStatus(1);
+        wallet.setVersion(0);
+        walletMapper.insert(wallet);
+        return wallet;
+    }
+
+    private List<WalletTransaction> transactionsOf(Wallet wallet) {
+        return walletTransactionMapper.selectList(new QueryWrapper<WalletTransaction>().eq("wallet_id", wallet.getId()));
+    }
+
+    private void runConcurrently(int tasks, IntTask task) throws Exception {
+        pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(index);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntTask {
+        void run(int index);
+    }
+}
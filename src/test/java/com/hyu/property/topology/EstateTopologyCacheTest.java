@@ -0,0 +1,166 @@
+package com.hyu.property.topology;
+
+import com.hyu.common.utils.RedisUtils;
+import com.hyu.property.domain.House;
+import com.hyu.property.mapper.BuildingMapper;
+import com.hyu.property.mapper.HouseMapper;
+import com.hyu.property.mapper.UnitMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hyu.property.topology.EstateTopologyTest.building;
+import static com.hyu.property.topology.EstateTopologyTest.house;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 小区拓扑缓存测试：快照重建与失效
+ */
+class EstateTopologyCacheTest {
+
+    private BuildingMapper buildingMapper;
+
+    private UnitMapper unitMapper;
+
+    private HouseMapper houseMapper;
+
+    private RedisUtils redisUtils;
+
+    private EstateTopologyCache cache;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() {
+        buildingMapper = mock(BuildingMapper.class);
+        unitMapper = mock(UnitMapper.class);
+        houseMapper = mock(HouseMapper.class);
+        redisUtils = mock(RedisUtils.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) new StringRedisSerializer());
+
+        when(buildingMapper.selectList(any())).thenReturn(Collections.singletonList(building(1L, "1号楼")));
+        when(unitMapper.selectList(any())).thenReturn(Collections.emptyList());
+        houses(house(100L, "1-1-101", 1L, null, 0));
+
+        cache = new EstateTopologyCache();
+        ReflectionTestUtils.setField(cache, "buildingMapper", buildingMapper);
+        ReflectionTestUtils.setField(cache, "unitMapper", unitMapper);
+        ReflectionTestUtils.setField(cache, "houseMapper", houseMapper);
+        ReflectionTestUtils.setField(cache, "redisUtils", redisUtils);
+        ReflectionTestUtils.setField(cache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cache, "refreshInterval", 3600L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadsOnceAndReusesSnapshot() {
+        EstateTopology first = cache.get();
+        EstateTopology second = cache.get();
+
+        assertSame(first, second);
+        assertEquals("1-1-101", first.getHouseNo(100L));
+        verify(houseMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void invalidateRebuildsOnNextRead() {
+        EstateTopology before = cache.get();
+        houses(house(100L, "1-1-101", 1L, null, 0), house(101L, "1-1-102", 1L, null, 0));
+
+        cache.invalidate();
+        EstateTopology after = cache.get();
+
+        assertNotSame(before, after);
+        assertEquals(Long.valueOf(101L), after.findHouseIdByHouseNo("1-1-102"));
+        assertNull(before.findHouseIdByHouseNo("1-1-102"));
+        verify(redisUtils).publish(anyString(), any());
+    }
+
+    @Test
+    void invalidateInTransactionTakesEffectAfterCommit() {
+        EstateTopology before = cache.get();
+        houses(house(101L, "1-1-102", 1L, null, 0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate();
+        // 提交前其他读取仍使用旧快照，不会读到未提交的数据
+        assertSame(before, cache.get());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        EstateTopology after = cache.get();
+        assertNotSame(before, after);
+        assertEquals(Long.valueOf(101L), after.findHouseIdByHouseNo("1-1-102"));
+    }
+
+    @Test
+    void notificationFromOtherNodeInvalidates() {
+        EstateTopology before = cache.get();
+
+        cache.onMessage(message("other-node"), null);
+
+        assertNotSame(before, cache.get());
+        verify(houseMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void ownNotificationIsIgnored() {
+        EstateTopology before = cache.get();
+        String nodeId = (String) ReflectionTestUtils.getField(cache, "nodeId");
+
+        cache.onMessage(message(nodeId), null);
+
+        assertSame(before, cache.get());
+    }
+
+    @Test
+    void failedReloadKeepsPreviousSnapshot() {
+        EstateTopology before = cache.get();
+        when(houseMapper.selectList(any())).thenThrow(new IllegalStateException("数据库不可用"));
+
+        cache.invalidate();
+        assertSame(before, cache.get());
+        // 重试间隔内不再重复加载
+        assertSame(before, cache.get());
+        verify(houseMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void firstLoadFailurePropagates() {
+        when(houseMapper.selectList(any())).thenThrow(new IllegalStateException("数据库不可用"));
+
+        assertThrows(IllegalStateException.class, () -> cache.get());
+    }
+
+    private void houses(House... houses) {
+        when(houseMapper.selectList(any())).thenReturn(Arrays.asList(houses));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("property:topology:channel".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,117 @@
+package com.hyu.property.topology;
+
+import com.hyu.property.domain.Building;
+import com.hyu.property.domain.House;
+import com.hyu.property.domain.Unit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 小区拓扑快照测试
+ */
+class EstateTopologyTest {
+
+    static Building building(long id, String name) {
+        Building building = new Building();
+        building.setId(id);
+        building.setBuildingName(name);
+        return building;
+    }
+
+    static Unit unit(long id, String name) {
+        Unit unit = new Unit();
+        unit.setId(id);
+        unit.setUnitName(name);
+        return unit;
+    }
+
+    static House house(long id, String houseNo, Long buildingId, Long unitId, Integer deleted) {
+        House house = new House();
+        house.setId(id);
+        house.setHouseNo(houseNo);
+        house.setBuildingId(buildingId);
+        house.setUnitId(unitId);
+        house.setDeleted(deleted);
+        return house;
+    }
+
+    private static EstateTopology sample() {
+        return EstateTopology.build(
+                Arrays.asList(building(1L, "1号楼"), building(2L, "2号楼")),
+                Arrays.asList(unit(10L, "1单元"), unit(20L, "2单元")),
+                Arrays.asList(
+                        house(100L, "1-1-101", 1L, 10L, 0),
+                        house(101L, "1-1-102", 1L, 10L, null),
+                        house(102L, "1-2-101", 1L, 20L, 0),
+                        house(200L, "2-1-101", 2L, null, 0),
+                        // 已删除的房产仍可解析名称，但不参与编号查询和楼栋/单元归属
+                        house(300L, "1-1-103", 1L, 10L, 1),
+                        // 引用不存在的楼栋和单元
+                        house(400L, "X-101", 99L, 99L, 0)));
+    }
+
+    @Test
+    void resolvesNamesById() {
+        EstateTopology topology = sample();
+
+        assertEquals("1号楼", topology.getBuildingName(1L));
+        assertEquals("2单元", topology.getUnitName(20L));
+        assertEquals("1-2-101", topology.getHouseNo(102L));
+        assertEquals("2号楼", topology.getHouseBuildingName(200L));
+        assertEquals("1-1-103", topology.getHouseNo(300L));
+        assertEquals("1号楼", topology.getHouseBuildingName(300L));
+
+        assertNull(topology.getBuildingName(3L));
+        assertNull(topology.getBuildingName(null));
+        assertNull(topology.getUnitName(null));
+        assertNull(topology.getHouseNo(999L));
+        assertNull(topology.getHouseBuildingName(400L));
+    }
+
+    @Test
+    void findsOnlyActiveHousesByNumber() {
+        EstateTopology topology = sample();
+
+        assertEquals(Long.valueOf(101L), topology.findHouseIdByHouseNo("1-1-102"));
+        assertEquals(Long.valueOf(400L), topology.findHouseIdByHouseNo("X-101"));
+        assertNull(topology.findHouseIdByHouseNo("1-1-103"));
+        assertNull(topology.findHouseIdByHouseNo("不存在"));
+        assertNull(topology.findHouseIdByHouseNo(null));
+    }
+
+    @Test
+    void groupsActiveHousesByBuildingAndUnit() {
+        EstateTopology topology = sample();
+
+        assertArrayEquals(new long[]{100L, 101L, 102L}, topology.getHouseIdsInBuilding(1L));
+        assertArrayEquals(new long[]{200L}, topology.getHouseIdsInBuilding(2L));
+        assertArrayEquals(new long[]{100L, 101L}, topology.getHouseIdsInUnit(10L));
+        assertArrayEquals(new long[]{102L}, topology.getHouseIdsInUnit(20L));
+        assertEquals(0, topology.getHouseIdsInBuilding(99L).length);
+        assertEquals(0, topology.getHouseIdsInUnit(null).length);
+    }
+
+    @Test
+    void countsIncludeDeletedRecords() {
+        EstateTopology topology = sample();
+
+        assertEquals(2, topology.getBuildingCount());
+        assertEquals(2, topology.getUnitCount());
+        assertEquals(6, topology.getHouseCount());
+    }
+
+    @Test
+    void emptyTopology() {
+        EstateTopology topology = EstateTopology.build(Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList());
+
+        assertNull(topology.getBuildingName(1L));
+        assertNull(topology.findHouseIdByHouseNo("1-1-101"));
+        assertEquals(0, topology.getHouseIdsInBuilding(1L).length);
+        assertEquals(0, topology.getHouseCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.hyu.property.topology;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 主键下标映射测试
+ */
+class LongIndexMapTest {
+
+    @Test
+    void emptyMapFindsNothing() {
+        LongIndexMap map = new LongIndexMap(new long[0]);
+        assertEquals(-1, map.get(0L));
+        assertEquals(-1, map.get(42L));
+    }
+
+    @Test
+    void mapsEveryKeyToItsIndex() {
+        long[] ids = {0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 1024L, 2048L, 4096L};
+        LongIndexMap map = new LongIndexMap(ids);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, map.get(ids[i]));
+        }
+        assertEquals(-1, map.get(2L));
+        assertEquals(-1, map.get(-2L));
+    }
+
+    @Test
+    void randomKeysWithProbeChains() {
+        Random random = new Random(20240101L);
+        Set<Long> unique = new HashSet<>();
+        while (unique.size() < 50_000) {
+            unique.add(random.nextLong());
+        }
+        long[] ids = unique.stream().mapToLong(Long::longValue).toArray();
+        LongIndexMap map = new LongIndexMap(ids);
+
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, map.get(ids[i]));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextLong();
+            if (!unique.contains(key)) {
+                assertEquals(-1, map.get(key));
+            }
+        }
+    }
+
+    @Test
+    void sequentialIdsDoNotCluster() {
+        // 自增主键是最常见的输入
+        long[] ids = new long[100_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        LongIndexMap map = new LongIndexMap(ids);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, map.get(ids[i]));
+        }
+        assertEquals(-1, map.get(0L));
+        assertEquals(-1, map.get(ids.length + 1L));
+    }
+
+    @Test
+    void duplicateKeyKeepsLastIndex() {
+        LongIndexMap map = new LongIndexMap(new long[]{7L, 8L, 7L});
+        assertEquals(2, map.get(7L));
+        assertEquals(1, map.get(8L));
+    }
+}
@@ -0,0 +1,37 @@
+-- 钱包账务集成测试表结构（H2 MySQL兼容模式）
+DROP TABLE IF EXISTS wallet_transaction;
+DROP TABLE IF EXISTS wallet;
+
+CREATE TABLE wallet (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    balance DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+    total_recharge DECIMAL(12,2) DEFAULT 0.00,
+    total_consume DECIMAL(12,2) DEFAULT 0.00,
+    pay_password VARCHAR(100),
+    pay_password_error_count INT DEFAULT 0,
+    pay_password_lock_time DATETIME,
+    status TINYINT DEFAULT 1,
+    version INT DEFAULT 0,
+    password_status TINYINT DEFAULT 0,
+    create_time DATETIME,
+    update_time DATETIME,
+    CONSTRAINT uk_wallet_user UNIQUE (user_id)
+);
+
+CREATE TABLE wallet_transaction (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    transaction_no VARCHAR(64) NOT NULL,
+    user_id BIGINT NOT NULL,
+    wallet_id BIGINT NOT NULL,
+    transaction_type TINYINT NOT NULL,
+    amount DECIMAL(12,2) NOT NULL,
+    balance_before DECIMAL(12,2),
+    balance_after DECIMAL(12,2),
+    related_bill_id BIGINT,
+    related_order_no VARCHAR(64),
+    transaction_status TINYINT,
+    remark VARCHAR(500),
+    create_time DATETIME,
+    CONSTRAINT uk_wallet_transaction_no UNIQUE (transaction_no)
+);